@@ -288,7 +288,9 @@ public class AutocodeConcurrentApp {
 				"main/boofcv-feature/src/main/java/boofcv/alg/feature/detect/intensity/impl",
 				"main/boofcv-ip/src/main/java/boofcv/core/image/impl/",
 				"main/boofcv-ip/src/main/java/boofcv/alg/color/impl",
-				"main/boofcv-ip/src/main/java/boofcv/alg/enhance/impl/"
+				"main/boofcv-ip/src/main/java/boofcv/alg/enhance/impl/",
+				"main/boofcv-feature/src/main/java/boofcv/alg/background/stationary",
+				"main/boofcv-feature/src/main/java/boofcv/alg/background/moving"
 		};
 
 		String[] files = new String[]{
@@ -21,9 +21,11 @@ package boofcv.abst.geo.calibration;
 import boofcv.abst.geo.bundle.SceneStructureMetric;
 import boofcv.alg.geo.calibration.CalibrationObservation;
 import boofcv.alg.geo.calibration.CalibrationPlanarGridZhang99;
+import boofcv.alg.geo.calibration.CalibrationPlanarGridZhang99_MT;
 import boofcv.alg.geo.calibration.cameras.Zhang99Camera;
 import boofcv.alg.geo.calibration.cameras.Zhang99CameraBrown;
 import boofcv.alg.geo.calibration.cameras.Zhang99CameraUniversalOmni;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.struct.calib.CameraModel;
 import georegression.struct.point.Point2D_F64;
 
@@ -80,6 +82,9 @@ public class CalibrateMonoPlanar {
 
 	public PrintStream verbose = null;
 
+	// If true then the previous solution is used as the initial estimate when images have been added
+	protected boolean incremental = false;
+
 	// shape of the image
 	private int imageWidth;
 	private int imageHeight;
@@ -94,7 +99,7 @@ public class CalibrateMonoPlanar {
 	 */
 	public void configure( Zhang99Camera camera )
 	{
-		zhang99 = new CalibrationPlanarGridZhang99(layout,camera);
+		zhang99 = createZhang99(layout,camera);
 	}
 
 	public void configurePinhole(boolean assumeZeroSkew ,
@@ -103,14 +108,14 @@ public class CalibrateMonoPlanar {
 	{
 		Zhang99CameraBrown camera =
 				new Zhang99CameraBrown(assumeZeroSkew,includeTangential,numRadialParam);
-		zhang99 = new CalibrationPlanarGridZhang99(layout,camera);
+		zhang99 = createZhang99(layout,camera);
 	}
 
 	public void configureUniversalOmni(boolean assumeZeroSkew ,
 									   int numRadialParam ,
 									   boolean includeTangential )
 	{
-		zhang99 = new CalibrationPlanarGridZhang99(layout,
+		zhang99 = createZhang99(layout,
 				new Zhang99CameraUniversalOmni(assumeZeroSkew,includeTangential,numRadialParam));
 	}
 
@@ -119,10 +124,20 @@ public class CalibrateMonoPlanar {
 									   boolean includeTangential ,
 									   double mirrorOffset )
 	{
-		zhang99 = new CalibrationPlanarGridZhang99(layout,
+		zhang99 = createZhang99(layout,
 				new Zhang99CameraUniversalOmni(assumeZeroSkew,includeTangential,numRadialParam,mirrorOffset));
 	}
 
+	/**
+	 * Creates the calibration algorithm. The concurrent implementation is used if concurrency is turned on.
+	 */
+	protected CalibrationPlanarGridZhang99 createZhang99( List<Point2D_F64> layout , Zhang99Camera camera ) {
+		if( BoofConcurrency.USE_CONCURRENT )
+			return new CalibrationPlanarGridZhang99_MT(layout,camera);
+		else
+			return new CalibrationPlanarGridZhang99(layout,camera);
+	}
+
 	/**
 	 * Resets internal data structures.  Must call before adding images
 	 */
@@ -161,7 +176,8 @@ public class CalibrateMonoPlanar {
 		if( zhang99 == null )
 			throw new IllegalArgumentException("Please call configure first.");
 		zhang99.setVerbose(verbose,0);
-		if( !zhang99.process(observations) ) {
+		boolean success = incremental ? zhang99.processIncremental(observations) : zhang99.process(observations);
+		if( !success ) {
 			throw new RuntimeException("Zhang99 algorithm failed!");
 		}
 
@@ -201,6 +217,18 @@ public class CalibrateMonoPlanar {
 		this.zhang99.setRobust(robust);
 	}
 
+	/**
+	 * If true then when {@link #process} is called after images have been added the previous solution is
+	 * used as the initial estimate. Only the new images are initialized from scratch.
+	 */
+	public void setIncremental( boolean incremental ) {
+		this.incremental = incremental;
+	}
+
+	public boolean isIncremental() {
+		return incremental;
+	}
+
 	public SceneStructureMetric getStructure() {
 		return structure;
 	}
@@ -85,6 +85,15 @@ public class CalibrationObservation {
 		this.height = 0;
 	}
 
+	/**
+	 * Removes all the points and specifies the shape of the image the next points will be observed in
+	 */
+	public void reset( int width , int height ) {
+		points.clear();
+		this.width = width;
+		this.height = height;
+	}
+
 	public void sort() {
 		points.sort(Comparator.comparingInt(o -> o.index));
 	}
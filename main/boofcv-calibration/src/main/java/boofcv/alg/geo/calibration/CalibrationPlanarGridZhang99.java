@@ -19,15 +19,18 @@
 package boofcv.alg.geo.calibration;
 
 import boofcv.abst.geo.bundle.BundleAdjustment;
+import boofcv.abst.geo.bundle.BundleAdjustmentCamera;
 import boofcv.abst.geo.bundle.SceneObservations;
 import boofcv.abst.geo.bundle.SceneStructureMetric;
 import boofcv.abst.geo.calibration.ImageResults;
+import boofcv.alg.geo.PerspectiveOps;
 import boofcv.alg.geo.bundle.BundleAdjustmentMetricResidualFunction;
 import boofcv.alg.geo.bundle.CodecSceneStructureMetric;
 import boofcv.alg.geo.calibration.cameras.Zhang99Camera;
 import boofcv.factory.geo.ConfigBundleAdjustment;
 import boofcv.factory.geo.FactoryMultiView;
 import boofcv.struct.calib.CameraModel;
+import boofcv.struct.calib.CameraPinhole;
 import boofcv.struct.geo.PointIndex2D_F64;
 import georegression.struct.point.Point2D_F64;
 import georegression.struct.se.Se3_F64;
@@ -69,7 +72,7 @@ public class CalibrationPlanarGridZhang99 {
 	Zhang99Camera cameraGenerator;
 
 	// estimation algorithms
-	private Zhang99ComputeTargetHomography computeHomography;
+	Zhang99ComputeTargetHomography computeHomography;
 	private Zhang99CalibrationMatrixFromHomographies computeK;
 	private RadialDistortionEstimateLinear computeRadial;
 	private Zhang99DecomposeHomography decomposeH = new Zhang99DecomposeHomography();
@@ -89,6 +92,9 @@ public class CalibrationPlanarGridZhang99 {
 
 	private PrintStream verbose = null;
 
+	// Observations used in the most recent successful optimization. Used to warm start incremental processing.
+	private List<CalibrationObservation> processed = new ArrayList<>();
+
 	/**
 	 * Configures calibration process.
 	 *
@@ -130,26 +136,81 @@ public class CalibrationPlanarGridZhang99 {
 		if( !performBundleAdjustment())
 			return false;
 
+		processed = new ArrayList<>(observations);
 		return true;
 	}
 
 	/**
-	 * Find an initial estimate for calibration parameters using linear techniques.
+	 * <p>
+	 * Processes observations which have grown since the last time calibration was performed. If the first
+	 * observations are the same as the ones previously processed then the previously optimized camera and
+	 * view locations are used as the initial estimate. Only the new views are initialized using linear
+	 * estimation. This typically converges in far fewer iterations than starting from scratch. If the
+	 * observations are not an extension of the previous observations then {@link #process} is called.
+	 * </p>
+	 *
+	 * @param observations Set of observed grid locations in pixel coordinates.
+	 * @return true if successful and false if it failed
 	 */
-	protected boolean linearEstimate(List<CalibrationObservation> observations  )
-	{
+	public boolean processIncremental( List<CalibrationObservation> observations ) {
+		if( structure == null || !isExtension(observations) )
+			return process(observations);
+
+		int numPrevious = processed.size();
+
+		// Use the current camera model to get an estimate of the location for new views
+		CameraPinhole intrinsic = (CameraPinhole)getCameraModel();
+		DMatrixRMaj K = PerspectiveOps.pinholeToMatrix(intrinsic,(DMatrixRMaj)null);
+
 		status("Estimating Homographies");
+		List<CalibrationObservation> added = observations.subList(numPrevious,observations.size());
 		List<DMatrixRMaj> homographies = new ArrayList<>();
+		if( !computeHomographies(added,homographies) )
+			return false;
+
 		List<Se3_F64> motions = new ArrayList<>();
+		for (int i = 0; i < numPrevious; i++) {
+			motions.add(structure.views[i].worldToView.copy());
+		}
+		decomposeH.setCalibrationMatrix(K);
+		for( DMatrixRMaj H : homographies ) {
+			motions.add(decomposeH.decompose(H));
+		}
 
-		for( CalibrationObservation obs : observations ) {
-			if( !computeHomography.computeHomography(obs) )
-				return false;
+		createBundleStructure(motions,structure.cameras[0].model,observations);
+
+		status("Non-linear refinement");
+		if( !performBundleAdjustment())
+			return false;
 
-			DMatrixRMaj H = computeHomography.getHomography();
+		processed = new ArrayList<>(observations);
+		return true;
+	}
 
-			homographies.add(H);
+	/**
+	 * Returns true if the previously processed observations are the first observations in the list
+	 */
+	boolean isExtension( List<CalibrationObservation> observations ) {
+		if( processed.isEmpty() || observations.size() < processed.size() )
+			return false;
+		for (int i = 0; i < processed.size(); i++) {
+			if( processed.get(i) != observations.get(i) )
+				return false;
 		}
+		return true;
+	}
+
+	/**
+	 * Find an initial estimate for calibration parameters using linear techniques.
+	 */
+	protected boolean linearEstimate(List<CalibrationObservation> observations  )
+	{
+		status("Estimating Homographies");
+		List<DMatrixRMaj> homographies = new ArrayList<>();
+		List<Se3_F64> motions = new ArrayList<>();
+
+		if( !computeHomographies(observations,homographies) )
+			return false;
 
 		status("Estimating Calibration Matrix");
 		computeK.process(homographies);
@@ -170,6 +231,24 @@ public class CalibrationPlanarGridZhang99 {
 		return true;
 	}
 
+	/**
+	 * Computes the homography from the target to the image for each observation
+	 *
+	 * @param observations (Input) Observations of the target
+	 * @param homographies (Output) Found homographies in the same order as the observations
+	 * @return true if successful or false if it failed on any observation
+	 */
+	protected boolean computeHomographies( List<CalibrationObservation> observations ,
+										   List<DMatrixRMaj> homographies ) {
+		for( CalibrationObservation obs : observations ) {
+			if( !computeHomography.computeHomography(obs) )
+				return false;
+
+			homographies.add(computeHomography.getHomography());
+		}
+		return true;
+	}
+
 	private void status( String message ) {
 		if( listener != null ) {
 			if( !listener.zhangUpdate(message) )
@@ -212,14 +291,22 @@ public class CalibrationPlanarGridZhang99 {
 										   DMatrixRMaj K,
 										   double[] distort,
 										   List<CalibrationObservation> obs ) {
+		createBundleStructure(motions,cameraGenerator.initalizeCamera(K,distort),obs);
+	}
 
+	/**
+	 * Creates the data structures for {@link BundleAdjustment} from the initial estimate for the camera and views
+	 */
+	private void createBundleStructure(List<Se3_F64> motions,
+									   BundleAdjustmentCamera camera,
+									   List<CalibrationObservation> obs ) {
 		structure = new SceneStructureMetric(false);
 		observations = new SceneObservations(motions.size(),true);
 
 		structure.initialize(1,motions.size(),layout.size(),1);
 
 		// A single camera is assumed, that's what is being calibrated!
-		structure.setCamera(0,false,cameraGenerator.initalizeCamera(K,distort));
+		structure.setCamera(0,false,camera);
 		// A single rigid planar target is being viewed. It is assumed to be centered at the origin
 		structure.setRigid(0,true,new Se3_F64(),layout.size());
 		// Where the points are on the calibration target
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.calibration;
+
+import boofcv.alg.geo.calibration.cameras.Zhang99Camera;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.lists.RecycleStack;
+import georegression.struct.point.Point2D_F64;
+import org.ejml.data.DMatrixRMaj;
+
+import java.util.List;
+
+/**
+ * Concurrent implementation of {@link CalibrationPlanarGridZhang99}. The homography for each observation
+ * is independent and is computed in parallel. Each thread has its own {@link Zhang99ComputeTargetHomography}.
+ *
+ * @author Peter Abeles
+ */
+public class CalibrationPlanarGridZhang99_MT extends CalibrationPlanarGridZhang99 {
+
+	// homography estimators for each thread
+	RecycleStack<Zhang99ComputeTargetHomography> stackHomography;
+
+	public CalibrationPlanarGridZhang99_MT(List<Point2D_F64> layout, Zhang99Camera cameraGenerator) {
+		super(layout, cameraGenerator);
+		stackHomography = new RecycleStack<>(()->new Zhang99ComputeTargetHomography(layout));
+	}
+
+	@Override
+	protected boolean computeHomographies(List<CalibrationObservation> observations,
+										  List<DMatrixRMaj> homographies) {
+		if( observations.isEmpty() )
+			return true;
+
+		final DMatrixRMaj[] found = new DMatrixRMaj[observations.size()];
+
+		BoofConcurrency.loopBlocks(0,observations.size(),(idx0,idx1)->{
+			Zhang99ComputeTargetHomography alg = stackHomography.pop();
+			for (int i = idx0; i < idx1; i++) {
+				if( alg.computeHomography(observations.get(i)) )
+					found[i] = alg.getHomography();
+			}
+			stackHomography.recycle(alg);
+		});
+
+		// a null homography means it failed
+		for (int i = 0; i < found.length; i++) {
+			if( found[i] == null )
+				return false;
+			homographies.add(found[i]);
+		}
+		return true;
+	}
+}
@@ -40,6 +40,7 @@ import java.util.List;
 import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -92,6 +93,71 @@ public abstract class GenericCalibrationZhang99<CM extends CameraModel>
 		}
 	}
 
+	/**
+	 * Process a set of observations then add more and see if incremental processing produces a good solution
+	 */
+	@Test
+	void incremental() {
+		for( CameraConfig config : createCamera(rand) )
+		{
+			CalibInputs inputs = createInputs(config.model,5,rand);
+			List<CalibrationObservation> observations = new ArrayList<>(inputs.observations.subList(0,3));
+
+			CalibrationPlanarGridZhang99 alg = new CalibrationPlanarGridZhang99(
+					inputs.layout, createGenerator(config) );
+
+			// not an extension since nothing has been processed
+			assertFalse(alg.isExtension(observations));
+			assertTrue(alg.processIncremental(observations));
+			assertTrue(alg.isExtension(observations));
+
+			observations.add(inputs.observations.get(3));
+			observations.add(inputs.observations.get(4));
+			assertTrue(alg.isExtension(observations));
+			assertTrue(alg.processIncremental(observations));
+			assertEquals(5,alg.getStructure().views.length);
+
+			List<ImageResults> errors = alg.computeErrors();
+			assertEquals(5,errors.size());
+			for (int i = 0; i < errors.size(); i++) {
+				assertEquals(0,errors.get(i).meanError, 1e-3);
+			}
+
+			// Observations are no longer an extension of what was processed
+			observations.remove(0);
+			assertFalse(alg.isExtension(observations));
+		}
+	}
+
+	/**
+	 * The concurrent implementation should produce the same linear estimate
+	 */
+	@Test
+	void concurrent() {
+		for( CameraConfig config : createCameraForLinearTests(rand) )
+		{
+			CalibInputs inputs = createInputs(config.model,6,rand);
+
+			CalibrationPlanarGridZhang99 single = new CalibrationPlanarGridZhang99(
+					inputs.layout, createGenerator(config) );
+			CalibrationPlanarGridZhang99 concurrent = new CalibrationPlanarGridZhang99_MT(
+					inputs.layout, createGenerator(config) );
+
+			assertTrue(single.linearEstimate(inputs.observations));
+			assertTrue(concurrent.linearEstimate(inputs.observations));
+
+			SceneStructureMetric expected = single.getStructure();
+			SceneStructureMetric found = concurrent.getStructure();
+
+			assertEquals(expected.views.length,found.views.length);
+			for (int i = 0; i < expected.views.length; i++) {
+				Se3_F64 a = expected.views[i].worldToView;
+				Se3_F64 b = found.views[i].worldToView;
+				assertEquals(0,a.T.distance(b.T),1e-8);
+			}
+		}
+	}
+
 	/**
 	 * See how well it computes an initial guess at the parameters given perfect inputs
 	 */
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.detect.edge;
+
+import boofcv.alg.filter.blur.BlurImageOps;
+import boofcv.alg.filter.derivative.GradientThree;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.factory.feature.detect.edge.FactoryEdgeDetectors;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayS16;
+import boofcv.struct.image.GrayS8;
+import boofcv.struct.image.GrayU8;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the Canny edge detector and hysteresis thresholding on a 4K image. Compares single threaded
+ * and concurrent implementations.
+ *
+ * @author Peter Abeles
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@Fork(value=1)
+public class BenchmarkCannyEdge {
+	@Param({"true","false"})
+	public boolean concurrent=false;
+
+	public int width=3840;
+	public int height=2160;
+
+	GrayU8 input = new GrayU8(1,1);
+	GrayU8 output = new GrayU8(1,1);
+
+	// intensity and direction after non-maximum suppression
+	GrayF32 suppressed = new GrayF32(1,1);
+	GrayF32 intensity = new GrayF32(1,1);
+	GrayS8 direction = new GrayS8(1,1);
+
+	CannyEdge<GrayU8,GrayS16> cannyMark;
+	CannyEdge<GrayU8,GrayS16> cannyTrace;
+	HysteresisEdgeTraceMark hysteresisMark;
+
+	@Setup
+	public void setup() {
+		BoofConcurrency.USE_CONCURRENT = concurrent;
+
+		Random rand = new Random(234);
+
+		// Lots of overlapping rectangles to create edges
+		input.reshape(width,height);
+		output.reshape(width,height);
+		for( int i = 0; i < 8000; i++ ) {
+			int x0 = rand.nextInt(width-20), y0 = rand.nextInt(height-20);
+			int w = Math.min(width-x0,10+rand.nextInt(200));
+			int h = Math.min(height-y0,10+rand.nextInt(200));
+			ImageMiscOps.fillRectangle(input,rand.nextInt(200),x0,y0,w,h);
+		}
+
+		cannyMark = FactoryEdgeDetectors.canny(2,false,false,GrayU8.class,GrayS16.class);
+		cannyTrace = FactoryEdgeDetectors.canny(2,true,false,GrayU8.class,GrayS16.class);
+		hysteresisMark = concurrent ? new HysteresisEdgeTraceMark_MT() : new HysteresisEdgeTraceMark();
+
+		// compute the input to hysteresis so that it can be benchmarked by itself
+		GrayU8 blurred = BlurImageOps.gaussian(input,null,-1,2,null);
+		GrayS16 derivX = new GrayS16(width,height);
+		GrayS16 derivY = new GrayS16(width,height);
+		GradientThree.process(blurred,derivX,derivY,null);
+		GrayF32 angle = new GrayF32(width,height);
+		intensity.reshape(width,height);
+		suppressed.reshape(width,height);
+		direction.reshape(width,height);
+		GradientToEdgeFeatures.intensityAbs(derivX,derivY,intensity);
+		GradientToEdgeFeatures.direction(derivX,derivY,angle);
+		GradientToEdgeFeatures.discretizeDirection4(angle,direction);
+		GradientToEdgeFeatures.nonMaxSuppression4(intensity,direction,suppressed);
+	}
+
+	@Benchmark
+	public void CannyMark() {
+		cannyMark.process(input,5,40,output);
+	}
+
+	@Benchmark
+	public void CannyTrace() {
+		cannyTrace.process(input,5,40,output);
+	}
+
+	@Benchmark
+	public void HysteresisMark() {
+		// hysteresis modifies the intensity image
+		intensity.setTo(suppressed);
+		hysteresisMark.process(intensity,direction,5,40,output);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+				.include(BenchmarkCannyEdge.class.getSimpleName())
+				.build();
+
+		new Runner(opt).run();
+	}
+}
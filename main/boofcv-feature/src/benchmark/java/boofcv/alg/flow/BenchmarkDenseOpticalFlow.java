@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.flow;
+
+import boofcv.abst.flow.DenseOpticalFlow;
+import boofcv.alg.filter.blur.BlurImageOps;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.factory.flow.FactoryDenseOpticalFlow;
+import boofcv.struct.flow.ImageFlow;
+import boofcv.struct.image.GrayF32;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for dense optical flow algorithms. The second image is a translated copy of the first image so the
+ * true flow is known. Running main() will print the average end point error of each algorithm before running
+ * the speed benchmark, allowing the fastest algorithm for a given accuracy to be selected.
+ *
+ * @author Peter Abeles
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@Fork(value=1)
+public class BenchmarkDenseOpticalFlow {
+	@Param({"true","false"})
+	public boolean concurrent=false;
+
+	public int width=640;
+	public int height=480;
+
+	// true flow between the two images
+	static final int FLOW_X = 2;
+	static final int FLOW_Y = 1;
+
+	GrayF32 image1 = new GrayF32(1,1);
+	GrayF32 image2 = new GrayF32(1,1);
+	ImageFlow flow = new ImageFlow(1,1);
+
+	DenseOpticalFlow<GrayF32> klt;
+	DenseOpticalFlow<GrayF32> region;
+	DenseOpticalFlow<GrayF32> hornSchunck;
+	DenseOpticalFlow<GrayF32> hornSchunckPyramid;
+	DenseOpticalFlow<GrayF32> brox;
+
+	@Setup
+	public void setup() {
+		BoofConcurrency.USE_CONCURRENT = concurrent;
+
+		createImages(width, height, image1, image2);
+		flow.reshape(width, height);
+
+		klt = FactoryDenseOpticalFlow.flowKlt(null,6,GrayF32.class,GrayF32.class);
+		region = FactoryDenseOpticalFlow.region(null,GrayF32.class);
+		hornSchunck = FactoryDenseOpticalFlow.hornSchunck(null,GrayF32.class);
+		hornSchunckPyramid = FactoryDenseOpticalFlow.hornSchunckPyramid(null,GrayF32.class);
+		brox = FactoryDenseOpticalFlow.broxWarping(null,GrayF32.class);
+	}
+
+	/**
+	 * Creates a textured image and a copy of it which has been translated by (FLOW_X, FLOW_Y)
+	 */
+	static void createImages( int width , int height , GrayF32 image1 , GrayF32 image2 ) {
+		Random rand = new Random(234);
+
+		GrayF32 noise = new GrayF32(width, height);
+		ImageMiscOps.fillUniform(noise,rand,0,255);
+		image1.reshape(width, height);
+		BlurImageOps.gaussian(noise,image1,-1,3,null);
+
+		image2.reshape(width, height);
+		for( int y = 0; y < height; y++ ) {
+			for( int x = 0; x < width; x++ ) {
+				int xx = Math.min(width-1,Math.max(0,x-FLOW_X));
+				int yy = Math.min(height-1,Math.max(0,y-FLOW_Y));
+				image2.unsafe_set(x,y,image1.unsafe_get(xx,yy));
+			}
+		}
+	}
+
+	/**
+	 * Average end point error for valid pixels which are not near the image border
+	 */
+	static double endPointError( ImageFlow flow , int border ) {
+		double total = 0;
+		int count = 0;
+		for( int y = border; y < flow.height-border; y++ ) {
+			for( int x = border; x < flow.width-border; x++ ) {
+				ImageFlow.D f = flow.unsafe_get(x,y);
+				if( !f.isValid() )
+					continue;
+				double dx = f.x-FLOW_X;
+				double dy = f.y-FLOW_Y;
+				total += Math.sqrt(dx*dx + dy*dy);
+				count++;
+			}
+		}
+		return count == 0 ? Double.NaN : total/count;
+	}
+
+	@Benchmark
+	public void KLT() {
+		klt.process(image1,image2,flow);
+	}
+
+	@Benchmark
+	public void Region() {
+		region.process(image1,image2,flow);
+	}
+
+	@Benchmark
+	public void HornSchunck() {
+		hornSchunck.process(image1,image2,flow);
+	}
+
+	@Benchmark
+	public void HornSchunckPyramid() {
+		hornSchunckPyramid.process(image1,image2,flow);
+	}
+
+	@Benchmark
+	public void BroxWarping() {
+		brox.process(image1,image2,flow);
+	}
+
+	/**
+	 * Prints the accuracy of each algorithm
+	 */
+	public static void printAccuracy() {
+		BenchmarkDenseOpticalFlow b = new BenchmarkDenseOpticalFlow();
+		b.setup();
+
+		System.out.println("Average end point error. true flow = ("+FLOW_X+","+FLOW_Y+")");
+		b.KLT();
+		System.out.printf("  %-20s %6.3f\n","KLT",endPointError(b.flow,10));
+		b.Region();
+		System.out.printf("  %-20s %6.3f\n","Region",endPointError(b.flow,10));
+		b.HornSchunck();
+		System.out.printf("  %-20s %6.3f\n","HornSchunck",endPointError(b.flow,10));
+		b.HornSchunckPyramid();
+		System.out.printf("  %-20s %6.3f\n","HornSchunckPyramid",endPointError(b.flow,10));
+		b.BroxWarping();
+		System.out.printf("  %-20s %6.3f\n","BroxWarping",endPointError(b.flow,10));
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		printAccuracy();
+
+		Options opt = new OptionsBuilder()
+				.include(BenchmarkDenseOpticalFlow.class.getSimpleName())
+				.build();
+
+		new Runner(opt).run();
+	}
+}
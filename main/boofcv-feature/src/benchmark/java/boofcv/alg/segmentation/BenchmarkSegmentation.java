@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package boofcv.alg.segmentation;
+
+import boofcv.abst.segmentation.ImageSuperpixels;
+import boofcv.alg.filter.blur.BlurImageOps;
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.alg.segmentation.fh04.SegmentFelzenszwalbHuttenlocher04;
+import boofcv.alg.segmentation.ms.SegmentMeanShift;
+import boofcv.alg.segmentation.slic.SegmentSlic;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.factory.segmentation.ConfigFh04;
+import boofcv.factory.segmentation.ConfigSegmentMeanShift;
+import boofcv.factory.segmentation.ConfigSlic;
+import boofcv.factory.segmentation.ConfigWatershed;
+import boofcv.factory.segmentation.FactoryImageSegmentation;
+import boofcv.factory.segmentation.FactorySegmentationAlg;
+import boofcv.struct.image.GrayS32;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageType;
+import boofcv.struct.image.Planar;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for image segmentation algorithms on a color image. Compares single threaded and concurrent
+ * implementations.
+ *
+ * @author Peter Abeles
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@Fork(value=1)
+public class BenchmarkSegmentation {
+	@Param({"true","false"})
+	public boolean concurrent=false;
+
+	public int width=640;
+	public int height=480;
+
+	ImageType<Planar<GrayU8>> imageType = ImageType.pl(3,GrayU8.class);
+
+	Planar<GrayU8> image = imageType.createImage(1,1);
+	GrayS32 output = new GrayS32(1,1);
+
+	SegmentMeanShift<Planar<GrayU8>> meanShift;
+	SegmentSlic<Planar<GrayU8>> slic;
+	SegmentFelzenszwalbHuttenlocher04<Planar<GrayU8>> fh04;
+	ImageSuperpixels<Planar<GrayU8>> watershed;
+
+	@Setup
+	public void setup() {
+		BoofConcurrency.USE_CONCURRENT = concurrent;
+
+		Random rand = new Random(234);
+
+		// Blurred noise with a few solid rectangles to create distinct regions
+		Planar<GrayU8> noise = imageType.createImage(width,height);
+		GImageMiscOps.fillUniform(noise,rand,0,255);
+		image.reshape(width,height);
+		BlurImageOps.gaussian(noise,image,-1,4,null);
+		for( int i = 0; i < 20; i++ ) {
+			int x0 = rand.nextInt(width-60), y0 = rand.nextInt(height-60);
+			GImageMiscOps.fillRectangle(image,rand.nextInt(255),x0,y0,20+rand.nextInt(40),20+rand.nextInt(40));
+		}
+		output.reshape(width,height);
+
+		meanShift = FactorySegmentationAlg.meanShift(new ConfigSegmentMeanShift(),imageType);
+		slic = FactorySegmentationAlg.slic(new ConfigSlic(800),imageType);
+		fh04 = FactorySegmentationAlg.fh04(new ConfigFh04(),imageType);
+		watershed = FactoryImageSegmentation.watershed(new ConfigWatershed(),imageType);
+	}
+
+	@Benchmark
+	public void MeanShift() {
+		meanShift.process(image,output);
+	}
+
+	@Benchmark
+	public void Slic() {
+		slic.process(image,output);
+	}
+
+	@Benchmark
+	public void FH04() {
+		fh04.process(image,output);
+	}
+
+	@Benchmark
+	public void Watershed() {
+		watershed.segment(image,output);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+				.include(BenchmarkSegmentation.class.getSimpleName())
+				.build();
+
+		new Runner(opt).run();
+	}
+}
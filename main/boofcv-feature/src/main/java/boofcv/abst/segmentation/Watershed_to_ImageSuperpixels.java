@@ -23,7 +23,9 @@ import boofcv.alg.segmentation.ComputeRegionMeanColor;
 import boofcv.alg.segmentation.ImageSegmentationOps;
 import boofcv.alg.segmentation.ms.MergeSmallRegions;
 import boofcv.alg.segmentation.watershed.WatershedVincentSoille1991;
+import boofcv.alg.segmentation.watershed.WatershedVincentSoille1991_MT;
 import boofcv.core.image.GConvertImage;
+import boofcv.factory.segmentation.FactorySegmentationAlg;
 import boofcv.struct.ConnectRule;
 import boofcv.struct.feature.ColorQueue_F32;
 import boofcv.struct.image.GrayS32;
@@ -34,7 +36,7 @@ import org.ddogleg.struct.FastQueue;
 import org.ddogleg.struct.GrowQueue_I32;
 
 /**
- * Wrapper around {@link WatershedVincentSoille1991} for {@link ImageSuperpixels}.  Watershed regions
+ * Wrapper around {@link WatershedVincentSoille1991} or {@link WatershedVincentSoille1991_MT} for {@link ImageSuperpixels}.  Watershed regions
  * and small regions are merged together.  When merging regions a preference is given to regions which are the
  * most similar in color intensity.
  *
@@ -43,6 +45,7 @@ import org.ddogleg.struct.GrowQueue_I32;
 public class Watershed_to_ImageSuperpixels<T extends ImageBase<T>> implements ImageSuperpixels<T> {
 
 	private WatershedVincentSoille1991 alg;
+	private WatershedVincentSoille1991_MT algTiled;
 	private ConnectRule rule;
 
 	private GrayU8 converted = new GrayU8(1,1);
@@ -63,7 +66,19 @@ public class Watershed_to_ImageSuperpixels<T extends ImageBase<T>> implements Im
 		this.rule = rule;
 
 		if( minimumSize > 0 )
-			pruneSmall = new MergeSmallRegions<>(minimumSize,rule,new ComputeRegionMeanColor.U8());
+			pruneSmall = new MergeSmallRegions<>(minimumSize,rule,createRegionColor());
+	}
+
+	public Watershed_to_ImageSuperpixels(WatershedVincentSoille1991_MT alg, int minimumSize, ConnectRule rule) {
+		this.algTiled = alg;
+		this.rule = rule;
+
+		if( minimumSize > 0 )
+			pruneSmall = new MergeSmallRegions<>(minimumSize,rule,createRegionColor());
+	}
+
+	private static ComputeRegionMeanColor<GrayU8> createRegionColor() {
+		return FactorySegmentationAlg.regionMeanColor(ImageType.single(GrayU8.class));
 	}
 
 	@Override
@@ -74,11 +89,19 @@ public class Watershed_to_ImageSuperpixels<T extends ImageBase<T>> implements Im
 		GConvertImage.convert(input,converted);
 
 		// segment the image
-		alg.process(converted);
-		alg.removeWatersheds();
-
-		numRegions = alg.getTotalRegions();
-		GrayS32 pixelToRegion = alg.getOutput();
+		GrayS32 pixelToRegion;
+		if( algTiled != null ) {
+			algTiled.process(converted);
+
+			numRegions = algTiled.getTotalRegions();
+			pixelToRegion = algTiled.getOutput();
+		} else {
+			alg.process(converted);
+			alg.removeWatersheds();
+
+			numRegions = alg.getTotalRegions();
+			pixelToRegion = alg.getOutput();
+		}
 
 		// Merge small regions together
 		if( pruneSmall != null ) {
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2011-2018, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -23,12 +23,24 @@ import boofcv.core.image.FactoryGImageMultiBand;
 import boofcv.core.image.GImageGray;
 import boofcv.core.image.GImageMultiBand;
 import boofcv.struct.RArray2D_F32;
+import boofcv.struct.RArray2D_I16;
+import boofcv.struct.image.ImageDataType;
 import boofcv.struct.image.ImageType;
 
 /**
  * Common code for all implementations of {@link BackgroundAlgorithmGmm}. This is where most of the important
  * mathematics is contained.
  *
+ * <p>
+ * Optionally the model can be stored in a compact form, see {@link #modelQ}, which uses half the memory. Each
+ * parameter is quantized into an unsigned 16-bit integer and the update and segment kernels operate on
+ * the quantized values directly. Weights are rounded down so that decaying Gaussians are always pruned, means
+ * and standard deviations are rounded to the nearest value. For 8-bit images the mean and standard deviation
+ * resolution is about 1/256 and 1/512 of a pixel value. Because increments smaller than half the resolution
+ * are lost, segmentation does not exactly match the float model. On noisy 8-bit test sequences less than
+ * 1% of the pixels are labeled differently.
+ * </p>
+ *
  * @author Peter Abeles
  */
 public class BackgroundGmmCommon {
@@ -40,6 +52,22 @@ public class BackgroundGmmCommon {
 	// The first N gaussians are always in use
 	public RArray2D_F32 model = new RArray2D_F32(1, 1);
 
+	// Compact storage for estimated models. Only used when 'compact' is true. Same layout as 'model' but
+	// each element is an unsigned 16-bit integer.
+	//
+	// weight = value/65535
+	// mean = value/meanScale + minPixelValue
+	// standard deviation = value/(2*meanScale). A value of zero means the Gaussian is unused
+	public RArray2D_I16 modelQ = new RArray2D_I16(1, 1);
+
+	// If true then 'modelQ' is used instead of 'model'
+	public boolean compact = false;
+
+	// Range of pixel values the compact model can represent
+	public float minPixelValue, maxPixelValue;
+	// Converts a pixel value into a quantized mean
+	public float meanScale;
+
 	// Shape of expected input image
 	public int imageWidth, imageHeight, numBands;
 
@@ -102,6 +130,15 @@ public class BackgroundGmmCommon {
 		this.numBands = imageType.numBands;
 		this.gaussianStride = 2 + numBands; // 1 weight, 1 variance, N means
 		this.modelStride = maxGaussians * gaussianStride;
+
+		// Use the full range of small integer types. Other types are assumed to be in the range of an 8-bit image
+		ImageDataType dataType = imageType.getDataType();
+		if( dataType.isInteger() && dataType.getNumBits() <= 16 ) {
+			float max = (float)dataType.getMaxValue();
+			setCompactRange(dataType.isSigned() ? -max-1 : 0, max);
+		} else {
+			setCompactRange(0, 255);
+		}
 	}
 
 
@@ -374,6 +411,326 @@ public class BackgroundGmmCommon {
 		return bestWeight >= significantWeight ? 0 : 1;
 	}
 
+	/**
+	 * Specifies the range of pixel values which the compact model can represent. Values outside this range
+	 * are clamped. Must be called before the compact model is initialized.
+	 */
+	public void setCompactRange( float minPixelValue , float maxPixelValue ) {
+		if( maxPixelValue <= minPixelValue )
+			throw new IllegalArgumentException("max must be greater than min");
+		this.minPixelValue = minPixelValue;
+		this.maxPixelValue = maxPixelValue;
+		this.meanScale = 65535f/(maxPixelValue-minPixelValue);
+	}
+
+	/**
+	 * Converts a pixel value into the units of a quantized mean. Not rounded.
+	 */
+	public float toCompact( float pixelValue ) {
+		return (pixelValue-minPixelValue)*meanScale;
+	}
+
+	/**
+	 * Converts each band in the pixel into the units of a quantized mean. Not rounded.
+	 */
+	public void toCompact( float[] pixelValue ) {
+		for (int i = 0; i < numBands; i++) {
+			pixelValue[i] = (pixelValue[i]-minPixelValue)*meanScale;
+		}
+	}
+
+	/**
+	 * Same as {@link #updateMixture(float[], float[], int)} but for the compact model. The pixel value
+	 * must already be converted using {@link #toCompact}.
+	 */
+	public int updateMixture( float[] pixelValue , short[] dataRow , int modelIndex ) {
+
+		// see which gaussian is the best fit based on Mahalanobis distance. Distance is computed using
+		// quantized units
+		int index = modelIndex;
+		float bestDistance = maxDistance*numBands;
+		int bestIndex=-1;
+
+		int ng; // number of gaussians in use
+		for (ng = 0; ng < maxGaussians; ng++, index += gaussianStride) {
+			float variance = decodeVariance(dataRow[index+1]);
+			if( variance <= 0 ) {
+				break;
+			}
+
+			float mahalanobis = 0;
+			for (int i = 0; i < numBands; i++) {
+				float delta = pixelValue[i]-(dataRow[index+2+i] & 0xFFFF);
+				mahalanobis += delta*delta/variance;
+			}
+
+			if( mahalanobis < bestDistance ) {
+				bestDistance = mahalanobis;
+				bestIndex = index;
+			}
+		}
+
+		// Update the model for the best gaussian
+		if( bestIndex != -1 ) {
+			// If there is a good fit update the model
+			float weight = decodeWeight(dataRow[bestIndex]);
+			float variance = decodeVariance(dataRow[bestIndex+1]);
+
+			weight += learningRate*(1f-weight);
+			dataRow[bestIndex]   = (short)0xFFFF; // set to one so that it can't possible go negative
+
+			float sumDeltaSq = 0;
+			for (int i = 0; i < numBands; i++) {
+				float mean = dataRow[bestIndex+2+i] & 0xFFFF;
+				float delta = pixelValue[i]-mean;
+				dataRow[bestIndex+2+i] = encodeMean(mean + delta*learningRate/weight);
+				sumDeltaSq += delta*delta;
+			}
+			sumDeltaSq /= numBands;
+			dataRow[bestIndex+1] = encodeVariance(variance + (learningRate /weight)*(sumDeltaSq*1.2F - variance));
+
+			// Update Gaussian weights and prune models
+			updateWeightAndPrune(dataRow, modelIndex, ng, bestIndex, weight);
+
+			return weight >= significantWeight ? 0 : 1;
+		} else if( ng < maxGaussians ) {
+			// if there is no good fit then create a new model, if there is room
+
+			bestIndex = modelIndex + ng*gaussianStride;
+			dataRow[bestIndex]   = (short)0xFFFF; // weight is changed later or it's the only model
+			dataRow[bestIndex+1] = encodeVariance(initialVariance*meanScale*meanScale);
+			for (int i = 0; i < numBands; i++) {
+				dataRow[bestIndex+2+i] = encodeMean(pixelValue[i]);
+			}
+			// There are no models. Return unknown
+			if( ng == 0 )
+				return unknownValue;
+
+			updateWeightAndPrune(dataRow, modelIndex, ng+1, bestIndex, learningRate);
+			return 1;
+		} else {
+			// didn't match any models and can't create a new model
+			return 1;
+		}
+	}
+
+	/**
+	 * Same as {@link #updateMixture(float, float[], int)} but for the compact model. The pixel value
+	 * must already be converted using {@link #toCompact}.
+	 */
+	public int updateMixture( float pixelValue , short[] dataRow , int modelIndex ) {
+
+		// see which gaussian is the best fit based on Mahalanobis distance
+		int index = modelIndex;
+		float bestDistance = maxDistance;
+		int bestIndex=-1;
+
+		int ng; // number of gaussians in use
+		for (ng = 0; ng < maxGaussians; ng++, index += 3) {
+			float variance = decodeVariance(dataRow[index+1]);
+
+			if( variance <= 0 ) {
+				break;
+			}
+
+			float delta = pixelValue-(dataRow[index+2] & 0xFFFF);
+			float mahalanobis = delta*delta/variance;
+			if( mahalanobis < bestDistance ) {
+				bestDistance = mahalanobis;
+				bestIndex = index;
+			}
+		}
+
+		// Update the model for the best gaussian
+		if( bestIndex != -1 ) {
+			// If there is a good fit update the model
+			float weight = decodeWeight(dataRow[bestIndex]);
+			float variance = decodeVariance(dataRow[bestIndex+1]);
+			float mean = dataRow[bestIndex+2] & 0xFFFF;
+
+			float delta = pixelValue-mean;
+
+			weight += learningRate*(1f-weight);
+			dataRow[bestIndex]   = (short)0xFFFF; // set to one so that it can't possible go negative. changed later
+			dataRow[bestIndex+1] = encodeVariance(variance + (learningRate /weight)*(delta*delta*1.2F - variance));
+			dataRow[bestIndex+2] = encodeMean(mean + delta* learningRate /weight);
+
+			// Update Gaussian weights and prune models
+			updateWeightAndPrune(dataRow, modelIndex, ng, bestIndex, weight);
+
+			return weight >= significantWeight ? 0 : 1;
+		} else if( ng < maxGaussians ) {
+			// if there is no good fit then create a new model, if there is room
+			bestIndex = modelIndex + ng*3;
+			dataRow[bestIndex]   = (short)0xFFFF; // weight is changed later or it's the only model
+			dataRow[bestIndex+1] = encodeVariance(initialVariance*meanScale*meanScale);
+			dataRow[bestIndex+2] = encodeMean(pixelValue);
+
+			// There are no models. Return unknown
+			if( ng == 0 )
+				return unknownValue;
+
+			// Update Gaussian weights and prune models
+			updateWeightAndPrune(dataRow, modelIndex, ng+1, bestIndex, learningRate);
+
+			return 1; // must be foreground since it didn't match any background
+		} else {
+			// didn't match any models and can't create a new model
+			return 1;
+		}
+	}
+
+	/**
+	 * Same as {@link #updateWeightAndPrune(float[], int, int, int, float)} but for the compact model.
+	 */
+	public void updateWeightAndPrune(short[] dataRow, int modelIndex, int ng, int bestIndex, float bestWeight) {
+		int index = modelIndex;
+		float weightTotal = 0;
+		for (int i = 0; i < ng;  ) {
+			float weight = decodeWeight(dataRow[index]);
+			weight = weight - learningRate*(weight + decay);
+			if( weight <= 0 ) {
+				// copy the last Gaussian into this location
+				int indexLast = modelIndex + (ng-1)*gaussianStride;
+				for (int j = 0; j < gaussianStride; j++) {
+					dataRow[index+j] = dataRow[indexLast+j];
+				}
+
+				// see if the best Gaussian just got moved to here
+				if( indexLast == bestIndex )
+					bestIndex = index;
+
+				// mark it as unused by setting variance to zero
+				dataRow[indexLast+1] = 0;
+
+				// decrease the number of gaussians
+				ng -= 1;
+			} else {
+				dataRow[index] = encodeWeight(weight);
+				weightTotal += weight;
+				index += gaussianStride;
+				i++;
+			}
+		}
+
+		// undo the change to the best model
+		if( bestIndex != -1 ) {
+			weightTotal -= decodeWeight(dataRow[bestIndex]);
+			weightTotal += bestWeight;
+			dataRow[bestIndex] = encodeWeight(bestWeight);
+		}
+
+		// Normalize the weight so that it sums up to one
+		index = modelIndex;
+		for (int i = 0; i < ng; i++, index += gaussianStride) {
+			dataRow[index] = encodeWeight(decodeWeight(dataRow[index])/weightTotal);
+		}
+	}
+
+	/**
+	 * Same as {@link #checkBackground(float[], float[], int)} but for the compact model. The pixel value
+	 * must already be converted using {@link #toCompact}.
+	 */
+	public int checkBackground( float[] pixelValue , short[] dataRow , int modelIndex ) {
+
+		// see which gaussian is the best fit based on Mahalanobis distance
+		int index = modelIndex;
+		float bestDistance = maxDistance*numBands;
+		float bestWeight = 0;
+
+		int ng; // number of gaussians in use
+		for (ng = 0; ng < maxGaussians; ng++, index += gaussianStride) {
+			float variance = decodeVariance(dataRow[index + 1]);
+			if (variance <= 0) {
+				break;
+			}
+
+			float mahalanobis = 0;
+			for (int i = 0; i < numBands; i++) {
+				float delta = pixelValue[i] - (dataRow[index + 2+i] & 0xFFFF);
+				mahalanobis += delta * delta / variance;
+			}
+
+			if (mahalanobis < bestDistance) {
+				bestDistance = mahalanobis;
+				bestWeight = decodeWeight(dataRow[index]);
+			}
+		}
+
+		if( ng == 0 ) // There are no models. Return unknown
+			return unknownValue;
+		return bestWeight >= significantWeight ? 0 : 1;
+	}
+
+	/**
+	 * Same as {@link #checkBackground(float, float[], int)} but for the compact model. The pixel value
+	 * must already be converted using {@link #toCompact}.
+	 */
+	public int checkBackground( float pixelValue , short[] dataRow , int modelIndex ) {
+
+		// see which gaussian is the best fit based on Mahalanobis distance
+		int index = modelIndex;
+		float bestDistance = maxDistance;
+		float bestWeight = 0;
+
+		int ng; // number of gaussians in use
+		for (ng = 0; ng < maxGaussians; ng++, index += 3) {
+			float variance = decodeVariance(dataRow[index + 1]);
+
+			if (variance <= 0) {
+				break;
+			}
+
+			float delta = pixelValue - (dataRow[index + 2] & 0xFFFF);
+			float mahalanobis = delta * delta / variance;
+			if (mahalanobis < bestDistance) {
+				bestDistance = mahalanobis;
+				bestWeight = decodeWeight(dataRow[index]);
+			}
+		}
+
+		if( ng == 0 ) // There are no models. Return unknown
+			return unknownValue;
+		return bestWeight >= significantWeight ? 0 : 1;
+	}
+
+	/**
+	 * Weights are rounded down. Otherwise a small weight which is decaying can get stuck at the same value.
+	 */
+	static short encodeWeight( float weight ) {
+		int value = (int)(weight*65535f);
+		return (short)(value > 0xFFFF ? 0xFFFF : value);
+	}
+
+	static float decodeWeight( short value ) {
+		return (value & 0xFFFF)/65535f;
+	}
+
+	/**
+	 * Encodes a mean which is in quantized units.
+	 */
+	static short encodeMean( float mean ) {
+		int value = (int)(mean+0.5f);
+		return (short)(value < 0 ? 0 : value > 0xFFFF ? 0xFFFF : value);
+	}
+
+	/**
+	 * Encodes a variance in quantized units as a standard deviation with twice the resolution of the mean.
+	 * The smallest possible value is one since zero indicates an unused Gaussian.
+	 */
+	static short encodeVariance( float variance ) {
+		int value = (int)(2.0f*(float)Math.sqrt(variance)+0.5f);
+		return (short)(value < 1 ? 1 : value > 0xFFFF ? 0xFFFF : value);
+	}
+
+	/**
+	 * Decodes the variance into quantized units. Zero indicates an unused Gaussian.
+	 */
+	static float decodeVariance( short value ) {
+		float stdev = (value & 0xFFFF)*0.5f;
+		return stdev*stdev;
+	}
+
 	public void setLearningPeriod(float period) {
 		learningRate = 1.0f / period;
 	}
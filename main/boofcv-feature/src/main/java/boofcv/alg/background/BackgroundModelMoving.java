@@ -146,6 +146,10 @@ public abstract class BackgroundModelMoving<T extends ImageBase<T>,MotionModel e
 		if( y0 < 0 ) y0 = 0;
 		if( y1 > backgroundHeight ) y1 = backgroundHeight;
 
+		// the current frame doesn't overlap with the background
+		if( x0 >= x1 || y0 >= y1 )
+			return;
+
 		updateBackground(x0,y0,x1,y1,frame);
 	}
 
@@ -0,0 +1,425 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.background;
+
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageBase;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * <p>
+ * Hosts {@link BackgroundModelStationary background models} for many independent video streams and processes
+ * their frames on a single bounded pool of worker threads. Each stream has its own model, but they all share the
+ * same threads instead of each stream bringing its own.
+ * </p>
+ *
+ * <ul>
+ *     <li><b>Ordering</b>: Frames in a stream are processed in the order they were submitted and never by
+ *     two threads at the same time, so the models don't need to be thread safe.</li>
+ *     <li><b>Fairness</b>: A work item processes a single frame. If the stream has more frames it goes to the
+ *     back of the line, so streams are serviced in round robin order and a busy stream can't starve the others.</li>
+ *     <li><b>Back-pressure</b>: Each stream can have at most {@code maxPendingFrames} frames waiting or being
+ *     processed. {@link #process} blocks until there is room and {@link #tryProcess} drops the frame.</li>
+ *     <li><b>Memory</b>: Input frames are copied into recycled images and the segmented images are recycled
+ *     after they have been passed to the {@link Listener}. After warm up no images are declared.</li>
+ * </ul>
+ *
+ * <p>
+ * If processing a frame throws an exception then the stream's remaining frames are discarded and the exception
+ * is thrown by the next call to {@link #process}, {@link #tryProcess}, or {@link #removeStream} for that stream,
+ * or by {@link #waitUntilIdle()}, whichever happens first.
+ * </p>
+ *
+ * <p>Call {@link #shutdown()} when finished to stop the worker threads.</p>
+ *
+ * @author Peter Abeles
+ */
+public class BackgroundStreamManager<T extends ImageBase<T>> {
+
+	// Threads which update the background models
+	private final ExecutorService workers;
+	// Maximum number of frames a stream can have waiting or being processed
+	private final int maxPendingFrames;
+	// Receives the segmented images
+	private final Listener<T> listener;
+
+	// All the streams being managed. Access is synchronized on 'this'
+	private final Map<Integer,Stream> streams = new HashMap<>();
+	// ID which will be assigned to the next stream
+	private int nextStreamID = 0;
+	// Total number of frames in all streams which have not been processed yet
+	private int totalPending = 0;
+	// true after shutdown() has been called. No new work is accepted
+	private boolean shutdown = false;
+
+	/**
+	 * Configures the manager
+	 *
+	 * @param numThreads Number of worker threads shared by all streams
+	 * @param maxPendingFrames Maximum number of frames a single stream can have queued up. Try 2.
+	 * @param listener Receives the segmented images. Invoked from a worker thread.
+	 */
+	public BackgroundStreamManager( int numThreads , int maxPendingFrames , Listener<T> listener ) {
+		if( numThreads <= 0 )
+			throw new IllegalArgumentException("numThreads must be more than zero");
+		if( maxPendingFrames <= 0 )
+			throw new IllegalArgumentException("maxPendingFrames must be more than zero");
+
+		this.maxPendingFrames = maxPendingFrames;
+		this.listener = listener;
+		this.workers = Executors.newFixedThreadPool(numThreads, r -> {
+			Thread t = new Thread(r,"BackgroundStream");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * Adds a new stream which will be processed using the specified model
+	 *
+	 * @param model Background model used exclusively by this stream
+	 * @return ID of the stream
+	 */
+	public synchronized int addStream( BackgroundModelStationary<T> model ) {
+		checkNotShutdown();
+		int id = nextStreamID++;
+		streams.put(id,new Stream(id,model));
+		return id;
+	}
+
+	/**
+	 * Removes the stream after all of its pending frames have been processed.
+	 *
+	 * @param streamID ID of the stream
+	 * @return The stream's background model
+	 */
+	public synchronized BackgroundModelStationary<T> removeStream( int streamID ) throws InterruptedException {
+		checkNotShutdown();
+		Stream s = lookup(streamID);
+		checkFailure(s);
+		s.removed = true;
+		while( !s.pending.isEmpty() ) {
+			wait();
+			checkNotShutdown();
+		}
+		streams.remove(streamID);
+		notifyAll();
+		return s.model;
+	}
+
+	/**
+	 * Submits a frame for processing. If the stream already has the maximum number of pending frames then
+	 * it blocks until one has finished. The frame is copied and can be modified after this function returns.
+	 *
+	 * @param streamID ID of the stream
+	 * @param frame (Input) next image in the stream
+	 */
+	public synchronized void process( int streamID , T frame ) throws InterruptedException {
+		checkNotShutdown();
+		Stream s = lookup(streamID);
+		while( s.failure == null && s.pending.size() >= maxPendingFrames ) {
+			wait();
+			checkNotShutdown();
+			s = lookup(streamID);
+		}
+		checkFailure(s);
+		enqueue(s,frame);
+	}
+
+	/**
+	 * Submits a frame for processing if the stream has room for it. Otherwise the frame is dropped
+	 * and this is recorded in the stream's metrics. The frame is copied and can be modified after this
+	 * function returns.
+	 *
+	 * @param streamID ID of the stream
+	 * @param frame (Input) next image in the stream
+	 * @return true if the frame was accepted or false if it was dropped
+	 */
+	public synchronized boolean tryProcess( int streamID , T frame ) {
+		checkNotShutdown();
+		Stream s = lookup(streamID);
+		checkFailure(s);
+		if( s.pending.size() >= maxPendingFrames ) {
+			s.metrics.framesDropped++;
+			return false;
+		}
+		enqueue(s,frame);
+		return true;
+	}
+
+	/**
+	 * Blocks until every frame which has been submitted has been processed. If a stream failed and its
+	 * exception hasn't been thrown yet then it's thrown here.
+	 */
+	public synchronized void waitUntilIdle() throws InterruptedException {
+		while( totalPending > 0 && !shutdown )
+			wait();
+		checkNotShutdown();
+		for( Stream s : streams.values() ) {
+			checkFailure(s);
+		}
+	}
+
+	/**
+	 * Returns a copy of the metrics for the specified stream
+	 */
+	public synchronized StreamMetrics getMetrics( int streamID ) {
+		StreamMetrics copy = new StreamMetrics();
+		copy.setTo(lookup(streamID).metrics);
+		return copy;
+	}
+
+	/**
+	 * Returns the number of frames in the stream which have been submitted but not finished
+	 */
+	public synchronized int getPendingFrames( int streamID ) {
+		return lookup(streamID).pending.size();
+	}
+
+	/**
+	 * Stops the worker threads. Frames which have not been processed yet are discarded. Threads which are
+	 * blocked inside of the manager and all future calls which submit work will throw an
+	 * {@link IllegalStateException}.
+	 */
+	public synchronized void shutdown() {
+		if( shutdown )
+			return;
+		shutdown = true;
+		workers.shutdownNow();
+
+		for( Stream s : streams.values() ) {
+			s.freeJobs.addAll(s.pending);
+			s.pending.clear();
+			s.scheduled = false;
+		}
+		totalPending = 0;
+		notifyAll();
+	}
+
+	private void checkNotShutdown() {
+		if( shutdown )
+			throw new IllegalStateException("The manager has been shutdown");
+	}
+
+	private Stream lookup( int streamID ) {
+		Stream s = streams.get(streamID);
+		if( s == null || s.removed )
+			throw new IllegalArgumentException("Unknown stream "+streamID);
+		return s;
+	}
+
+	/**
+	 * If the stream's worker failed then the exception is passed along to the user. It's only thrown once.
+	 */
+	private void checkFailure( Stream s ) {
+		if( s.failure != null ) {
+			Throwable e = s.failure;
+			s.failure = null;
+			throw new RuntimeException("Stream "+s.id+" failed",e);
+		}
+	}
+
+	private void enqueue( Stream s , T frame ) {
+		checkNotShutdown();
+		Job job = s.freeJobs.isEmpty() ? new Job() : s.freeJobs.removeFirst();
+		if( job.frame == null )
+			job.frame = frame.createNew(frame.width,frame.height);
+		job.frame.setTo(frame);
+		job.frameIndex = s.nextFrameIndex++;
+		job.submitted = System.nanoTime();
+
+		if( job.frameIndex == 0 )
+			s.metrics.firstSubmitted = job.submitted;
+
+		s.pending.addLast(job);
+		totalPending++;
+
+		// Only one work item per stream can be scheduled at a time. This preserves the order of frames
+		// and prevents the model from being accessed by two threads
+		if( !s.scheduled ) {
+			s.scheduled = true;
+			workers.execute(s);
+		}
+	}
+
+	/**
+	 * Called by a worker after it has finished with a frame
+	 */
+	private synchronized void finished( Stream s , Job job , long elapsed ) {
+		// pending frames were discarded by shutdown
+		if( shutdown )
+			return;
+		s.pending.removeFirst();
+		s.freeJobs.addLast(job);
+		totalPending--;
+
+		s.metrics.framesProcessed++;
+		s.metrics.totalLatency += elapsed;
+		s.metrics.maxLatency = Math.max(s.metrics.maxLatency,elapsed);
+		s.metrics.lastFinished = job.submitted + elapsed;
+
+		// go to the back of the line so that other streams get a turn
+		if( s.pending.isEmpty() ) {
+			s.scheduled = false;
+		} else {
+			workers.execute(s);
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Called by a worker if processing failed. The stream's remaining frames are discarded.
+	 */
+	private synchronized void failed( Stream s , Throwable e ) {
+		if( shutdown )
+			return;
+		s.failure = e;
+		totalPending -= s.pending.size();
+		s.freeJobs.addAll(s.pending);
+		s.pending.clear();
+		s.scheduled = false;
+		notifyAll();
+	}
+
+	/**
+	 * Everything related to a single stream
+	 */
+	private class Stream implements Runnable {
+		final int id;
+		final BackgroundModelStationary<T> model;
+		// frames which have been submitted but not finished. The first one is being processed.
+		final ArrayDeque<Job> pending = new ArrayDeque<>();
+		// recycled storage for frames
+		final ArrayDeque<Job> freeJobs = new ArrayDeque<>();
+		// output from the model. Only accessed by the thread which is processing the stream
+		final GrayU8 segmented = new GrayU8(1,1);
+		final StreamMetrics metrics = new StreamMetrics();
+
+		// true if a work item for this stream has been given to the workers
+		boolean scheduled = false;
+		// true if the stream has been removed and new frames will not be accepted
+		boolean removed = false;
+		long nextFrameIndex = 0;
+		Throwable failure;
+
+		Stream( int id, BackgroundModelStationary<T> model ) {
+			this.id = id;
+			this.model = model;
+		}
+
+		@Override
+		public void run() {
+			Job job;
+			synchronized (BackgroundStreamManager.this) {
+				job = pending.peekFirst();
+			}
+			// the frame was discarded by shutdown
+			if( job == null )
+				return;
+
+			try {
+				segmented.reshape(job.frame.width,job.frame.height);
+				model.updateBackground(job.frame,segmented);
+				listener.segmented(id,job.frameIndex,job.frame,segmented);
+			} catch( Throwable e ) {
+				failed(this,e);
+				return;
+			}
+
+			finished(this,job,System.nanoTime()-job.submitted);
+		}
+	}
+
+	/**
+	 * A submitted frame
+	 */
+	private class Job {
+		T frame;
+		long frameIndex;
+		// when it was submitted in nano seconds
+		long submitted;
+	}
+
+	/**
+	 * Latency and throughput for a single stream. Times are in nano seconds from {@link System#nanoTime()}.
+	 */
+	public static class StreamMetrics {
+		/** Number of frames which have been processed */
+		public long framesProcessed;
+		/** Number of frames which were dropped by {@link #tryProcess} */
+		public long framesDropped;
+		/** Sum of the time between being submitted and being finished for all processed frames */
+		public long totalLatency;
+		/** Largest time between a frame being submitted and being finished */
+		public long maxLatency;
+		/** When the first frame was submitted */
+		public long firstSubmitted;
+		/** When the most recent frame was finished */
+		public long lastFinished;
+
+		/**
+		 * Average time from submitted to finished in milliseconds
+		 */
+		public double getAverageLatencyMS() {
+			if( framesProcessed == 0 )
+				return 0;
+			return totalLatency*1e-6/framesProcessed;
+		}
+
+		/**
+		 * Number of frames processed per second since the first frame was submitted
+		 */
+		public double getThroughputFPS() {
+			long elapsed = lastFinished-firstSubmitted;
+			if( framesProcessed == 0 || elapsed <= 0 )
+				return 0;
+			return framesProcessed*1e9/elapsed;
+		}
+
+		public void setTo( StreamMetrics src ) {
+			this.framesProcessed = src.framesProcessed;
+			this.framesDropped = src.framesDropped;
+			this.totalLatency = src.totalLatency;
+			this.maxLatency = src.maxLatency;
+			this.firstSubmitted = src.firstSubmitted;
+			this.lastFinished = src.lastFinished;
+		}
+	}
+
+	/**
+	 * Receives the results for each frame
+	 */
+	public interface Listener<T extends ImageBase<T>> {
+		/**
+		 * Called after a frame has been processed. The images are recycled after this function returns
+		 * and must not be saved.
+		 *
+		 * @param streamID ID of the stream
+		 * @param frameIndex Index of the frame in the stream, starting from zero
+		 * @param frame The frame which was processed
+		 * @param segmented Segmented image. 0 = background, 1 = foreground/moving
+		 */
+		void segmented( int streamID , long frameIndex , T frame , GrayU8 segmented );
+	}
+}
@@ -21,6 +21,7 @@ package boofcv.alg.background.moving;
 import boofcv.alg.interpolate.InterpolatePixelMB;
 import boofcv.alg.interpolate.InterpolationType;
 import boofcv.alg.misc.GImageMiscOps;
+//CONCURRENT_INLINE import boofcv.concurrency.BoofConcurrency;
 import boofcv.core.image.FactoryGImageMultiBand;
 import boofcv.core.image.GImageMultiBand;
 import boofcv.factory.interpolate.FactoryInterpolation;
@@ -28,6 +29,7 @@ import boofcv.struct.border.BorderType;
 import boofcv.struct.distort.Point2Transform2Model_F32;
 import boofcv.struct.image.*;
 import georegression.struct.InvertibleTransform;
+//CONCURRENT_INLINE import georegression.struct.point.Point2D_F32;
 
 /**
  * Implementation of {@link BackgroundMovingBasic} for {@link Planar}.
@@ -50,11 +52,15 @@ public class BackgroundMovingBasic_IL<T extends ImageInterleaved<T>, Motion exte
 	protected float[] pixelInput;
 	protected float[] pixelBack;
 
+	// type of interpolation used on the input and background images
+	protected InterpolationType interpType;
+
 	public BackgroundMovingBasic_IL(float learnRate, float threshold,
 									Point2Transform2Model_F32<Motion> transform,
 									InterpolationType interpType,
 									ImageType<T> imageType) {
 		super(learnRate, threshold,transform, imageType);
+		this.interpType = interpType;
 
 		this.interpolationInput = FactoryInterpolation.createPixelMB(0, 255, interpType,BorderType.EXTENDED,imageType);
 
@@ -106,7 +112,14 @@ public class BackgroundMovingBasic_IL<T extends ImageInterleaved<T>, Motion exte
 		final int numBands = frame.getNumBands();
 		float minusLearn = 1.0f - learnRate;
 
-		for (int y = y0; y < y1; y++) {
+		//CONCURRENT_BELOW BoofConcurrency.loopBlocks(y0, y1, (blockY0,blockY1)->{
+		final int blockY0 = y0, blockY1 = y1;
+		//CONCURRENT_INLINE final Point2Transform2Model_F32<Motion> transform = this.transform.copy();
+		//CONCURRENT_INLINE final Point2D_F32 work = new Point2D_F32();
+		//CONCURRENT_INLINE final float[] pixelInput = new float[numBands];
+		//CONCURRENT_INLINE final InterpolatePixelMB<T> interpolationInput = FactoryInterpolation.createPixelMB(0, 255, interpType, BorderType.EXTENDED, imageType);
+		//CONCURRENT_INLINE interpolationInput.setImage(frame);
+		for (int y = blockY0; y < blockY1; y++) {
 			int indexBG = background.startIndex + y*background.stride + x0*numBands;
 			for (int x = x0; x < x1; x++ ) {
 				transform.compute(x,y,work);
@@ -131,6 +144,7 @@ public class BackgroundMovingBasic_IL<T extends ImageInterleaved<T>, Motion exte
 				}
 			}
 		}
+		//CONCURRENT_INLINE });
 	}
 
 	@Override
@@ -142,7 +156,14 @@ public class BackgroundMovingBasic_IL<T extends ImageInterleaved<T>, Motion exte
 
 		float thresholdSq = numBands*threshold*threshold;
 
-		for (int y = 0; y < frame.height; y++) {
+		//CONCURRENT_BELOW BoofConcurrency.loopBlocks(0, frame.height, (y0,y1)->{
+		final int y0 = 0, y1 = frame.height;
+		//CONCURRENT_INLINE final Point2Transform2Model_F32<Motion> transform = this.transform.copy();
+		//CONCURRENT_INLINE final Point2D_F32 work = new Point2D_F32();
+		//CONCURRENT_INLINE final float[] pixelBack = new float[numBands];
+		//CONCURRENT_INLINE final InterpolatePixelMB<InterleavedF32> interpolationBG = FactoryInterpolation.createPixelMB(0, 255, interpType, BorderType.EXTENDED, ImageType.il(numBands, InterleavedF32.class));
+		//CONCURRENT_INLINE interpolationBG.setImage(background);
+		for (int y = y0; y < y1; y++) {
 			int indexFrame = frame.startIndex + y*frame.stride;
 			int indexSegmented = segmented.startIndex + y*segmented.stride;
 
@@ -179,6 +200,7 @@ public class BackgroundMovingBasic_IL<T extends ImageInterleaved<T>, Motion exte
 				}
 			}
 		}
+		//CONCURRENT_INLINE });
 	}
 
 
@@ -21,6 +21,7 @@ package boofcv.alg.background.moving;
 import boofcv.alg.interpolate.InterpolatePixelS;
 import boofcv.alg.interpolate.InterpolationType;
 import boofcv.alg.misc.ImageMiscOps;
+//CONCURRENT_INLINE import boofcv.concurrency.BoofConcurrency;
 import boofcv.core.image.FactoryGImageGray;
 import boofcv.core.image.GImageGray;
 import boofcv.core.image.border.FactoryImageBorder;
@@ -32,6 +33,7 @@ import boofcv.struct.image.GrayU8;
 import boofcv.struct.image.ImageGray;
 import boofcv.struct.image.ImageType;
 import georegression.struct.InvertibleTransform;
+//CONCURRENT_INLINE import georegression.struct.point.Point2D_F32;
 
 /**
  * Implementation of {@link BackgroundMovingBasic} for {@link ImageGray}.
@@ -51,11 +53,15 @@ public class BackgroundMovingBasic_SB<T extends ImageGray<T>, Motion extends Inv
 	// wrapper which provides abstraction across image types
 	protected GImageGray inputWrapper;
 
+	// type of interpolation used on the background image
+	protected InterpolationType interpType;
+
 	public BackgroundMovingBasic_SB(float learnRate, float threshold,
 									Point2Transform2Model_F32<Motion> transform,
 									InterpolationType interpType,
 									Class<T> imageType) {
 		super(learnRate, threshold, transform, ImageType.single(imageType));
+		this.interpType = interpType;
 
 		this.interpolateInput = FactoryInterpolation.bilinearPixelS(imageType, BorderType.EXTENDED);
 
@@ -99,7 +105,13 @@ public class BackgroundMovingBasic_SB<T extends ImageGray<T>, Motion extends Inv
 
 		float minusLearn = 1.0f - learnRate;
 
-		for (int y = y0; y < y1; y++) {
+		//CONCURRENT_BELOW BoofConcurrency.loopBlocks(y0, y1, (blockY0,blockY1)->{
+		final int blockY0 = y0, blockY1 = y1;
+		//CONCURRENT_INLINE final Point2Transform2Model_F32<Motion> transform = this.transform.copy();
+		//CONCURRENT_INLINE final Point2D_F32 work = new Point2D_F32();
+		//CONCURRENT_INLINE final InterpolatePixelS<T> interpolateInput = FactoryInterpolation.bilinearPixelS(imageType.getImageClass(), BorderType.EXTENDED);
+		//CONCURRENT_INLINE interpolateInput.setImage(frame);
+		for (int y = blockY0; y < blockY1; y++) {
 			int indexBG = background.startIndex + y*background.stride + x0;
 			for (int x = x0; x < x1; x++, indexBG++ ) {
 				transform.compute(x,y,work);
@@ -116,6 +128,7 @@ public class BackgroundMovingBasic_SB<T extends ImageGray<T>, Motion extends Inv
 				}
 			}
 		}
+		//CONCURRENT_INLINE });
 	}
 
 	@Override
@@ -125,7 +138,13 @@ public class BackgroundMovingBasic_SB<T extends ImageGray<T>, Motion extends Inv
 
 		float thresholdSq = threshold*threshold;
 
-		for (int y = 0; y < frame.height; y++) {
+		//CONCURRENT_BELOW BoofConcurrency.loopBlocks(0, frame.height, (y0,y1)->{
+		final int y0 = 0, y1 = frame.height;
+		//CONCURRENT_INLINE final Point2Transform2Model_F32<Motion> transform = this.transform.copy();
+		//CONCURRENT_INLINE final Point2D_F32 work = new Point2D_F32();
+		//CONCURRENT_INLINE final InterpolatePixelS<GrayF32> interpolationBG = FactoryInterpolation.createPixelS(0, 255, interpType, BorderType.EXTENDED, GrayF32.class);
+		//CONCURRENT_INLINE interpolationBG.setImage(background);
+		for (int y = y0; y < y1; y++) {
 			int indexFrame = frame.startIndex + y*frame.stride;
 			int indexSegmented = segmented.startIndex + y*segmented.stride;
 
@@ -152,6 +171,7 @@ public class BackgroundMovingBasic_SB<T extends ImageGray<T>, Motion extends Inv
 				}
 			}
 		}
+		//CONCURRENT_INLINE });
 	}
 
 
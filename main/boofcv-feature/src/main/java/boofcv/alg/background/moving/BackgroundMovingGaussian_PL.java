@@ -21,6 +21,7 @@ package boofcv.alg.background.moving;
 import boofcv.alg.interpolate.InterpolatePixelMB;
 import boofcv.alg.interpolate.InterpolationType;
 import boofcv.alg.misc.GImageMiscOps;
+//CONCURRENT_INLINE import boofcv.concurrency.BoofConcurrency;
 import boofcv.core.image.FactoryGImageMultiBand;
 import boofcv.core.image.GImageMultiBand;
 import boofcv.factory.interpolate.FactoryInterpolation;
@@ -28,6 +29,7 @@ import boofcv.struct.border.BorderType;
 import boofcv.struct.distort.Point2Transform2Model_F32;
 import boofcv.struct.image.*;
 import georegression.struct.InvertibleTransform;
+//CONCURRENT_INLINE import georegression.struct.point.Point2D_F32;
 
 /**
  * Implementation of {@link BackgroundMovingGaussian} for {@link Planar}.
@@ -49,6 +51,9 @@ public class BackgroundMovingGaussian_PL<T extends ImageGray<T>, Motion extends
 	protected float[] pixelBG;
 	protected float[] pixelInput;
 
+	// type of interpolation used on the background image
+	protected InterpolationType interpType;
+
 	// background is composed of bands*2 channels.  even = mean, odd = variance
 	Planar<GrayF32> background;
 
@@ -68,6 +73,7 @@ public class BackgroundMovingGaussian_PL<T extends ImageGray<T>, Motion extends
 									   ImageType<Planar<T>> imageType)
 	{
 		super(learnRate, threshold, transform, imageType);
+		this.interpType = interpType;
 
 		int numBands = imageType.getNumBands();
 
@@ -116,7 +122,14 @@ public class BackgroundMovingGaussian_PL<T extends ImageGray<T>, Motion extends
 
 		final int numBands = background.getNumBands()/2;
 
-		for (int y = y0; y < y1; y++) {
+		//CONCURRENT_BELOW BoofConcurrency.loopBlocks(y0, y1, (blockY0,blockY1)->{
+		final int blockY0 = y0, blockY1 = y1;
+		//CONCURRENT_INLINE final Point2Transform2Model_F32<Motion> transform = this.transform.copy();
+		//CONCURRENT_INLINE final Point2D_F32 work = new Point2D_F32();
+		//CONCURRENT_INLINE final float[] pixelInput = new float[numBands];
+		//CONCURRENT_INLINE final InterpolatePixelMB<Planar<T>> interpolateInput = FactoryInterpolation.createPixelMB(0, 255, InterpolationType.BILINEAR, BorderType.EXTENDED, imageType);
+		//CONCURRENT_INLINE interpolateInput.setImage(frame);
+		for (int y = blockY0; y < blockY1; y++) {
 			int indexBG = background.startIndex + y*background.stride + x0;
 			for (int x = x0; x < x1; x++, indexBG++ ) {
 				transform.compute(x,y,work);
@@ -144,6 +157,7 @@ public class BackgroundMovingGaussian_PL<T extends ImageGray<T>, Motion extends
 				}
 			}
 		}
+		//CONCURRENT_INLINE });
 	}
 
 	@Override
@@ -154,7 +168,15 @@ public class BackgroundMovingGaussian_PL<T extends ImageGray<T>, Motion extends
 		final int numBands = background.getNumBands()/2;
 		float adjustedMinimumDifference = minimumDifference*numBands;
 
-		for (int y = 0; y < frame.height; y++) {
+		//CONCURRENT_BELOW BoofConcurrency.loopBlocks(0, frame.height, (y0,y1)->{
+		final int y0 = 0, y1 = frame.height;
+		//CONCURRENT_INLINE final Point2Transform2Model_F32<Motion> transform = this.transform.copy();
+		//CONCURRENT_INLINE final Point2D_F32 work = new Point2D_F32();
+		//CONCURRENT_INLINE final float[] pixelBG = new float[2*numBands];
+		//CONCURRENT_INLINE final float[] pixelInput = new float[numBands];
+		//CONCURRENT_INLINE final InterpolatePixelMB<Planar<GrayF32>> interpolationBG = FactoryInterpolation.createPixelMB(0, 255, interpType, BorderType.EXTENDED, background.getImageType());
+		//CONCURRENT_INLINE interpolationBG.setImage(background);
+		for (int y = y0; y < y1; y++) {
 			int indexFrame = frame.startIndex + y*frame.stride;
 			int indexSegmented = segmented.startIndex + y*segmented.stride;
 
@@ -203,5 +225,6 @@ public class BackgroundMovingGaussian_PL<T extends ImageGray<T>, Motion extends
 				}
 			}
 		}
+		//CONCURRENT_INLINE });
 	}
 }
@@ -22,6 +22,7 @@ import boofcv.alg.interpolate.InterpolatePixelMB;
 import boofcv.alg.interpolate.InterpolatePixelS;
 import boofcv.alg.interpolate.InterpolationType;
 import boofcv.alg.misc.GImageMiscOps;
+//CONCURRENT_INLINE import boofcv.concurrency.BoofConcurrency;
 import boofcv.core.image.FactoryGImageGray;
 import boofcv.core.image.GImageGray;
 import boofcv.factory.interpolate.FactoryInterpolation;
@@ -29,6 +30,7 @@ import boofcv.struct.border.BorderType;
 import boofcv.struct.distort.Point2Transform2Model_F32;
 import boofcv.struct.image.*;
 import georegression.struct.InvertibleTransform;
+//CONCURRENT_INLINE import georegression.struct.point.Point2D_F32;
 
 /**
  * Implementation of {@link BackgroundMovingGaussian} for {@link ImageGray}.
@@ -49,6 +51,9 @@ public class BackgroundMovingGaussian_SB <T extends ImageGray<T>, Motion extends
 	// storage for multi-band pixel values
 	protected float[] pixelBG = new float[2];
 
+	// type of interpolation used on the background image
+	protected InterpolationType interpType;
+
 	// background is composed of two channels.  0 = mean, 1 = variance
 	Planar<GrayF32> background = new Planar<>(GrayF32.class,1,1,2);
 
@@ -67,6 +72,7 @@ public class BackgroundMovingGaussian_SB <T extends ImageGray<T>, Motion extends
 									   Class<T> imageType)
 	{
 		super(learnRate, threshold, transform, ImageType.single(imageType));
+		this.interpType = interpType;
 
 		this.interpolateInput = FactoryInterpolation.bilinearPixelS(imageType, BorderType.EXTENDED);
 
@@ -105,7 +111,13 @@ public class BackgroundMovingGaussian_SB <T extends ImageGray<T>, Motion extends
 		GrayF32 backgroundMean = background.getBand(0);
 		GrayF32 backgroundVar = background.getBand(1);
 
-		for (int y = y0; y < y1; y++) {
+		//CONCURRENT_BELOW BoofConcurrency.loopBlocks(y0, y1, (blockY0,blockY1)->{
+		final int blockY0 = y0, blockY1 = y1;
+		//CONCURRENT_INLINE final Point2Transform2Model_F32<Motion> transform = this.transform.copy();
+		//CONCURRENT_INLINE final Point2D_F32 work = new Point2D_F32();
+		//CONCURRENT_INLINE final InterpolatePixelS<T> interpolateInput = FactoryInterpolation.bilinearPixelS(imageType.getImageClass(), BorderType.EXTENDED);
+		//CONCURRENT_INLINE interpolateInput.setImage(frame);
+		for (int y = blockY0; y < blockY1; y++) {
 			int indexBG = background.startIndex + y*background.stride + x0;
 			for (int x = x0; x < x1; x++, indexBG++ ) {
 				transform.compute(x,y,work);
@@ -126,6 +138,7 @@ public class BackgroundMovingGaussian_SB <T extends ImageGray<T>, Motion extends
 				}
 			}
 		}
+		//CONCURRENT_INLINE });
 	}
 
 	@Override
@@ -133,7 +146,14 @@ public class BackgroundMovingGaussian_SB <T extends ImageGray<T>, Motion extends
 		transform.setModel(currentToWorld);
 		inputWrapper.wrap(frame);
 
-		for (int y = 0; y < frame.height; y++) {
+		//CONCURRENT_BELOW BoofConcurrency.loopBlocks(0, frame.height, (y0,y1)->{
+		final int y0 = 0, y1 = frame.height;
+		//CONCURRENT_INLINE final Point2Transform2Model_F32<Motion> transform = this.transform.copy();
+		//CONCURRENT_INLINE final Point2D_F32 work = new Point2D_F32();
+		//CONCURRENT_INLINE final float[] pixelBG = new float[2];
+		//CONCURRENT_INLINE final InterpolatePixelMB<Planar<GrayF32>> interpolationBG = FactoryInterpolation.createPixelMB(0, 255, interpType, BorderType.EXTENDED, ImageType.pl(2, GrayF32.class));
+		//CONCURRENT_INLINE interpolationBG.setImage(background);
+		for (int y = y0; y < y1; y++) {
 			int indexFrame = frame.startIndex + y*frame.stride;
 			int indexSegmented = segmented.startIndex + y*segmented.stride;
 
@@ -168,5 +188,6 @@ public class BackgroundMovingGaussian_SB <T extends ImageGray<T>, Motion extends
 				}
 			}
 		}
+		//CONCURRENT_INLINE });
 	}
 }
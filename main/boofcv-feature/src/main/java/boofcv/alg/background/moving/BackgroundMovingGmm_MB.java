@@ -18,12 +18,14 @@
 
 package boofcv.alg.background.moving;
 
+//CONCURRENT_INLINE import boofcv.concurrency.BoofConcurrency;
 import boofcv.struct.distort.Point2Transform2Model_F32;
 import boofcv.struct.image.GrayU8;
 import boofcv.struct.image.ImageGray;
 import boofcv.struct.image.ImageMultiBand;
 import boofcv.struct.image.ImageType;
 import georegression.struct.InvertibleTransform;
+//CONCURRENT_INLINE import georegression.struct.point.Point2D_F32;
 
 /**
  * Implementation of {@link BackgroundMovingGmm} for {@link ImageGray}.
@@ -45,7 +47,13 @@ public class BackgroundMovingGmm_MB<T extends ImageMultiBand<T>, Motion extends
 		common.inputWrapperMB.wrap(frame);
 		transform.setModel(worldToCurrent);
 
-		for (int y = y0; y < y1; y++) {
+		//CONCURRENT_BELOW BoofConcurrency.loopBlocks(y0, y1, (blockY0,blockY1)->{
+		final int blockY0 = y0, blockY1 = y1;
+		//CONCURRENT_INLINE final Point2Transform2Model_F32<Motion> transform = this.transform.copy();
+		//CONCURRENT_INLINE final Point2D_F32 work = new Point2D_F32();
+		//CONCURRENT_BELOW final float[] inputPixel = new float[common.numBands];
+		final float[] inputPixel = common.inputPixel;
+		for (int y = blockY0; y < blockY1; y++) {
 			float modelRow[] = common.model.data[y];
 			for (int x = x0; x < x1; x++) {
 				int indexModel = x*common.modelStride;
@@ -56,12 +64,13 @@ public class BackgroundMovingGmm_MB<T extends ImageMultiBand<T>, Motion extends
 
 				if( work.x >= 0 && xx < frame.width && work.y >= 0 && yy < frame.height) {
 
-					common.inputWrapperMB.get(xx,yy,common.inputPixel);
+					common.inputWrapperMB.get(xx,yy,inputPixel);
 
-					common.updateMixture(common.inputPixel,modelRow,indexModel); // TODO assigned mask here
+					common.updateMixture(inputPixel,modelRow,indexModel); // TODO assigned mask here
 				}
 			}
 		}
+		//CONCURRENT_INLINE });
 	}
 
 	@Override
@@ -70,7 +79,13 @@ public class BackgroundMovingGmm_MB<T extends ImageMultiBand<T>, Motion extends
 		transform.setModel(currentToWorld);
 		common.unknownValue = unknownValue;
 
-		for (int y = 0; y < frame.height; y++) {
+		//CONCURRENT_BELOW BoofConcurrency.loopBlocks(0, frame.height, (y0,y1)->{
+		final int y0 = 0, y1 = frame.height;
+		//CONCURRENT_INLINE final Point2Transform2Model_F32<Motion> transform = this.transform.copy();
+		//CONCURRENT_INLINE final Point2D_F32 work = new Point2D_F32();
+		//CONCURRENT_BELOW final float[] inputPixel = new float[common.numBands];
+		final float[] inputPixel = common.inputPixel;
+		for (int y = y0; y < y1; y++) {
 			int indexOut = segmented.startIndex + y*segmented.stride;
 			for (int x = 0; x < frame.width; x++, indexOut++) {
 
@@ -81,17 +96,18 @@ public class BackgroundMovingGmm_MB<T extends ImageMultiBand<T>, Motion extends
 
 				if( work.x >= 0 && xx < backgroundWidth && work.y >= 0 && yy < backgroundHeight) {
 
-					common.inputWrapperMB.get(x,y,common.inputPixel);
+					common.inputWrapperMB.get(x,y,inputPixel);
 
 					float modelRow[] = common.model.data[yy];
 					int indexModel = xx*common.modelStride;
 
-					segmented.data[indexOut] = (byte)common.checkBackground(common.inputPixel, modelRow, indexModel);
+					segmented.data[indexOut] = (byte)common.checkBackground(inputPixel, modelRow, indexModel);
 				}else {
 					// there is no background here.  Just mark it as not moving to avoid false positives
 					segmented.data[indexOut] = unknownValue;
 				}
 			}
 		}
+		//CONCURRENT_INLINE });
 	}
 }
@@ -20,6 +20,7 @@ package boofcv.alg.background.stationary;
 
 import boofcv.alg.InputSanityCheck;
 import boofcv.alg.misc.ImageMiscOps;
+//CONCURRENT_INLINE import boofcv.concurrency.BoofConcurrency;
 import boofcv.core.image.FactoryGImageMultiBand;
 import boofcv.core.image.GConvertImage;
 import boofcv.core.image.GImageMultiBand;
@@ -79,8 +80,9 @@ public class BackgroundStationaryBasic_IL<T extends ImageInterleaved<T>>
 		int numBands = background.getNumBands();
 		float minusLearn = 1.0f - learnRate;
 
-		int indexBG = 0;
+		//CONCURRENT_BELOW BoofConcurrency.loopFor(0, frame.height, y -> {
 		for (int y = 0; y < frame.height; y++) {
+			int indexBG = y*background.stride;
 			int indexInput = frame.startIndex + y*frame.stride;
 			int end = indexInput + frame.width*numBands;
 			while( indexInput < end ) {
@@ -93,6 +95,7 @@ public class BackgroundStationaryBasic_IL<T extends ImageInterleaved<T>>
 				}
 			}
 		}
+		//CONCURRENT_ABOVE });
 	}
 
 	@Override
@@ -107,8 +110,9 @@ public class BackgroundStationaryBasic_IL<T extends ImageInterleaved<T>>
 		int numBands = background.getNumBands();
 		float thresholdSq = numBands*threshold*threshold;
 
-		int indexBG = 0;
+		//CONCURRENT_BELOW BoofConcurrency.loopFor(0, frame.height, y -> {
 		for (int y = 0; y < frame.height; y++) {
+			int indexBG = y*background.stride;
 			int indexInput = frame.startIndex + y*frame.stride;
 			int indexSegmented = segmented.startIndex + y*segmented.stride;
 
@@ -129,6 +133,7 @@ public class BackgroundStationaryBasic_IL<T extends ImageInterleaved<T>>
 				indexSegmented++;
 			}
 		}
+		//CONCURRENT_ABOVE });
 	}
 
 
@@ -20,6 +20,7 @@ package boofcv.alg.background.stationary;
 
 import boofcv.alg.InputSanityCheck;
 import boofcv.alg.misc.ImageMiscOps;
+//CONCURRENT_INLINE import boofcv.concurrency.BoofConcurrency;
 import boofcv.core.image.FactoryGImageMultiBand;
 import boofcv.core.image.GConvertImage;
 import boofcv.core.image.GImageMultiBand;
@@ -83,8 +84,11 @@ public class BackgroundStationaryBasic_PL<T extends ImageGray<T>>
 		int numBands = background.getNumBands();
 		float minusLearn = 1.0f - learnRate;
 
-		int indexBG = 0;
-		for (int y = 0; y < frame.height; y++) {
+		//CONCURRENT_BELOW BoofConcurrency.loopBlocks(0, frame.height, (y0,y1)->{
+		final int y0 = 0, y1 = frame.height;
+		//CONCURRENT_INLINE final float[] inputPixels = new float[numBands];
+		for (int y = y0; y < y1; y++) {
+			int indexBG = y*background.width;
 			int indexInput = frame.startIndex + y*frame.stride;
 			int end = indexInput + frame.width;
 			while( indexInput < end ) {
@@ -99,6 +103,7 @@ public class BackgroundStationaryBasic_PL<T extends ImageGray<T>>
 				indexBG++;
 			}
 		}
+		//CONCURRENT_INLINE });
 	}
 
 	@Override
@@ -113,8 +118,11 @@ public class BackgroundStationaryBasic_PL<T extends ImageGray<T>>
 		int numBands = background.getNumBands();
 		float thresholdSq = numBands*threshold*threshold;
 
-		int indexBG = 0;
-		for (int y = 0; y < frame.height; y++) {
+		//CONCURRENT_BELOW BoofConcurrency.loopBlocks(0, frame.height, (y0,y1)->{
+		final int y0 = 0, y1 = frame.height;
+		//CONCURRENT_INLINE final float[] inputPixels = new float[numBands];
+		for (int y = y0; y < y1; y++) {
+			int indexBG = y*background.width;
 			int indexInput = frame.startIndex + y*frame.stride;
 			int indexSegmented = segmented.startIndex + y*segmented.stride;
 
@@ -139,6 +147,7 @@ public class BackgroundStationaryBasic_PL<T extends ImageGray<T>>
 				indexBG++;
 			}
 		}
+		//CONCURRENT_INLINE });
 	}
 
 
@@ -20,6 +20,7 @@ package boofcv.alg.background.stationary;
 
 import boofcv.alg.InputSanityCheck;
 import boofcv.alg.misc.ImageMiscOps;
+//CONCURRENT_INLINE import boofcv.concurrency.BoofConcurrency;
 import boofcv.core.image.FactoryGImageGray;
 import boofcv.core.image.GConvertImage;
 import boofcv.core.image.GImageGray;
@@ -74,8 +75,9 @@ public class BackgroundStationaryBasic_SB<T extends ImageGray<T>>
 
 		float minusLearn = 1.0f - learnRate;
 
-		int indexBG = 0;
+		//CONCURRENT_BELOW BoofConcurrency.loopFor(0, frame.height, y -> {
 		for (int y = 0; y < frame.height; y++) {
+			int indexBG = y*background.width;
 			int indexInput = frame.startIndex + y*frame.stride;
 			int end = indexInput + frame.width;
 			while( indexInput < end ) {
@@ -85,6 +87,7 @@ public class BackgroundStationaryBasic_SB<T extends ImageGray<T>>
 				background.data[indexBG++] = minusLearn*bg + learnRate*value;
 			}
 		}
+		//CONCURRENT_ABOVE });
 	}
 
 	@Override
@@ -98,8 +101,9 @@ public class BackgroundStationaryBasic_SB<T extends ImageGray<T>>
 
 		float thresholdSq = threshold*threshold;
 
-		int indexBG = 0;
+		//CONCURRENT_BELOW BoofConcurrency.loopFor(0, frame.height, y -> {
 		for (int y = 0; y < frame.height; y++) {
+			int indexBG = y*background.width;
 			int indexInput = frame.startIndex + y*frame.stride;
 			int indexSegmented = segmented.startIndex + y*segmented.stride;
 
@@ -120,6 +124,7 @@ public class BackgroundStationaryBasic_SB<T extends ImageGray<T>>
 				indexBG++;
 			}
 		}
+		//CONCURRENT_ABOVE });
 	}
 
 
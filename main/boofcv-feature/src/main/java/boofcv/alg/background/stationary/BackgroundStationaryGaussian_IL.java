@@ -20,6 +20,7 @@ package boofcv.alg.background.stationary;
 
 import boofcv.alg.InputSanityCheck;
 import boofcv.alg.misc.ImageMiscOps;
+//CONCURRENT_INLINE import boofcv.concurrency.BoofConcurrency;
 import boofcv.core.image.FactoryGImageMultiBand;
 import boofcv.core.image.GImageMultiBand;
 import boofcv.struct.image.GrayU8;
@@ -102,8 +103,11 @@ public class BackgroundStationaryGaussian_IL<T extends ImageInterleaved<T>>
 		int numBands = background.getNumBands()/2;
 		float minusLearn = 1.0f - learnRate;
 
-		int indexBG = 0;
-		for (int y = 0; y < background.height; y++) {
+		//CONCURRENT_BELOW BoofConcurrency.loopBlocks(0, background.height, (y0,y1)->{
+		final int y0 = 0, y1 = background.height;
+		//CONCURRENT_INLINE final float[] inputPixel = new float[numBands];
+		for (int y = y0; y < y1; y++) {
+			int indexBG = y*background.stride;
 			int indexInput = frame.startIndex + y*frame.stride;
 			int end = indexInput + frame.width*numBands;
 			while( indexInput < end ) {
@@ -123,6 +127,7 @@ public class BackgroundStationaryGaussian_IL<T extends ImageInterleaved<T>>
 				indexInput += frame.numBands;
 			}
 		}
+		//CONCURRENT_INLINE });
 	}
 
 	@Override
@@ -137,8 +142,11 @@ public class BackgroundStationaryGaussian_IL<T extends ImageInterleaved<T>>
 
 		float adjustedMinimumDifference = minimumDifference*numBands;
 
-		int indexBG = 0;
-		for (int y = 0; y < frame.height; y++) {
+		//CONCURRENT_BELOW BoofConcurrency.loopBlocks(0, frame.height, (y0,y1)->{
+		final int y0 = 0, y1 = frame.height;
+		//CONCURRENT_INLINE final float[] inputPixel = new float[numBands];
+		for (int y = y0; y < y1; y++) {
+			int indexBG = y*background.stride;
 			int indexInput = frame.startIndex + y*frame.stride;
 			int indexSegmented = segmented.startIndex + y*segmented.stride;
 
@@ -181,5 +189,6 @@ public class BackgroundStationaryGaussian_IL<T extends ImageInterleaved<T>>
 				indexBG        += background.numBands;
 			}
 		}
+		//CONCURRENT_INLINE });
 	}
 }
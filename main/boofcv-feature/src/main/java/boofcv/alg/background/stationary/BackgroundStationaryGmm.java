@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2011-2018, Peter Abeles. All Rights Reserved.
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
  *
  * This file is part of BoofCV (http://boofcv.org).
  *
@@ -21,6 +21,8 @@ package boofcv.alg.background.stationary;
 import boofcv.alg.background.BackgroundAlgorithmGmm;
 import boofcv.alg.background.BackgroundGmmCommon;
 import boofcv.alg.background.BackgroundModelStationary;
+import boofcv.struct.RArray2D_F32;
+import boofcv.struct.RArray2D_I16;
 import boofcv.struct.image.GrayU8;
 import boofcv.struct.image.ImageBase;
 import boofcv.struct.image.ImageType;
@@ -48,9 +50,39 @@ public abstract class BackgroundStationaryGmm< T extends ImageBase<T>>
 	@Override
 	public void reset() {
 		common.model.reshape(0, 0);
+		common.modelQ.reshape(0, 0);
 		common.imageWidth = common.imageHeight = 0;
 	}
 
+	/**
+	 * Selects between the float model and the compact 16-bit model. The compact model uses half the memory
+	 * but segmentation can differ slightly. See {@link BackgroundGmmCommon}. Changing this discards the model.
+	 */
+	public void setCompact( boolean compact ) {
+		if( common.compact == compact )
+			return;
+		common.compact = compact;
+		// release memory used by the model no longer being used
+		if( compact )
+			common.model = new RArray2D_F32(1, 1);
+		else
+			common.modelQ = new RArray2D_I16(1, 1);
+		reset();
+	}
+
+	public boolean isCompact() {
+		return common.compact;
+	}
+
+	/**
+	 * Specifies the range of pixel values which can be represented by the compact model.
+	 * See {@link BackgroundGmmCommon#setCompactRange}. Changing this discards the model.
+	 */
+	public void setCompactRange( float minPixelValue , float maxPixelValue ) {
+		common.setCompactRange(minPixelValue, maxPixelValue);
+		reset();
+	}
+
 	@Override
 	public void updateBackground( T frame ) {
 		updateBackground(frame,null);
@@ -68,8 +100,13 @@ public abstract class BackgroundStationaryGmm< T extends ImageBase<T>>
 			common.imageWidth = frame.width;
 			common.imageHeight = frame.height;
 
-			common.model.reshape(frame.height, frame.width*common.modelStride);
-			common.model.zero();
+			if( common.compact ) {
+				common.modelQ.reshape(frame.height, frame.width*common.modelStride);
+				common.modelQ.zero();
+			} else {
+				common.model.reshape(frame.height, frame.width*common.modelStride);
+				common.model.zero();
+			}
 		}
 
 		if( mask != null ) {
@@ -20,6 +20,7 @@ package boofcv.alg.background.stationary;
 
 import boofcv.alg.background.BackgroundAlgorithmGmm;
 import boofcv.alg.misc.ImageMiscOps;
+//CONCURRENT_INLINE import boofcv.concurrency.BoofConcurrency;
 import boofcv.struct.image.GrayU8;
 import boofcv.struct.image.ImageGray;
 import boofcv.struct.image.ImageType;
@@ -52,11 +53,23 @@ public class BackgroundStationaryGmm_SB<T extends ImageGray<T>>
 		super.updateBackground(frame, mask);
 
 		common.inputWrapperG.wrap(frame);
+		//CONCURRENT_BELOW BoofConcurrency.loopFor(0, common.imageHeight, row -> {
 		for (int row = 0; row < common.imageHeight; row++) {
 			int inputIndex = frame.startIndex + row*frame.stride;
-			float[] dataRow = common.model.data[row];
 
-			if( mask == null ) {
+			if( common.compact ) {
+				short[] dataRow = common.modelQ.data[row];
+				int indexMask = mask == null ? 0 : mask.startIndex + row*mask.stride;
+				for (int col = 0; col < common.imageWidth; col++) {
+					float pixelValue = common.toCompact(common.inputWrapperG.getF(inputIndex++));
+					int modelIndex = col * common.modelStride;
+
+					int value = common.updateMixture(pixelValue, dataRow, modelIndex);
+					if( mask != null )
+						mask.data[indexMask++] = (byte)value;
+				}
+			} else if( mask == null ) {
+				float[] dataRow = common.model.data[row];
 				for (int col = 0; col < common.imageWidth; col++) {
 					float pixelValue = common.inputWrapperG.getF(inputIndex++);
 					int modelIndex = col * common.modelStride;
@@ -64,6 +77,7 @@ public class BackgroundStationaryGmm_SB<T extends ImageGray<T>>
 					common.updateMixture(pixelValue, dataRow, modelIndex);
 				}
 			} else {
+				float[] dataRow = common.model.data[row];
 				int indexMask = mask.startIndex + row*mask.stride;
 				for (int col = 0; col < common.imageWidth; col++) {
 					float pixelValue = common.inputWrapperG.getF(inputIndex++);
@@ -73,6 +87,7 @@ public class BackgroundStationaryGmm_SB<T extends ImageGray<T>>
 				}
 			}
 		}
+		//CONCURRENT_ABOVE });
 	}
 
 	@Override
@@ -85,17 +100,29 @@ public class BackgroundStationaryGmm_SB<T extends ImageGray<T>>
 
 		common.unknownValue = unknownValue;
 		common.inputWrapperG.wrap(frame);
+		//CONCURRENT_BELOW BoofConcurrency.loopFor(0, common.imageHeight, row -> {
 		for (int row = 0; row < common.imageHeight; row++) {
 			int indexIn = frame.startIndex + row*frame.stride;
 			int indexOut = segmented.startIndex + row*segmented.stride;
-			float[] dataRow = common.model.data[row];
 
-			for (int col = 0; col < common.imageWidth; col++) {
-				float pixelValue = common.inputWrapperG.getF(indexIn++);
-				int modelIndex = col * common.modelStride;
+			if( common.compact ) {
+				short[] dataRow = common.modelQ.data[row];
+				for (int col = 0; col < common.imageWidth; col++) {
+					float pixelValue = common.toCompact(common.inputWrapperG.getF(indexIn++));
+					int modelIndex = col * common.modelStride;
+
+					segmented.data[indexOut++] = (byte)common.checkBackground(pixelValue, dataRow, modelIndex);
+				}
+			} else {
+				float[] dataRow = common.model.data[row];
+				for (int col = 0; col < common.imageWidth; col++) {
+					float pixelValue = common.inputWrapperG.getF(indexIn++);
+					int modelIndex = col * common.modelStride;
 
-				segmented.data[indexOut++] = (byte)common.checkBackground(pixelValue, dataRow, modelIndex);
+					segmented.data[indexOut++] = (byte)common.checkBackground(pixelValue, dataRow, modelIndex);
+				}
 			}
 		}
+		//CONCURRENT_ABOVE });
 	}
 }
@@ -21,6 +21,7 @@ package boofcv.alg.feature.detect.edge;
 import boofcv.abst.filter.blur.BlurFilter;
 import boofcv.abst.filter.derivative.ImageGradient;
 import boofcv.alg.misc.ImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.core.image.GeneralizedImageOps;
 import boofcv.struct.image.GrayF32;
 import boofcv.struct.image.GrayS8;
@@ -90,6 +91,8 @@ public class CannyEdge<T extends ImageGray<T>, D extends ImageGray<D>> {
 
 		if( saveTrace ) {
 			hysteresisPts = new HysteresisEdgeTracePoints();
+		} else if( BoofConcurrency.USE_CONCURRENT ) {
+			hysteresisMark = new HysteresisEdgeTraceMark_MT();
 		} else {
 			hysteresisMark = new HysteresisEdgeTraceMark();
 		}
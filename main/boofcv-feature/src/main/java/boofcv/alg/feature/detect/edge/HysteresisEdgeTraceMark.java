@@ -40,13 +40,13 @@ public class HysteresisEdgeTraceMark {
 	public static final float MARK_TRAVERSED = -1;
 
 	// reference to input intensity and direction images
-	private GrayF32 intensity; // intensity after edge non-maximum suppression
-	private GrayS8 direction; // 4-direction
+	protected GrayF32 intensity; // intensity after edge non-maximum suppression
+	protected GrayS8 direction; // 4-direction
 	// output binary image
-	private GrayU8 output;
+	protected GrayU8 output;
 
 	// lower threshold
-	private float lower;
+	protected float lower;
 
 	// list of points which have yet to be explored
 	private FastQueue<Point2D_I32> open = new FastQueue<>(Point2D_I32.class, true);
@@ -131,7 +131,7 @@ public class HysteresisEdgeTraceMark {
 				int fx = active.x+dx, fy = active.y+dy;
 				int bx = active.x-dx, by = active.y-dy;
 
-				if( intensity.isInBounds(fx,fy) && intensity.data[ indexForward ] >= lower ) {
+				if( isInBounds(fx,fy) && intensity.data[ indexForward ] >= lower ) {
 					intensity.data[ indexForward ] = MARK_TRAVERSED;
 					output.unsafe_set(fx, fy, 1);
 					active.set(fx, fy);
@@ -139,7 +139,7 @@ public class HysteresisEdgeTraceMark {
 					indexInten = indexForward;
 					indexDir = prevIndexDir  + dy*intensity.stride + dx;
 				}
-				if( intensity.isInBounds(bx,by) && intensity.data[ indexBackward ] >= lower ) {
+				if( isInBounds(bx,by) && intensity.data[ indexBackward ] >= lower ) {
 					intensity.data[ indexBackward ] = MARK_TRAVERSED;
 					output.unsafe_set(bx,by,1);
 					if( match ) {
@@ -175,6 +175,13 @@ public class HysteresisEdgeTraceMark {
 		}
 	}
 
+	/**
+	 * Returns true if the pixel can be traversed by the trace
+	 */
+	protected boolean isInBounds( int x , int y ) {
+		return intensity.isInBounds(x,y);
+	}
+
 	private boolean checkAllNeighbors( int x , int y , boolean match ) {
 		match |= check(x+1,y,match);
 		match |= check(x,y+1,match);
@@ -198,7 +205,7 @@ public class HysteresisEdgeTraceMark {
 	 */
 	private boolean check( int x , int y , boolean match ) {
 
-		if( intensity.isInBounds(x,y)  ) {
+		if( isInBounds(x,y) ) {
 			int index = intensity.getIndex(x,y);
 			if( intensity.data[index] >= lower ) {
 				intensity.data[index] = MARK_TRAVERSED;
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.detect.edge;
+
+import boofcv.alg.InputSanityCheck;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayS8;
+import boofcv.struct.image.GrayU8;
+import georegression.struct.point.Point2D_I32;
+import org.ddogleg.struct.FastQueue;
+
+/**
+ * <p>
+ * Concurrent implementation of {@link HysteresisEdgeTraceMark}. The image is broken up into horizontal bands
+ * and each band is traced independently using the same rules as the single threaded code.
+ * </p>
+ *
+ * <ol>
+ * <li>Each band starts a trace at every pixel above the upper threshold inside of it. A trace is not allowed
+ * to leave its band. Pixels in other bands which it would have examined are saved.</li>
+ * <li>Saved pixels are sent to the band they are inside of. If a saved pixel is above the lower threshold
+ * and has not been traversed yet then a trace is started from it.</li>
+ * <li>The previous step is repeated until no more pixels are saved.</li>
+ * </ol>
+ *
+ * <p>
+ * Bands only modify their own pixels so no locking is needed. When a trace is continued in another band the
+ * pixel is treated as an end point and all of its neighbors are searched, which can cause a few more pixels
+ * to be marked next to the seams than in the single threaded code. Results depend on the band height
+ * and not on the number of threads.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class HysteresisEdgeTraceMark_MT extends HysteresisEdgeTraceMark {
+
+	// number of rows in each band
+	protected int bandHeight;
+
+	// storage for each band
+	protected FastQueue<Band> bands = new FastQueue<>(Band.class, true);
+
+	/**
+	 * Specifies the band height
+	 *
+	 * @param bandHeight Number of rows in each band. Try 128
+	 */
+	public HysteresisEdgeTraceMark_MT( int bandHeight ) {
+		if( bandHeight <= 0 )
+			throw new IllegalArgumentException("Band height must be more than zero");
+		this.bandHeight = bandHeight;
+	}
+
+	public HysteresisEdgeTraceMark_MT() {
+		this(128);
+	}
+
+	@Override
+	public void process(GrayF32 intensity , GrayS8 direction , float lower , float upper ,
+						GrayU8 output ) {
+		if( lower < 0 )
+			throw new IllegalArgumentException("Lower must be >= 0!");
+		InputSanityCheck.checkSameShape(intensity,direction,output);
+
+		ImageMiscOps.fill(output,0);
+
+		// split the image into bands
+		bands.reset();
+		for( int y0 = 0; y0 < intensity.height; y0 += bandHeight ) {
+			Band b = bands.grow();
+			b.intensity = intensity;
+			b.direction = direction;
+			b.output = output;
+			b.lower = lower;
+			b.y0 = y0;
+			b.y1 = Math.min(intensity.height, y0 + bandHeight);
+			b.seeds.reset();
+			b.crossed.reset();
+		}
+
+		// Start traces from pixels above the upper threshold
+		BoofConcurrency.loopFor(0,bands.size,i->{
+			Band b = bands.data[i];
+			for( int y = b.y0; y < b.y1; y++ ) {
+				int indexInten = intensity.startIndex + y*intensity.stride;
+
+				for( int x = 0; x < intensity.width; x++ , indexInten++ ) {
+					if( intensity.data[indexInten] >= upper ) {
+						b.trace(x,y,indexInten);
+					}
+				}
+			}
+		});
+
+		// Continue traces which crossed into another band until there are none left
+		while( routeCrossedPixels() ) {
+			BoofConcurrency.loopFor(0,bands.size,i->{
+				Band b = bands.data[i];
+				for( int j = 0; j < b.seeds.size; j++ ) {
+					Point2D_I32 p = b.seeds.data[j];
+					int indexInten = intensity.startIndex + p.y*intensity.stride + p.x;
+					if( intensity.data[indexInten] >= lower ) {
+						b.trace(p.x,p.y,indexInten);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Moves pixels which a trace crossed into to the list of seeds in the band they belong to.
+	 *
+	 * @return true if there are any seeds
+	 */
+	protected boolean routeCrossedPixels() {
+		for( int i = 0; i < bands.size; i++ ) {
+			bands.data[i].seeds.reset();
+		}
+
+		boolean found = false;
+		for( int i = 0; i < bands.size; i++ ) {
+			FastQueue<Point2D_I32> crossed = bands.data[i].crossed;
+			for( int j = 0; j < crossed.size; j++ ) {
+				Point2D_I32 p = crossed.data[j];
+				bands.data[p.y/bandHeight].seeds.grow().set(p.x,p.y);
+			}
+			found |= crossed.size > 0;
+			crossed.reset();
+		}
+		return found;
+	}
+
+	public int getBandHeight() {
+		return bandHeight;
+	}
+
+	/**
+	 * Traces edges inside a horizontal band and saves pixels in other bands which it tried to traverse
+	 */
+	public static class Band extends HysteresisEdgeTraceMark {
+		// rows in this band. Lower extent inclusive and upper extent exclusive
+		public int y0,y1;
+		// pixels in this band which traces in other bands crossed into
+		public FastQueue<Point2D_I32> seeds = new FastQueue<>(Point2D_I32.class, true);
+		// pixels in other bands which traces in this band crossed into
+		public FastQueue<Point2D_I32> crossed = new FastQueue<>(Point2D_I32.class, true);
+
+		@Override
+		protected boolean isInBounds(int x, int y) {
+			if( x < 0 || x >= intensity.width )
+				return false;
+			if( y >= y0 && y < y1 )
+				return true;
+			if( y >= 0 && y < intensity.height )
+				crossed.grow().set(x,y);
+			return false;
+		}
+	}
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.flow;
+
+import boofcv.alg.interpolate.InterpolatePixelS;
+import boofcv.alg.misc.PixelMath;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.core.image.border.FactoryImageBorder;
+import boofcv.struct.border.BorderType;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.ImageGray;
+import boofcv.struct.lists.RecycleStack;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Concurrent implementation of {@link BroxWarpingSpacial}. Image warping and the SOR solver, which dominate
+ * the run time, are done in parallel. The SOR update for a pixel only depends on its 4-connected neighbors
+ * so pixels are partitioned into red and black sets, like a checker board, and each set is updated in
+ * parallel by splitting its rows into bands.
+ * </p>
+ *
+ * <p>
+ * The solution converges to the same fixed point as the single threaded version but the intermediate
+ * values differ since the update order is different. Results do not depend on the number of threads.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class BroxWarpingSpacial_MT<T extends ImageGray<T>> extends BroxWarpingSpacial<T> {
+
+	// interpolation for each thread when warping the image
+	private RecycleStack<InterpolatePixelS<GrayF32>> interpStack;
+
+	// sum of the error for each row. Summed in a fixed order to ensure results do not depend on thread count
+	private float[] rowError = new float[0];
+
+	/**
+	 * Configures flow estimation
+	 *
+	 * @param config Configuration parameters
+	 * @param interp Interpolation for image flow between image layers and warping.  Overrides selection in config.
+	 */
+	public BroxWarpingSpacial_MT(ConfigBroxWarping config, InterpolatePixelS<GrayF32> interp) {
+		super(config, interp);
+		interpStack = new RecycleStack<>(()->{
+			InterpolatePixelS<GrayF32> copy = interp.copy();
+			copy.setBorder(FactoryImageBorder.single(GrayF32.class, BorderType.EXTENDED));
+			return copy;
+		});
+	}
+
+	@Override
+	protected void warpImageTaylor(GrayF32 before, GrayF32 flowX, GrayF32 flowY, GrayF32 after) {
+		BoofConcurrency.loopBlocks(0,before.height,(y0,y1)->{
+			InterpolatePixelS<GrayF32> interp = interpStack.pop();
+			interp.setImage(before);
+
+			for( int y = y0; y < y1; y++ ) {
+				int pixelIndex = y*before.width;
+				for (int x = 0; x < before.width; x++, pixelIndex++ ) {
+					float wx = x + flowX.data[pixelIndex];
+					float wy = y + flowY.data[pixelIndex];
+
+					after.data[pixelIndex] = interp.get(wx, wy);
+				}
+			}
+
+			interpStack.recycle(interp);
+		});
+	}
+
+	@Override
+	protected void processLayer(GrayF32 image1 , GrayF32 image2 ,
+								GrayF32 deriv1X , GrayF32 deriv1Y,
+								GrayF32 deriv2X , GrayF32 deriv2Y,
+								GrayF32 deriv2XX , GrayF32 deriv2YY, GrayF32 deriv2XY) {
+
+		int N = image1.width*image1.height;
+		if( rowError.length < image1.height )
+			rowError = new float[image1.height];
+
+		// outer Taylor expansion iterations
+		for( int indexOuter = 0; indexOuter < numOuter; indexOuter++ ) {
+
+			// warp the image and the first + second derivatives
+			warpImageTaylor(image2, flowU, flowV, warpImage2);
+
+			warpImageTaylor(deriv2X, flowU, flowV, warpDeriv2X);
+			warpImageTaylor(deriv2Y, flowU, flowV, warpDeriv2Y);
+
+			warpImageTaylor(deriv2XX, flowU, flowV, warpDeriv2XX);
+			warpImageTaylor(deriv2YY, flowU, flowV, warpDeriv2YY);
+			warpImageTaylor(deriv2XY, flowU, flowV, warpDeriv2XY);
+
+			gradient.process(flowU,derivFlowUX,derivFlowUY);
+			gradient.process(flowV,derivFlowVX,derivFlowVY);
+
+			computePsiSmooth(derivFlowUX,derivFlowUY,derivFlowVX,derivFlowVY,psiSmooth);
+
+			computeDivUVD(flowU, flowV,psiSmooth,divU,divV,divD);
+
+			// initialize the motion increments to zero
+			Arrays.fill(du.data,0,N,0);
+			Arrays.fill(dv.data,0,N,0);
+
+			for( int indexInner = 0; indexInner < numInner; indexInner++ ) {
+
+				computePsiDataPsiGradient(image1, image2,
+						deriv1X, deriv1Y,
+						deriv2X, deriv2Y, deriv2XX, deriv2YY, deriv2XY,
+						du, dv, psiData, psiGradient);
+
+				float error;
+				int iter = 0;
+
+				do {
+					Arrays.fill(rowError,0,image1.height,0);
+
+					// inner SOR iteration. red pixels then black pixels
+					for( int color = 0; color < 2; color++ ) {
+						final int _color = color;
+						BoofConcurrency.loopBlocks(0,image1.height,(y0,y1)->{
+							for( int y = y0; y < y1; y++ ) {
+								rowError[y] += iterationSorRow(image1,deriv1X,deriv1Y,y,(y+_color)&1);
+							}
+						});
+					}
+
+					error = 0;
+					for( int y = 0; y < image1.height; y++ ) {
+						error += rowError[y];
+					}
+				} while (error > convergeTolerance * image1.width * image1.height && ++iter < maxIterationsSor);
+			}
+
+			// update the flow with the motion increments
+			PixelMath.add(flowU,du, flowU);
+			PixelMath.add(flowV,dv, flowV);
+		}
+	}
+
+	/**
+	 * Applies SOR to every other pixel in row 'y' starting at x = x0
+	 *
+	 * @return sum of the change in flow
+	 */
+	private float iterationSorRow(GrayF32 image1, GrayF32 deriv1X, GrayF32 deriv1Y, int y, int x0) {
+		float error = 0;
+		int stride = image1.stride;
+		boolean borderRow = y == 0 || y == image1.height-1;
+
+		int i = y*image1.width + x0;
+		for( int x = x0; x < image1.width; x += 2, i += 2 ) {
+			if( borderRow || x == 0 || x == image1.width-1 ) {
+				error += iterationSor(image1, deriv1X, deriv1Y,
+						i, s(x + 1, y), s(x - 1, y), s(x, y + 1), s(x, y - 1));
+			} else {
+				error += iterationSor(image1, deriv1X, deriv1Y, i, i + 1, i - 1, i + stride, i - stride);
+			}
+		}
+		return error;
+	}
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.flow;
+
+import boofcv.alg.InputSanityCheck;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.flow.ImageFlow;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageGray;
+import boofcv.struct.lists.RecycleStack;
+import boofcv.struct.pyramid.ImagePyramid;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Concurrent implementation of {@link DenseOpticalFlowBlockPyramid}. Each layer is processed in two passes.
+ * In the first pass the exhaustive search is done for every pixel in parallel, with each thread having its own
+ * template, and the candidate flow is saved. In the second pass each pixel in the output looks at all the
+ * candidates whose region overlaps it and selects the best one. Candidates are considered in the same order
+ * as they are in the single threaded implementation, so the output is identical.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class DenseOpticalFlowBlockPyramid_MT<T extends ImageGray<T>> extends DenseOpticalFlowBlockPyramid<T> {
+
+	// Candidate status for a pixel
+	private static final byte SKIPPED = 0;
+	private static final byte INVALID = 1;
+	private static final byte VALID = 2;
+
+	// used to perform the search for each thread
+	private RecycleStack<DenseOpticalFlowBlockPyramid<T>> workers;
+	// handles the abstract functions for this instance
+	private DenseOpticalFlowBlockPyramid<T> master;
+
+	// candidate flow and score found by the search centered at each pixel
+	private float[] candidateX = new float[0];
+	private float[] candidateY = new float[0];
+	private float[] candidateScore = new float[0];
+	private byte[] candidateStatus = new byte[0];
+
+	/**
+	 * Configures the search.
+	 *
+	 * @param searchRadius Determines the size of the area search for matches. area = (2*r + 1)^2
+	 * @param regionRadius Radius of the square region
+	 * @param maxPerPixelError Maximum error allowed per pixel.
+	 * @param imageType Type of image which is being processed.
+	 */
+	public DenseOpticalFlowBlockPyramid_MT(int searchRadius, int regionRadius,
+										   int maxPerPixelError, Class<T> imageType) {
+		super(searchRadius, regionRadius, maxPerPixelError, imageType);
+
+		workers = new RecycleStack<>(()->createWorker(searchRadius,regionRadius,maxPerPixelError,imageType));
+		master = createWorker(searchRadius,regionRadius,maxPerPixelError,imageType);
+		template = master.template;
+	}
+
+	private static <T extends ImageGray<T>> DenseOpticalFlowBlockPyramid<T>
+	createWorker(int searchRadius, int regionRadius, int maxPerPixelError, Class<T> imageType) {
+		if( imageType == GrayU8.class )
+			return (DenseOpticalFlowBlockPyramid)new U8(searchRadius,regionRadius,maxPerPixelError);
+		else if( imageType == GrayF32.class )
+			return (DenseOpticalFlowBlockPyramid)new F32(searchRadius,regionRadius,maxPerPixelError);
+		else
+			throw new IllegalArgumentException("Unsupported image type "+imageType);
+	}
+
+	@Override
+	public void process( ImagePyramid<T> pyramidPrev , ImagePyramid<T> pyramidCurr ) {
+
+		InputSanityCheck.checkSameShape(pyramidPrev, pyramidCurr);
+
+		int numLayers = pyramidPrev.getNumLayers();
+
+		for( int i = numLayers-1; i >= 0; i-- ) {
+
+			T prev = pyramidPrev.getLayer(i);
+			T curr = pyramidCurr.getLayer(i);
+
+			flowCurrLayer.reshape(prev.width, prev.height);
+
+			int N = prev.width*prev.height;
+			if( scores.length < N )
+				scores = new float[N];
+			if( candidateStatus.length < N ) {
+				candidateX = new float[N];
+				candidateY = new float[N];
+				candidateScore = new float[N];
+				candidateStatus = new byte[N];
+			}
+			Arrays.fill(candidateStatus,0,N,SKIPPED);
+
+			// the top most layer in the pyramid has no hint
+			double scale = i == numLayers-1 ? 0 : pyramidPrev.getScale(i+1)/pyramidPrev.getScale(i);
+
+			int y1 = prev.height-regionRadius;
+			if( regionRadius < y1 ) {
+				BoofConcurrency.loopBlocks(regionRadius, y1, (y0, y1_) -> {
+					DenseOpticalFlowBlockPyramid<T> worker = workers.pop();
+					searchRows(worker, prev, curr, scale, y0, y1_);
+					workers.recycle(worker);
+				});
+			}
+
+			BoofConcurrency.loopBlocks(0,prev.height,(y0,y1_)->{
+				for( int y = y0; y < y1_; y++ ) {
+					for( int x = 0; x < prev.width; x++ ) {
+						selectBest(x,y,prev.width,prev.height);
+					}
+				}
+			});
+
+			// swap the flow images
+			ImageFlow tmp = flowPrevLayer;
+			flowPrevLayer = flowCurrLayer;
+			flowCurrLayer = tmp;
+		}
+	}
+
+	/**
+	 * Performs the search for all pixels in rows y0 to y1-1 and saves the results as candidates
+	 *
+	 * @param scale Scale factor from the previous layer. If zero then there is no previous layer.
+	 */
+	private void searchRows( DenseOpticalFlowBlockPyramid<T> worker , T prev , T curr , double scale ,
+							 int y0 , int y1 ) {
+		int x1 = prev.width-regionRadius;
+		ImageFlow.D found = worker.tmp;
+
+		for( int y = y0; y < y1; y++ ) {
+			int index = y*prev.width + regionRadius;
+			for( int x = regionRadius; x < x1; x++, index++ ) {
+				int deltaX = 0, deltaY = 0;
+
+				if( scale != 0 ) {
+					// grab the flow in higher level pyramid
+					ImageFlow.D p = flowPrevLayer.get((int)(x/scale),(int)(y/scale));
+					if( !p.isValid() )
+						continue;
+
+					// add the flow from the higher layer (adjusting for scale and rounding) as the start of
+					// this search
+					deltaX = (int)(p.x*scale+0.5);
+					deltaY = (int)(p.y*scale+0.5);
+				}
+
+				worker.extractTemplate(x,y,prev);
+				float score = worker.findFlow(x+deltaX,y+deltaY,curr,found);
+
+				// find flow only does it relative to the starting point
+				found.x += deltaX;
+				found.y += deltaY;
+
+				if( found.isValid() ) {
+					candidateX[index] = found.x;
+					candidateY[index] = found.y;
+					candidateScore[index] = score;
+					candidateStatus[index] = VALID;
+				} else {
+					candidateStatus[index] = INVALID;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Replicates the sequence of updates to pixel (x,y) which the single threaded implementation would perform
+	 * by considering all the candidates whose region contains the pixel in raster order.
+	 */
+	private void selectBest( int x , int y , int width , int height ) {
+		int index = y*width + x;
+		ImageFlow.D f = flowCurrLayer.data[index];
+		float s = Float.MAX_VALUE;
+
+		int cy0 = Math.max(regionRadius, y-regionRadius);
+		int cy1 = Math.min(height-regionRadius, y+regionRadius+1);
+		int cx0 = Math.max(regionRadius, x-regionRadius);
+		int cx1 = Math.min(width-regionRadius, x+regionRadius+1);
+
+		for( int cy = cy0; cy < cy1; cy++ ) {
+			int indexC = cy*width + cx0;
+			for( int cx = cx0; cx < cx1; cx++, indexC++ ) {
+				byte status = candidateStatus[indexC];
+				if( status == VALID ) {
+					float score = candidateScore[indexC];
+					float flowX = candidateX[indexC];
+					float flowY = candidateY[indexC];
+					if( s > score ) {
+						f.set(flowX,flowY);
+						s = score;
+					} else if( s == score ) {
+						// Pick solution with the least motion when ambiguous
+						float m0 = f.x*f.x + f.y*f.y;
+						float m1 = flowX*flowX + flowY*flowY;
+						if( m1 < m0 ) {
+							f.set(flowX,flowY);
+							s = score;
+						}
+					}
+				} else if( status == INVALID && indexC == index ) {
+					f.markInvalid();
+				}
+			}
+		}
+		scores[index] = s;
+	}
+
+	@Override
+	protected void extractTemplate(int cx, int cy, T prev) {
+		master.extractTemplate(cx, cy, prev);
+	}
+
+	@Override
+	protected float computeError(int cx, int cy, T curr) {
+		return master.computeError(cx, cy, curr);
+	}
+}
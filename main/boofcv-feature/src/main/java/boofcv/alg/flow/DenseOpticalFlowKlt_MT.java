@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.flow;
+
+import boofcv.alg.tracker.klt.KltTrackFault;
+import boofcv.alg.tracker.klt.PyramidKltFeature;
+import boofcv.alg.tracker.klt.PyramidKltTracker;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.flow.ImageFlow;
+import boofcv.struct.image.ImageGray;
+import boofcv.struct.lists.RecycleStack;
+import boofcv.struct.pyramid.ImagePyramid;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Concurrent implementation of {@link DenseOpticalFlowKlt}. Each layer is processed in two passes. First a
+ * feature is tracked from every pixel in parallel, with each thread having its own {@link PyramidKltTracker},
+ * and the candidate flow is saved. Then each pixel in the output looks at all the candidates whose region
+ * overlaps it and selects the best one. Candidates are considered in the same order as they are in the
+ * single threaded implementation, so the output is identical.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class DenseOpticalFlowKlt_MT<I extends ImageGray<I>, D extends ImageGray<D>>
+		extends DenseOpticalFlowKlt<I,D>
+{
+	// tracker and feature for each thread
+	private RecycleStack<TrackerWork<I,D>> workers;
+
+	// candidate flow and score found by the tracking the feature centered at each pixel
+	private float[] candidateX = new float[0];
+	private float[] candidateY = new float[0];
+	private float[] candidateScore = new float[0];
+	private boolean[] candidateValid = new boolean[0];
+
+	/**
+	 * Configures dense flow
+	 *
+	 * @param factoryTracker Creates a new instance of the KLT tracker. One for each thread.
+	 * @param numLayers Number of layers in the image pyramid
+	 * @param radius Radius of the feature's region
+	 */
+	public DenseOpticalFlowKlt_MT(RecycleStack.Factory<PyramidKltTracker<I, D>> factoryTracker,
+								  int numLayers , int radius ) {
+		super(factoryTracker.newInstance(), numLayers, radius);
+
+		workers = new RecycleStack<>(()->new TrackerWork<>(factoryTracker.newInstance(),
+				new PyramidKltFeature(numLayers,radius)));
+	}
+
+	@Override
+	public void process( ImagePyramid<I> prev, D[] prevDerivX, D[] prevDerivY,
+						 ImagePyramid<I> curr , ImageFlow output ) {
+
+		this.width = output.width;
+		this.height = output.height;
+
+		int N = width*height;
+		if( scores.length < N)
+			scores = new float[N];
+		if( candidateValid.length < N ) {
+			candidateX = new float[N];
+			candidateY = new float[N];
+			candidateScore = new float[N];
+			candidateValid = new boolean[N];
+		}
+		Arrays.fill(candidateValid,0,N,false);
+
+		BoofConcurrency.loopBlocks(0,height,(y0,y1)->{
+			TrackerWork<I,D> work = workers.pop();
+			PyramidKltTracker<I,D> tracker = work.tracker;
+			PyramidKltFeature feature = work.feature;
+
+			for( int y = y0; y < y1; y++ ) {
+				for( int x = 0; x < width; x++ ) {
+					tracker.setImage(prev,prevDerivX,prevDerivY);
+					feature.setPosition(x,y);
+
+					if( !tracker.setDescription(feature) )
+						continue;
+
+					// derivX and derivY are not used, but can't be null for setImage()
+					tracker.setImage(curr);
+					KltTrackFault fault = tracker.track(feature);
+					if( fault == KltTrackFault.SUCCESS ) {
+						int index = y*width+x;
+						candidateX[index] = feature.x-x;
+						candidateY[index] = feature.y-y;
+						candidateScore[index] = tracker.getError();
+						candidateValid[index] = true;
+					}
+				}
+			}
+
+			workers.recycle(work);
+		});
+
+		BoofConcurrency.loopBlocks(0,height,(y0,y1)->{
+			for( int y = y0; y < y1; y++ ) {
+				for( int x = 0; x < width; x++ ) {
+					selectBest(x,y,output);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Replicates the sequence of updates to pixel (x,y) which the single threaded implementation would perform
+	 * by considering all the candidates whose region contains the pixel in raster order.
+	 */
+	private void selectBest( int x , int y , ImageFlow output ) {
+		int index = y*width + x;
+		ImageFlow.D f = output.data[index];
+		f.markInvalid();
+		float s = Float.MAX_VALUE;
+
+		int cy0 = Math.max(0, y-regionRadius);
+		int cy1 = Math.min(height, y+regionRadius+1);
+		int cx0 = Math.max(0, x-regionRadius);
+		int cx1 = Math.min(width, x+regionRadius+1);
+
+		for( int cy = cy0; cy < cy1; cy++ ) {
+			int indexC = cy*width + cx0;
+			for( int cx = cx0; cx < cx1; cx++, indexC++ ) {
+				if( !candidateValid[indexC] )
+					continue;
+
+				float score = candidateScore[indexC];
+				float flowX = candidateX[indexC];
+				float flowY = candidateY[indexC];
+
+				if( indexC == index ) {
+					// bias the result to prefer the central template
+					s = score*MAGIC_ADJUSTMENT;
+					f.set(flowX,flowY);
+				}
+
+				if( s > score ) {
+					f.set(flowX,flowY);
+					s = score;
+				} else if( s == score ) {
+					// Pick solution with the least motion when ambiguous
+					float m0 = f.x*f.x + f.y*f.y;
+					float m1 = flowX*flowX + flowY*flowY;
+					if( m1 < m0 ) {
+						f.set(flowX,flowY);
+						s = score;
+					}
+				}
+			}
+		}
+		scores[index] = s;
+	}
+
+	/**
+	 * Tracker and feature used by a single thread
+	 */
+	private static class TrackerWork<I extends ImageGray<I>, D extends ImageGray<D>> {
+		PyramidKltTracker<I,D> tracker;
+		PyramidKltFeature feature;
+
+		TrackerWork(PyramidKltTracker<I, D> tracker, PyramidKltFeature feature) {
+			this.tracker = tracker;
+			this.feature = feature;
+		}
+	}
+}
@@ -48,17 +48,17 @@ public class HornSchunckPyramid<T extends ImageGray<T>>
 		extends DenseFlowPyramidBase<T>
 {
 	// used to weight the error of image brightness and smoothness of velocity flow
-	private float alpha2;
+	protected float alpha2;
 
 	// relaxation parameter for SOR  0 < w < 2.  Recommended default is 1.9
-	private float SOR_RELAXATION;
+	protected float SOR_RELAXATION;
 
 	// number of warps for outer loop
-	private int numWarps;
+	protected int numWarps;
 	// maximum number of iterations in inner loop
-	private int maxInnerIterations;
+	protected int maxInnerIterations;
 	// convergence tolerance
-	private float convergeTolerance;
+	protected float convergeTolerance;
 
 	// computes the image gradient
 	private ImageGradient<GrayF32, GrayF32> gradient = FactoryDerivative.three(GrayF32.class, GrayF32.class);
@@ -220,9 +220,6 @@ public class HornSchunckPyramid<T extends ImageGray<T>>
 	 */
 	protected void processLayer(GrayF32 image1 , GrayF32 image2 , GrayF32 derivX2 , GrayF32 derivY2) {
 
-		float w = SOR_RELAXATION;
-		float uf,vf;
-
 		// outer Taylor expansion iterations
 		for( int warp = 0; warp < numWarps; warp++ ) {
 
@@ -244,26 +241,7 @@ public class HornSchunckPyramid<T extends ImageGray<T>>
 				for( int y = 1; y < image1.height-1; y++ ) {
 					int pixelIndex = y*image1.width+1;
 					for (int x = 1; x < image1.width-1; x++, pixelIndex++ ) {
-						// could speed this up a bit more by precomputing the constant portion before the do-while loop
-						float ui = initFlowX.data[pixelIndex];
-						float vi = initFlowY.data[pixelIndex];
-
-						float u = flowX.data[pixelIndex];
-						float v = flowY.data[pixelIndex];
-
-						float I1 = image1.data[pixelIndex];
-						float I2 = warpImage2.data[pixelIndex];
-
-						float I2x = warpDeriv2X.data[pixelIndex];
-						float I2y = warpDeriv2Y.data[pixelIndex];
-
-						float AU = A(x,y,flowX);
-						float AV = A(x,y,flowY);
-
-						flowX.data[pixelIndex] = uf = (1-w)*u + w*((I1-I2+I2x*ui - I2y*(v-vi))*I2x + alpha2*AU)/(I2x*I2x + alpha2);
-						flowY.data[pixelIndex] = vf = (1-w)*v + w*((I1-I2+I2y*vi - I2x*(uf-ui))*I2y + alpha2*AV)/(I2y*I2y + alpha2);
-
-						error += (uf - u)*(uf - u) + (vf - v)*(vf - v);
+						error += iterationSor(image1,x,y,pixelIndex);
 					}
 				}
 
@@ -289,10 +267,40 @@ public class HornSchunckPyramid<T extends ImageGray<T>>
 		}
 	}
 
+	/**
+	 * SOR iteration for inner pixels
+	 */
+	protected float iterationSor(GrayF32 image1, int x, int y, int pixelIndex) {
+		float w = SOR_RELAXATION;
+
+		float uf;
+		float vf;
+		// could speed this up a bit more by precomputing the constant portion before the do-while loop
+		float ui = initFlowX.data[pixelIndex];
+		float vi = initFlowY.data[pixelIndex];
+
+		float u = flowX.data[pixelIndex];
+		float v = flowY.data[pixelIndex];
+
+		float I1 = image1.data[pixelIndex];
+		float I2 = warpImage2.data[pixelIndex];
+
+		float I2x = warpDeriv2X.data[pixelIndex];
+		float I2y = warpDeriv2Y.data[pixelIndex];
+
+		float AU = A(x,y,flowX);
+		float AV = A(x,y,flowY);
+
+		flowX.data[pixelIndex] = uf = (1-w)*u + w*((I1-I2+I2x*ui - I2y*(v-vi))*I2x + alpha2*AU)/(I2x*I2x + alpha2);
+		flowY.data[pixelIndex] = vf = (1-w)*v + w*((I1-I2+I2y*vi - I2x*(uf-ui))*I2y + alpha2*AV)/(I2y*I2y + alpha2);
+
+		return (uf - u)*(uf - u) + (vf - v)*(vf - v);
+	}
+
 	/**
 	 * SOR iteration for border pixels
 	 */
-	private float iterationSorSafe(GrayF32 image1, int x, int y, int pixelIndex) {
+	protected float iterationSorSafe(GrayF32 image1, int x, int y, int pixelIndex) {
 		float w = SOR_RELAXATION;
 
 		float uf;
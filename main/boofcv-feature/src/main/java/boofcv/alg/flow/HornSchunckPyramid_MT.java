@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.flow;
+
+import boofcv.alg.interpolate.InterpolatePixelS;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.core.image.border.FactoryImageBorder;
+import boofcv.factory.flow.ConfigHornSchunckPyramid;
+import boofcv.struct.border.BorderType;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.ImageGray;
+import boofcv.struct.lists.RecycleStack;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Concurrent implementation of {@link HornSchunckPyramid}. The single threaded implementation updates pixels
+ * in raster order with Gauss-Seidel SOR, which is inherently sequential. Here the pixels are instead partitioned
+ * into four colors by the parity of their x and y coordinates. The update of a pixel only depends on its
+ * 8-connected neighbors, none of which share its color, so all the pixels of one color can be updated in
+ * parallel. Rows of a color are split into bands and processed in parallel, one color after another.
+ * </p>
+ *
+ * <p>
+ * The solution converges to the same fixed point as the single threaded version but the intermediate
+ * values differ since the update order is different. Results do not depend on the number of threads. Image
+ * warping is also done in parallel with a copy of the interpolation algorithm for each thread.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class HornSchunckPyramid_MT<T extends ImageGray<T>> extends HornSchunckPyramid<T> {
+
+	// interpolation for each thread when warping the image
+	private RecycleStack<InterpolatePixelS<GrayF32>> interpStack;
+
+	// sum of the error for each row. Summed in a fixed order to ensure results do not depend on thread count
+	private float[] rowError = new float[0];
+
+	/**
+	 * Configures flow estimation
+	 *
+	 * @param config Configuration parameters
+	 * @param interp Interpolation for image flow between image layers and warping.  Overrides selection in config.
+	 */
+	public HornSchunckPyramid_MT(ConfigHornSchunckPyramid config, InterpolatePixelS<GrayF32> interp) {
+		super(config, interp);
+		interpStack = new RecycleStack<>(()->{
+			InterpolatePixelS<GrayF32> copy = interp.copy();
+			copy.setBorder(FactoryImageBorder.single(GrayF32.class, BorderType.EXTENDED));
+			return copy;
+		});
+	}
+
+	@Override
+	protected void warpImageTaylor(GrayF32 before, GrayF32 flowX, GrayF32 flowY, GrayF32 after) {
+		BoofConcurrency.loopBlocks(0,before.height,(y0,y1)->{
+			InterpolatePixelS<GrayF32> interp = interpStack.pop();
+			interp.setImage(before);
+
+			for( int y = y0; y < y1; y++ ) {
+				int pixelIndex = y*before.width;
+				for (int x = 0; x < before.width; x++, pixelIndex++ ) {
+					float wx = x + flowX.data[pixelIndex];
+					float wy = y + flowY.data[pixelIndex];
+
+					if( wx < 0 || wx > before.width-1 || wy < 0 || wy > before.height-1 ) {
+						after.data[pixelIndex] = 0;
+					} else {
+						after.data[pixelIndex] = interp.get(wx, wy);
+					}
+				}
+			}
+
+			interpStack.recycle(interp);
+		});
+	}
+
+	@Override
+	protected void processLayer(GrayF32 image1, GrayF32 image2, GrayF32 derivX2, GrayF32 derivY2) {
+		if( rowError.length < image1.height )
+			rowError = new float[image1.height];
+
+		// outer Taylor expansion iterations
+		for( int warp = 0; warp < numWarps; warp++ ) {
+
+			initFlowX.setTo(flowX);
+			initFlowY.setTo(flowY);
+
+			warpImageTaylor(derivX2, initFlowX, initFlowY, warpDeriv2X);
+			warpImageTaylor(derivY2, initFlowX, initFlowY, warpDeriv2Y);
+			warpImageTaylor(image2, initFlowX, initFlowY, warpImage2);
+
+			float error;
+			int iter = 0;
+
+			do {
+				Arrays.fill(rowError,0,image1.height,0);
+
+				// inner SOR iteration, one color at a time
+				for( int color = 0; color < 4; color++ ) {
+					final int colorX = color & 1;
+					final int colorY = color >> 1;
+					int numRows = (image1.height - colorY + 1)/2;
+					if( numRows <= 0 )
+						continue;
+
+					BoofConcurrency.loopBlocks(0,numRows,(row0,row1)->{
+						for( int row = row0; row < row1; row++ ) {
+							int y = colorY + 2*row;
+							rowError[y] += iterationSorRow(image1,y,colorX);
+						}
+					});
+				}
+
+				error = 0;
+				for( int y = 0; y < image1.height; y++ ) {
+					error += rowError[y];
+				}
+			} while( error > convergeTolerance*image1.width*image1.height && ++iter < maxInnerIterations);
+		}
+	}
+
+	/**
+	 * Applies SOR to every other pixel in row 'y' starting at x = x0
+	 *
+	 * @return sum of the change in flow
+	 */
+	private float iterationSorRow(GrayF32 image1, int y, int x0) {
+		float error = 0;
+		boolean borderRow = y == 0 || y == image1.height-1;
+
+		int pixelIndex = y*image1.width + x0;
+		for( int x = x0; x < image1.width; x += 2, pixelIndex += 2 ) {
+			if( borderRow || x == 0 || x == image1.width-1 )
+				error += iterationSorSafe(image1,x,y,pixelIndex);
+			else
+				error += iterationSor(image1,x,y,pixelIndex);
+		}
+		return error;
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.flow;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.flow.ImageFlow;
+import boofcv.struct.image.GrayS16;
+
+/**
+ * Concurrent implementation of {@link HornSchunck_U8}. Each Jacobi iteration is split into two passes,
+ * the average flow and then the flow update, and each pass is divided into row bands which are processed
+ * in parallel. Each pixel is only updated using values from the previous iteration so the output is
+ * identical to the single threaded implementation.
+ *
+ * @author Peter Abeles
+ */
+public class HornSchunck_U8_MT extends HornSchunck_U8 {
+
+	public HornSchunck_U8_MT(float alpha, int numIterations) {
+		super(alpha, numIterations);
+	}
+
+	@Override
+	protected void findFlow(GrayS16 derivX , GrayS16 derivY ,
+							GrayS16 derivT , ImageFlow output) {
+
+		for( int iter = 0; iter < numIterations; iter++ ) {
+
+			borderAverageFlow(output,averageFlow);
+			if( output.height > 2 ) {
+				BoofConcurrency.loopBlocks(1, output.height - 1, (y0, y1) ->
+						innerAverageFlow(output, averageFlow, y0, y1));
+			}
+
+			BoofConcurrency.loopBlocks(0,output.height,(y0,y1)->{
+				int end = y1*output.width;
+				for( int i = y0*output.width; i < end; i++ ) {
+					float dx = derivX.data[i];
+					float dy = derivY.data[i];
+					float dt = derivT.data[i];
+
+					ImageFlow.D aveFlow = averageFlow.data[i];
+
+					float u = aveFlow.x;
+					float v = aveFlow.y;
+
+					ImageFlow.D flow = output.data[i];
+					float r = (dx*u + dy*v + dt)/(alpha2 + dx*dx + dy*dy);
+					flow.x = u - dx*r;
+					flow.y = v - dy*r;
+				}
+			});
+		}
+	}
+}
@@ -74,17 +74,7 @@ public abstract class ComputeRegionMeanColor<T extends ImageBase<T>> {
 		}
 
 		// Sum up the pixel values for each region
-		for( int y = 0; y < image.height; y++ ) {
-			int indexImg = image.startIndex + y*image.stride;
-			int indexRgn = pixelToRegion.startIndex + y*pixelToRegion.stride;
-
-			for( int x = 0; x < image.width; x++ , indexRgn++, indexImg++ ) {
-				int region = pixelToRegion.data[indexRgn];
-				float[] sum = regionSums.get(region);
-
-				addPixelValue(indexImg,sum);
-			}
-		}
+		sumRegionPixels(pixelToRegion);
 
 		// Compute the average using the sum and update the region color
 		for( int i = 0; i < regionSums.size; i++ ) {
@@ -98,6 +88,37 @@ public abstract class ComputeRegionMeanColor<T extends ImageBase<T>> {
 		}
 	}
 
+	/**
+	 * Sums up the value of every pixel in each region and stores the results in {@link #regionSums}
+	 *
+	 * @param pixelToRegion Conversion between pixel to region index
+	 */
+	protected void sumRegionPixels( GrayS32 pixelToRegion ) {
+		sumRegionPixels(pixelToRegion,0,image.height,regionSums);
+	}
+
+	/**
+	 * Sums up the value of every pixel in the specified rows for each region
+	 *
+	 * @param pixelToRegion Conversion between pixel to region index
+	 * @param y0 First row, inclusive
+	 * @param y1 Last row, exclusive
+	 * @param sums (Output) Sum of pixel values for each region. Must be initialized to zero.
+	 */
+	protected void sumRegionPixels( GrayS32 pixelToRegion , int y0 , int y1 , FastQueue<float[]> sums ) {
+		for( int y = y0; y < y1; y++ ) {
+			int indexImg = image.startIndex + y*image.stride;
+			int indexRgn = pixelToRegion.startIndex + y*pixelToRegion.stride;
+
+			for( int x = 0; x < image.width; x++ , indexRgn++, indexImg++ ) {
+				int region = pixelToRegion.data[indexRgn];
+				float[] sum = sums.get(region);
+
+				addPixelValue(indexImg,sum);
+			}
+		}
+	}
+
 	/**
 	 * Image type specific implementation.  Adds the pixel value at the specified pixel to sum
 	 * @param index Pixel index in the image which is being read
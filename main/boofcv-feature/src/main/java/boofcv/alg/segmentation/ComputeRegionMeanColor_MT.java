@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.segmentation;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.feature.ColorQueue_F32;
+import boofcv.struct.image.GrayS32;
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.lists.RecycleStack;
+import org.ddogleg.struct.FastQueue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Concurrent implementation of {@link ComputeRegionMeanColor}. Each thread sums up pixel values in a block
+ * of rows and the partial sums are then added together in a consistent order so that the results are repeatable.
+ * Pixel values are read using an image type specific implementation of {@link ComputeRegionMeanColor}.
+ *
+ * @author Peter Abeles
+ */
+public class ComputeRegionMeanColor_MT<T extends ImageBase<T>> extends ComputeRegionMeanColor<T> {
+
+	// Image type specific implementation used to read pixel values
+	ComputeRegionMeanColor<T> alg;
+
+	// storage for partial sums
+	RecycleStack<BlockSums> workspace;
+	final List<BlockSums> used = new ArrayList<>();
+
+	/**
+	 * Constructor
+	 *
+	 * @param alg Image type specific implementation. Such as {@link ComputeRegionMeanColor.U8}.
+	 */
+	public ComputeRegionMeanColor_MT( ComputeRegionMeanColor<T> alg ) {
+		super(alg.numBands);
+		this.alg = alg;
+		this.workspace = new RecycleStack<>(()->new BlockSums(numBands));
+	}
+
+	@Override
+	protected void sumRegionPixels( GrayS32 pixelToRegion ) {
+		alg.image = image;
+
+		if( image.height == 0 )
+			return;
+
+		used.clear();
+		BoofConcurrency.loopBlocks(0,image.height,(y0,y1)->{
+			BlockSums work = workspace.pop();
+			work.y0 = y0;
+			work.resize(regionSums.size);
+
+			alg.sumRegionPixels(pixelToRegion,y0,y1,work.sums);
+
+			synchronized (used) {
+				used.add(work);
+			}
+		});
+
+		// add the sums together in a consistent order so that the results are repeatable
+		used.sort((a,b)->Integer.compare(a.y0,b.y0));
+		for( int workIdx = 0; workIdx < used.size(); workIdx++ ) {
+			BlockSums work = used.get(workIdx);
+			for( int i = 0; i < regionSums.size; i++ ) {
+				float[] a = work.sums.data[i];
+				float[] sum = regionSums.data[i];
+				for( int j = 0; j < numBands; j++ ) {
+					sum[j] += a[j];
+				}
+			}
+			workspace.recycle(work);
+		}
+		used.clear();
+	}
+
+	@Override
+	protected void addPixelValue(int index, float[] sum) {
+		alg.addPixelValue(index,sum);
+	}
+
+	/**
+	 * Partial sums for each region computed by a single thread
+	 */
+	static class BlockSums {
+		// first row processed by this thread
+		int y0;
+		FastQueue<float[]> sums;
+
+		BlockSums( int numBands ) {
+			sums = new ColorQueue_F32(numBands);
+		}
+
+		void resize( int numRegions ) {
+			sums.resize(numRegions);
+			for( int i = 0; i < numRegions; i++ ) {
+				float[] v = sums.data[i];
+				for( int j = 0; j < v.length; j++ ) {
+					v[j] = 0;
+				}
+			}
+		}
+	}
+}
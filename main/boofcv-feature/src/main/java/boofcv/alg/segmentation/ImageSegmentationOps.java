@@ -20,6 +20,7 @@ package boofcv.alg.segmentation;
 
 import boofcv.alg.InputSanityCheck;
 import boofcv.alg.misc.ImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.struct.image.GrayS32;
 import boofcv.struct.image.GrayU8;
 import org.ddogleg.struct.GrowQueue_I32;
@@ -62,6 +63,10 @@ public class ImageSegmentationOps {
 	 * @param counts Storage for pixel counts
 	 */
 	public static void countRegionPixels(GrayS32 labeled , int totalRegions , int counts[] ) {
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			ImageSegmentationOps_MT.countRegionPixels(labeled,totalRegions,counts);
+			return;
+		}
 
 		Arrays.fill(counts,0,totalRegions,0);
 
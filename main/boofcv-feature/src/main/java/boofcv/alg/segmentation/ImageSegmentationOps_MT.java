@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.segmentation;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.image.GrayS32;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Concurrent implementations of functions in {@link ImageSegmentationOps}
+ *
+ * @author Peter Abeles
+ */
+public class ImageSegmentationOps_MT {
+
+	/**
+	 * Counts the number of pixels in all regions.  Regions must be have labels from 0 to totalRegions-1.
+	 * Each thread counts the pixels in a block of rows and the counts are then added together.
+	 *
+	 * @param labeled (Input) labeled image
+	 * @param totalRegions Total number of regions
+	 * @param counts Storage for pixel counts
+	 */
+	public static void countRegionPixels(GrayS32 labeled , int totalRegions , int counts[] ) {
+
+		Arrays.fill(counts,0,totalRegions,0);
+		if( labeled.height == 0 )
+			return;
+
+		final List<int[]> list = new ArrayList<>();
+		BoofConcurrency.loopBlocks(0,labeled.height,(y0,y1)->{
+			final int[] c = new int[totalRegions];
+			for( int y = y0; y < y1; y++ ) {
+				int index = labeled.startIndex + y*labeled.stride;
+				for( int x = 0; x < labeled.width; x++ ) {
+					c[labeled.data[index++]]++;
+				}
+			}
+			synchronized(list){list.add(c);}
+		});
+		for( int i = 0; i < list.size(); i++ ) {
+			int[] c = list.get(i);
+			for( int j = 0; j < totalRegions; j++ ) {
+				counts[j] += c[j];
+			}
+		}
+	}
+}
@@ -81,17 +81,17 @@ import org.ddogleg.struct.GrowQueue_I32;
 public class SegmentFelzenszwalbHuttenlocher04<T extends ImageBase<T>> {
 
 	// tuning parameter.  Determines the number of segments.  Larger number means larger regions
-	private float K;
+	protected float K;
 
 	// the minimum region size.  Regions smaller than this are merged into larger ones
-	private int minimumSize;
+	protected int minimumSize;
 
 	// Storage for the disjoint-set forest.  Same data structure as 'output', but renamed for convenience.
 	// Value stored in each pixel refers to the parent vertex.  A root vertex contains a reference to itself
 	protected GrayS32 graph;
 
 	// Function that computes the weight for each edge
-	private FhEdgeWeights<T> computeWeights;
+	protected FhEdgeWeights<T> computeWeights;
 
 	private QuickSortObj_F32 sorter = new QuickSortObj_F32();
 	private ApproximateSort_F32 sorterApprox = null;
@@ -107,8 +107,8 @@ public class SegmentFelzenszwalbHuttenlocher04<T extends ImageBase<T>> {
 	protected GrowQueue_F32 threshold = new GrowQueue_F32();
 
 	// List of region ID's and their size
-	private GrowQueue_I32 outputRegionId = new GrowQueue_I32();
-	private GrowQueue_I32 outputRegionSizes = new GrowQueue_I32();
+	protected GrowQueue_I32 outputRegionId = new GrowQueue_I32();
+	protected GrowQueue_I32 outputRegionSizes = new GrowQueue_I32();
 
 	/**
 	 * Specifies tuning parameter
@@ -201,6 +201,20 @@ public class SegmentFelzenszwalbHuttenlocher04<T extends ImageBase<T>> {
 
 //		System.out.println("Sort time " + (time1 - time0));
 
+		mergeRegions(edges, edgesNotMatched);
+
+//		long time2 = System.currentTimeMillis();
+//		System.out.println("Edge merge time " + (time2 - time1));
+	}
+
+	/**
+	 * Examines each edge in the sorted list and merges the two regions it connects if the edge's weight is
+	 * &le; the threshold of both regions.
+	 *
+	 * @param edges Edges sorted by weight. Not modified.
+	 * @param edgesNotMatched Edges which did not cause a merge are added to this list. Modified.
+	 */
+	protected void mergeRegions( FastQueue<Edge> edges , FastQueue<Edge> edgesNotMatched ) {
 		// examine each edge to see if it can connect two regions
 		for( int i = 0; i < edges.size(); i++ ) {
 			// compare the two nodes connected by the edge to see if their regions they should be merged
@@ -234,15 +248,19 @@ public class SegmentFelzenszwalbHuttenlocher04<T extends ImageBase<T>> {
 				edgesNotMatched.add(e);
 			}
 		}
-
-//		long time2 = System.currentTimeMillis();
-//		System.out.println("Edge merge time " + (time2 - time1));
 	}
 
 	/**
 	 * Look at the remaining regions and if there are any small ones marge them into a larger region
 	 */
 	protected void mergeSmallRegions() {
+		mergeSmallRegions(edgesNotMatched);
+	}
+
+	/**
+	 * Merges regions connected by the edges in the list if either region is smaller than the minimum size
+	 */
+	protected void mergeSmallRegions( FastQueue<Edge> edgesNotMatched ) {
 		for( int i = 0; i < edgesNotMatched.size(); i++ ) {
 			Edge e = edgesNotMatched.get(i);
 
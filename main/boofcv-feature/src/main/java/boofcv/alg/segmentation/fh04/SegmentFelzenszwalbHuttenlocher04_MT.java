@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.segmentation.fh04;
+
+import boofcv.alg.InputSanityCheck;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.image.GrayS32;
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.lists.RecycleStack;
+import org.ddogleg.sorting.ApproximateSort_F32;
+import org.ddogleg.sorting.QuickSortObj_F32;
+import org.ddogleg.struct.FastQueue;
+
+/**
+ * <p>
+ * Concurrent implementation of {@link SegmentFelzenszwalbHuttenlocher04}. The image is broken up into horizontal
+ * bands which are segmented independently and then stitched together.
+ * </p>
+ *
+ * <ol>
+ * <li>Each band computes the weight of edges inside of it and edges that connect it to the band below,
+ * sorts its edges, and merges regions. Bands don't share any pixels so this is all done in parallel.</li>
+ * <li>Edges which cross a band boundary are sorted and then merged using the same rule. Thresholds of regions
+ * which touch the boundary were computed using only the pixels in their band, which is why
+ * this is an approximation.</li>
+ * <li>Small regions are merged using the unmatched edges inside each band followed by the unmatched
+ * boundary edges.</li>
+ * </ol>
+ *
+ * <p>
+ * The results are controlled by the band height and do not depend on the number of threads. As the bands get
+ * taller the solution approaches the single threaded solution, which it matches when there's only one band.
+ * Implementations of {@link FhEdgeWeights} have internal state, so each band has its own instance.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class SegmentFelzenszwalbHuttenlocher04_MT<T extends ImageBase<T>>
+		extends SegmentFelzenszwalbHuttenlocher04<T>
+{
+	// number of rows in each band
+	protected int bandHeight;
+
+	// Number of bins used by approximate sort. If <= 0 then exact sort is used
+	protected int approximateSortBins = 0;
+
+	// storage for each band
+	protected FastQueue<Band> bands = new FastQueue<>(Band.class, true);
+
+	// creates the edge weight function used by each band
+	protected RecycleStack.Factory<FhEdgeWeights<T>> factoryWeights;
+
+	// sorts edges which cross the boundary between bands
+	protected QuickSortObj_F32 sorterBoundary = new QuickSortObj_F32();
+
+	// list of edges which cross the boundary between bands
+	protected FastQueue<Edge> edgesBoundary = new FastQueue<>(Edge.class, false);
+
+	/**
+	 * Specifies tuning parameter
+	 *
+	 * @param k Tuning parameter.  Larger regions are preferred for larger values of K.  Try 300
+	 * @param minimumSize Regions smaller than this are merged into larger regions
+	 * @param factoryWeights Creates the function used to compute the weight for all the edges. One for each band.
+	 * @param bandHeight Number of rows in each band. Try 128
+	 */
+	public SegmentFelzenszwalbHuttenlocher04_MT(float k, int minimumSize,
+												RecycleStack.Factory<FhEdgeWeights<T>> factoryWeights,
+												int bandHeight ) {
+		super(k, minimumSize, factoryWeights.newInstance());
+		this.factoryWeights = factoryWeights;
+		setBandHeight(bandHeight);
+	}
+
+	@Override
+	public void configureApproximateSort( int numBins ) {
+		super.configureApproximateSort(numBins);
+		this.approximateSortBins = numBins;
+		for( int i = 0; i < bands.size; i++ ) {
+			bands.data[i].sorterApprox = null;
+		}
+	}
+
+	@Override
+	public void process( T input , GrayS32 output ) {
+		if( output.isSubimage() )
+			throw new IllegalArgumentException("Output can't be a sub-image");
+		InputSanityCheck.checkSameShape(input, output);
+
+		initialize(input,output);
+
+		// split the image into bands
+		bands.reset();
+		for( int y0 = 0; y0 < input.height; y0 += bandHeight ) {
+			Band b = bands.grow();
+			b.y0 = y0;
+			b.y1 = Math.min(input.height, y0 + bandHeight);
+		}
+
+		// Segment each band independently
+		BoofConcurrency.loopFor(0,bands.size,i->processBand(input,bands.data[i]));
+
+		// Stitch the bands together
+		edgesBoundary.reset();
+		for( int i = 0; i < bands.size; i++ ) {
+			FastQueue<Edge> boundary = bands.data[i].boundary;
+			for( int j = 0; j < boundary.size; j++ ) {
+				edgesBoundary.add(boundary.data[j]);
+			}
+		}
+		sorterBoundary.sort(edgesBoundary.data,edgesBoundary.size);
+		mergeRegions(edgesBoundary,edgesNotMatched);
+
+		// Get rid of small ones
+		for( int i = 0; i < bands.size; i++ ) {
+			mergeSmallRegions(bands.data[i].edgesNotMatched);
+		}
+		mergeSmallRegions(edgesNotMatched);
+
+		// compute the final output
+		computeOutput();
+	}
+
+	/**
+	 * Computes edges, sorts them, and merges regions inside a single band. Edges which connect this band to
+	 * the one below it are saved for later.
+	 */
+	protected void processBand( T input , Band band ) {
+		band.edges.reset();
+		band.edgesNotMatched.reset();
+		band.boundary.reset();
+		if( band.weights == null )
+			band.weights = factoryWeights.newInstance();
+		FhEdgeWeights<T> weights = band.weights;
+
+		// compute the edges inside the band
+		weights.process(input.subimage(0,band.y0,input.width,band.y1),band.edges);
+		offsetIndexes(band.edges, band.y0*input.width);
+
+		// find edges which connect to the next band
+		if( band.y1 < input.height ) {
+			weights.process(input.subimage(0,band.y1-1,input.width,band.y1+1),band.boundary);
+
+			// only keep edges that start in the first row and end in the second
+			int count = 0;
+			for( int i = 0; i < band.boundary.size; i++ ) {
+				Edge e = band.boundary.data[i];
+				if( e.indexA < input.width && e.indexB >= input.width ) {
+					band.boundary.data[i] = band.boundary.data[count];
+					band.boundary.data[count++] = e;
+				}
+			}
+			band.boundary.size = count;
+			offsetIndexes(band.boundary, (band.y1-1)*input.width);
+		}
+
+		// sort the edges
+		if( approximateSortBins > 0 ) {
+			if( band.sorterApprox == null )
+				band.sorterApprox = new ApproximateSort_F32(approximateSortBins);
+			band.sorterApprox.computeRange(band.edges.data,0,band.edges.size);
+			band.sorterApprox.sortObject(band.edges.data,0,band.edges.size);
+		} else {
+			band.sorter.sort(band.edges.data,band.edges.size);
+		}
+
+		// All the pixels touched by these edges are inside this band
+		mergeRegions(band.edges,band.edgesNotMatched);
+	}
+
+	private static void offsetIndexes( FastQueue<Edge> edges , int offset ) {
+		for( int i = 0; i < edges.size; i++ ) {
+			Edge e = edges.data[i];
+			e.indexA += offset;
+			e.indexB += offset;
+		}
+	}
+
+	@Override
+	protected void initialize(T input, GrayS32 output) {
+		this.graph = output;
+		final int N = input.width*input.height;
+
+		regionSize.resize(N);
+		threshold.resize(N);
+		edges.reset();
+		edgesNotMatched.reset();
+
+		if( N == 0 )
+			return;
+
+		BoofConcurrency.loopBlocks(0,N,(i0,i1)->{
+			for( int i = i0; i < i1; i++ ) {
+				regionSize.data[i] = 1;
+				threshold.data[i] = K;
+				graph.data[i] = i;
+			}
+		});
+	}
+
+	@Override
+	protected void computeOutput() {
+		outputRegionId.reset();
+		outputRegionSizes.reset();
+
+		if( graph.height == 0 )
+			return;
+
+		// Make all nodes point directly at their root. If two threads modify the same path each write is
+		// either the node's root or a node in the path, so the root is always found
+		BoofConcurrency.loopBlocks(0,graph.height,(y0,y1)->{
+			for( int y = y0; y < y1; y++ ) {
+				int indexGraph = graph.startIndex + y*graph.stride;
+				for( int x = 0; x < graph.width; x++ , indexGraph++) {
+					int parent = graph.data[indexGraph];
+					if( parent == indexGraph )
+						continue;
+
+					int child = indexGraph;
+					while( parent != child ) {
+						child = parent;
+						parent = graph.data[child];
+					}
+					graph.data[indexGraph] = parent;
+				}
+			}
+		});
+
+		// roots are added in the same order as the single threaded code
+		for( int y = 0; y < graph.height; y++ ) {
+			int indexGraph = graph.startIndex + y*graph.stride;
+			for( int x = 0; x < graph.width; x++ , indexGraph++) {
+				if( graph.data[indexGraph] == indexGraph ) {
+					outputRegionId.add(indexGraph);
+					outputRegionSizes.add(regionSize.get(indexGraph));
+				}
+			}
+		}
+	}
+
+	public int getBandHeight() {
+		return bandHeight;
+	}
+
+	public void setBandHeight(int bandHeight) {
+		if( bandHeight < 1 )
+			throw new IllegalArgumentException("Band height must be at least 1");
+		this.bandHeight = bandHeight;
+	}
+
+	/**
+	 * Storage for a horizontal band
+	 */
+	public static class Band {
+		// first and last (exclusive) row in the band
+		int y0,y1;
+		// edges with both pixels inside the band
+		FastQueue<Edge> edges = new FastQueue<>(Edge.class, true);
+		FastQueue<Edge> edgesNotMatched = new FastQueue<>(Edge.class, false);
+		// edges connecting this band to the next band
+		FastQueue<Edge> boundary = new FastQueue<>(Edge.class, true);
+
+		QuickSortObj_F32 sorter = new QuickSortObj_F32();
+		ApproximateSort_F32 sorterApprox;
+		// computes edge weights for this band
+		FhEdgeWeights weights;
+	}
+}
@@ -200,6 +200,25 @@ public abstract class SegmentMeanShiftSearch<T extends ImageBase<T>>
 		return sample0*(1f-w) + sample1*w;
 	}
 
+	/**
+	 * Checks to see if the mode of the pixel is already known. If known then {@link #modeX} and {@link #modeY}
+	 * are set to the location of the mode.
+	 *
+	 * @param px pixel x-coordinate
+	 * @param py pixel y-coordinate
+	 * @return true if the mode is known
+	 */
+	protected boolean lookupKnownMode( int px , int py ) {
+		int modeIndex = pixelToMode.data[pixelToMode.getIndex(px,py)];
+		if( modeIndex == -1 )
+			return false;
+
+		Point2D_I32 modeP = modeLocation.get(modeIndex);
+		this.modeX = modeP.x;
+		this.modeY = modeP.y;
+		return true;
+	}
+
 	/**
 	 * From peak index to pixel index
 	 */
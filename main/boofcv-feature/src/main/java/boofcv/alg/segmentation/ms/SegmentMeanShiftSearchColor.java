@@ -24,7 +24,6 @@ import boofcv.struct.feature.ColorQueue_F32;
 import boofcv.struct.image.ImageMultiBand;
 import boofcv.struct.image.ImageType;
 import georegression.struct.point.Point2D_F32;
-import georegression.struct.point.Point2D_I32;
 import org.ddogleg.struct.FastQueue;
 
 import java.util.Arrays;
@@ -229,13 +228,8 @@ public class SegmentMeanShiftSearchColor<T extends ImageMultiBand<T>> extends Se
 				int px = (int)(peakX+0.5f);
 				int py = (int)(peakY+0.5f);
 
-				int index = pixelToMode.getIndex(px,py);
-				int modeIndex = pixelToMode.data[index];
-				if( modeIndex != -1 ) {
+				if( lookupKnownMode(px,py) ) {
 					// it already knows the solution so stop searching
-					Point2D_I32 modeP = modeLocation.get(modeIndex);
-					this.modeX = modeP.x;
-					this.modeY = modeP.y;
 					return;
 				}
 			}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.segmentation.ms;
+
+import boofcv.alg.interpolate.InterpolatePixelS;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.core.image.border.FactoryImageBorder;
+import boofcv.struct.border.BorderType;
+import boofcv.struct.image.GrayS32;
+import boofcv.struct.image.ImageGray;
+import boofcv.struct.lists.RecycleStack;
+import georegression.struct.point.Point2D_F32;
+import org.ddogleg.struct.GrowQueue_F32;
+
+/**
+ * <p>
+ * Concurrent implementation of {@link SegmentMeanShiftSearchGray}. The image is split into blocks of rows and
+ * mean-shift is run on every pixel inside a block by a single thread.  Each thread records the pixel that its
+ * modes converged to.  Modes are then assigned an index in a single thread by going through the image in the
+ * same order as the single threaded code.
+ * </p>
+ *
+ * <p>
+ * When fast is false the output is identical to the single threaded code.  When fast is true a thread will
+ * only reuse and save trajectories inside of its own block.  The results will be slightly different but
+ * still be a valid approximation.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class SegmentMeanShiftSearchGray_MT<T extends ImageGray<T>> extends SegmentMeanShiftSearchGray<T> {
+
+	// index of the pixel which the mode of each pixel is at. -1 if unknown
+	protected GrayS32 modePixel = new GrayS32(1,1);
+	// the color of the mode each pixel converged to
+	protected GrowQueue_F32 pixelModeColor = new GrowQueue_F32();
+
+	// runs mean-shift inside a single thread
+	protected RecycleStack<Worker<T>> workers;
+
+	public SegmentMeanShiftSearchGray_MT(int maxIterations, float convergenceTol,
+										 InterpolatePixelS<T> interpolate,
+										 int radiusX , int radiusY , float maxColorDistance,
+										 boolean fast ) {
+		super(maxIterations, convergenceTol, interpolate, radiusX, radiusY, maxColorDistance, fast);
+
+		workers = new RecycleStack<>(()->new Worker<>(this));
+	}
+
+	@Override
+	public void process( T image ) {
+		// initialize data structures
+		this.image = image;
+		this.stopRequested = false;
+
+		modeLocation.reset();
+		modeColor.reset();
+		modeMemberCount.reset();
+
+		interpolate.setImage(image);
+
+		pixelToMode.reshape(image.width, image.height);
+		quickMode.reshape(image.width, image.height);
+		modePixel.reshape(image.width, image.height);
+		pixelModeColor.resize(image.width*image.height);
+		ImageMiscOps.fill(pixelToMode, -1);
+		ImageMiscOps.fill(quickMode,-1);
+		ImageMiscOps.fill(modePixel,-1);
+
+		if( image.height == 0 )
+			return;
+
+		// use mean shift to find the peak of each pixel in the image
+		BoofConcurrency.loopBlocks(0,image.height,(y0,y1)->{
+			Worker<T> worker = workers.pop();
+			worker.process(image,y0,y1);
+			workers.recycle(worker);
+		});
+
+		// some pixels might not have been processed
+		if( stopRequested )
+			return;
+
+		// assign an index to each mode in the same order as the single threaded code
+		int indexImg = 0;
+		for( int y = 0; y < image.height && !stopRequested; y++ ) {
+			for( int x = 0; x < image.width; x++ , indexImg++) {
+				int modePixelIndex = modePixel.data[indexImg];
+
+				int modeIndex = quickMode.data[modePixelIndex];
+				if( modeIndex < 0 ) {
+					modeIndex = this.modeLocation.size();
+					this.modeLocation.grow().set(modePixelIndex%image.width, modePixelIndex/image.width);
+					modeColor.grow()[0] = pixelModeColor.data[indexImg];
+					quickMode.data[modePixelIndex] = modeIndex;
+					modeMemberCount.add(0);
+				}
+
+				modeMemberCount.data[modeIndex]++;
+				pixelToMode.data[indexImg] = modeIndex;
+			}
+		}
+	}
+
+	/**
+	 * Performs mean-shift on pixels inside a block of rows.  Modes are recorded using pixel indexes in the
+	 * owner's {@link #modePixel} image.
+	 */
+	protected static class Worker<T extends ImageGray<T>> extends SegmentMeanShiftSearchGray<T> {
+		SegmentMeanShiftSearchGray_MT<T> owner;
+
+		// rows which this worker is allowed to modify
+		int y0,y1;
+
+		public Worker( SegmentMeanShiftSearchGray_MT<T> owner ) {
+			super(owner.maxIterations, owner.convergenceTol, owner.interpolate.copy(),
+					owner.radiusX, owner.radiusY, 0, owner.fast);
+			this.owner = owner;
+			this.maxColorDistanceSq = owner.maxColorDistanceSq;
+			// the border isn't copied. Image edges are handled explicitly so the border type has little influence
+			interpolate.setBorder(FactoryImageBorder.generic(BorderType.EXTENDED, owner.getImageType()));
+		}
+
+		public void process( T image , int y0 , int y1 ) {
+			this.image = image;
+			this.y0 = y0;
+			this.y1 = y1;
+			interpolate.setImage(image);
+
+			final GrayS32 modePixel = owner.modePixel;
+			final float[] pixelModeColor = owner.pixelModeColor.data;
+
+			for( int y = y0; y < y1 && !owner.stopRequested; y++ ) {
+				int indexImg = y*image.width;
+				for( int x = 0; x < image.width; x++ , indexImg++) {
+					if( modePixel.data[indexImg] != -1 )
+						continue;
+
+					float meanColor = interpolate.get(x, y);
+					findPeak(x,y, meanColor);
+
+					// convert mean-shift location into pixel index
+					int modeX = (int)(this.modeX +0.5f);
+					int modeY = (int)(this.modeY +0.5f);
+
+					int modePixelIndex = modeY*image.width + modeX;
+
+					// Assign the same mode to all the pixels it traversed through inside this block
+					for( int i = 0; i < history.size; i++ ) {
+						Point2D_F32 p = history.get(i);
+						int px = (int)(p.x+0.5f);
+						int py = (int)(p.y+0.5f);
+
+						if( py < y0 || py >= y1 )
+							continue;
+
+						int index = modePixel.getIndex(px,py);
+						if( modePixel.data[index] == -1 ) {
+							modePixel.data[index] = modePixelIndex;
+							pixelModeColor[index] = meanGray;
+						}
+					}
+				}
+			}
+		}
+
+		@Override
+		protected boolean lookupKnownMode( int px, int py ) {
+			// other threads could be modifying pixels outside of this block
+			if( py < y0 || py >= y1 )
+				return false;
+
+			int index = owner.modePixel.getIndex(px,py);
+			int modePixelIndex = owner.modePixel.data[index];
+			if( modePixelIndex == -1 )
+				return false;
+
+			this.modeX = modePixelIndex%image.width;
+			this.modeY = modePixelIndex/image.width;
+			this.meanGray = owner.pixelModeColor.data[index];
+			return true;
+		}
+	}
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.segmentation.slic;
+
+import boofcv.alg.segmentation.slic.SegmentSlic.Cluster;
+import boofcv.alg.segmentation.slic.SegmentSlic.ClusterDistance;
+import boofcv.alg.segmentation.slic.SegmentSlic.Pixel;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.image.GrayS32;
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.lists.RecycleStack;
+import org.ddogleg.struct.FastQueue;
+import org.ddogleg.struct.GrowQueue_I32;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Concurrent implementations of the assignment and update steps in {@link SegmentSlic}. Used by the _MT variants
+ * of each image type.
+ * </p>
+ *
+ * <ul>
+ * <li>Distance: The image is split into blocks of rows.  Each thread considers every cluster in order but only
+ * updates pixels inside its rows, so each pixel sees the clusters in the same order as the single threaded
+ * code and the results are identical.</li>
+ * <li>Update: Each thread accumulates the weighted sums into its own copy of the clusters.  The per-thread sums
+ * are then added together in the order of their rows.  Floating point round off will cause small differences
+ * from the single threaded code.</li>
+ * <li>Labels: The closest cluster to each pixel is found in parallel.  Counting members and handling
+ * unassigned pixels is done in a single thread.</li>
+ * </ul>
+ *
+ * @author Peter Abeles
+ */
+public class ImplSegmentSlic_MT<T extends ImageBase<T>> {
+
+	// the algorithm being processed
+	SegmentSlic<T> alg;
+
+	// storage for the partial sums of each thread
+	RecycleStack<ThreadClusters> workspace;
+	final List<ThreadClusters> used = new ArrayList<>();
+
+	public ImplSegmentSlic_MT(SegmentSlic<T> alg) {
+		this.alg = alg;
+		this.workspace = new RecycleStack<>(ThreadClusters::new);
+	}
+
+	/**
+	 * Concurrent version of {@link SegmentSlic#computeClusterDistance()}
+	 */
+	public void computeClusterDistance() {
+		final T input = alg.input;
+		final FastQueue<Pixel> pixels = alg.pixels;
+		final FastQueue<Cluster> clusters = alg.clusters;
+		final int gridInterval = alg.gridInterval;
+		final float adjustSpacial = alg.adjustSpacial;
+
+		BoofConcurrency.loopBlocks(0,input.height,(blockY0,blockY1)->{
+			for( int i = blockY0*input.width; i < blockY1*input.width; i++ ) {
+				pixels.data[i].reset();
+			}
+
+			for( int i = 0; i < clusters.size && !alg.stopRequested; i++ ) {
+				Cluster c = clusters.data[i];
+
+				// compute search bounds
+				int centerX = (int)(c.x + 0.5f);
+				int centerY = (int)(c.y + 0.5f);
+
+				int x0 = centerX - gridInterval; int x1 = centerX + gridInterval + 1;
+				int y0 = centerY - gridInterval; int y1 = centerY + gridInterval + 1;
+
+				if( x0 < 0 ) x0 = 0;
+				if( y0 < blockY0 ) y0 = blockY0;
+				if( x1 > input.width ) x1 = input.width;
+				if( y1 > blockY1 ) y1 = blockY1;
+
+				for( int y = y0; y < y1; y++ ) {
+					int indexPixel = y*input.width + x0;
+					int indexInput = input.startIndex + y*input.stride + x0;
+
+					int dy = y-centerY;
+
+					for( int x = x0; x < x1; x++ ) {
+						int dx = x-centerX;
+
+						float distanceColor = alg.colorDistance(c.color,indexInput++);
+						float distanceSpacial = dx*dx + dy*dy;
+						pixels.data[indexPixel++].add(c,distanceColor + adjustSpacial*distanceSpacial);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Concurrent version of {@link SegmentSlic#updateClusters()}
+	 */
+	public void updateClusters() {
+		final T input = alg.input;
+		final FastQueue<Pixel> pixels = alg.pixels;
+		final FastQueue<Cluster> clusters = alg.clusters;
+
+		for( int i = 0; i < clusters.size; i++ ) {
+			clusters.data[i].reset();
+		}
+
+		used.clear();
+		BoofConcurrency.loopBlocks(0,input.height,(y0,y1)->{
+			ThreadClusters work = workspace.pop();
+			work.y0 = y0;
+			work.resize(clusters.size,alg.numBands);
+
+			for( int y = y0; y < y1 && !alg.stopRequested; y++ ) {
+				int indexPixel = y*input.width;
+				int indexInput = input.startIndex + y*input.stride;
+				for( int x = 0; x < input.width; x++ , indexPixel++ , indexInput++) {
+					Pixel p = pixels.data[indexPixel];
+
+					// convert the distance each cluster is from the pixel into weights
+					p.computeWeights();
+
+					for( int i = 0; i < p.clusters.size; i++ ) {
+						ClusterDistance d = p.clusters.data[i];
+						Cluster c = work.clusters.data[d.cluster.id];
+						c.x += x*d.distance;
+						c.y += y*d.distance;
+						c.totalWeight += d.distance;
+						alg.addColor(c.color,indexInput,d.distance);
+					}
+				}
+			}
+
+			synchronized (used) {
+				used.add(work);
+			}
+		});
+
+		// add the sums together in a consistent order so that the results are repeatable
+		used.sort((a,b)->Integer.compare(a.y0,b.y0));
+		for( int workIdx = 0; workIdx < used.size(); workIdx++ ) {
+			ThreadClusters work = used.get(workIdx);
+			for( int i = 0; i < clusters.size; i++ ) {
+				Cluster a = work.clusters.data[i];
+				Cluster c = clusters.data[i];
+				c.x += a.x;
+				c.y += a.y;
+				c.totalWeight += a.totalWeight;
+				for( int j = 0; j < c.color.length; j++ ) {
+					c.color[j] += a.color[j];
+				}
+			}
+			workspace.recycle(work);
+		}
+		used.clear();
+
+		// recompute the center of each cluster
+		for( int i = 0; i < clusters.size; i++ ) {
+			clusters.data[i].update();
+		}
+	}
+
+	/**
+	 * Concurrent version of {@link SegmentSlic#assignLabelsToPixels}
+	 */
+	public void assignLabelsToPixels( GrayS32 pixelToRegions ,
+									  GrowQueue_I32 regionMemberCount ,
+									  FastQueue<float[]> regionColor ) {
+		final FastQueue<Pixel> pixels = alg.pixels;
+		final FastQueue<Cluster> clusters = alg.clusters;
+
+		regionColor.reset();
+		for( int i = 0; i < clusters.size(); i++ ) {
+			float[] r = regionColor.grow();
+			float[] c = clusters.get(i).color;
+			for( int j = 0; j < alg.numBands; j++ ) {
+				r[j] = c[j];
+			}
+		}
+
+		// find the region/cluster which each pixel is closest to
+		BoofConcurrency.loopBlocks(0,pixelToRegions.height,(y0,y1)->{
+			for( int y = y0; y < y1; y++ ) {
+				int indexPixel = y*pixelToRegions.width;
+				int indexOutput = pixelToRegions.startIndex + y*pixelToRegions.stride;
+				for( int x = 0; x < pixelToRegions.width; x++ , indexPixel++ , indexOutput++) {
+					Pixel p = pixels.data[indexPixel];
+
+					int best = -1;
+					float bestDistance = Float.MAX_VALUE;
+					for( int j = 0; j < p.clusters.size; j++ ) {
+						ClusterDistance d = p.clusters.data[j];
+						if( d.distance < bestDistance ) {
+							bestDistance = d.distance;
+							best = d.cluster.id;
+						}
+					}
+					pixelToRegions.data[indexOutput] = best;
+				}
+			}
+		});
+
+		regionMemberCount.resize(clusters.size());
+		regionMemberCount.fill(0);
+
+		for( int y = 0; y < pixelToRegions.height; y++ ) {
+			int indexOutput = pixelToRegions.startIndex + y*pixelToRegions.stride;
+			for( int x = 0; x < pixelToRegions.width; x++ , indexOutput++) {
+				int best = pixelToRegions.data[indexOutput];
+
+				// It is possible for a pixel to be unassigned if all the means move too far away from it
+				// Default to a non-existant cluster if that's the case
+				if( best == -1 ) {
+					regionColor.grow();
+					best = regionMemberCount.size();
+					regionMemberCount.add(0);
+					pixelToRegions.data[indexOutput] = best;
+				}
+				regionMemberCount.data[best]++;
+			}
+		}
+	}
+
+	/**
+	 * Partial sums for each cluster computed by a single thread
+	 */
+	static class ThreadClusters {
+		// first row processed by this thread
+		int y0;
+		FastQueue<Cluster> clusters = new FastQueue<>(Cluster.class,true);
+
+		void resize( int numClusters , int numBands ) {
+			clusters.resize(numClusters);
+			for( int i = 0; i < numClusters; i++ ) {
+				Cluster c = clusters.data[i];
+				if( c.color == null || c.color.length != numBands )
+					c.color = new float[numBands];
+				c.reset();
+			}
+		}
+	}
+}
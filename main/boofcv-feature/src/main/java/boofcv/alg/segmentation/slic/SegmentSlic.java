@@ -71,7 +71,7 @@ public abstract class SegmentSlic<T extends ImageBase<T>>
 	public static final int BORDER = 2;
 
 	// number of bands in the input image
-	private int numBands;
+	protected int numBands;
 
 	// the number of regions/superpixels.  K in the paper
 	private int numberOfRegions;
@@ -85,7 +85,7 @@ public abstract class SegmentSlic<T extends ImageBase<T>>
 	// Space between superpixel centers.  S in the paper
 	protected int gridInterval;
 	// Adjustment to spacial distance.  Computed from m and gridInterval
-	private float adjustSpacial;
+	protected float adjustSpacial;
 
 	// The image being processed
 	protected T input;
@@ -112,7 +112,7 @@ public abstract class SegmentSlic<T extends ImageBase<T>>
 	// connectivity rule
 	protected ConnectRule connectRule;
 
-	private volatile boolean stopRequested=false;
+	protected volatile boolean stopRequested=false;
 
 	public SegmentSlic( int numberOfRegions , float m , int totalIterations ,
 						ConnectRule connectRule , ImageType<T> imageType ) {
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.segmentation.slic;
+
+import boofcv.struct.ConnectRule;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayS32;
+import org.ddogleg.struct.FastQueue;
+import org.ddogleg.struct.GrowQueue_I32;
+
+/**
+ * Concurrent implementation of {@link SegmentSlic_F32}.
+ *
+ * @see ImplSegmentSlic_MT
+ *
+ * @author Peter Abeles
+ */
+public class SegmentSlic_F32_MT extends SegmentSlic_F32 {
+	ImplSegmentSlic_MT<GrayF32> impl = new ImplSegmentSlic_MT<>(this);
+
+	public SegmentSlic_F32_MT(int numberOfRegions, float m, int totalIterations,
+							ConnectRule connectRule ) {
+		super(numberOfRegions, m, totalIterations, connectRule);
+	}
+
+	@Override
+	protected void computeClusterDistance() {
+		impl.computeClusterDistance();
+	}
+
+	@Override
+	protected void updateClusters() {
+		impl.updateClusters();
+	}
+
+	@Override
+	public void assignLabelsToPixels(GrayS32 pixelToRegions,
+									 GrowQueue_I32 regionMemberCount,
+									 FastQueue<float[]> regionColor) {
+		impl.assignLabelsToPixels(pixelToRegions,regionMemberCount,regionColor);
+	}
+}
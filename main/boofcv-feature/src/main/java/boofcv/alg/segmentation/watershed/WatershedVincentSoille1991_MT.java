@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.segmentation.watershed;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.ConnectRule;
+import boofcv.struct.image.GrayS32;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.lists.RecycleStack;
+import org.ddogleg.struct.FastQueue;
+import org.ddogleg.struct.GrowQueue_B;
+import org.ddogleg.struct.GrowQueue_I32;
+
+/**
+ * <p>
+ * Tiled and concurrent version of {@link WatershedVincentSoille1991} where a new region is created at each local
+ * minima. The image is broken up into square tiles which are processed independently. Memory used by the
+ * watershed algorithm is bounded by the size of a tile, instead of the size of the image, making it suitable
+ * for very large images.
+ * </p>
+ *
+ * <ol>
+ * <li>Each tile is expanded by the overlap on all sides and segmented using {@link WatershedVincentSoille1991}.
+ * Watersheds are removed and the labels inside the tile are written to the output. For every pair of
+ * pixels which touch across a tile's seam it records if they belong to the same region.</li>
+ * <li>Labels are merged across a seam when both tiles agree that the two pixels are in the same region.</li>
+ * <li>Labels are compacted so that they go from 0 to {@link #getTotalRegions()}-1.</li>
+ * </ol>
+ *
+ * <p>
+ * Regions which are split by a seam are stitched back together, but where a tile's expanded view doesn't contain
+ * a region's local minima the boundary between regions can be different from the single threaded solution.
+ * Increasing the overlap reduces these differences. Results depend on the tile size and not on the number
+ * of threads. Unlike {@link WatershedVincentSoille1991} the output contains no watershed pixels and labels
+ * start at 0.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class WatershedVincentSoille1991_MT {
+	// number of pixels along each side of a tile
+	protected int tileSize;
+	// number of pixels a tile is expanded by on each side when segmented
+	protected int tileOverlap;
+
+	// segmented output image
+	protected GrayS32 output = new GrayS32(1,1);
+	// total number of regions in the output
+	protected int totalRegions;
+
+	// storage for each tile
+	protected FastQueue<Tile> tiles = new FastQueue<>(Tile.class, true);
+	// number of tiles along the x-axis
+	protected int tileCols;
+
+	// Disjoint set forest used to merge labels along the seams. Index is the label + tile offset
+	protected GrowQueue_I32 parent = new GrowQueue_I32();
+	// Converts a label + tile offset into the final compacted label
+	protected GrowQueue_I32 compact = new GrowQueue_I32();
+
+	// watershed algorithms for each thread
+	protected RecycleStack<Worker> workers;
+
+	/**
+	 * Configures the algorithm
+	 *
+	 * @param rule Connectivity rule. 4 or 8
+	 * @param tileSize Number of pixels along each side of a tile. Try 512
+	 * @param tileOverlap Number of pixels a tile is expanded by along each side. Must be &ge; 1. Try 32
+	 */
+	public WatershedVincentSoille1991_MT( ConnectRule rule , int tileSize , int tileOverlap ) {
+		if( tileSize <= 0 )
+			throw new IllegalArgumentException("Tile size must be more than zero");
+		if( tileOverlap < 1 )
+			throw new IllegalArgumentException("Tile overlap must be at least one pixel");
+
+		this.tileSize = tileSize;
+		this.tileOverlap = tileOverlap;
+
+		switch( rule ) {
+			case FOUR: workers = new RecycleStack<>(()->new Worker(new WatershedVincentSoille1991.Connect4())); break;
+			case EIGHT: workers = new RecycleStack<>(()->new Worker(new WatershedVincentSoille1991.Connect8())); break;
+			default: throw new IllegalArgumentException("Unknown connectivity rule");
+		}
+	}
+
+	/**
+	 * Segments the image. A new region is created at each local minima and watersheds are removed.
+	 *
+	 * @param input Input gray-scale image.
+	 */
+	public void process( GrayU8 input ) {
+		output.reshape(input.width,input.height);
+
+		// split the image into tiles
+		tiles.reset();
+		tileCols = (input.width + tileSize - 1)/tileSize;
+		for( int y0 = 0; y0 < input.height; y0 += tileSize ) {
+			for( int x0 = 0; x0 < input.width; x0 += tileSize ) {
+				Tile t = tiles.grow();
+				t.x0 = x0;
+				t.y0 = y0;
+				t.x1 = Math.min(input.width, x0 + tileSize);
+				t.y1 = Math.min(input.height, y0 + tileSize);
+			}
+		}
+
+		// Segment each tile independently
+		BoofConcurrency.loopFor(0,tiles.size,i->{
+			Worker worker = workers.pop();
+			processTile(input,tiles.data[i],worker);
+			workers.recycle(worker);
+		});
+
+		// give each tile its own range of labels
+		int total = 0;
+		for( int i = 0; i < tiles.size; i++ ) {
+			Tile t = tiles.data[i];
+			t.offset = total;
+			total += t.numRegions;
+		}
+
+		mergeAlongSeams(total);
+		compactLabels(total);
+
+		// Apply the compacted labels to the output
+		BoofConcurrency.loopFor(0,tiles.size,i->{
+			Tile t = tiles.data[i];
+			for( int y = t.y0; y < t.y1; y++ ) {
+				int index = output.startIndex + y*output.stride + t.x0;
+				int end = index + t.x1 - t.x0;
+				for( ; index < end; index++ ) {
+					output.data[index] = compact.data[output.data[index] + t.offset];
+				}
+			}
+		});
+	}
+
+	/**
+	 * Segments the tile expanded by the overlap and copies the labels inside the tile into the output. Labels
+	 * are compacted to be from 0 to the number of regions inside the tile minus one.
+	 */
+	protected void processTile( GrayU8 input , Tile tile , Worker worker ) {
+		int ex0 = Math.max(0, tile.x0 - tileOverlap);
+		int ey0 = Math.max(0, tile.y0 - tileOverlap);
+		int ex1 = Math.min(input.width, tile.x1 + tileOverlap);
+		int ey1 = Math.min(input.height, tile.y1 + tileOverlap);
+
+		input.subimage(ex0,ey0,ex1,ey1,worker.subInput);
+		worker.alg.process(worker.subInput);
+		worker.alg.removeWatersheds();
+		GrayS32 local = worker.alg.getOutput();
+
+		// Relabel regions in the order they are encountered inside the tile, removing regions which are only
+		// inside the overlap
+		GrowQueue_I32 lookup = worker.lookup;
+		lookup.resize(worker.alg.getTotalRegions());
+		lookup.fill(-1);
+
+		int count = 0;
+		for( int y = tile.y0; y < tile.y1; y++ ) {
+			int indexLocal = local.startIndex + (y-ey0)*local.stride + tile.x0-ex0;
+			int indexOut = output.startIndex + y*output.stride + tile.x0;
+			for( int x = tile.x0; x < tile.x1; x++ ) {
+				int label = local.data[indexLocal++];
+				int c = lookup.data[label];
+				if( c < 0 ) {
+					c = lookup.data[label] = count++;
+				}
+				output.data[indexOut++] = c;
+			}
+		}
+		tile.numRegions = count;
+
+		// Record which pixels across each seam this tile thinks are in the same region
+		tile.left.reset();
+		tile.right.reset();
+		tile.top.reset();
+		tile.bottom.reset();
+		for( int y = tile.y0; y < tile.y1; y++ ) {
+			if( tile.x0 > 0 )
+				tile.left.add( local.get(tile.x0-ex0,y-ey0) == local.get(tile.x0-1-ex0,y-ey0));
+			if( tile.x1 < input.width )
+				tile.right.add( local.get(tile.x1-1-ex0,y-ey0) == local.get(tile.x1-ex0,y-ey0));
+		}
+		for( int x = tile.x0; x < tile.x1; x++ ) {
+			if( tile.y0 > 0 )
+				tile.top.add( local.get(x-ex0,tile.y0-ey0) == local.get(x-ex0,tile.y0-1-ey0));
+			if( tile.y1 < input.height )
+				tile.bottom.add( local.get(x-ex0,tile.y1-1-ey0) == local.get(x-ex0,tile.y1-ey0));
+		}
+	}
+
+	/**
+	 * Merges labels of pixels along the right and bottom seam of each tile when both tiles agree that
+	 * they belong to the same region
+	 */
+	protected void mergeAlongSeams( int total ) {
+		parent.resize(total);
+		for( int i = 0; i < total; i++ ) {
+			parent.data[i] = i;
+		}
+
+		for( int i = 0; i < tiles.size; i++ ) {
+			Tile a = tiles.data[i];
+
+			if( a.right.size > 0 ) {
+				Tile b = tiles.data[i+1];
+				for( int y = a.y0; y < a.y1; y++ ) {
+					if( a.right.data[y-a.y0] && b.left.data[y-a.y0] ) {
+						int index = output.startIndex + y*output.stride + a.x1;
+						union(output.data[index-1] + a.offset, output.data[index] + b.offset);
+					}
+				}
+			}
+
+			if( a.bottom.size > 0 ) {
+				Tile b = tiles.data[i+tileCols];
+				for( int x = a.x0; x < a.x1; x++ ) {
+					if( a.bottom.data[x-a.x0] && b.top.data[x-a.x0] ) {
+						int index = output.startIndex + a.y1*output.stride + x;
+						union(output.data[index-output.stride] + a.offset, output.data[index] + b.offset);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Assigns a compacted label to each root in the disjoint set forest. Roots always have the lowest
+	 * label in their set so they are encountered before their children.
+	 */
+	protected void compactLabels( int total ) {
+		compact.resize(total);
+		totalRegions = 0;
+		for( int i = 0; i < total; i++ ) {
+			int root = find(i);
+			if( root == i ) {
+				compact.data[i] = totalRegions++;
+			} else {
+				compact.data[i] = compact.data[root];
+			}
+		}
+	}
+
+	/**
+	 * Merges the two sets together. The root with the lower label becomes the root of the combined set.
+	 */
+	protected void union( int labelA , int labelB ) {
+		int rootA = find(labelA);
+		int rootB = find(labelB);
+		if( rootA == rootB )
+			return;
+		if( rootA < rootB )
+			parent.data[rootB] = rootA;
+		else
+			parent.data[rootA] = rootB;
+	}
+
+	/**
+	 * Finds the root of the set and compresses the path along the way
+	 */
+	protected int find( int label ) {
+		while( parent.data[label] != label ) {
+			int next = parent.data[label] = parent.data[parent.data[label]];
+			label = next;
+		}
+		return label;
+	}
+
+	/**
+	 * Segmented output image. Each pixel is assigned a region from 0 to {@link #getTotalRegions()}-1.
+	 */
+	public GrayS32 getOutput() {
+		return output;
+	}
+
+	/**
+	 * Returns the total number of regions labeled.
+	 */
+	public int getTotalRegions() {
+		return totalRegions;
+	}
+
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	public int getTileOverlap() {
+		return tileOverlap;
+	}
+
+	/**
+	 * Location of a tile and information on its seams with neighboring tiles
+	 */
+	public static class Tile {
+		// bounds of the tile. Lower extent inclusive and upper extent exclusive
+		public int x0,y0,x1,y1;
+		// number of regions inside the tile
+		public int numRegions;
+		// added to the labels inside this tile to make them unique across the image
+		public int offset;
+
+		// Indicates if the pixels on either side of a seam are part of the same region. Empty if the
+		// tile is along the image border.
+		public GrowQueue_B left = new GrowQueue_B();
+		public GrowQueue_B right = new GrowQueue_B();
+		public GrowQueue_B top = new GrowQueue_B();
+		public GrowQueue_B bottom = new GrowQueue_B();
+	}
+
+	/**
+	 * Watershed algorithm and storage used by a single thread
+	 */
+	protected static class Worker {
+		WatershedVincentSoille1991 alg;
+		GrayU8 subInput = new GrayU8();
+		// look up table from local label to the label inside the tile
+		GrowQueue_I32 lookup = new GrowQueue_I32();
+
+		public Worker( WatershedVincentSoille1991 alg ) {
+			this.alg = alg;
+		}
+	}
+}
@@ -56,7 +56,8 @@ public class DetectPolygonBinaryGrayRefine<T extends ImageGray<T>> {
 	// Used to remove false positives
 	private EdgeIntensityPolygon<T> edgeIntensity;
 
-	private Polygon2D_F64 work = new Polygon2D_F64();
+	// work space for refining polygons
+	private RefineWork<T> work;
 
 	// useful for customization
 	AdjustBeforeRefineEdge functionAdjust;
@@ -89,8 +90,15 @@ public class DetectPolygonBinaryGrayRefine<T extends ImageGray<T>> {
 			this.adjustForBias = new AdjustPolygonForThresholdBias();
 		}
 
-		this.edgeIntensity = new EdgeIntensityPolygon<>(1, 1.5, 15,
-				detector.getInputType());
+		this.edgeIntensity = createEdgeIntensity();
+		this.work = new RefineWork<>(refineContour,refineGray,edgeIntensity);
+	}
+
+	/**
+	 * Creates a new instance of the algorithm used to compute the edge intensity of a polygon
+	 */
+	protected EdgeIntensityPolygon<T> createEdgeIntensity() {
+		return new EdgeIntensityPolygon<>(1, 1.5, 15, detector.getInputType());
 	}
 
 	/**
@@ -182,6 +190,20 @@ public class DetectPolygonBinaryGrayRefine<T extends ImageGray<T>> {
 	 * @return true if successful or false if not
 	 */
 	public boolean refine( DetectPolygonFromContour.Info info ) {
+		work.adjustForBias = adjustForBias;
+		return refine(info,work);
+	}
+
+	/**
+	 * Refines the fit to the specified polygon using the provided work space. Only info.polygon is modified
+	 * @param info The polygon and related info
+	 * @param w Work space and algorithms used to refine the polygon
+	 * @return true if successful or false if not
+	 */
+	protected boolean refine( DetectPolygonFromContour.Info info , RefineWork<T> w ) {
+		EdgeIntensityPolygon<T> edgeIntensity = w.edgeIntensity;
+		Polygon2D_F64 work = w.work;
+
 		double before,after;
 		if( edgeIntensity.computeEdge(info.polygon,!detector.isOutputClockwise()) ) {
 			before = edgeIntensity.getAverageOutside() - edgeIntensity.getAverageInside();
@@ -191,12 +213,13 @@ public class DetectPolygonBinaryGrayRefine<T extends ImageGray<T>> {
 
 		boolean success = false;
 
-		if( refineContour != null ) {
-			List<Point2D_I32> contour = detector.getContour(info);
-			refineContour.process(contour,info.splits,work);
+		if( w.refineContour != null ) {
+			w.contour.reset();
+			detector.getContourFinder().loadContour(info.contour.externalIndex,w.contour);
+			w.refineContour.process(w.contour.toList(),info.splits,work);
 
-			if( adjustForBias != null )
-				adjustForBias.process(work, detector.isOutputClockwise());
+			if( w.adjustForBias != null )
+				w.adjustForBias.process(work, detector.isOutputClockwise());
 
 			if( edgeIntensity.computeEdge(work,!detector.isOutputClockwise()) ) {
 				after = edgeIntensity.getAverageOutside() - edgeIntensity.getAverageInside();
@@ -214,9 +237,9 @@ public class DetectPolygonBinaryGrayRefine<T extends ImageGray<T>> {
 			functionAdjust.adjust(info, detector.isOutputClockwise());
 		}
 
-		if( refineGray != null ) {
+		if( w.refineGray != null ) {
 			work.vertexes.resize(info.polygon.size());
-			if( refineGray.refine(info.polygon,work) ) {
+			if( w.refineGray.refine(info.polygon,work) ) {
 				if( edgeIntensity.computeEdge(work,!detector.isOutputClockwise()) ) {
 					after = edgeIntensity.getAverageOutside() - edgeIntensity.getAverageInside();
 
@@ -317,4 +340,31 @@ public class DetectPolygonBinaryGrayRefine<T extends ImageGray<T>> {
 	public interface AdjustBeforeRefineEdge {
 		void adjust( DetectPolygonFromContour.Info info , boolean clockwise );
 	}
+
+	/**
+	 * Algorithms and work space used to refine a polygon. Each thread needs its own instance.
+	 */
+	protected static class RefineWork<T extends ImageGray<T>> {
+		// Refines the edges using the contour alone. null if not used
+		public RefinePolygonToContour refineContour;
+		// Refines the edges using the gray scale image. null if not used
+		public RefinePolygonToGray<T> refineGray;
+		// Used to evaluate the fit
+		public EdgeIntensityPolygon<T> edgeIntensity;
+		// Adjusts the polygon for the bias caused by thresholding. null if not used
+		public AdjustPolygonForThresholdBias adjustForBias;
+
+		// storage for the refined polygon
+		public Polygon2D_F64 work = new Polygon2D_F64();
+		// storage for the shape's contour
+		public FastQueue<Point2D_I32> contour = new FastQueue<>(Point2D_I32.class,true);
+
+		public RefineWork(RefinePolygonToContour refineContour,
+						  RefinePolygonToGray<T> refineGray,
+						  EdgeIntensityPolygon<T> edgeIntensity) {
+			this.refineContour = refineContour;
+			this.refineGray = refineGray;
+			this.edgeIntensity = edgeIntensity;
+		}
+	}
 }
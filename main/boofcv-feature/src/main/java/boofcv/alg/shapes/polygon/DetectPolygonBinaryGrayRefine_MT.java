@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.shapes.polygon;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.distort.PixelTransform;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageGray;
+import boofcv.struct.lists.RecycleStack;
+import georegression.struct.point.Point2D_F32;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * <p>Concurrent implementation of {@link DetectPolygonBinaryGrayRefine}. Each polygon is refined independently
+ * in {@link #refineAll()} so they are divided between threads. Every thread has its own instance of the
+ * refinement algorithms, edge intensity, and lens distortion model. Each polygon's info is modified in place
+ * so the output is identical to the single threaded version.</p>
+ *
+ * <p>If a {@link AdjustBeforeRefineEdge} has been specified then refinement is done in a single thread since
+ * the user provided function is not required to be thread safe.</p>
+ *
+ * @author Peter Abeles
+ */
+public class DetectPolygonBinaryGrayRefine_MT<T extends ImageGray<T>> extends DetectPolygonBinaryGrayRefine<T> {
+
+	// work space for each thread
+	RecycleStack<ThreadWork> workStack;
+
+	// the most recent input image
+	T gray;
+
+	// lens distortion. null if there is none
+	PixelTransform<Point2D_F32> distToUndist, undistToDist;
+	int width,height;
+	// incremented every time the lens distortion changes
+	int distortionVersion = 0;
+
+	/**
+	 * Configures the polygon detector. See {@link DetectPolygonBinaryGrayRefine} for a description of
+	 * the common parameters.
+	 *
+	 * @param factoryContour Creates algorithm to refine the polygon using the contour. null if not used.
+	 * @param factoryGray Creates algorithm to refine the polygon using the gray scale image. null if not used.
+	 */
+	public DetectPolygonBinaryGrayRefine_MT(DetectPolygonFromContour<T> detector,
+											@Nullable RecycleStack.Factory<RefinePolygonToContour> factoryContour,
+											@Nullable RecycleStack.Factory<RefinePolygonToGray<T>> factoryGray,
+											double minimumRefineEdgeIntensity,
+											boolean adjustForThresholdBias) {
+		super(detector,
+				factoryContour == null ? null : factoryContour.newInstance(),
+				factoryGray == null ? null : factoryGray.newInstance(),
+				minimumRefineEdgeIntensity, adjustForThresholdBias);
+
+		workStack = new RecycleStack<>(()->new ThreadWork(
+				factoryContour == null ? null : factoryContour.newInstance(),
+				factoryGray == null ? null : factoryGray.newInstance()));
+	}
+
+	@Override
+	public void setLensDistortion(int width, int height,
+								  @Nullable PixelTransform<Point2D_F32> distToUndist,
+								  @Nullable PixelTransform<Point2D_F32> undistToDist) {
+		super.setLensDistortion(width, height, distToUndist, undistToDist);
+		this.width = width;
+		this.height = height;
+		this.distToUndist = distToUndist;
+		this.undistToDist = undistToDist;
+		this.distortionVersion++;
+	}
+
+	@Override
+	public void clearLensDistortion() {
+		super.clearLensDistortion();
+		this.distToUndist = null;
+		this.undistToDist = null;
+		this.distortionVersion++;
+	}
+
+	@Override
+	public void process(T gray, GrayU8 binary) {
+		this.gray = gray;
+		super.process(gray, binary);
+	}
+
+	@Override
+	public void refineAll() {
+		List<DetectPolygonFromContour.Info> detections = detector.getFound().toList();
+
+		if( functionAdjust != null || detections.size() <= 1 ) {
+			super.refineAll();
+			return;
+		}
+
+		BoofConcurrency.loopBlocks(0,detections.size(),(idx0,idx1)->{
+			ThreadWork w = workStack.pop();
+			initialize(w);
+
+			for (int i = idx0; i < idx1; i++) {
+				refine(detections.get(i),w);
+			}
+
+			workStack.recycle(w);
+		});
+	}
+
+	/**
+	 * Makes the thread's work space consistent with the current configuration and input image
+	 */
+	private void initialize( ThreadWork w ) {
+		if( adjustForBias == null ) {
+			w.adjustForBias = null;
+		} else if( w.adjustForBias == null ) {
+			w.adjustForBias = new AdjustPolygonForThresholdBias();
+		}
+
+		// lens distortion models can have internal state so each thread needs its own copy
+		if( w.distortionVersion != distortionVersion ) {
+			w.distortionVersion = distortionVersion;
+			if( undistToDist == null ) {
+				w.edgeIntensity.setTransform(null);
+				if( w.refineGray != null )
+					w.refineGray.clearLensDistortion();
+			} else {
+				w.edgeIntensity.setTransform(undistToDist.copy());
+				if( w.refineGray != null )
+					w.refineGray.setLensDistortion(width, height,
+							distToUndist == null ? null : distToUndist.copy(), undistToDist.copy());
+			}
+		}
+
+		// the image must be set after the transform since changing the transform can discard the image
+		w.edgeIntensity.setImage(gray);
+		if( w.refineGray != null )
+			w.refineGray.setImage(gray);
+	}
+
+	class ThreadWork extends RefineWork<T> {
+		// version of the lens distortion this work space is configured for
+		int distortionVersion = 0;
+
+		public ThreadWork(RefinePolygonToContour refineContour, RefinePolygonToGray<T> refineGray) {
+			super(refineContour, refineGray, createEdgeIntensity());
+		}
+	}
+}
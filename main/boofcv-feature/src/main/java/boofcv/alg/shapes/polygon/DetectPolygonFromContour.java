@@ -77,16 +77,16 @@ public class DetectPolygonFromContour<T extends ImageGray<T>> {
 	private int minimumContour;
 	private double minimumArea; // computed from minimumContour
 
-	private BinaryContourFinder contourFinder;
+	protected BinaryContourFinder contourFinder;
 	private BinaryContourInterface.Padded contourPadded;
 	int imageWidth,imageHeight; // input image shape
 
 	// finds the initial polygon around a target candidate
-	private PointsToPolyline contourToPolyline;
-	private GrowQueue_I32 splits = new GrowQueue_I32();
+	protected PointsToPolyline contourToPolyline;
 
 	// Used to prune false positives
-	private ContourEdgeIntensity<T> contourEdgeIntensity;
+	protected ContourEdgeIntensity<T> contourEdgeIntensity;
+	double tangentEdgeIntensity;
 
 	// extera information for found shapes
 	FastQueue<Info> foundInfo = new FastQueue<>(Info.class, true);
@@ -94,16 +94,11 @@ public class DetectPolygonFromContour<T extends ImageGray<T>> {
 	// true if points touching the border are NOT pruned
 	private boolean canTouchBorder;
 
-	// work space for initial polygon
-	private Polygon2D_F64 polygonWork = new Polygon2D_F64(); // undistorted pixel coordinate
-	private Polygon2D_F64 polygonDistorted = new Polygon2D_F64(); // distorted pixel coordinates;
-
 	// should the order of the polygon be on clockwise order on output?
 	private boolean outputClockwise;
 
 	// transforms which can be used to handle lens distortion
 	protected PixelTransform<Point2D_F32> distToUndist, undistToDist;
-	protected Point2D_F32 distortedPoint = new Point2D_F32();
 
 	private boolean verbose = false;
 
@@ -111,20 +106,16 @@ public class DetectPolygonFromContour<T extends ImageGray<T>> {
 	double contourEdgeThreshold;
 
 	// helper used to customize low level behaviors internally
-	private PolygonHelper helper;
-
-	// storage space for contour in undistorted pixels
-	private FastQueue<Point2D_I32> undistorted = new FastQueue<>(Point2D_I32.class,true);
+	protected PolygonHelper helper;
 
 	// type of input gray scale image it can process
 	private Class<T> inputType;
 
-	// indicates which corners touch the border
-	private GrowQueue_B borderCorners = new GrowQueue_B();
+	// work space for processing a contour
+	private ContourWork<T> work;
 
 	// temporary storage for a contour
 	private FastQueue<Point2D_I32> contourTmp = new FastQueue<>(Point2D_I32.class,true);
-	List<Point2D_I32> polygonPixel = new ArrayList<>();
 
 	// times for internal profiling
 	MovingAverage milliContour = new MovingAverage(0.8);
@@ -163,11 +154,12 @@ public class DetectPolygonFromContour<T extends ImageGray<T>> {
 		if( !this.contourToPolyline.isLoop() )
 			throw new IllegalArgumentException("ContourToPolygon must be configured for loops");
 
+		this.tangentEdgeIntensity = tangentEdgeIntensity;
 		if( contourEdgeThreshold > 0 ) {
-			this.contourEdgeIntensity = new ContourEdgeIntensity<>(30, 1, tangentEdgeIntensity, inputType);
+			this.contourEdgeIntensity = createContourEdgeIntensity();
 		}
 
-		polygonWork = new Polygon2D_F64(1);
+		work = new ContourWork<>(contourToPolyline,contourEdgeIntensity);
 	}
 
 	/**
@@ -175,6 +167,13 @@ public class DetectPolygonFromContour<T extends ImageGray<T>> {
 	 */
 	protected DetectPolygonFromContour(){}
 
+	/**
+	 * Creates a new instance of the algorithm used to compute the intensity along a contour
+	 */
+	protected ContourEdgeIntensity<T> createContourEdgeIntensity() {
+		return new ContourEdgeIntensity<>(30, 1, tangentEdgeIntensity, inputType);
+	}
+
 	/**
 	 * <p>Specifies transforms which can be used to change coordinates from distorted to undistorted and the opposite
 	 * coordinates.  The undistorted image is never explicitly created.</p>
@@ -280,148 +279,180 @@ public class DetectPolygonFromContour<T extends ImageGray<T>> {
 	 * Finds blobs in the binary image.  Then looks for blobs that meet size and shape requirements.  See code
 	 * below for the requirements.  Those that remain are considered to be target candidates.
 	 */
-	private void findCandidateShapes() {
+	protected void findCandidateShapes() {
 
 		// find blobs where all 4 edges are lines
 		List<ContourPacked> blobs = contourFinder.getContours();
+		work.distToUndist = distToUndist;
 		for (int i = 0; i < blobs.size(); i++) {
 			ContourPacked c = blobs.get(i);
 
-			contourTmp.reset();
-			contourFinder.loadContour(c.externalIndex,contourTmp);
-			if( contourTmp.size() >= minimumContour) {
-				float edgeInside=-1,edgeOutside=-1;
-
-//				System.out.println("----- candidate "+contourTmp.size()+"  "+contourTmp.get(0));
-
-				// ignore shapes which touch the image border
-				boolean touchesBorder = touchesBorder(contourTmp.toList());
-				if( !canTouchBorder && touchesBorder ) {
-					if( verbose ) System.out.println("rejected polygon, touched border");
-					continue;
-				}
-
-				if( helper != null )
-					if( !helper.filterContour(contourTmp.toList(),touchesBorder,true) )
-						continue;
-
-				// filter out contours which are noise
-				if( contourEdgeIntensity != null ) {
-					contourEdgeIntensity.process(contourTmp.toList(),true);
-					edgeInside = contourEdgeIntensity.getInsideAverage();
-					edgeOutside = contourEdgeIntensity.getOutsideAverage();
-
-					// take the ABS because CCW/CW isn't known yet
-					if( Math.abs(edgeOutside-edgeInside) < contourEdgeThreshold ) {
-						if( verbose ) System.out.println("rejected polygon. contour edge intensity");
-						continue;
-					}
-				}
-
-				// remove lens distortion
-				List<Point2D_I32> undistorted;
-				if( distToUndist != null ) {
-					undistorted = this.undistorted.toList();
-					removeDistortionFromContour(contourTmp.toList(),this.undistorted);
-					if( helper != null )
-						if( !helper.filterContour(this.undistorted.toList(),touchesBorder,false) )
-							continue;
-				} else {
-					undistorted = contourTmp.toList();
-				}
-
-				if( helper != null ) {
-					helper.configureBeforePolyline(contourToPolyline,touchesBorder);
-				}
-
-				// Find the initial approximate fit of a polygon to the contour
-				if( !contourToPolyline.process(undistorted,splits) ) {
-					if( verbose ) System.out.println("rejected polygon initial fit failed. contour size = "+contourTmp.size());
-					continue;
-				}
-
-				// determine the polygon's orientation
-				polygonPixel.clear();
-				for (int j = 0; j < splits.size; j++) {
-					polygonPixel.add(undistorted.get(splits.get(j)));
-				}
-
-				boolean isCCW = UtilPolygons2D_I32.isCCW(polygonPixel);
-
-				// Now that the orientation is known it can check to see if it's actually trying to fit to a
-				// white blob instead of a black blob
-				if( contourEdgeIntensity != null ) {
-					// before it assumed it was CCW
-					if( !isCCW ) {
-						float tmp = edgeInside;
-						edgeInside = edgeOutside;
-						edgeOutside = tmp;
-					}
-
-					if( edgeInside > edgeOutside ) {
-						if( verbose ) System.out.println("White blob. Rejected");
-						continue;
-					}
-				}
-
-				// see if it should be flipped so that the polygon has the correct orientation
-				if( outputClockwise == isCCW ) {
-					flip(splits.data,splits.size);
-				}
-
-				// convert the format of the initial crude polygon
-				polygonWork.vertexes.resize(splits.size());
-				polygonDistorted.vertexes.resize(splits.size());
-				for (int j = 0; j < splits.size(); j++) {
-					Point2D_I32 p = undistorted.get( splits.get(j) );
-					Point2D_I32 q = contourTmp.get( splits.get(j));
-					polygonWork.get(j).set(p.x,p.y);
-					polygonDistorted.get(j).set(q.x,q.y);
-				}
-
-				if( touchesBorder ) {
-					determineCornersOnBorder(polygonDistorted, borderCorners);
-				} else {
-					borderCorners.resize(0);
-				}
-
-				if( helper != null ) {
-					if( !helper.filterPixelPolygon(polygonWork,polygonDistorted,borderCorners,touchesBorder) ) {
-						if( verbose ) System.out.println("rejected by helper.filterPixelPolygon()");
-						continue;
-					}
-				}
-
-				// make sure it's big enough
-				double area = Area2D_F64.polygonSimple(polygonWork);
-
-				if( area < minimumArea ) {
-					if( verbose ) System.out.println("Rejected area");
-					continue;
-				}
-
+			if( processContour(c,work) ) {
 				// Get the storage for a new polygon. This is recycled and has already been cleaned up
-				Info info = foundInfo.grow();
-
-				if( distToUndist != null ) {
-					// changed the save points in the packed contour list with undistorted coordinates
-					contourFinder.writeContour(c.externalIndex,undistorted);
-				}
-
-				// save results
-				info.splits.setTo(splits);
-				info.contourTouchesBorder = touchesBorder;
-				info.external = true;
-				info.edgeInside = edgeInside;
-				info.edgeOutside = edgeOutside;
-				info.contour = c;
-				info.polygon.set(polygonWork);
-				info.polygonDistorted.set(polygonDistorted);
-				info.borderCorners.setTo(borderCorners);
+				saveResults(c,work,foundInfo.grow());
 			}
 		}
 	}
 
+	/**
+	 * Attempts to fit a polygon to the contour.
+	 *
+	 * @param c The contour
+	 * @param w Work space. Results are saved here.
+	 * @return true if a polygon was found that meets all the requirements
+	 */
+	protected boolean processContour( ContourPacked c , ContourWork<T> w ) {
+		FastQueue<Point2D_I32> contourTmp = w.contourTmp;
+		GrowQueue_I32 splits = w.splits;
+
+		contourTmp.reset();
+		contourFinder.loadContour(c.externalIndex,contourTmp);
+		if( contourTmp.size() < minimumContour)
+			return false;
+
+		w.edgeInside=-1;
+		w.edgeOutside=-1;
+
+//		System.out.println("----- candidate "+contourTmp.size()+"  "+contourTmp.get(0));
+
+		// ignore shapes which touch the image border
+		boolean touchesBorder = touchesBorder(contourTmp.toList());
+		w.touchesBorder = touchesBorder;
+		if( !canTouchBorder && touchesBorder ) {
+			if( verbose ) System.out.println("rejected polygon, touched border");
+			return false;
+		}
+
+		if( helper != null )
+			if( !helper.filterContour(contourTmp.toList(),touchesBorder,true) )
+				return false;
+
+		// filter out contours which are noise
+		if( w.contourEdgeIntensity != null ) {
+			w.contourEdgeIntensity.process(contourTmp.toList(),true);
+			w.edgeInside = w.contourEdgeIntensity.getInsideAverage();
+			w.edgeOutside = w.contourEdgeIntensity.getOutsideAverage();
+
+			// take the ABS because CCW/CW isn't known yet
+			if( Math.abs(w.edgeOutside-w.edgeInside) < contourEdgeThreshold ) {
+				if( verbose ) System.out.println("rejected polygon. contour edge intensity");
+				return false;
+			}
+		}
+
+		// remove lens distortion
+		List<Point2D_I32> undistorted;
+		if( w.distToUndist != null ) {
+			removeDistortionFromContour(contourTmp.toList(),w);
+			undistorted = w.undistorted.toList();
+			if( helper != null )
+				if( !helper.filterContour(w.undistorted.toList(),touchesBorder,false) )
+					return false;
+		} else {
+			undistorted = contourTmp.toList();
+		}
+
+		if( helper != null ) {
+			helper.configureBeforePolyline(w.contourToPolyline,touchesBorder);
+		}
+
+		// Find the initial approximate fit of a polygon to the contour
+		if( !w.contourToPolyline.process(undistorted,splits) ) {
+			if( verbose ) System.out.println("rejected polygon initial fit failed. contour size = "+contourTmp.size());
+			return false;
+		}
+
+		// determine the polygon's orientation
+		List<Point2D_I32> polygonPixel = w.polygonPixel;
+		polygonPixel.clear();
+		for (int j = 0; j < splits.size; j++) {
+			polygonPixel.add(undistorted.get(splits.get(j)));
+		}
+
+		boolean isCCW = UtilPolygons2D_I32.isCCW(polygonPixel);
+
+		// Now that the orientation is known it can check to see if it's actually trying to fit to a
+		// white blob instead of a black blob
+		if( w.contourEdgeIntensity != null ) {
+			// before it assumed it was CCW
+			if( !isCCW ) {
+				float tmp = w.edgeInside;
+				w.edgeInside = w.edgeOutside;
+				w.edgeOutside = tmp;
+			}
+
+			if( w.edgeInside > w.edgeOutside ) {
+				if( verbose ) System.out.println("White blob. Rejected");
+				return false;
+			}
+		}
+
+		// see if it should be flipped so that the polygon has the correct orientation
+		if( outputClockwise == isCCW ) {
+			flip(splits.data,splits.size);
+		}
+
+		// convert the format of the initial crude polygon
+		Polygon2D_F64 polygonWork = w.polygonWork;
+		Polygon2D_F64 polygonDistorted = w.polygonDistorted;
+		polygonWork.vertexes.resize(splits.size());
+		polygonDistorted.vertexes.resize(splits.size());
+		for (int j = 0; j < splits.size(); j++) {
+			Point2D_I32 p = undistorted.get( splits.get(j) );
+			Point2D_I32 q = contourTmp.get( splits.get(j));
+			polygonWork.get(j).set(p.x,p.y);
+			polygonDistorted.get(j).set(q.x,q.y);
+		}
+
+		if( touchesBorder ) {
+			determineCornersOnBorder(polygonDistorted, w.borderCorners);
+		} else {
+			w.borderCorners.resize(0);
+		}
+
+		if( helper != null ) {
+			if( !helper.filterPixelPolygon(polygonWork,polygonDistorted,w.borderCorners,touchesBorder) ) {
+				if( verbose ) System.out.println("rejected by helper.filterPixelPolygon()");
+				return false;
+			}
+		}
+
+		// make sure it's big enough
+		double area = Area2D_F64.polygonSimple(polygonWork);
+
+		if( area < minimumArea ) {
+			if( verbose ) System.out.println("Rejected area");
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Saves the results from a contour which has been successfully processed
+	 *
+	 * @param c The contour
+	 * @param w Work space which contains the results
+	 * @param info Storage for the output
+	 */
+	protected void saveResults( ContourPacked c , ContourWork<T> w , Info info ) {
+		if( distToUndist != null ) {
+			// changed the save points in the packed contour list with undistorted coordinates
+			contourFinder.writeContour(c.externalIndex,w.undistorted.toList());
+		}
+
+		// save results
+		info.splits.setTo(w.splits);
+		info.contourTouchesBorder = w.touchesBorder;
+		info.external = true;
+		info.edgeInside = w.edgeInside;
+		info.edgeOutside = w.edgeOutside;
+		info.contour = c;
+		info.polygon.set(w.polygonWork);
+		info.polygonDistorted.set(w.polygonDistorted);
+		info.borderCorners.setTo(w.borderCorners);
+	}
+
 	// TODO move into ddogleg? primitive flip  <--- I think this is specific to polygons
 	public static void flip( int []a , int N ) {
 		int H = N/2;
@@ -496,7 +527,9 @@ public class DetectPolygonFromContour<T extends ImageGray<T>> {
 	/**
 	 * Removes lens distortion from the found contour
 	 */
-	private void removeDistortionFromContour(List<Point2D_I32> distorted , FastQueue<Point2D_I32> undistorted  ) {
+	private void removeDistortionFromContour(List<Point2D_I32> distorted , ContourWork<T> w ) {
+		FastQueue<Point2D_I32> undistorted = w.undistorted;
+		Point2D_F32 distortedPoint = w.distortedPoint;
 		undistorted.reset();
 
 		for (int j = 0; j < distorted.size(); j++) {
@@ -504,7 +537,7 @@ public class DetectPolygonFromContour<T extends ImageGray<T>> {
 			Point2D_I32 p = distorted.get(j);
 			Point2D_I32 q = undistorted.grow();
 
-			distToUndist.compute(p.x,p.y,distortedPoint);
+			w.distToUndist.compute(p.x,p.y,distortedPoint);
 
 			// round to minimize error
 			q.x = Math.round(distortedPoint.x);
@@ -661,6 +694,18 @@ public class DetectPolygonFromContour<T extends ImageGray<T>> {
 			return contour.internalIndexes.size > 0;
 		}
 
+		public void set( Info src ) {
+			external = src.external;
+			edgeInside = src.edgeInside;
+			edgeOutside = src.edgeOutside;
+			contourTouchesBorder = src.contourTouchesBorder;
+			borderCorners.setTo(src.borderCorners);
+			polygon.set(src.polygon);
+			polygonDistorted.set(src.polygonDistorted);
+			splits.setTo(src.splits);
+			contour = src.contour;
+		}
+
 		public void reset() {
 			external = false;
 			edgeInside = edgeOutside = -1;
@@ -672,4 +717,39 @@ public class DetectPolygonFromContour<T extends ImageGray<T>> {
 			contour = null;
 		}
 	}
+
+	/**
+	 * Work space for fitting a polygon to a contour. Each thread needs its own instance.
+	 */
+	protected static class ContourWork<T extends ImageGray<T>> {
+		// finds the initial polygon around a target candidate
+		public PointsToPolyline contourToPolyline;
+		// Used to prune false positives. null if not used.
+		public ContourEdgeIntensity<T> contourEdgeIntensity;
+		// Transform from distorted to undistorted pixels. null if there is no distortion
+		public PixelTransform<Point2D_F32> distToUndist;
+
+		// temporary storage for a contour
+		public FastQueue<Point2D_I32> contourTmp = new FastQueue<>(Point2D_I32.class,true);
+		// storage space for contour in undistorted pixels
+		public FastQueue<Point2D_I32> undistorted = new FastQueue<>(Point2D_I32.class,true);
+		public GrowQueue_I32 splits = new GrowQueue_I32();
+		public List<Point2D_I32> polygonPixel = new ArrayList<>();
+		public Point2D_F32 distortedPoint = new Point2D_F32();
+
+		// work space for initial polygon
+		public Polygon2D_F64 polygonWork = new Polygon2D_F64(1); // undistorted pixel coordinate
+		public Polygon2D_F64 polygonDistorted = new Polygon2D_F64(); // distorted pixel coordinates;
+
+		// indicates which corners touch the border
+		public GrowQueue_B borderCorners = new GrowQueue_B();
+
+		public float edgeInside,edgeOutside;
+		public boolean touchesBorder;
+
+		public ContourWork(PointsToPolyline contourToPolyline, ContourEdgeIntensity<T> contourEdgeIntensity) {
+			this.contourToPolyline = contourToPolyline;
+			this.contourEdgeIntensity = contourEdgeIntensity;
+		}
+	}
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.shapes.polygon;
+
+import boofcv.abst.filter.binary.BinaryContourFinder;
+import boofcv.abst.shapes.polyline.PointsToPolyline;
+import boofcv.alg.filter.binary.ContourPacked;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.ConfigLength;
+import boofcv.struct.distort.PixelTransform;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageGray;
+import boofcv.struct.lists.RecycleStack;
+import georegression.struct.point.Point2D_F32;
+import org.ddogleg.struct.FastQueue;
+import org.ddogleg.struct.GrowQueue_B;
+
+import java.util.List;
+
+/**
+ * <p>Concurrent implementation of {@link DetectPolygonFromContour}. Contours are extracted from the binary
+ * image in a single thread, then a polygon is fit to each contour in parallel. Each thread is given its own
+ * {@link PointsToPolyline}, {@link ContourEdgeIntensity}, and copy of the lens distortion model. Results
+ * are written into a slot for each contour and then combined in the same order as the single threaded
+ * implementation, ensuring identical output.</p>
+ *
+ * <p>If a {@link PolygonHelper} has been specified then contours are processed in a single thread since
+ * the helper is not required to be thread safe.</p>
+ *
+ * @author Peter Abeles
+ */
+public class DetectPolygonFromContour_MT<T extends ImageGray<T>> extends DetectPolygonFromContour<T> {
+
+	// work space for each thread
+	RecycleStack<ContourWork<T>> workStack;
+
+	// Storage for results from each contour and if it was accepted
+	FastQueue<Info> contourInfo = new FastQueue<>(Info.class, true);
+	GrowQueue_B accepted = new GrowQueue_B();
+
+	// the input image. needed to initialize edge intensity in each thread
+	T gray;
+
+	/**
+	 * Configures the detector. See {@link DetectPolygonFromContour} for a description of the common parameters.
+	 *
+	 * @param factoryPolyline Creates a new instance of the algorithm used to fit polylines. One for each thread.
+	 */
+	public DetectPolygonFromContour_MT(RecycleStack.Factory<PointsToPolyline> factoryPolyline,
+									   ConfigLength minimumContour,
+									   boolean outputClockwise,
+									   boolean touchBorder,
+									   double contourEdgeThreshold,
+									   double tangentEdgeIntensity,
+									   BinaryContourFinder contourFinder,
+									   Class<T> inputType) {
+		super(factoryPolyline.newInstance(), minimumContour, outputClockwise, touchBorder, contourEdgeThreshold,
+				tangentEdgeIntensity, contourFinder, inputType);
+
+		workStack = new RecycleStack<>(()->new ContourWork<>(factoryPolyline.newInstance(),
+				contourEdgeIntensity == null ? null : createContourEdgeIntensity()));
+	}
+
+	@Override
+	public void process(T gray, GrayU8 binary) {
+		this.gray = gray;
+		super.process(gray, binary);
+	}
+
+	@Override
+	protected void findCandidateShapes() {
+		if( helper != null ) {
+			super.findCandidateShapes();
+			return;
+		}
+
+		List<ContourPacked> blobs = contourFinder.getContours();
+		if( blobs.isEmpty() )
+			return;
+
+		for (int i = 0; i < contourInfo.size; i++) {
+			contourInfo.get(i).reset();
+		}
+		contourInfo.resize(blobs.size());
+		accepted.resize(blobs.size());
+
+		BoofConcurrency.loopBlocks(0,blobs.size(),(idx0,idx1)->{
+			ContourWork<T> w = workStack.pop();
+			initialize(w);
+
+			for (int i = idx0; i < idx1; i++) {
+				ContourPacked c = blobs.get(i);
+
+				accepted.data[i] = processContour(c,w);
+				if( accepted.data[i] ) {
+					// contours are stored in disjoint regions so this is safe to call in parallel
+					saveResults(c,w,contourInfo.get(i));
+				}
+			}
+
+			workStack.recycle(w);
+		});
+
+		// add the results in the same order as the single thread algorithm
+		for (int i = 0; i < blobs.size(); i++) {
+			if( accepted.data[i] ) {
+				foundInfo.grow().set(contourInfo.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Makes the thread's work space consistent with the current configuration
+	 */
+	private void initialize( ContourWork<T> w ) {
+		w.contourToPolyline.setConvex(contourToPolyline.isConvex());
+		w.contourToPolyline.setMinimumSides(contourToPolyline.getMinimumSides());
+		w.contourToPolyline.setMaximumSides(contourToPolyline.getMaximumSides());
+
+		if( w.contourEdgeIntensity != null )
+			w.contourEdgeIntensity.setImage(gray);
+
+		PixelTransform<Point2D_F32> distToUndist = getDistToUndist();
+		if( distToUndist == null ) {
+			w.distToUndist = null;
+		} else {
+			// lens distortion models can have internal state so each thread needs its own copy
+			w.distToUndist = distToUndist.copy();
+		}
+	}
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.tracker.klt;
+
+import boofcv.abst.filter.derivative.ImageGradient;
+import boofcv.core.image.GeneralizedImageOps;
+import boofcv.factory.transform.pyramid.FactoryPyramid;
+import boofcv.struct.image.ImageGray;
+import boofcv.struct.image.ImageType;
+import boofcv.struct.pyramid.PyramidDiscrete;
+
+import java.lang.reflect.Array;
+
+/**
+ * Image pyramids and their gradients for the current and previous frames in a video sequence, which is what
+ * {@link PyramidKltTracker} needs to track features from one frame into the next. Each time a new frame is
+ * processed the current frame becomes the previous frame, without copying. Several trackers can read from the
+ * same instance so that this work is only done once per frame.
+ *
+ * @author Peter Abeles
+ */
+public class PyramidKltFrames<I extends ImageGray<I>, D extends ImageGray<D>> {
+
+	// for the current image
+	private PyramidDiscrete<I> currentImage;
+	private D[] currentDerivX;
+	private D[] currentDerivY;
+
+	// previous image
+	private PyramidDiscrete<I> previousImage;
+	private D[] previousDerivX;
+	private D[] previousDerivY;
+
+	// computes the gradient in each layer
+	private ImageGradient<I, D> gradient;
+	private Class<I> imageType;
+	private Class<D> derivType;
+
+	// the top layer in the pyramid will be at least this big
+	private int minSize;
+
+	/**
+	 * Configures the pyramid
+	 *
+	 * @param minSize Smallest allowed size of the top layer in the pyramid. See {@link #selectPyramidScale}
+	 * @param gradient Computes image gradient used by KLT tracker
+	 * @param imageType Type of input image
+	 * @param derivType Type of derivative image
+	 */
+	public PyramidKltFrames( int minSize , ImageGradient<I, D> gradient ,
+							 Class<I> imageType , Class<D> derivType ) {
+		this.minSize = minSize;
+		this.gradient = gradient;
+		this.imageType = imageType;
+		this.derivType = derivType;
+	}
+
+	/**
+	 * Computes the pyramid and gradient for the next frame. The current frame becomes the previous frame.
+	 *
+	 * @param input Next image in the sequence. Not modified or saved.
+	 */
+	public void process( I input ) {
+		if( currentImage == null ||
+				currentImage.getInputWidth() != input.width || currentImage.getInputHeight() != input.height) {
+			declarePyramid(input.width,input.height);
+		} else {
+			swapImages();
+		}
+
+		currentImage.process(input);
+		for( int i = 0; i < currentImage.getNumLayers(); i++ ) {
+			I layer = currentImage.getLayer(i);
+			gradient.process(layer,currentDerivX[i],currentDerivY[i]);
+		}
+	}
+
+	/**
+	 * Declares internal data structures
+	 */
+	private void declarePyramid( int imageWidth , int imageHeight ) {
+		int scales[] = selectPyramidScale(imageWidth, imageHeight, minSize);
+		currentImage = FactoryPyramid.discreteGaussian(scales,-1,1,false, ImageType.single(imageType));
+		currentImage.initialize(imageWidth, imageHeight);
+		previousImage = FactoryPyramid.discreteGaussian(scales, -1, 1, false,ImageType.single(imageType));
+		previousImage.initialize(imageWidth, imageHeight);
+
+		int numPyramidLayers = currentImage.getNumLayers();
+
+		previousDerivX = (D[])Array.newInstance(derivType,numPyramidLayers);
+		previousDerivY = (D[])Array.newInstance(derivType,numPyramidLayers);
+		currentDerivX = (D[])Array.newInstance(derivType,numPyramidLayers);
+		currentDerivY = (D[])Array.newInstance(derivType,numPyramidLayers);
+
+		for( int i = 0; i < numPyramidLayers; i++ ) {
+			int w = currentImage.getWidth(i);
+			int h = currentImage.getHeight(i);
+
+			previousDerivX[i] = GeneralizedImageOps.createSingleBand(derivType, w, h);
+			previousDerivY[i] = GeneralizedImageOps.createSingleBand(derivType, w, h);
+			currentDerivX[i] = GeneralizedImageOps.createSingleBand(derivType, w, h);
+			currentDerivY[i] = GeneralizedImageOps.createSingleBand(derivType, w, h);
+		}
+	}
+
+	/**
+	 * Swaps the current and previous so that image derivative doesn't need to be recomputed or copied.
+	 */
+	private void swapImages() {
+		PyramidDiscrete<I> tempP;
+
+		tempP = currentImage;
+		currentImage = previousImage;
+		previousImage = tempP;
+
+		D[] tempD;
+
+		tempD = previousDerivX;
+		previousDerivX = currentDerivX;
+		currentDerivX = tempD;
+
+		tempD = previousDerivY;
+		previousDerivY = currentDerivY;
+		currentDerivY = tempD;
+	}
+
+	/**
+	 * Selects the scale for the image pyramid based on image size and feature size
+	 * @return scales for image pyramid
+	 */
+	public static int[] selectPyramidScale( int imageWidth , int imageHeight, int minSize ) {
+		int w = Math.max(imageWidth,imageHeight);
+
+		int maxScale = w/minSize;
+		int n = 1;
+		int scale = 1;
+		while( scale*2 < maxScale ) {
+			n++;
+			scale *= 2;
+		}
+
+		int ret[] = new int[n];
+		scale = 1;
+		for( int i = 0; i < n; i++ ) {
+			ret[i] = scale;
+			scale *= 2;
+		}
+
+		return ret;
+	}
+
+	public int getNumLayers() {
+		return currentImage == null ? 0 : currentImage.getNumLayers();
+	}
+
+	public PyramidDiscrete<I> getCurrentImage() {
+		return currentImage;
+	}
+
+	public D[] getCurrentDerivX() {
+		return currentDerivX;
+	}
+
+	public D[] getCurrentDerivY() {
+		return currentDerivY;
+	}
+
+	public PyramidDiscrete<I> getPreviousImage() {
+		return previousImage;
+	}
+
+	public D[] getPreviousDerivX() {
+		return previousDerivX;
+	}
+
+	public D[] getPreviousDerivY() {
+		return previousDerivY;
+	}
+
+	public int getMinSize() {
+		return minSize;
+	}
+
+	public Class<I> getImageType() {
+		return imageType;
+	}
+
+	public Class<D> getDerivType() {
+		return derivType;
+	}
+}
@@ -64,6 +64,12 @@ public class ConfigBackgroundGmm extends ConfigBackground {
 	 */
 	public float significantWeight = 0.01f;
 
+	/**
+	 * If true the model is stored using 16-bit integers instead of floats, cutting memory usage in half.
+	 * Segmentation will be slightly different. Only supported by stationary models.
+	 */
+	public boolean compact = false;
+
 	@Override
 	public void checkValidity() {
 		if( learningPeriod <= 0 )
@@ -87,6 +93,7 @@ public class ConfigBackgroundGmm extends ConfigBackground {
 				", maxDistance=" + maxDistance +
 				", numberOfGaussian=" + numberOfGaussian +
 				", significantWeight=" + significantWeight +
+				", compact=" + compact +
 				", unknownValue=" + unknownValue +
 				'}';
 	}
@@ -25,6 +25,7 @@ import boofcv.alg.flow.*;
 import boofcv.alg.interpolate.InterpolatePixelS;
 import boofcv.alg.tracker.klt.PkltConfig;
 import boofcv.alg.tracker.klt.PyramidKltTracker;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.filter.derivative.FactoryDerivative;
 import boofcv.factory.interpolate.FactoryInterpolation;
 import boofcv.factory.tracker.FactoryTrackerAlg;
@@ -74,8 +75,16 @@ public class FactoryDenseOpticalFlow {
 		PyramidDiscrete<I> pyramidA = FactoryPyramid.discreteGaussian(configKlt.pyramidScaling, -1, 2, true, imagetype);
 		PyramidDiscrete<I> pyramidB = FactoryPyramid.discreteGaussian(configKlt.pyramidScaling, -1, 2, true, imagetype);
 
-		PyramidKltTracker<I, D> tracker = FactoryTrackerAlg.kltPyramid(configKlt.config, inputType, derivType);
-		DenseOpticalFlowKlt<I, D> flowKlt = new DenseOpticalFlowKlt<>(tracker, numLayers, radius);
+		DenseOpticalFlowKlt<I, D> flowKlt;
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			PkltConfig _configKlt = configKlt;
+			Class<D> _derivType = derivType;
+			flowKlt = new DenseOpticalFlowKlt_MT<>(
+					()->FactoryTrackerAlg.kltPyramid(_configKlt.config, inputType, _derivType), numLayers, radius);
+		} else {
+			PyramidKltTracker<I, D> tracker = FactoryTrackerAlg.kltPyramid(configKlt.config, inputType, derivType);
+			flowKlt = new DenseOpticalFlowKlt<>(tracker, numLayers, radius);
+		}
 		ImageGradient<I, D> gradient = FactoryDerivative.sobel(inputType,derivType);
 
 		return new FlowKlt_to_DenseOpticalFlow<>(flowKlt, gradient, pyramidA, pyramidB, inputType, derivType);
@@ -98,7 +107,10 @@ public class FactoryDenseOpticalFlow {
 			config = new ConfigOpticalFlowBlockPyramid();
 
 		DenseOpticalFlowBlockPyramid<T> alg;
-		if( imageType == GrayU8.class )
+		if( BoofConcurrency.USE_CONCURRENT )
+			alg = new DenseOpticalFlowBlockPyramid_MT<>(
+					config.searchRadius,config.regionRadius,config.maxPerPixelError,imageType);
+		else if( imageType == GrayU8.class )
 			alg = (DenseOpticalFlowBlockPyramid)new DenseOpticalFlowBlockPyramid.U8(
 					config.searchRadius,config.regionRadius,config.maxPerPixelError);
 		else if( imageType == GrayF32.class )
@@ -126,12 +138,17 @@ public class FactoryDenseOpticalFlow {
 			config = new ConfigHornSchunck();
 
 		HornSchunck<T,D> alg;
-		if( imageType == GrayU8.class )
-			alg = (HornSchunck)new HornSchunck_U8(config.alpha,config.numIterations);
-		else
-		if( imageType == GrayF32.class )
-			alg = (HornSchunck)new HornSchunck_F32(config.alpha,config.numIterations);
-		else
+		if( imageType == GrayU8.class ) {
+			if( BoofConcurrency.USE_CONCURRENT )
+				alg = (HornSchunck)new HornSchunck_U8_MT(config.alpha,config.numIterations);
+			else
+				alg = (HornSchunck)new HornSchunck_U8(config.alpha,config.numIterations);
+		} else if( imageType == GrayF32.class ) {
+			if( BoofConcurrency.USE_CONCURRENT )
+				alg = (HornSchunck)new HornSchunck_F32_MT(config.alpha,config.numIterations);
+			else
+				alg = (HornSchunck)new HornSchunck_F32(config.alpha,config.numIterations);
+		} else
 			throw new IllegalArgumentException("Unsupported image type "+imageType);
 
 		return new HornSchunck_to_DenseOpticalFlow<>(alg, ImageType.single(imageType));
@@ -154,7 +171,9 @@ public class FactoryDenseOpticalFlow {
 		InterpolatePixelS<GrayF32> interpolate =
 				FactoryInterpolation.createPixelS(0,255,config.interpolation, BorderType.EXTENDED, GrayF32.class);
 
-		HornSchunckPyramid<T> alg = new HornSchunckPyramid<>(config, interpolate);
+		HornSchunckPyramid<T> alg = BoofConcurrency.USE_CONCURRENT ?
+				new HornSchunckPyramid_MT<>(config, interpolate) :
+				new HornSchunckPyramid<>(config, interpolate);
 
 		return new HornSchunckPyramid_to_DenseOpticalFlow<>(alg, imageType);
 	}
@@ -168,7 +187,9 @@ public class FactoryDenseOpticalFlow {
 		InterpolatePixelS<GrayF32> interpolate =
 				FactoryInterpolation.createPixelS(0,255,config.interpolation, BorderType.EXTENDED, GrayF32.class);
 
-		BroxWarpingSpacial<T> alg = new BroxWarpingSpacial<>(config, interpolate);
+		BroxWarpingSpacial<T> alg = BoofConcurrency.USE_CONCURRENT ?
+				new BroxWarpingSpacial_MT<>(config, interpolate) :
+				new BroxWarpingSpacial<>(config, interpolate);
 
 		return new BroxWarpingSpacial_to_DenseOpticalFlow<>(alg, imageType);
 	}
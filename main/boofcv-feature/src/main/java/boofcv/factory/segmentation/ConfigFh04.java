@@ -45,6 +45,13 @@ public class ConfigFh04 {
 	 */
 	public int approximateSortBins = 0;
 
+	/**
+	 * Only used by the concurrent implementation. The image is segmented in horizontal bands with this many rows
+	 * which are then stitched together. Taller bands are closer to the single threaded solution but have less
+	 * parallelism.
+	 */
+	public int bandHeight = 128;
+
 	public ConfigFh04() {
 	}
 
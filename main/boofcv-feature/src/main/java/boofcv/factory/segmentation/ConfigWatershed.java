@@ -37,6 +37,18 @@ public class ConfigWatershed {
 	 */
 	public int minimumRegionSize = 45;
 
+	/**
+	 * Number of pixels along each side of a tile when the image is segmented concurrently. Memory used by
+	 * watershed is bounded by the tile size.
+	 */
+	public int tileSize = 512;
+
+	/**
+	 * Number of pixels each tile is expanded by along each side. Larger values reduce the differences along
+	 * tile seams from the single threaded solution. Must be &ge; 1.
+	 */
+	public int tileOverlap = 32;
+
 	public ConfigWatershed() {
 	}
 
@@ -23,6 +23,8 @@ import boofcv.alg.segmentation.fh04.SegmentFelzenszwalbHuttenlocher04;
 import boofcv.alg.segmentation.ms.SegmentMeanShift;
 import boofcv.alg.segmentation.slic.SegmentSlic;
 import boofcv.alg.segmentation.watershed.WatershedVincentSoille1991;
+import boofcv.alg.segmentation.watershed.WatershedVincentSoille1991_MT;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.struct.image.ImageBase;
 import boofcv.struct.image.ImageType;
 
@@ -99,7 +101,8 @@ public class FactoryImageSegmentation {
 	 * Creates an instance of {@link WatershedVincentSoille1991}.  Watershed works better when initial seeds
 	 * are provided.  In this adaptation of watershed to {@link boofcv.abst.segmentation.ImageSuperpixels} only the more basic algorithm
 	 * is used where each local minima is a region, which causes over segmentation.  Watershed also only can process
-	 * gray scale U8 images.  All other image types are converted into that format.
+	 * gray scale U8 images.  All other image types are converted into that format.  When concurrency is
+	 * turned on the image is segmented in tiles using {@link WatershedVincentSoille1991_MT}.
 	 *
 	 * @see WatershedVincentSoille1991
 	 *
@@ -113,9 +116,14 @@ public class FactoryImageSegmentation {
 		if( config == null )
 			config = new ConfigWatershed();
 
-		WatershedVincentSoille1991 watershed = FactorySegmentationAlg.watershed(config.connectRule);
-
-		Watershed_to_ImageSuperpixels ret = new Watershed_to_ImageSuperpixels<>(watershed, config.minimumRegionSize, config.connectRule);
+		Watershed_to_ImageSuperpixels ret;
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			WatershedVincentSoille1991_MT watershed = FactorySegmentationAlg.watershedTiled(config);
+			ret = new Watershed_to_ImageSuperpixels<>(watershed, config.minimumRegionSize, config.connectRule);
+		} else {
+			WatershedVincentSoille1991 watershed = FactorySegmentationAlg.watershed(config.connectRule);
+			ret = new Watershed_to_ImageSuperpixels<>(watershed, config.minimumRegionSize, config.connectRule);
+		}
 		ret.setImageType(imageType);
 		return ret;
 	}
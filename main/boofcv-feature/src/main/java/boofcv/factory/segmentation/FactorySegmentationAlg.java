@@ -22,12 +22,16 @@ import boofcv.alg.interpolate.InterpolatePixelMB;
 import boofcv.alg.interpolate.InterpolatePixelS;
 import boofcv.alg.interpolate.InterpolationType;
 import boofcv.alg.segmentation.ComputeRegionMeanColor;
+import boofcv.alg.segmentation.ComputeRegionMeanColor_MT;
 import boofcv.alg.segmentation.fh04.FhEdgeWeights;
 import boofcv.alg.segmentation.fh04.SegmentFelzenszwalbHuttenlocher04;
+import boofcv.alg.segmentation.fh04.SegmentFelzenszwalbHuttenlocher04_MT;
 import boofcv.alg.segmentation.fh04.impl.*;
 import boofcv.alg.segmentation.ms.*;
 import boofcv.alg.segmentation.slic.*;
 import boofcv.alg.segmentation.watershed.WatershedVincentSoille1991;
+import boofcv.alg.segmentation.watershed.WatershedVincentSoille1991_MT;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.interpolate.FactoryInterpolation;
 import boofcv.struct.ConnectRule;
 import boofcv.struct.border.BorderType;
@@ -52,24 +56,27 @@ public class FactorySegmentationAlg {
 	 */
 	public static <T extends ImageBase<T>>
 	ComputeRegionMeanColor<T> regionMeanColor(ImageType<T> imageType) {
+		ComputeRegionMeanColor alg = null;
 		if( imageType.getFamily() == ImageType.Family.GRAY) {
 			switch( imageType.getDataType() ) {
-				case U8:
-					return (ComputeRegionMeanColor)new ComputeRegionMeanColor.U8();
-				case F32:
-					return (ComputeRegionMeanColor)new ComputeRegionMeanColor.F32();
+				case U8: alg = new ComputeRegionMeanColor.U8(); break;
+				case F32: alg = new ComputeRegionMeanColor.F32(); break;
 			}
 		} else if( imageType.getFamily() == ImageType.Family.PLANAR) {
 			int N = imageType.getNumBands();
 			switch( imageType.getDataType() ) {
-				case U8:
-					return (ComputeRegionMeanColor)new ComputeRegionMeanColor.PL_U8(N);
-				case F32:
-					return (ComputeRegionMeanColor)new ComputeRegionMeanColor.PL_F32(N);
+				case U8: alg = new ComputeRegionMeanColor.PL_U8(N); break;
+				case F32: alg = new ComputeRegionMeanColor.PL_F32(N); break;
 			}
 		}
 
-		throw new IllegalArgumentException("Unknown imageType");
+		if( alg == null )
+			throw new IllegalArgumentException("Unknown imageType");
+
+		if( BoofConcurrency.USE_CONCURRENT )
+			return new ComputeRegionMeanColor_MT<>(alg);
+		else
+			return alg;
 	}
 
 	/**
@@ -96,13 +103,21 @@ public class FactorySegmentationAlg {
 
 		if( imageType.getFamily() == ImageType.Family.GRAY) {
 			InterpolatePixelS interp = FactoryInterpolation.bilinearPixelS(imageType.getImageClass(), BorderType.EXTENDED);
-			search = new SegmentMeanShiftSearchGray(maxIterations,convergenceTol,interp,
-					spacialRadius,spacialRadius,colorRadius,config.fast);
+			if( BoofConcurrency.USE_CONCURRENT )
+				search = new SegmentMeanShiftSearchGray_MT(maxIterations,convergenceTol,interp,
+						spacialRadius,spacialRadius,colorRadius,config.fast);
+			else
+				search = new SegmentMeanShiftSearchGray(maxIterations,convergenceTol,interp,
+						spacialRadius,spacialRadius,colorRadius,config.fast);
 		} else {
 			InterpolatePixelMB interp = FactoryInterpolation.createPixelMB(0,255,
 					InterpolationType.BILINEAR, BorderType.EXTENDED,(ImageType)imageType);
-			search = new SegmentMeanShiftSearchColor(maxIterations,convergenceTol,interp,
-					spacialRadius,spacialRadius,colorRadius,config.fast,imageType);
+			if( BoofConcurrency.USE_CONCURRENT )
+				search = new SegmentMeanShiftSearchColor_MT(maxIterations,convergenceTol,interp,
+						spacialRadius,spacialRadius,colorRadius,config.fast,imageType);
+			else
+				search = new SegmentMeanShiftSearchColor(maxIterations,convergenceTol,interp,
+						spacialRadius,spacialRadius,colorRadius,config.fast,imageType);
 		}
 
 		ComputeRegionMeanColor<T> regionColor = regionMeanColor(imageType);
@@ -161,10 +176,15 @@ public class FactorySegmentationAlg {
 		if( config == null )
 			config = new ConfigFh04();
 
-		FhEdgeWeights<T> edgeWeights = weightsFelzenszwalb04(config.connectRule,imageType);
+		ConnectRule rule = config.connectRule;
 
-		SegmentFelzenszwalbHuttenlocher04<T> alg =
-				new SegmentFelzenszwalbHuttenlocher04<>(config.K, config.minimumRegionSize, edgeWeights);
+		SegmentFelzenszwalbHuttenlocher04<T> alg;
+		if( BoofConcurrency.USE_CONCURRENT )
+			alg = new SegmentFelzenszwalbHuttenlocher04_MT<>(config.K, config.minimumRegionSize,
+					()->weightsFelzenszwalb04(rule,imageType), config.bandHeight);
+		else
+			alg = new SegmentFelzenszwalbHuttenlocher04<>(config.K, config.minimumRegionSize,
+					weightsFelzenszwalb04(rule,imageType));
 
 		if( config.approximateSortBins > 0 ) {
 			alg.configureApproximateSort(config.approximateSortBins);
@@ -182,21 +202,37 @@ public class FactorySegmentationAlg {
 		if( imageType.getFamily() == ImageType.Family.GRAY) {
 				switch( imageType.getDataType() ) {
 					case U8:
-						return (SegmentSlic)new SegmentSlic_U8(config.numberOfRegions,
-								config.spacialWeight,config.totalIterations,config.connectRule);
+						if( BoofConcurrency.USE_CONCURRENT )
+							return (SegmentSlic)new SegmentSlic_U8_MT(config.numberOfRegions,
+									config.spacialWeight,config.totalIterations,config.connectRule);
+						else
+							return (SegmentSlic)new SegmentSlic_U8(config.numberOfRegions,
+									config.spacialWeight,config.totalIterations,config.connectRule);
 					case F32:
-						return (SegmentSlic)new SegmentSlic_F32(config.numberOfRegions,
-								config.spacialWeight,config.totalIterations,config.connectRule);
+						if( BoofConcurrency.USE_CONCURRENT )
+							return (SegmentSlic)new SegmentSlic_F32_MT(config.numberOfRegions,
+									config.spacialWeight,config.totalIterations,config.connectRule);
+						else
+							return (SegmentSlic)new SegmentSlic_F32(config.numberOfRegions,
+									config.spacialWeight,config.totalIterations,config.connectRule);
 				}
 		} else if( imageType.getFamily() == ImageType.Family.PLANAR) {
 			int N = imageType.getNumBands();
 				switch( imageType.getDataType() ) {
 					case U8:
-						return (SegmentSlic)new SegmentSlic_PlU8(config.numberOfRegions,
-								config.spacialWeight,config.totalIterations,config.connectRule,N);
+						if( BoofConcurrency.USE_CONCURRENT )
+							return (SegmentSlic)new SegmentSlic_PlU8_MT(config.numberOfRegions,
+									config.spacialWeight,config.totalIterations,config.connectRule,N);
+						else
+							return (SegmentSlic)new SegmentSlic_PlU8(config.numberOfRegions,
+									config.spacialWeight,config.totalIterations,config.connectRule,N);
 					case F32:
-						return (SegmentSlic)new SegmentSlic_PlF32(config.numberOfRegions,
-								config.spacialWeight,config.totalIterations,config.connectRule,N);
+						if( BoofConcurrency.USE_CONCURRENT )
+							return (SegmentSlic)new SegmentSlic_PlF32_MT(config.numberOfRegions,
+									config.spacialWeight,config.totalIterations,config.connectRule,N);
+						else
+							return (SegmentSlic)new SegmentSlic_PlF32(config.numberOfRegions,
+									config.spacialWeight,config.totalIterations,config.connectRule,N);
 				}
 		}
 		throw new IllegalArgumentException("Unknown imageType or connect rule");
@@ -210,4 +246,15 @@ public class FactorySegmentationAlg {
 		else
 			throw new IllegalArgumentException("Unknown connectivity rule");
 	}
+
+	/**
+	 * Creates a tiled and concurrent watershed where a new region is created at each local minima.
+	 *
+	 * @see WatershedVincentSoille1991_MT
+	 *
+	 * @param config Configuration. Connectivity rule and tile parameters are used.
+	 */
+	public static WatershedVincentSoille1991_MT watershedTiled( ConfigWatershed config ) {
+		return new WatershedVincentSoille1991_MT(config.connectRule,config.tileSize,config.tileOverlap);
+	}
 }
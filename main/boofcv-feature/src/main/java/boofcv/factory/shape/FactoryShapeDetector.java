@@ -25,8 +25,10 @@ import boofcv.alg.shapes.ellipse.BinaryEllipseDetectorPixel;
 import boofcv.alg.shapes.ellipse.EdgeIntensityEllipse;
 import boofcv.alg.shapes.ellipse.SnapToEllipseEdge;
 import boofcv.alg.shapes.polygon.*;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.filter.binary.FactoryBinaryContourFinder;
 import boofcv.struct.image.ImageGray;
+import boofcv.struct.lists.RecycleStack;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -92,13 +94,27 @@ public class FactoryShapeDetector {
 	{
 		config.checkValidity();
 
+		DetectPolygonFromContour<T> detector = polygonContour(config.detector,imageType);
+
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			final ConfigRefinePolygonLineToImage configRefine = config.refineGray;
+			RecycleStack.Factory<RefinePolygonToContour> factoryContour = null;
+			RecycleStack.Factory<RefinePolygonToGray<T>> factoryGray = null;
+			if( config.refineContour )
+				factoryContour = RefinePolygonToContour::new;
+			if( configRefine != null )
+				factoryGray = ()->refinePolygon(configRefine,imageType);
+
+			return new DetectPolygonBinaryGrayRefine_MT<>(detector,factoryContour,factoryGray,
+					config.minimumRefineEdgeIntensity,
+					config.adjustForThresholdBias);
+		}
+
 		RefinePolygonToContour refineContour = config.refineContour ? new RefinePolygonToContour() : null;
 
 		RefinePolygonToGray<T> refineGray = config.refineGray != null ?
 				refinePolygon(config.refineGray,imageType) : null;
 
-		DetectPolygonFromContour<T> detector = polygonContour(config.detector,imageType);
-
 		return new DetectPolygonBinaryGrayRefine<>(detector,refineContour,refineGray,
 				config.minimumRefineEdgeIntensity,
 				config.adjustForThresholdBias);
@@ -109,12 +125,19 @@ public class FactoryShapeDetector {
 	{
 		config.checkValidity();
 
-		PointsToPolyline contourToPolygon =
-				FactoryPointsToPolyline.create(config.contourToPoly);
-
 		BinaryContourFinder contour = FactoryBinaryContourFinder.linearExternal();
 		contour.setConnectRule(config.contourRule);
 
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			return new DetectPolygonFromContour_MT<>(()->FactoryPointsToPolyline.create(config.contourToPoly),
+					config.minimumContour,
+					config.clockwise, config.canTouchBorder,
+					config.minimumEdgeIntensity, config.tangentEdgeIntensity,contour, imageType);
+		}
+
+		PointsToPolyline contourToPolygon =
+				FactoryPointsToPolyline.create(config.contourToPoly);
+
 		return new DetectPolygonFromContour<>(contourToPolygon,
 				config.minimumContour,
 				config.clockwise, config.canTouchBorder,
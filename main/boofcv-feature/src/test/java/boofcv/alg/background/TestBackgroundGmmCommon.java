@@ -18,6 +18,8 @@
 
 package boofcv.alg.background;
 
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayS16;
 import boofcv.struct.image.GrayU8;
 import boofcv.struct.image.ImageType;
 import org.junit.jupiter.api.Test;
@@ -203,4 +205,137 @@ public class TestBackgroundGmmCommon {
 		data[startIndex+3*3+0] = 1e-7f;
 		assertEquals(1,alg.checkBackground(30,data,startIndex));
 	}
+
+	/**
+	 * Same as {@link #createTwoModels()} but using the compact model
+	 */
+	@Test
+	public void createTwoModels_compact() {
+		int maxGaussians = 2;
+
+		BackgroundGmmCommon alg = new BackgroundGmmCommon(1000,0.0f,maxGaussians,imageType);
+		alg.setSignificantWeight(1e-4f);
+		alg.setMaxDistance(5);
+		alg.setInitialVariance(12);
+
+		int startIndex = 24;
+		short data[] = new short[50];
+
+		float stdev = 10f;
+		float variance = stdev*stdev;
+
+		for (int i = 0; i < 100000; i++) {
+			float pixelValue = i%2==0?10 : 100;
+
+			float adjusted = pixelValue + (float)(rand.nextGaussian()*stdev);
+			if( Math.abs(pixelValue-adjusted) > 3*stdev ) {
+				adjusted = pixelValue;
+			}
+			alg.updateMixture(alg.toCompact(adjusted),data,startIndex);
+		}
+		int ng = 0;
+		for( ;ng <maxGaussians; ng++ ) {
+			if( 0 == data[startIndex+ng*3+1])
+				break;
+		}
+
+		// there should be just two pixtures
+		assertEquals(2,ng);
+
+		float scaleSq = alg.meanScale*alg.meanScale;
+		float weight0 = BackgroundGmmCommon.decodeWeight(data[startIndex]);
+		float weight1 = BackgroundGmmCommon.decodeWeight(data[startIndex+3]);
+		float variance0 = BackgroundGmmCommon.decodeVariance(data[startIndex+1])/scaleSq;
+		float variance1 = BackgroundGmmCommon.decodeVariance(data[startIndex+3+1])/scaleSq;
+		float mean0 = (data[startIndex+2]&0xFFFF)/alg.meanScale;
+		float mean1 = (data[startIndex+3+2]&0xFFFF)/alg.meanScale;
+
+		assertEquals(10,mean0,0.5);
+		assertEquals(100,mean1,0.5);
+
+		assertEquals(0.5f,weight0,0.2);
+		assertEquals(0.5f,weight1,0.2);
+
+		float varianceTol = variance/4;
+		assertEquals(variance,variance0,varianceTol);
+		assertEquals(variance,variance1,varianceTol);
+	}
+
+	/**
+	 * Feed the same sequence into the float and compact model and see if they produce the same decision
+	 */
+	@Test
+	public void updateMixture_compact() {
+		int maxGaussians = 5;
+
+		ImageType imageType = ImageType.pl(3,GrayU8.class);
+		BackgroundGmmCommon alg = new BackgroundGmmCommon(100,0.001f,maxGaussians,imageType);
+		alg.unknownValue = 5;
+
+		int startIndex = 24;
+		float data[] = new float[startIndex+maxGaussians*5];
+		short dataQ[] = new short[data.length];
+
+		float[] pixel = new float[3];
+		float[] pixelQ = new float[3];
+
+		int different = 0;
+		for (int i = 0; i < 1000; i++) {
+			float mean = i%7 == 0 ? 200 : 50;
+			for (int band = 0; band < 3; band++) {
+				pixel[band] = pixelQ[band] = mean + (float)rand.nextGaussian()*4;
+			}
+			alg.toCompact(pixelQ);
+
+			int expected = alg.updateMixture(pixel,data,startIndex);
+			int found = alg.updateMixture(pixelQ,dataQ,startIndex);
+			if( expected != found )
+				different++;
+
+			if( alg.checkBackground(pixel,data,startIndex) != alg.checkBackground(pixelQ,dataQ,startIndex) )
+				different++;
+		}
+		assertTrue(different <= 20, "different = "+different);
+
+		// the float model and the compact model should have converged to the same Gaussian
+		assertEquals(data[startIndex+2], (dataQ[startIndex+2]&0xFFFF)/alg.meanScale, 1.0f);
+		assertEquals(data[startIndex], BackgroundGmmCommon.decodeWeight(dataQ[startIndex]), 0.05f);
+	}
+
+	@Test
+	public void encodeDecode() {
+		// weights are rounded down so that they will decay to zero
+		assertEquals(0, BackgroundGmmCommon.encodeWeight(0.9f/65535f));
+		assertEquals((short)0xFFFF, BackgroundGmmCommon.encodeWeight(1.0f));
+		assertEquals(0.25f, BackgroundGmmCommon.decodeWeight(BackgroundGmmCommon.encodeWeight(0.25f)), 1e-4f);
+
+		// means are clamped to the allowed range
+		assertEquals(0, BackgroundGmmCommon.encodeMean(-10));
+		assertEquals((short)0xFFFF, BackgroundGmmCommon.encodeMean(70000));
+		assertEquals(1001, BackgroundGmmCommon.encodeMean(1000.6f));
+
+		// a variance can't be zero since that's used to mark an unused Gaussian
+		assertEquals(1, BackgroundGmmCommon.encodeVariance(0));
+		assertEquals(100f, BackgroundGmmCommon.decodeVariance(BackgroundGmmCommon.encodeVariance(100f)), 1e-4f);
+		assertEquals((short)0xFFFF, BackgroundGmmCommon.encodeVariance(1e12f));
+	}
+
+	/**
+	 * Compact range should be selected using the image's data type
+	 */
+	@Test
+	public void compactRange() {
+		BackgroundGmmCommon alg = new BackgroundGmmCommon(100,0.001f,5,ImageType.single(GrayU8.class));
+		assertEquals(0, alg.minPixelValue, 1e-8f);
+		assertEquals(255, alg.maxPixelValue, 1e-8f);
+
+		alg = new BackgroundGmmCommon(100,0.001f,5,ImageType.single(GrayS16.class));
+		assertEquals(Short.MIN_VALUE, alg.minPixelValue, 1e-8f);
+		assertEquals(Short.MAX_VALUE, alg.maxPixelValue, 1e-8f);
+
+		alg = new BackgroundGmmCommon(100,0.001f,5,ImageType.single(GrayF32.class));
+		assertEquals(0, alg.minPixelValue, 1e-8f);
+		assertEquals(255, alg.maxPixelValue, 1e-8f);
+		assertEquals(100, alg.toCompact(255)/alg.meanScale*100/255f, 1e-3f);
+	}
 }
@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.background;
+
+import boofcv.alg.background.stationary.BackgroundStationaryGaussian_SB;
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.struct.image.GrayU8;
+import boofcv.testing.BoofTesting;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestBackgroundStreamManager {
+
+	Random rand = new Random(234);
+	int width = 40, height = 30;
+
+	/**
+	 * Several streams are processed at once. The output should be the same as processing each one by itself
+	 */
+	@Test
+	void compareToSerial() throws InterruptedException {
+		int numStreams = 3, numFrames = 10;
+
+		List<List<GrayU8>> found = new ArrayList<>();
+		List<List<GrayU8>> inputs = new ArrayList<>();
+		for (int i = 0; i < numStreams; i++) {
+			found.add(new ArrayList<>());
+			inputs.add(new ArrayList<>());
+		}
+
+		BackgroundStreamManager<GrayU8> alg = new BackgroundStreamManager<>(2,2,
+				(streamID, frameIndex, frame, segmented) -> {
+					List<GrayU8> list = found.get(streamID);
+					synchronized (list) {
+						// frames must arrive in order. Out of order frames are detected by the comparison below
+						if( list.size() == frameIndex )
+							list.add(segmented.clone());
+					}
+				});
+
+		for (int i = 0; i < numStreams; i++) {
+			assertEquals(i, alg.addStream(createModel()));
+		}
+
+		GrayU8 frame = new GrayU8(width,height);
+		for (int frameIdx = 0; frameIdx < numFrames; frameIdx++) {
+			for (int streamID = 0; streamID < numStreams; streamID++) {
+				GImageMiscOps.fillUniform(frame,rand,0,200);
+				inputs.get(streamID).add(frame.clone());
+				// the manager should copy the frame so modifying it afterwards is safe
+				alg.process(streamID,frame);
+			}
+		}
+		alg.waitUntilIdle();
+
+		for (int streamID = 0; streamID < numStreams; streamID++) {
+			BackgroundModelStationary<GrayU8> model = createModel();
+			GrayU8 expected = new GrayU8(width,height);
+			assertEquals(numFrames, found.get(streamID).size());
+			for (int frameIdx = 0; frameIdx < numFrames; frameIdx++) {
+				model.updateBackground(inputs.get(streamID).get(frameIdx),expected);
+				BoofTesting.assertEquals(expected,found.get(streamID).get(frameIdx),0);
+			}
+
+			BackgroundStreamManager.StreamMetrics metrics = alg.getMetrics(streamID);
+			assertEquals(numFrames, metrics.framesProcessed);
+			assertEquals(0, metrics.framesDropped);
+			assertTrue(metrics.getAverageLatencyMS() > 0);
+			assertTrue(metrics.maxLatency*1e-6 >= metrics.getAverageLatencyMS());
+			assertTrue(metrics.getThroughputFPS() > 0);
+		}
+
+		alg.shutdown();
+	}
+
+	/**
+	 * When a stream has too many pending frames new ones should be dropped
+	 */
+	@Test
+	void backPressure() throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(1);
+		BackgroundStreamManager<GrayU8> alg = new BackgroundStreamManager<>(1,2,
+				(streamID, frameIndex, frame, segmented) -> {
+					try {
+						latch.await();
+					} catch (InterruptedException e) {
+						throw new RuntimeException(e);
+					}
+				});
+
+		int streamA = alg.addStream(createModel());
+		int streamB = alg.addStream(createModel());
+
+		GrayU8 frame = new GrayU8(width,height);
+		assertTrue(alg.tryProcess(streamA,frame));
+		assertTrue(alg.tryProcess(streamA,frame));
+		assertFalse(alg.tryProcess(streamA,frame));
+		// other streams are not effected
+		assertTrue(alg.tryProcess(streamB,frame));
+		assertEquals(2, alg.getPendingFrames(streamA));
+
+		latch.countDown();
+		alg.waitUntilIdle();
+
+		assertEquals(2, alg.getMetrics(streamA).framesProcessed);
+		assertEquals(1, alg.getMetrics(streamA).framesDropped);
+		assertEquals(1, alg.getMetrics(streamB).framesProcessed);
+		assertEquals(0, alg.getPendingFrames(streamA));
+
+		alg.shutdown();
+	}
+
+	/**
+	 * An exception inside a worker should be passed on to the user
+	 */
+	@Test
+	void failure() throws InterruptedException {
+		BackgroundStreamManager<GrayU8> alg = new BackgroundStreamManager<>(1,2,
+				(streamID, frameIndex, frame, segmented) -> {throw new IllegalStateException("Oh no");});
+
+		int streamID = alg.addStream(createModel());
+		alg.process(streamID,new GrayU8(width,height));
+
+		try {
+			alg.waitUntilIdle();
+			fail("Exception expected");
+		} catch( RuntimeException e ) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+
+		alg.shutdown();
+	}
+
+	/**
+	 * A failure in one stream should only be reported to calls on that stream or waitUntilIdle(). Calls on
+	 * other streams are not effected and the failure is kept until it has been reported.
+	 */
+	@Test
+	void failure_twoStreams() throws InterruptedException {
+		BackgroundStreamManager<GrayU8> alg = new BackgroundStreamManager<>(1,2,
+				(streamID, frameIndex, frame, segmented) -> {
+					if( streamID == 0 )
+						throw new IllegalStateException("Oh no");
+				});
+
+		int streamA = alg.addStream(createModel());
+		int streamB = alg.addStream(createModel());
+		GrayU8 frame = new GrayU8(width,height);
+		alg.process(streamA,frame);
+
+		// wait for stream A to fail. Its pending frames are discarded when it does
+		while( alg.getPendingFrames(streamA) > 0 )
+			Thread.sleep(1);
+
+		// Calls on stream B and read only calls on A should not see the failure
+		alg.process(streamB,frame);
+		assertTrue(alg.tryProcess(streamB,frame));
+		assertEquals(0, alg.getMetrics(streamA).framesProcessed);
+		alg.getMetrics(streamB);
+		alg.getPendingFrames(streamB);
+		assertNotNull(alg.removeStream(streamB));
+
+		// The failure should be reported to the first call on stream A and only once
+		try {
+			alg.process(streamA,frame);
+			fail("Exception expected");
+		} catch( RuntimeException e ) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		alg.waitUntilIdle();
+		alg.shutdown();
+	}
+
+	/**
+	 * Threads blocked inside the manager should be released by shutdown and new work rejected
+	 */
+	@Test
+	void shutdown() throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(1);
+		BackgroundStreamManager<GrayU8> alg = new BackgroundStreamManager<>(1,1,
+				(streamID, frameIndex, frame, segmented) -> {
+					try {
+						latch.await();
+					} catch (InterruptedException ignore) {}
+				});
+
+		int streamID = alg.addStream(createModel());
+		GrayU8 frame = new GrayU8(width,height);
+		alg.process(streamID,frame);
+
+		// this will block since the stream is full
+		Throwable[] found = new Throwable[2];
+		Thread blockedProcess = new Thread(() -> {
+			try {
+				alg.process(streamID,frame);
+			} catch( Throwable e ) {
+				found[0] = e;
+			}
+		});
+		Thread blockedIdle = new Thread(() -> {
+			try {
+				alg.waitUntilIdle();
+			} catch( Throwable e ) {
+				found[1] = e;
+			}
+		});
+		blockedProcess.start();
+		blockedIdle.start();
+		Thread.sleep(50);
+
+		alg.shutdown();
+		blockedProcess.join(2000);
+		blockedIdle.join(2000);
+		latch.countDown();
+
+		assertFalse(blockedProcess.isAlive());
+		assertFalse(blockedIdle.isAlive());
+		assertTrue(found[0] instanceof IllegalStateException);
+		assertTrue(found[1] instanceof IllegalStateException);
+
+		assertEquals(0, alg.getPendingFrames(streamID));
+		assertThrows(IllegalStateException.class, () -> alg.tryProcess(streamID,frame));
+		assertThrows(IllegalStateException.class, () -> alg.process(streamID,frame));
+		assertThrows(IllegalStateException.class, () -> alg.addStream(createModel()));
+		assertThrows(IllegalStateException.class, alg::waitUntilIdle);
+	}
+
+	@Test
+	void removeStream() throws InterruptedException {
+		BackgroundStreamManager<GrayU8> alg = new BackgroundStreamManager<>(1,2,
+				(streamID, frameIndex, frame, segmented) -> {});
+
+		BackgroundModelStationary<GrayU8> model = createModel();
+		int streamID = alg.addStream(model);
+		alg.process(streamID,new GrayU8(width,height));
+
+		assertSame(model, alg.removeStream(streamID));
+		assertThrows(IllegalArgumentException.class, () -> alg.getMetrics(streamID));
+
+		alg.shutdown();
+	}
+
+	private BackgroundModelStationary<GrayU8> createModel() {
+		return new BackgroundStationaryGaussian_SB<>(0.05f, 10f, GrayU8.class);
+	}
+}
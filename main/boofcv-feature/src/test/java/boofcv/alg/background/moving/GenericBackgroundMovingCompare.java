@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.background.moving;
+
+import boofcv.alg.background.BackgroundModelMoving;
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.image.ImageType;
+import boofcv.testing.BoofTesting;
+import georegression.struct.homography.Homography2D_F32;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares two implementations of the same moving background model to see if they produce identical results
+ *
+ * @author Peter Abeles
+ */
+public abstract class GenericBackgroundMovingCompare {
+
+	protected Random rand = new Random(234);
+	protected int width = 100, height = 110;
+
+	protected List<ImageType> imageTypes = new ArrayList<>();
+
+	/**
+	 * Creates the implementation being tested
+	 */
+	public abstract <T extends ImageBase<T>>
+	BackgroundModelMoving<T,Homography2D_F32> createTest( ImageType<T> imageType );
+
+	/**
+	 * Creates the implementation which it is being tested against
+	 */
+	public abstract <T extends ImageBase<T>>
+	BackgroundModelMoving<T,Homography2D_F32> createValidation( ImageType<T> imageType );
+
+	@Test
+	public void compare() {
+		for( ImageType type : imageTypes ) {
+			compare(type);
+		}
+	}
+
+	private <T extends ImageBase<T>> void compare( ImageType<T> imageType ) {
+		BackgroundModelMoving<T,Homography2D_F32> test = createTest(imageType);
+		BackgroundModelMoving<T,Homography2D_F32> validation = createValidation(imageType);
+
+		Homography2D_F32 homeToWorld = new Homography2D_F32(1,0,width/2,0,1,height/2,0,0,1);
+		test.initialize(width*2,height*2,homeToWorld);
+		validation.initialize(width*2,height*2,homeToWorld);
+
+		T frame = imageType.createImage(width,height);
+
+		GrayU8 expected = new GrayU8(width,height);
+		GrayU8 found = new GrayU8(width,height);
+
+		for (int i = 0; i < 15; i++) {
+			// sub-pixel motion so that interpolation is exercised
+			Homography2D_F32 homeToCurrent = new Homography2D_F32();
+			homeToCurrent.a13 = rand.nextFloat()*10 - 5f;
+			homeToCurrent.a23 = rand.nextFloat()*10 - 5f;
+
+			GImageMiscOps.fillUniform(frame, rand, 0, 200);
+			// an object moving through the scene
+			GImageMiscOps.fillRectangle(frame, 250, 5*i, 20, 15, 30);
+
+			validation.updateBackground(homeToCurrent, frame);
+			test.updateBackground(homeToCurrent, frame);
+
+			validation.segment(homeToCurrent,frame,expected);
+			test.segment(homeToCurrent,frame,found);
+
+			BoofTesting.assertEquals(expected,found,0);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.background.stationary;
+
+import boofcv.alg.background.BackgroundModelStationary;
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.image.ImageType;
+import boofcv.testing.BoofTesting;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares two implementations of the same stationary background model to see if they produce identical results
+ *
+ * @author Peter Abeles
+ */
+public abstract class GenericBackgroundStationaryCompare {
+
+	protected Random rand = new Random(234);
+	protected int width = 100, height = 110;
+
+	protected List<ImageType> imageTypes = new ArrayList<>();
+
+	/**
+	 * Creates the implementation being tested
+	 */
+	public abstract <T extends ImageBase<T>>
+	BackgroundModelStationary<T> createTest( ImageType<T> imageType );
+
+	/**
+	 * Creates the implementation which it is being tested against
+	 */
+	public abstract <T extends ImageBase<T>>
+	BackgroundModelStationary<T> createValidation( ImageType<T> imageType );
+
+	@Test
+	public void compare() {
+		for( ImageType type : imageTypes ) {
+			compare(type);
+		}
+	}
+
+	private <T extends ImageBase<T>> void compare( ImageType<T> imageType ) {
+		BackgroundModelStationary<T> test = createTest(imageType);
+		BackgroundModelStationary<T> validation = createValidation(imageType);
+
+		T background = imageType.createImage(width,height);
+		T frame = imageType.createImage(width,height);
+		GImageMiscOps.fillUniform(background, rand, 0, 200);
+
+		GrayU8 expected = new GrayU8(width,height);
+		GrayU8 found = new GrayU8(width,height);
+
+		for (int i = 0; i < 15; i++) {
+			frame.setTo(background);
+			GImageMiscOps.addUniform(frame, rand, -5, 5);
+			// an object moving through the scene
+			GImageMiscOps.fillRectangle(frame, 250, 5*i, 20, 15, 30);
+
+			validation.updateBackground(frame);
+			test.updateBackground(frame);
+
+			validation.segment(frame,expected);
+			test.segment(frame,found);
+
+			BoofTesting.assertEquals(expected,found,0);
+		}
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.background.stationary;
+
+import boofcv.alg.background.BackgroundModelStationary;
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.image.ImageType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the standard checks against a GMM model which uses compact storage and compares its
+ * segmentation against the float model.
+ *
+ * @author Peter Abeles
+ */
+public abstract class GenericBackgroundStationaryGmmCompactChecks extends GenericBackgroundModelStationaryChecks {
+
+	/**
+	 * Creates a GMM model using float storage
+	 */
+	public abstract<T extends ImageBase<T>>
+	BackgroundStationaryGmm<T> createGmm( ImageType<T> imageType );
+
+	@Override
+	public <T extends ImageBase<T>> BackgroundModelStationary<T> create(ImageType<T> imageType) {
+		BackgroundStationaryGmm<T> alg = createGmm(imageType);
+		alg.setCompact(true);
+		return alg;
+	}
+
+	/**
+	 * Process a noisy sequence with a moving object in it. The two should produce almost identical results
+	 */
+	@Test
+	public void compareToFloat() {
+		for( ImageType type : imageTypes ) {
+			compareToFloat(type);
+		}
+	}
+
+	private <T extends ImageBase<T>> void compareToFloat( ImageType<T> imageType ) {
+		BackgroundStationaryGmm<T> expected = createGmm(imageType);
+		BackgroundStationaryGmm<T> found = createGmm(imageType);
+		found.setCompact(true);
+
+		T background = imageType.createImage(width,height);
+		T frame = imageType.createImage(width,height);
+		GImageMiscOps.fillUniform(background, rand, 0, 200);
+
+		GrayU8 segExpected = new GrayU8(width,height);
+		GrayU8 segFound = new GrayU8(width,height);
+
+		int total = 0, different = 0;
+		for (int i = 0; i < 100; i++) {
+			frame.setTo(background);
+			GImageMiscOps.addUniform(frame, rand, -5, 5);
+			GImageMiscOps.fillRectangle(frame, 230, i%(width-10), 10, 10, 15);
+
+			expected.updateBackground(frame);
+			found.updateBackground(frame);
+			expected.segment(frame, segExpected);
+			found.segment(frame, segFound);
+
+			for (int j = 0; j < segExpected.data.length; j++) {
+				if( segExpected.data[j] != segFound.data[j] )
+					different++;
+			}
+			total += segExpected.data.length;
+		}
+
+		// See BackgroundGmmCommon for the documented tolerance
+		assertTrue(different <= total*0.01, "different = "+different);
+	}
+}
@@ -20,6 +20,7 @@ package boofcv.alg.background.stationary;
 
 import boofcv.alg.background.BackgroundModelStationary;
 import boofcv.struct.image.*;
+import org.junit.jupiter.api.Nested;
 
 /**
  * @author Peter Abeles
@@ -37,4 +38,16 @@ public class TestBackgroundStationaryGmm_MB extends GenericBackgroundModelStatio
 	public <T extends ImageBase<T>> BackgroundModelStationary<T> create(ImageType<T> imageType) {
 		return new BackgroundStationaryGmm_MB(1000.0f,0.001f,10,imageType);
 	}
-}
\ No newline at end of file
+
+	@Nested
+	class Compact extends GenericBackgroundStationaryGmmCompactChecks {
+		Compact() {
+			imageTypes.addAll(TestBackgroundStationaryGmm_MB.this.imageTypes);
+		}
+
+		@Override
+		public <T extends ImageBase<T>> BackgroundStationaryGmm<T> createGmm(ImageType<T> imageType) {
+			return new BackgroundStationaryGmm_MB(1000.0f,0.001f,10,imageType);
+		}
+	}
+}
@@ -23,6 +23,7 @@ import boofcv.struct.image.GrayF32;
 import boofcv.struct.image.GrayU8;
 import boofcv.struct.image.ImageBase;
 import boofcv.struct.image.ImageType;
+import org.junit.jupiter.api.Nested;
 
 /**
  * @author Peter Abeles
@@ -40,4 +41,16 @@ public class TestBackgroundStationaryGmm_SB extends GenericBackgroundModelStatio
 	public <T extends ImageBase<T>> BackgroundModelStationary<T> create(ImageType<T> imageType) {
 		return new BackgroundStationaryGmm_SB(1000.0f,0.001f,10,imageType);
 	}
-}
\ No newline at end of file
+
+	@Nested
+	class Compact extends GenericBackgroundStationaryGmmCompactChecks {
+		Compact() {
+			imageTypes.addAll(TestBackgroundStationaryGmm_SB.this.imageTypes);
+		}
+
+		@Override
+		public <T extends ImageBase<T>> BackgroundStationaryGmm<T> createGmm(ImageType<T> imageType) {
+			return new BackgroundStationaryGmm_SB(1000.0f,0.001f,10,imageType);
+		}
+	}
+}
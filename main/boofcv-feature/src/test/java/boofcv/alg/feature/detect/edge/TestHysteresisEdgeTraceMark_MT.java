@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.feature.detect.edge;
+
+import boofcv.alg.filter.blur.BlurImageOps;
+import boofcv.alg.filter.derivative.GradientSobel;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.alg.misc.ImageStatistics;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayS8;
+import boofcv.struct.image.GrayU8;
+import boofcv.testing.BoofTesting;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestHysteresisEdgeTraceMark_MT extends CommonHysteresisEdgeTrace {
+
+	Random rand = new Random(234);
+
+	@Test
+	public void test0() {
+		for( int bandHeight = 1; bandHeight <= 6; bandHeight++ )
+			standardTest(0,bandHeight);
+	}
+
+	@Test
+	public void test1() {
+		for( int bandHeight = 1; bandHeight <= 6; bandHeight++ )
+			standardTest(1,bandHeight);
+	}
+
+	@Test
+	public void test2() {
+		GrayS8 dir = direction(2);
+		GrayU8 out = new GrayU8(dir.width,dir.height);
+
+		HysteresisEdgeTraceMark_MT alg = new HysteresisEdgeTraceMark_MT(1);
+
+		alg.process(intensity(2),dir,3,5,out);
+		assertEquals(3, ImageStatistics.sum(out));
+
+		alg.process(intensity(2),dir,2,5,out);
+		assertEquals(4, ImageStatistics.sum(out));
+	}
+
+	@Test
+	public void test3() {
+		for( int bandHeight = 1; bandHeight <= 6; bandHeight++ )
+			standardTest(3,bandHeight);
+	}
+
+	/**
+	 * When there's a single band the results should be identical to the single threaded code
+	 */
+	@Test
+	public void singleBand_compareToSingleThread() {
+		GrayF32 intensity = new GrayF32(1,1);
+		GrayS8 direction = new GrayS8(1,1);
+		createEdges(120,90,intensity,direction);
+
+		GrayU8 expected = new GrayU8(intensity.width,intensity.height);
+		GrayU8 found = new GrayU8(intensity.width,intensity.height);
+
+		new HysteresisEdgeTraceMark().process(intensity.clone(),direction,2,6,expected);
+		new HysteresisEdgeTraceMark_MT(intensity.height).process(intensity.clone(),direction,2,6,found);
+
+		BoofTesting.assertEquals(expected,found,0);
+	}
+
+	/**
+	 * Traces which cross bands should be continued. Only a small number of pixels should be different
+	 * from the single threaded code.
+	 */
+	@Test
+	public void manyBands_compareToSingleThread() {
+		GrayF32 intensity = new GrayF32(1,1);
+		GrayS8 direction = new GrayS8(1,1);
+		createEdges(120,90,intensity,direction);
+
+		GrayU8 expected = new GrayU8(intensity.width,intensity.height);
+		GrayU8 found = new GrayU8(intensity.width,intensity.height);
+
+		new HysteresisEdgeTraceMark().process(intensity.clone(),direction,2,6,expected);
+		new HysteresisEdgeTraceMark_MT(7).process(intensity.clone(),direction,2,6,found);
+
+		int total = 0, different = 0;
+		for( int y = 0; y < expected.height; y++ ) {
+			for( int x = 0; x < expected.width; x++ ) {
+				if( expected.get(x,y) != 0 )
+					total++;
+				if( expected.get(x,y) != found.get(x,y) ) {
+					different++;
+				}
+				// every marked pixel must be above the lower threshold
+				if( found.get(x,y) != 0 )
+					assertTrue(intensity.get(x,y) >= 2);
+				// every pixel above the upper threshold must be marked
+				if( intensity.get(x,y) >= 6 )
+					assertEquals(1,found.get(x,y));
+			}
+		}
+		assertTrue(total > 100);
+		assertTrue(different <= total*0.02, different+" "+total);
+	}
+
+	private void standardTest( int which , int bandHeight ) {
+		GrayF32 inten = intensity(which);
+		GrayS8 dir = direction(which);
+		GrayU8 out = new GrayU8(inten.width,inten.height);
+
+		HysteresisEdgeTraceMark_MT alg = new HysteresisEdgeTraceMark_MT(bandHeight);
+
+		alg.process(inten,dir,2,5,out);
+
+		BoofTesting.assertEquals(expected(which),out,0);
+	}
+
+	/**
+	 * Creates the intensity and direction images after non-maximum suppression for an image with random shapes
+	 */
+	private void createEdges( int width , int height , GrayF32 suppressed , GrayS8 direction ) {
+		GrayF32 input = new GrayF32(width,height);
+		for( int i = 0; i < 20; i++ ) {
+			int x = rand.nextInt(width-10), y = rand.nextInt(height-10);
+			ImageMiscOps.fillRectangle(input,rand.nextInt(100),x,y,5+rand.nextInt(30),5+rand.nextInt(30));
+		}
+		GrayF32 blurred = BlurImageOps.gaussian(input,null,-1,2,null);
+
+		GrayF32 derivX = new GrayF32(width,height);
+		GrayF32 derivY = new GrayF32(width,height);
+		GradientSobel.process(blurred,derivX,derivY,null);
+
+		GrayF32 intensity = new GrayF32(width,height);
+		GrayF32 angle = new GrayF32(width,height);
+		suppressed.reshape(width,height);
+		direction.reshape(width,height);
+		GradientToEdgeFeatures.intensityAbs(derivX,derivY,intensity);
+		GradientToEdgeFeatures.direction(derivX,derivY,angle);
+		GradientToEdgeFeatures.discretizeDirection4(angle,direction);
+		GradientToEdgeFeatures.nonMaxSuppression4(intensity,direction,suppressed);
+	}
+}
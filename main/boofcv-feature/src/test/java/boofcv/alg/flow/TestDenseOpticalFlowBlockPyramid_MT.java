@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.flow;
+
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.core.image.GeneralizedImageOps;
+import boofcv.factory.transform.pyramid.FactoryPyramid;
+import boofcv.struct.flow.ImageFlow;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageGray;
+import boofcv.struct.image.ImageType;
+import boofcv.struct.pyramid.ImagePyramid;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestDenseOpticalFlowBlockPyramid_MT extends ChecksDenseOpticalFlowBlockPyramid<GrayU8> {
+
+	public TestDenseOpticalFlowBlockPyramid_MT() {
+		super(GrayU8.class);
+	}
+
+	@Override
+	public DenseOpticalFlowBlockPyramid<GrayU8> createAlg(int searchRadius, int regionRadius, int maxPerPixelError) {
+		return new DenseOpticalFlowBlockPyramid_MT<>(searchRadius,regionRadius,maxPerPixelError,GrayU8.class);
+	}
+
+	/**
+	 * Results should be identical to the single threaded implementation
+	 */
+	@Test
+	public void compareToSingleThread() {
+		compareToSingleThread(GrayU8.class,
+				new DenseOpticalFlowBlockPyramid.U8(3,2,20),
+				new DenseOpticalFlowBlockPyramid_MT<>(3,2,20,GrayU8.class));
+		compareToSingleThread(GrayF32.class,
+				new DenseOpticalFlowBlockPyramid.F32(3,2,20),
+				new DenseOpticalFlowBlockPyramid_MT<>(3,2,20,GrayF32.class));
+	}
+
+	private <T extends ImageGray<T>> void compareToSingleThread( Class<T> type ,
+																 DenseOpticalFlowBlockPyramid<T> single ,
+																 DenseOpticalFlowBlockPyramid<T> concurrent ) {
+		T image0 = GeneralizedImageOps.createSingleBand(type,40,50);
+		T image1 = GeneralizedImageOps.createSingleBand(type,40,50);
+
+		// add a textured region which is shifted and regions with no texture so there are ambiguities
+		GImageMiscOps.fillUniform(image0,rand,0,200);
+		GImageMiscOps.fillRectangle(image0,50,5,10,10,10);
+		for( int y = 0; y < image0.height; y++ ) {
+			for( int x = 0; x < image0.width; x++ ) {
+				int xx = Math.max(0,x-2);
+				int yy = Math.max(0,y-1);
+				GeneralizedImageOps.set(image1,x,y,GeneralizedImageOps.get(image0,xx,yy));
+			}
+		}
+
+		ImagePyramid<T> pyr0 = FactoryPyramid.discreteGaussian(new int[]{1,2,4},0,2,false, ImageType.single(type));
+		ImagePyramid<T> pyr1 = FactoryPyramid.discreteGaussian(new int[]{1,2,4},0,2,false, ImageType.single(type));
+		pyr0.process(image0);
+		pyr1.process(image1);
+
+		// process twice to make sure the internal work space is handled correctly
+		for (int trial = 0; trial < 2; trial++) {
+			single.process(pyr0,pyr1);
+			concurrent.process(pyr0,pyr1);
+
+			ImageFlow expected = single.getOpticalFlow();
+			ImageFlow found = concurrent.getOpticalFlow();
+
+			for (int i = 0; i < expected.width*expected.height; i++) {
+				assertEquals(expected.data[i].isValid(), found.data[i].isValid());
+				if( expected.data[i].isValid() ) {
+					assertEquals(expected.data[i].x, found.data[i].x);
+					assertEquals(expected.data[i].y, found.data[i].y);
+				}
+			}
+		}
+	}
+}
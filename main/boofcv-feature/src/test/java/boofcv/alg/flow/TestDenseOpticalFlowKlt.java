@@ -68,7 +68,7 @@ public class TestDenseOpticalFlowKlt {
 		prevDerivY = PyramidOps.declareOutput(prev,GrayF32.class);
 	}
 
-	private void processInputImage() {
+	protected void processInputImage() {
 		prev.process(image0);
 		curr.process(image1);
 
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.flow;
+
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.factory.tracker.FactoryTrackerAlg;
+import boofcv.struct.flow.ImageFlow;
+import boofcv.struct.image.GrayF32;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestDenseOpticalFlowKlt_MT extends TestDenseOpticalFlowKlt {
+
+	@Override
+	protected DenseOpticalFlowKlt<GrayF32, GrayF32> createAlg() {
+		return new DenseOpticalFlowKlt_MT<>(
+				()->FactoryTrackerAlg.kltPyramid(config.config, GrayF32.class, GrayF32.class),
+				config.pyramidScaling.length, 3);
+	}
+
+	/**
+	 * Results should be identical to the single threaded implementation
+	 */
+	@Test
+	public void compareToSingleThread() {
+		Random rand = new Random(234);
+		ImageMiscOps.fillUniform(image0,rand,0,200);
+		ImageMiscOps.fillRectangle(image0,20,5,20,10,10);
+		for( int y = 0; y < image0.height; y++ ) {
+			for( int x = 0; x < image0.width; x++ ) {
+				image1.set(x,y,image0.get(Math.max(0,x-1),y));
+			}
+		}
+
+		processInputImage();
+
+		DenseOpticalFlowKlt<GrayF32,GrayF32> single = super.createAlg();
+		DenseOpticalFlowKlt<GrayF32,GrayF32> concurrent = createAlg();
+
+		ImageFlow expected = new ImageFlow(image0.width,image0.height);
+		ImageFlow found = new ImageFlow(image0.width,image0.height);
+
+		single.process(prev,prevDerivX,prevDerivY,curr,expected);
+		concurrent.process(prev,prevDerivX,prevDerivY,curr,found);
+
+		for (int i = 0; i < expected.width*expected.height; i++) {
+			assertEquals(expected.data[i].isValid(), found.data[i].isValid());
+			if( expected.data[i].isValid() ) {
+				assertEquals(expected.data[i].x, found.data[i].x);
+				assertEquals(expected.data[i].y, found.data[i].y);
+			}
+		}
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.segmentation;
+
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.struct.feature.ColorQueue_F32;
+import boofcv.struct.image.*;
+import org.ddogleg.struct.FastQueue;
+import org.ddogleg.struct.GrowQueue_I32;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestComputeRegionMeanColor_MT {
+
+	Random rand = new Random(234);
+	int width = 60, height = 45;
+	int numRegions = 12;
+
+	@Test
+	public void compareToSingleThread() {
+		compareToSingleThread(ImageType.single(GrayU8.class),new ComputeRegionMeanColor.U8());
+		compareToSingleThread(ImageType.single(GrayF32.class),new ComputeRegionMeanColor.F32());
+		compareToSingleThread(ImageType.pl(3,GrayU8.class),new ComputeRegionMeanColor.PL_U8(3));
+		compareToSingleThread(ImageType.pl(3,GrayF32.class),new ComputeRegionMeanColor.PL_F32(3));
+	}
+
+	private <T extends ImageBase<T>>
+	void compareToSingleThread( ImageType<T> imageType , ComputeRegionMeanColor<T> single ) {
+		T image = imageType.createImage(width,height);
+		GImageMiscOps.fillUniform(image,rand,0,200);
+
+		GrayS32 segments = new GrayS32(width,height);
+		ImageMiscOps.fillUniform(segments,rand,0,numRegions);
+
+		GrowQueue_I32 regionMemberCount = new GrowQueue_I32();
+		regionMemberCount.resize(numRegions);
+		ImageSegmentationOps.countRegionPixels(segments,numRegions,regionMemberCount.data);
+
+		FastQueue<float[]> expected = new ColorQueue_F32(imageType.getNumBands());
+		FastQueue<float[]> found = new ColorQueue_F32(imageType.getNumBands());
+		expected.resize(numRegions);
+		found.resize(numRegions);
+
+		ComputeRegionMeanColor_MT<T> alg = new ComputeRegionMeanColor_MT<>(single);
+
+		single.process(image,segments,regionMemberCount,expected);
+		alg.process(image,segments,regionMemberCount,found);
+
+		for( int i = 0; i < numRegions; i++ ) {
+			for( int j = 0; j < imageType.getNumBands(); j++ ) {
+				assertEquals(expected.get(i)[j],found.get(i)[j],1e-3f);
+			}
+		}
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.segmentation;
+
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.struct.image.GrayS32;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestImageSegmentationOps_MT {
+
+	Random rand = new Random(234);
+
+	@Test
+	public void countRegionPixels() {
+		int numRegions = 15;
+		GrayS32 labeled = new GrayS32(70,53);
+		ImageMiscOps.fillUniform(labeled,rand,0,numRegions);
+
+		int[] expected = new int[numRegions];
+		for( int y = 0; y < labeled.height; y++ ) {
+			for( int x = 0; x < labeled.width; x++ ) {
+				expected[labeled.get(x,y)]++;
+			}
+		}
+
+		// fill with garbage to make sure it's cleared
+		int[] found = new int[numRegions+2];
+		for( int i = 0; i < found.length; i++ ) {
+			found[i] = 99;
+		}
+		ImageSegmentationOps_MT.countRegionPixels(labeled,numRegions,found);
+
+		for( int i = 0; i < numRegions; i++ ) {
+			assertEquals(expected[i],found[i]);
+		}
+		assertEquals(99,found[numRegions]);
+	}
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.segmentation.fh04;
+
+import boofcv.alg.filter.blur.BlurImageOps;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.alg.segmentation.fh04.impl.FhEdgeWeights4_PLU8;
+import boofcv.alg.segmentation.fh04.impl.FhEdgeWeights4_U8;
+import boofcv.alg.segmentation.fh04.impl.FhEdgeWeights8_PLU8;
+import boofcv.alg.segmentation.fh04.impl.FhEdgeWeights8_U8;
+import boofcv.struct.image.GrayS32;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.Planar;
+import boofcv.struct.lists.RecycleStack;
+import boofcv.testing.BoofTesting;
+import org.ddogleg.struct.GrowQueue_I32;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestSegmentFelzenszwalbHuttenlocher04_MT {
+
+	Random rand = new Random(234);
+
+	/**
+	 * Test it on a trivial segmentation problem with several bands
+	 */
+	@Test
+	public void process() {
+		GrayU8 image = new GrayU8(20,25);
+		ImageMiscOps.fillRectangle(image,100,0,0,10,25);
+		GrayS32 output = new GrayS32(20,25);
+
+		// normal images
+		process(image, output);
+
+		// sub-images
+		process(BoofTesting.createSubImageOf(image), output);
+	}
+
+	private void process(GrayU8 image, GrayS32 output) {
+		ImageMiscOps.fillUniform(output,rand,0,100);
+
+		SegmentFelzenszwalbHuttenlocher04<GrayU8> alg =
+				new SegmentFelzenszwalbHuttenlocher04_MT<>(200,10,FhEdgeWeights4_U8::new,7);
+
+		alg.process(image,output);
+
+		int valA = output.get(0,0);
+		int valB = output.get(19,0);
+
+		assertTrue(valA != valB);
+		for( int y = 0; y < 25; y++ ) {
+			for( int x =0; x < 10; x++ )
+				assertEquals(valA, output.get(x, y));
+			for( int x =10; x < 20; x++ )
+				assertEquals(valB,output.get(x,y));
+		}
+
+		assertEquals(2,alg.getRegionId().size);
+		assertEquals(250,alg.getRegionSizes().get(0));
+		assertEquals(250,alg.getRegionSizes().get(1));
+	}
+
+	/**
+	 * When there is only one band the results should be identical to the single threaded code
+	 */
+	@Test
+	public void singleBand_identical() {
+		GrayU8 image = createTextured(60,50);
+
+		SegmentFelzenszwalbHuttenlocher04<GrayU8> single =
+				new SegmentFelzenszwalbHuttenlocher04<>(200,10,new FhEdgeWeights8_U8());
+		SegmentFelzenszwalbHuttenlocher04<GrayU8> concurrent =
+				new SegmentFelzenszwalbHuttenlocher04_MT<>(200,10,FhEdgeWeights8_U8::new,image.height);
+
+		GrayS32 expected = new GrayS32(image.width,image.height);
+		GrayS32 found = new GrayS32(image.width,image.height);
+
+		single.process(image,expected);
+		concurrent.process(image,found);
+
+		BoofTesting.assertEquals(expected,found,0);
+		assertEquals(single.getRegionId().size,concurrent.getRegionId().size);
+		for( int i = 0; i < single.getRegionId().size; i++ ) {
+			assertEquals(single.getRegionId().get(i),concurrent.getRegionId().get(i));
+			assertEquals(single.getRegionSizes().get(i),concurrent.getRegionSizes().get(i));
+		}
+	}
+
+	/**
+	 * Regions are piecewise constant and span several bands. The same regions should be found as with the
+	 * single threaded code
+	 */
+	@Test
+	public void multipleBands_stitched() {
+		GrayU8 image = new GrayU8(60,50);
+		ImageMiscOps.fillRectangle(image,100,5,3,20,30);
+		ImageMiscOps.fillRectangle(image,200,30,10,25,35);
+		ImageMiscOps.fillRectangle(image,50,10,38,15,10);
+
+		for( boolean approximate : new boolean[]{false,true}) {
+			SegmentFelzenszwalbHuttenlocher04<GrayU8> single =
+					new SegmentFelzenszwalbHuttenlocher04<>(200,10,new FhEdgeWeights8_U8());
+			SegmentFelzenszwalbHuttenlocher04<GrayU8> concurrent =
+					new SegmentFelzenszwalbHuttenlocher04_MT<>(200,10,FhEdgeWeights8_U8::new,8);
+			if( approximate ) {
+				single.configureApproximateSort(500);
+				concurrent.configureApproximateSort(500);
+			}
+
+			GrayS32 expected = new GrayS32(image.width,image.height);
+			GrayS32 found = new GrayS32(image.width,image.height);
+
+			single.process(image,expected);
+			concurrent.process(image,found);
+
+			assertEquals(4,concurrent.getRegionId().size);
+			checkSamePartition(expected,found);
+			checkRegionSizes(concurrent,found);
+		}
+	}
+
+	/**
+	 * On a textured image the results will be different, but the output should still be valid
+	 */
+	@Test
+	public void textured_valid() {
+		GrayU8 image = createTextured(70,65);
+
+		SegmentFelzenszwalbHuttenlocher04<GrayU8> alg =
+				new SegmentFelzenszwalbHuttenlocher04_MT<>(200,20,FhEdgeWeights8_U8::new,10);
+
+		GrayS32 found = new GrayS32(image.width,image.height);
+		alg.process(image,found);
+
+		checkRegionSizes(alg,found);
+		GrowQueue_I32 sizes = alg.getRegionSizes();
+		for( int i = 0; i < sizes.size; i++ ) {
+			assertTrue(sizes.get(i) >= 20);
+		}
+	}
+
+	/**
+	 * Planar edge weights have internal state. Every band must have its own instance or the weights of edges
+	 * along the image border will be corrupted when bands are processed in parallel.
+	 */
+	@Test
+	public void planar_multipleBands() {
+		Planar<GrayU8> image = new Planar<>(GrayU8.class,60,50,3);
+		for( int i = 0; i < 3; i++ ) {
+			GrayU8 band = image.getBand(i);
+			ImageMiscOps.fillRectangle(band,40+i*50,5,3,20,30);
+			ImageMiscOps.fillRectangle(band,200-i*30,30,10,25,35);
+			ImageMiscOps.fillRectangle(band,50+i*20,10,38,15,10);
+		}
+
+		for( boolean eight : new boolean[]{false,true}) {
+			RecycleStack.Factory<FhEdgeWeights<Planar<GrayU8>>> factory = eight ?
+					()->new FhEdgeWeights8_PLU8(3) : ()->new FhEdgeWeights4_PLU8(3);
+
+			SegmentFelzenszwalbHuttenlocher04<Planar<GrayU8>> single =
+					new SegmentFelzenszwalbHuttenlocher04_MT<>(200,10,factory,image.height);
+			SegmentFelzenszwalbHuttenlocher04<Planar<GrayU8>> concurrent =
+					new SegmentFelzenszwalbHuttenlocher04_MT<>(200,10,factory,5);
+
+			GrayS32 expected = new GrayS32(image.width,image.height);
+			GrayS32 found = new GrayS32(image.width,image.height);
+
+			single.process(image,expected);
+			concurrent.process(image,found);
+
+			assertEquals(single.getRegionId().size,concurrent.getRegionId().size);
+			checkSamePartition(expected,found);
+			checkRegionSizes(concurrent,found);
+		}
+	}
+
+	@Test
+	public void setBandHeight() {
+		SegmentFelzenszwalbHuttenlocher04_MT<GrayU8> alg =
+				new SegmentFelzenszwalbHuttenlocher04_MT<>(200,20,FhEdgeWeights8_U8::new,10);
+		assertThrows(IllegalArgumentException.class,()->alg.setBandHeight(0));
+	}
+
+	private GrayU8 createTextured( int width , int height ) {
+		GrayU8 noise = new GrayU8(width,height);
+		ImageMiscOps.fillUniform(noise,rand,0,255);
+		return BlurImageOps.gaussian(noise,null,-1,2,null);
+	}
+
+	/**
+	 * Checks to see if the two images have the same segments, ignoring the value of the labels
+	 */
+	private static void checkSamePartition( GrayS32 expected , GrayS32 found ) {
+		Map<Integer,Integer> expectedToFound = new HashMap<>();
+		Map<Integer,Integer> foundToExpected = new HashMap<>();
+		for( int i = 0; i < expected.data.length; i++ ) {
+			int a = expected.data[i];
+			int b = found.data[i];
+			assertEquals(b,(int)expectedToFound.computeIfAbsent(a,k->b));
+			assertEquals(a,(int)foundToExpected.computeIfAbsent(b,k->a));
+		}
+	}
+
+	/**
+	 * Sees if the pixels point to one of the regions and the region sizes are correct
+	 */
+	private static void checkRegionSizes( SegmentFelzenszwalbHuttenlocher04<?> alg , GrayS32 output ) {
+		GrowQueue_I32 ids = alg.getRegionId();
+		GrowQueue_I32 sizes = alg.getRegionSizes();
+
+		Map<Integer,Integer> counts = new HashMap<>();
+		for( int i = 0; i < output.data.length; i++ ) {
+			counts.merge(output.data[i],1,Integer::sum);
+		}
+		assertEquals(ids.size,counts.size());
+		for( int i = 0; i < ids.size; i++ ) {
+			assertEquals(sizes.get(i),(int)counts.get(ids.get(i)));
+		}
+	}
+}
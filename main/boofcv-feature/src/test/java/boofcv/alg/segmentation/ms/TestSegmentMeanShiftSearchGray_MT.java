@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.segmentation.ms;
+
+import boofcv.alg.interpolate.InterpolatePixelS;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.factory.interpolate.FactoryInterpolation;
+import boofcv.struct.border.BorderType;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.GrayS32;
+import boofcv.testing.BoofTesting;
+import org.ddogleg.struct.GrowQueue_I32;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestSegmentMeanShiftSearchGray_MT {
+
+	Random rand = new Random(234);
+
+	private InterpolatePixelS<GrayF32> createInterp() {
+		return FactoryInterpolation.bilinearPixelS(GrayF32.class, BorderType.EXTENDED);
+	}
+
+	/**
+	 * Without the fast approximation the results should be identical
+	 */
+	@Test
+	public void compareToSingleThread() {
+		GrayF32 image = new GrayF32(40,45);
+		ImageMiscOps.fillUniform(image, rand, 0, 256);
+
+		SegmentMeanShiftSearchGray<GrayF32> single =
+				new SegmentMeanShiftSearchGray<>(30,0.05f,createInterp(),2,2,100, false);
+		SegmentMeanShiftSearchGray<GrayF32> concurrent =
+				new SegmentMeanShiftSearchGray_MT<>(30,0.05f,createInterp(),2,2,100, false);
+
+		single.process(image);
+		concurrent.process(image);
+
+		BoofTesting.assertEquals(single.getPixelToRegion(),concurrent.getPixelToRegion(),0);
+		assertEquals(single.getModeLocation().size,concurrent.getModeLocation().size);
+		for( int i = 0; i < single.getModeLocation().size; i++ ) {
+			assertEquals(single.getModeLocation().get(i),concurrent.getModeLocation().get(i));
+			assertEquals(single.getRegionMemberCount().get(i),concurrent.getRegionMemberCount().get(i));
+			assertEquals(single.getModeColor().get(i)[0],concurrent.getModeColor().get(i)[0]);
+		}
+	}
+
+	/**
+	 * The fast approximation is computed inside each block. Just check to see if the output is valid
+	 */
+	@Test
+	public void fast() {
+		GrayF32 image = new GrayF32(40,45);
+		ImageMiscOps.fillUniform(image, rand, 0, 256);
+
+		SegmentMeanShiftSearchGray<GrayF32> alg =
+				new SegmentMeanShiftSearchGray_MT<>(30,0.05f,createInterp(),2,2,100, true);
+
+		alg.process(image);
+
+		GrowQueue_I32 counts = alg.getRegionMemberCount();
+		GrayS32 peaks = alg.getPixelToRegion();
+
+		assertTrue( counts.size > 20 );
+		assertEquals(counts.size,alg.getModeLocation().size);
+		assertEquals(counts.size,alg.getModeColor().size);
+
+		int totalMembers = 0;
+		for( int i = 0; i < counts.size; i++ ) {
+			assertTrue( counts.get(i) > 0 );
+			totalMembers += counts.get(i);
+		}
+		assertEquals(image.width*image.height,totalMembers);
+
+		for( int y = 0; y < peaks.height; y++ ) {
+			for( int x = 0; x < peaks.width; x++ ) {
+				int peak = peaks.get(x,y);
+				assertTrue( peak >= 0 && peak < counts.size );
+			}
+		}
+	}
+}
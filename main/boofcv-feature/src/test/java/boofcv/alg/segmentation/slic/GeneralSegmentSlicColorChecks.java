@@ -34,6 +34,7 @@ import java.util.Arrays;
 import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * @author Peter Abeles
@@ -174,6 +175,39 @@ public abstract class GeneralSegmentSlicColorChecks<T extends ImageBase<T>> {
 		assertEquals(expected,alg.getIntensity(6,8),1e-4);
 	}
 
+	/**
+	 * Compares the output of a concurrent implementation against the single threaded implementation. Round off
+	 * errors from summing in a different order will cause a few pixels to be assigned differently.
+	 */
+	protected void compareToSingleThread( SegmentSlic<T> single , SegmentSlic<T> concurrent ) {
+		T input = imageType.createImage(60,50);
+		GImageMiscOps.fillUniform(input, rand, 0, 200);
+		GImageMiscOps.fillRectangle(input, 100, 10, 5, 25, 20);
+
+		GrayS32 expected = new GrayS32(input.width,input.height);
+		GrayS32 found = new GrayS32(input.width,input.height);
+
+		single.process(input,expected);
+		concurrent.process(input,found);
+
+		int numMatched = 0;
+		for( int y = 0; y < input.height; y++ ) {
+			for( int x = 0; x < input.width; x++ ) {
+				if( expected.get(x,y) == found.get(x,y) )
+					numMatched++;
+			}
+		}
+		assertTrue( numMatched >= input.width*input.height*0.95 );
+
+		FastQueue<SegmentSlic.Cluster> clustersA = single.getClusters();
+		FastQueue<SegmentSlic.Cluster> clustersB = concurrent.getClusters();
+		assertEquals(clustersA.size,clustersB.size);
+		for( int i = 0; i < clustersA.size; i++ ) {
+			assertEquals(clustersA.get(i).x,clustersB.get(i).x,0.5f);
+			assertEquals(clustersA.get(i).y,clustersB.get(i).y,0.5f);
+		}
+	}
+
 	/**
 	 * Each region is assumed to be filled with a single color
 	 */
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.segmentation.slic;
+
+import boofcv.struct.ConnectRule;
+import boofcv.struct.image.GrayF32;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestSegmentSlic_F32_MT extends TestSegmentSlic_F32 {
+
+	@Override
+	public SegmentSlic<GrayF32> createAlg(int numberOfRegions, float m, int totalIterations, ConnectRule rule) {
+		return new SegmentSlic_F32_MT(numberOfRegions,m,totalIterations,rule);
+	}
+
+	@Test
+	public void compareToSingleThread() {
+		compareToSingleThread(
+				super.createAlg(20,200,10, ConnectRule.EIGHT),
+				createAlg(20,200,10, ConnectRule.EIGHT));
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.segmentation.watershed;
+
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.struct.ConnectRule;
+import boofcv.struct.image.GrayS32;
+import boofcv.struct.image.GrayU8;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestWatershedVincentSoille1991_MT {
+
+	Random rand = new Random(234);
+
+	/**
+	 * If there's a single tile then the partition should be identical to the single threaded algorithm
+	 */
+	@Test
+	public void singleTile_compareToSingleThread() {
+		for( ConnectRule rule : new ConnectRule[]{ConnectRule.FOUR,ConnectRule.EIGHT}) {
+			GrayU8 image = new GrayU8(45,38);
+			ImageMiscOps.fillUniform(image,rand,0,60);
+
+			WatershedVincentSoille1991 expected = rule == ConnectRule.FOUR ?
+					new WatershedVincentSoille1991.Connect4() : new WatershedVincentSoille1991.Connect8();
+			expected.process(image);
+			expected.removeWatersheds();
+
+			WatershedVincentSoille1991_MT alg = new WatershedVincentSoille1991_MT(rule,50,5);
+			alg.process(image);
+
+			assertEquals(expected.getTotalRegions(),alg.getTotalRegions());
+			assertSamePartition(expected.getOutput(),alg.getOutput(),alg.getTotalRegions());
+		}
+	}
+
+	/**
+	 * Basins which cross tile seams should be stitched back together
+	 */
+	@Test
+	public void basinsCrossSeams() {
+		int[][] centers = new int[][]{{12,10},{47,14},{20,40},{50,42}};
+
+		GrayU8 image = new GrayU8(64,55);
+		for( int y = 0; y < image.height; y++ ) {
+			for( int x = 0; x < image.width; x++ ) {
+				double best = Double.MAX_VALUE;
+				for( int[] c : centers ) {
+					best = Math.min(best,Math.sqrt((x-c[0])*(x-c[0]) + (y-c[1])*(y-c[1])));
+				}
+				image.set(x,y,(int)Math.min(255,best*4));
+			}
+		}
+
+		WatershedVincentSoille1991.Connect4 expected = new WatershedVincentSoille1991.Connect4();
+		expected.process(image);
+		expected.removeWatersheds();
+		assertEquals(centers.length,expected.getTotalRegions());
+
+		WatershedVincentSoille1991_MT alg = new WatershedVincentSoille1991_MT(ConnectRule.FOUR,16,20);
+		alg.process(image);
+
+		assertEquals(centers.length,alg.getTotalRegions());
+		checkValidLabels(alg.getOutput(),alg.getTotalRegions());
+
+		// each basin's center should be in a different region
+		GrayS32 found = alg.getOutput();
+		for( int i = 0; i < centers.length; i++ ) {
+			for( int j = i+1; j < centers.length; j++ ) {
+				assertNotEquals(found.get(centers[i][0],centers[i][1]),found.get(centers[j][0],centers[j][1]));
+			}
+		}
+	}
+
+	/**
+	 * A flat image is a single region no matter how many tiles there are
+	 */
+	@Test
+	public void uniformImage() {
+		GrayU8 image = new GrayU8(70,33);
+		ImageMiscOps.fill(image,100);
+
+		WatershedVincentSoille1991_MT alg = new WatershedVincentSoille1991_MT(ConnectRule.EIGHT,10,2);
+		alg.process(image);
+
+		assertEquals(1,alg.getTotalRegions());
+		checkValidLabels(alg.getOutput(),1);
+	}
+
+	/**
+	 * Random image with many tiles. The labels should be compact and every label used
+	 */
+	@Test
+	public void manyTiles_validLabels() {
+		GrayU8 image = new GrayU8(83,61);
+		ImageMiscOps.fillUniform(image,rand,0,30);
+
+		for( ConnectRule rule : new ConnectRule[]{ConnectRule.FOUR,ConnectRule.EIGHT}) {
+			WatershedVincentSoille1991_MT alg = new WatershedVincentSoille1991_MT(rule,15,3);
+			alg.process(image);
+
+			assertTrue(alg.getTotalRegions() > 1);
+			checkValidLabels(alg.getOutput(),alg.getTotalRegions());
+
+			// results should be repeatable
+			GrayS32 first = alg.getOutput().clone();
+			alg.process(image);
+			for( int i = 0; i < first.data.length; i++ ) {
+				assertEquals(first.data[i],alg.getOutput().data[i]);
+			}
+		}
+	}
+
+	@Test
+	public void badArguments() {
+		assertThrows(IllegalArgumentException.class,()->new WatershedVincentSoille1991_MT(ConnectRule.FOUR,0,5));
+		assertThrows(IllegalArgumentException.class,()->new WatershedVincentSoille1991_MT(ConnectRule.FOUR,20,0));
+	}
+
+	/**
+	 * Every pixel must have a label from 0 to N-1 and every label must be used
+	 */
+	private static void checkValidLabels( GrayS32 labeled , int N ) {
+		boolean[] used = new boolean[N];
+		for( int y = 0; y < labeled.height; y++ ) {
+			for( int x = 0; x < labeled.width; x++ ) {
+				int v = labeled.get(x,y);
+				assertTrue(v >= 0 && v < N);
+				used[v] = true;
+			}
+		}
+		for( int i = 0; i < N; i++ ) {
+			assertTrue(used[i]);
+		}
+	}
+
+	/**
+	 * Checks to see if the two labeled images are the same up to a relabeling of the regions
+	 */
+	private static void assertSamePartition( GrayS32 expected , GrayS32 found , int N ) {
+		int[] a_to_b = new int[N];
+		int[] b_to_a = new int[N];
+		for( int i = 0; i < N; i++ ) {
+			a_to_b[i] = b_to_a[i] = -1;
+		}
+
+		for( int y = 0; y < expected.height; y++ ) {
+			for( int x = 0; x < expected.width; x++ ) {
+				int a = expected.get(x,y);
+				int b = found.get(x,y);
+				if( a_to_b[a] == -1 && b_to_a[b] == -1 ) {
+					a_to_b[a] = b;
+					b_to_a[b] = a;
+				} else {
+					assertEquals(b,a_to_b[a]);
+					assertEquals(a,b_to_a[b]);
+				}
+			}
+		}
+	}
+}
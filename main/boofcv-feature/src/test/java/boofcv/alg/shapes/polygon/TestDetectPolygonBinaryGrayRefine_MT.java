@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.shapes.polygon;
+
+import boofcv.abst.filter.binary.InputToBinary;
+import boofcv.alg.distort.PixelTransformAffine_F32;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.factory.filter.binary.FactoryThresholdBinary;
+import boofcv.factory.shape.ConfigPolygonDetector;
+import boofcv.factory.shape.FactoryShapeDetector;
+import boofcv.struct.image.GrayU8;
+import georegression.struct.affine.Affine2D_F32;
+import georegression.struct.affine.UtilAffine;
+import georegression.struct.shapes.Rectangle2D_I32;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the concurrent implementations of polygon detection and refinement against the single thread
+ * implementations. Results should be identical.
+ *
+ * @author Peter Abeles
+ */
+public class TestDetectPolygonBinaryGrayRefine_MT extends CommonFitPolygonChecks {
+
+	GrayU8 binary = new GrayU8(1,1);
+
+	@AfterEach
+	public void restoreConcurrency() {
+		BoofConcurrency.USE_CONCURRENT = false;
+	}
+
+	@Test
+	public void compareToSingleThread() {
+		addRectangles();
+
+		for( Class imageType : imageTypes ) {
+			compare(imageType,false);
+		}
+	}
+
+	@Test
+	public void compareToSingleThread_LensDistortion() {
+		addRectangles();
+		transform.set(0.8, 0, 0, 0.8, 1, 2);
+		transform = transform.invert(null);
+
+		for( Class imageType : imageTypes ) {
+			compare(imageType,true);
+		}
+	}
+
+	private void addRectangles() {
+		for (int y = 0; y < 6; y++) {
+			for (int x = 0; x < 5; x++) {
+				int x0 = 20+x*75, y0 = 20+y*75;
+				rectangles.add(new Rectangle2D_I32(x0,y0,x0+40+x*3,y0+40+y*2));
+			}
+		}
+	}
+
+	private void compare( Class imageType , boolean lensDistortion ) {
+		renderDistortedRectangles(true,imageType);
+		InputToBinary inputToBinary = FactoryThresholdBinary.globalFixed(100, true, imageType);
+		binary.reshape(width,height);
+		inputToBinary.process(image,binary);
+
+		BoofConcurrency.USE_CONCURRENT = false;
+		DetectPolygonBinaryGrayRefine single = createAlg(imageType);
+		BoofConcurrency.USE_CONCURRENT = true;
+		DetectPolygonBinaryGrayRefine concurrent = createAlg(imageType);
+
+		assertTrue(concurrent instanceof DetectPolygonBinaryGrayRefine_MT);
+		assertTrue(concurrent.getDetector() instanceof DetectPolygonFromContour_MT);
+
+		if( lensDistortion ) {
+			Affine2D_F32 a = new Affine2D_F32();
+			UtilAffine.convert(transform,a);
+			single.setLensDistortion(width,height,new PixelTransformAffine_F32(a.invert(null)),new PixelTransformAffine_F32(a));
+			concurrent.setLensDistortion(width,height,new PixelTransformAffine_F32(a.invert(null)),new PixelTransformAffine_F32(a));
+		}
+
+		// process twice to make sure recycled work space is handled correctly
+		for (int trial = 0; trial < 2; trial++) {
+			single.process(image,binary);
+			concurrent.process(image,binary);
+
+			compare(single.getPolygonInfo(),concurrent.getPolygonInfo());
+			if( !lensDistortion )
+				assertEquals(rectangles.size(),single.getPolygonInfo().size());
+
+			single.refineAll();
+			concurrent.refineAll();
+
+			compare(single.getPolygonInfo(),concurrent.getPolygonInfo());
+		}
+	}
+
+	private void compare( List<DetectPolygonFromContour.Info> expected , List<DetectPolygonFromContour.Info> found ) {
+		assertEquals(expected.size(),found.size());
+
+		for (int i = 0; i < expected.size(); i++) {
+			DetectPolygonFromContour.Info e = expected.get(i);
+			DetectPolygonFromContour.Info f = found.get(i);
+
+			assertEquals(e.polygon.size(),f.polygon.size());
+			for (int j = 0; j < e.polygon.size(); j++) {
+				assertEquals(0,e.polygon.get(j).distance(f.polygon.get(j)),1e-8);
+				assertEquals(0,e.polygonDistorted.get(j).distance(f.polygonDistorted.get(j)),1e-8);
+			}
+			assertEquals(e.edgeInside,f.edgeInside,1e-4);
+			assertEquals(e.edgeOutside,f.edgeOutside,1e-4);
+			assertEquals(e.contourTouchesBorder,f.contourTouchesBorder);
+			assertEquals(e.splits.size,f.splits.size);
+			for (int j = 0; j < e.splits.size; j++) {
+				assertEquals(e.splits.get(j),f.splits.get(j));
+			}
+		}
+	}
+
+	DetectPolygonBinaryGrayRefine createAlg( Class imageType ) {
+		return FactoryShapeDetector.polygon(new ConfigPolygonDetector(4,4),imageType);
+	}
+}
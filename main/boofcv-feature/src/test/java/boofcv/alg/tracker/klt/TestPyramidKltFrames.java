@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.tracker.klt;
+
+import boofcv.abst.filter.derivative.ImageGradient;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.factory.filter.derivative.FactoryDerivative;
+import boofcv.factory.transform.pyramid.FactoryPyramid;
+import boofcv.struct.image.GrayS16;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageType;
+import boofcv.struct.pyramid.PyramidDiscrete;
+import boofcv.testing.BoofTesting;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestPyramidKltFrames {
+
+	Random rand = new Random(234);
+	int width = 120;
+	int height = 100;
+	int minSize = 15;
+
+	ImageGradient<GrayU8,GrayS16> gradient = FactoryDerivative.sobel(GrayU8.class,GrayS16.class);
+
+	/**
+	 * After processing two images the previous and current images should match what's computed directly
+	 */
+	@Test
+	public void process() {
+		PyramidKltFrames<GrayU8,GrayS16> alg = new PyramidKltFrames<>(minSize,gradient,GrayU8.class,GrayS16.class);
+
+		GrayU8 imageA = new GrayU8(width,height);
+		GrayU8 imageB = new GrayU8(width,height);
+		ImageMiscOps.fillUniform(imageA,rand,0,200);
+		ImageMiscOps.fillUniform(imageB,rand,0,200);
+
+		alg.process(imageA);
+		PyramidDiscrete<GrayU8> firstCurrent = alg.getCurrentImage();
+		// modifying the input should have no affect on the pyramid
+		GrayU8 input = imageB.clone();
+		alg.process(input);
+		ImageMiscOps.fill(input,0);
+
+		// current should become previous without being copied
+		assertTrue(firstCurrent == alg.getPreviousImage());
+
+		checkFrame(imageA, alg.getPreviousImage(), alg.getPreviousDerivX(), alg.getPreviousDerivY());
+		checkFrame(imageB, alg.getCurrentImage(), alg.getCurrentDerivX(), alg.getCurrentDerivY());
+	}
+
+	/**
+	 * If the image changes shape the pyramid needs to change too
+	 */
+	@Test
+	public void changeShape() {
+		PyramidKltFrames<GrayU8,GrayS16> alg = new PyramidKltFrames<>(minSize,gradient,GrayU8.class,GrayS16.class);
+
+		alg.process(new GrayU8(width,height));
+		int before = alg.getNumLayers();
+		GrayU8 image = new GrayU8(width*4,height*4);
+		ImageMiscOps.fillUniform(image,rand,0,200);
+		alg.process(image);
+
+		assertTrue(alg.getNumLayers() > before);
+		assertEquals(alg.getNumLayers(), alg.getCurrentDerivX().length);
+		assertEquals(alg.getNumLayers(), alg.getPreviousDerivY().length);
+		checkFrame(image, alg.getCurrentImage(), alg.getCurrentDerivX(), alg.getCurrentDerivY());
+	}
+
+	private void checkFrame( GrayU8 image , PyramidDiscrete<GrayU8> found , GrayS16[] derivX , GrayS16[] derivY ) {
+		int[] scales = PyramidKltFrames.selectPyramidScale(image.width,image.height,minSize);
+		PyramidDiscrete<GrayU8> expected = FactoryPyramid.discreteGaussian(scales,-1,1,false,
+				ImageType.single(GrayU8.class));
+		expected.process(image);
+
+		assertArrayEquals(expected.getScales(), found.getScales());
+		for( int i = 0; i < expected.getNumLayers(); i++ ) {
+			GrayU8 layer = expected.getLayer(i);
+			BoofTesting.assertEquals(layer, found.getLayer(i), 0);
+
+			GrayS16 dx = new GrayS16(layer.width,layer.height);
+			GrayS16 dy = new GrayS16(layer.width,layer.height);
+			gradient.process(layer,dx,dy);
+			BoofTesting.assertEquals(dx, derivX[i], 1e-4);
+			BoofTesting.assertEquals(dy, derivY[i], 1e-4);
+		}
+	}
+
+	@Test
+	public void selectPyramidScale() {
+		assertArrayEquals(new int[]{1}, PyramidKltFrames.selectPyramidScale(100,50,55));
+		assertArrayEquals(new int[]{1,2,4}, PyramidKltFrames.selectPyramidScale(100,200,25));
+		assertArrayEquals(new int[]{1,2,4}, PyramidKltFrames.selectPyramidScale(200,100,25));
+	}
+}
@@ -19,8 +19,10 @@
 package boofcv.alg.geo;
 
 import boofcv.abst.geo.Estimate1ofPnP;
+import boofcv.abst.geo.pose.Estimate1ofPnPBatch;
 import boofcv.alg.geo.pose.PnPLepetitEPnP;
 import boofcv.alg.geo.pose.PoseFromPairLinear6;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.geo.EnumPNP;
 import boofcv.factory.geo.FactoryMultiView;
 import boofcv.misc.PerformerBase;
@@ -38,6 +40,8 @@ public class BenchmarkRuntimePnP extends ArtificialStereoScene {
 	static final long TEST_TIME = 1000;
 	static final int NUM_POINTS = 200;
 	static final boolean FUNDAMENTAL = false;
+	// number of PnP problems solved in batch tests
+	static final int NUM_PROBLEMS = 200;
 
 	Se3_F64 found = new Se3_F64();
 
@@ -112,7 +116,63 @@ public class BenchmarkRuntimePnP extends ArtificialStereoScene {
 			alg.process(pairs,worldPoints);
 		}
 	}
-	
+	/**
+	 * Solves many PnP problems one at a time
+	 */
+	public class SerialManyPnP extends PerformerBase {
+
+		Estimate1ofPnP alg = FactoryMultiView.pnp_1(EnumPNP.EPNP,5,0);
+
+		@Override
+		public void process() {
+			for (int i = 0; i < NUM_PROBLEMS; i++) {
+				alg.process(observationPose,found);
+			}
+		}
+	}
+
+	/**
+	 * Solves many PnP problems using the batch API
+	 */
+	public class BatchManyPnP extends PerformerBase {
+
+		Estimate1ofPnPBatch alg = new Estimate1ofPnPBatch(()->FactoryMultiView.pnp_1(EnumPNP.EPNP,5,0));
+
+		int[] offsets = new int[NUM_PROBLEMS+1];
+		double[] obsX = new double[NUM_PROBLEMS*NUM_POINTS];
+		double[] obsY = new double[NUM_PROBLEMS*NUM_POINTS];
+		double[] worldX = new double[NUM_PROBLEMS*NUM_POINTS];
+		double[] worldY = new double[NUM_PROBLEMS*NUM_POINTS];
+		double[] worldZ = new double[NUM_PROBLEMS*NUM_POINTS];
+		double[] worldToView = new double[NUM_PROBLEMS*12];
+		boolean[] success = new boolean[NUM_PROBLEMS];
+
+		public BatchManyPnP() {
+			for (int problem = 0; problem < NUM_PROBLEMS; problem++) {
+				offsets[problem+1] = (problem+1)*NUM_POINTS;
+				for (int i = 0; i < NUM_POINTS; i++) {
+					Point2D3D p = observationPose.get(i);
+					int idx = problem*NUM_POINTS + i;
+					obsX[idx] = p.observation.x;
+					obsY[idx] = p.observation.y;
+					worldX[idx] = p.location.x;
+					worldY[idx] = p.location.y;
+					worldZ[idx] = p.location.z;
+				}
+			}
+		}
+
+		@Override
+		public void process() {
+			alg.process(NUM_PROBLEMS,offsets,obsX,obsY,worldX,worldY,worldZ,worldToView,success);
+		}
+
+		@Override
+		public String getName() {
+			return "BatchManyPnP threads="+BoofConcurrency.getMaxThreads();
+		}
+	}
+
 	public void runAll() {
 		System.out.println("=========  Profile numFeatures "+NUM_POINTS);
 		System.out.println();
@@ -132,6 +192,14 @@ public class BenchmarkRuntimePnP extends ArtificialStereoScene {
 		if( planar )
 			ProfileOperation.printOpsPerSec(new InterfacePNP("IPPE",ippe), TEST_TIME);
 
+		System.out.println();
+		System.out.println("Batch of "+NUM_PROBLEMS+" problems");
+		ProfileOperation.printOpsPerSec(new SerialManyPnP(), TEST_TIME);
+		BoofConcurrency.setMaxThreads(1);
+		ProfileOperation.printOpsPerSec(new BatchManyPnP(), TEST_TIME);
+		BoofConcurrency.setMaxThreads(Runtime.getRuntime().availableProcessors());
+		ProfileOperation.printOpsPerSec(new BatchManyPnP(), TEST_TIME);
+
 		System.out.println();
 		System.out.println("Done");
 	}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo;
+
+import boofcv.factory.geo.ConfigProsac;
+import boofcv.factory.geo.ConfigRansac;
+import boofcv.factory.geo.FactoryMultiViewRobust;
+import boofcv.misc.Performer;
+import boofcv.misc.ProfileOperation;
+import boofcv.struct.geo.AssociatedPair;
+import georegression.struct.homography.Homography2D_F64;
+import org.ddogleg.fitting.modelset.ModelMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the runtime of RANSAC and PROSAC for robustly estimating a homography. Observations are sorted by a
+ * simulated quality score where inliers tend to have better scores than outliers, as is the case when sorting
+ * associations by fit score.
+ *
+ * @author Peter Abeles
+ */
+public class BenchmarkRuntimeRobustHomography extends ArtificialStereoScene {
+	static final long TEST_TIME = 1000;
+	static final int NUM_POINTS = 500;
+	static final double OUTLIER_FRACTION = 0.5;
+	static final int MAX_ITERATIONS = 500;
+	static final double INLIER_THRESHOLD = 2.0;
+
+	List<AssociatedPair> sorted = new ArrayList<>();
+
+	public class Estimate implements Performer {
+
+		ModelMatcher<Homography2D_F64,AssociatedPair> alg;
+		String name;
+
+		public Estimate( String name , ModelMatcher<Homography2D_F64,AssociatedPair> alg ) {
+			this.alg = alg;
+			this.name = name;
+		}
+
+		@Override
+		public void process() {
+			alg.process(sorted);
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+	}
+
+	public void runAll() {
+		System.out.println("=========  Profile numFeatures "+NUM_POINTS+" outliers "+OUTLIER_FRACTION);
+		System.out.println();
+
+		init(NUM_POINTS, true, true);
+		addPixelNoise(0.5);
+		createSortedObservations();
+
+		ConfigRansac configRansac = new ConfigRansac(MAX_ITERATIONS, INLIER_THRESHOLD);
+		ConfigProsac configProsac = new ConfigProsac(MAX_ITERATIONS, INLIER_THRESHOLD);
+
+		List<Estimate> estimators = new ArrayList<>();
+		estimators.add(new Estimate("RANSAC",FactoryMultiViewRobust.homographyRansac(null,configRansac)));
+		configProsac.sprt = false;
+		estimators.add(new Estimate("PROSAC",FactoryMultiViewRobust.homographyProsac(null,configProsac)));
+		configProsac.sprt = true;
+		estimators.add(new Estimate("PROSAC SPRT",FactoryMultiViewRobust.homographyProsac(null,configProsac)));
+
+		for( Estimate e : estimators ) {
+			ProfileOperation.printOpsPerSec(e, TEST_TIME);
+			e.alg.process(sorted);
+			System.out.printf("%30s  inliers = %d\n","",e.alg.getMatchSet().size());
+		}
+	}
+
+	/**
+	 * Replaces a fraction of the observations with outliers then sorts them by a simulated quality score
+	 */
+	private void createSortedObservations() {
+		List<Scored> scored = new ArrayList<>();
+		int numOutliers = (int)(pairs.size()*OUTLIER_FRACTION);
+		for( int i = 0; i < pairs.size(); i++ ) {
+			AssociatedPair p = pairs.get(i);
+			double score = rand.nextDouble();
+			if( i < numOutliers ) {
+				p.p2.set(rand.nextDouble()*640, rand.nextDouble()*480);
+				score += 0.5;
+			}
+			scored.add(new Scored(p,score));
+		}
+		scored.sort((a,b)->Double.compare(a.score,b.score));
+
+		sorted.clear();
+		for( Scored s : scored ) {
+			sorted.add(s.pair);
+		}
+	}
+
+	private static class Scored {
+		AssociatedPair pair;
+		double score;
+
+		Scored(AssociatedPair pair, double score) {
+			this.pair = pair;
+			this.score = score;
+		}
+	}
+
+	public static void main( String args[] ) {
+		BenchmarkRuntimeRobustHomography alg = new BenchmarkRuntimeRobustHomography();
+
+		alg.runAll();
+	}
+}
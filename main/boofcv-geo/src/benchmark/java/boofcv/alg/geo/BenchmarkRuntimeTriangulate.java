@@ -18,13 +18,23 @@
 
 package boofcv.alg.geo;
 
+import boofcv.abst.geo.TriangulateNViewsMetric;
+import boofcv.abst.geo.triangulate.TriangulateNViewsMetricBatch;
 import boofcv.alg.geo.triangulate.PixelDepthLinearMetric;
 import boofcv.alg.geo.triangulate.Triangulate2ViewsGeometricMetric;
 import boofcv.alg.geo.triangulate.TriangulateMetricLinearDLT;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.factory.geo.ConfigTriangulation;
+import boofcv.factory.geo.FactoryMultiView;
 import boofcv.misc.PerformerBase;
 import boofcv.misc.ProfileOperation;
+import georegression.struct.point.Point2D_F64;
 import georegression.struct.point.Point3D_F64;
 import georegression.struct.point.Point4D_F64;
+import georegression.struct.se.Se3_F64;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author Peter Abeles
@@ -81,7 +91,79 @@ public class BenchmarkRuntimeTriangulate extends ArtificialStereoScene {
 		}
 	}
 
-	
+	/**
+	 * Triangulates each point one at a time using the N-View interface
+	 */
+	public class NViewDLT extends PerformerBase {
+
+		TriangulateNViewsMetric alg = FactoryMultiView.triangulateNViewCalibrated(
+				new ConfigTriangulation(ConfigTriangulation.Type.DLT));
+		List<Point2D_F64> observations = new ArrayList<>();
+		List<Se3_F64> views = new ArrayList<>();
+		Point3D_F64 found = new Point3D_F64();
+
+		public NViewDLT() {
+			views.add(new Se3_F64());
+			views.add(motion);
+			observations.add(null);
+			observations.add(null);
+		}
+
+		@Override
+		public void process() {
+			for( int i = 0; i < NUM_POINTS; i++ ) {
+				observations.set(0,pairs.get(i).p1);
+				observations.set(1,pairs.get(i).p2);
+				alg.triangulate(observations,views,found);
+			}
+		}
+	}
+
+	/**
+	 * Triangulates all the points at once using the batch API
+	 */
+	public class BatchNViewDLT extends PerformerBase {
+
+		TriangulateNViewsMetricBatch alg = new TriangulateNViewsMetricBatch(()->
+				FactoryMultiView.triangulateNViewCalibrated(new ConfigTriangulation(ConfigTriangulation.Type.DLT)));
+
+		int[] pointOffsets = new int[NUM_POINTS+1];
+		int[] obsView = new int[NUM_POINTS*2];
+		double[] obsX = new double[NUM_POINTS*2];
+		double[] obsY = new double[NUM_POINTS*2];
+		double[] worldToView = new double[24];
+		double[] outX = new double[NUM_POINTS];
+		double[] outY = new double[NUM_POINTS];
+		double[] outZ = new double[NUM_POINTS];
+		boolean[] success = new boolean[NUM_POINTS];
+
+		public BatchNViewDLT() {
+			for (int i = 0; i < NUM_POINTS; i++) {
+				pointOffsets[i+1] = 2*(i+1);
+				obsView[2*i+1] = 1;
+				obsX[2*i] = pairs.get(i).p1.x;
+				obsY[2*i] = pairs.get(i).p1.y;
+				obsX[2*i+1] = pairs.get(i).p2.x;
+				obsY[2*i+1] = pairs.get(i).p2.y;
+			}
+			worldToView[0] = worldToView[4] = worldToView[8] = 1;
+			System.arraycopy(motion.R.data,0,worldToView,12,9);
+			worldToView[21] = motion.T.x;
+			worldToView[22] = motion.T.y;
+			worldToView[23] = motion.T.z;
+		}
+
+		@Override
+		public void process() {
+			alg.triangulate(NUM_POINTS,pointOffsets,obsView,obsX,obsY,2,worldToView,outX,outY,outZ,success);
+		}
+
+		@Override
+		public String getName() {
+			return "BatchNViewDLT threads="+BoofConcurrency.getMaxThreads();
+		}
+	}
+
 	public void runAll() {
 		System.out.println("=========  Profile numFeatures "+NUM_POINTS);
 		System.out.println();
@@ -91,6 +173,11 @@ public class BenchmarkRuntimeTriangulate extends ArtificialStereoScene {
 		ProfileOperation.printOpsPerSec(new DLT2(), TEST_TIME);
 		ProfileOperation.printOpsPerSec(new Geo2(), TEST_TIME);
 		ProfileOperation.printOpsPerSec(new PixelDepth(), TEST_TIME);
+		ProfileOperation.printOpsPerSec(new NViewDLT(), TEST_TIME);
+		BoofConcurrency.setMaxThreads(1);
+		ProfileOperation.printOpsPerSec(new BatchNViewDLT(), TEST_TIME);
+		BoofConcurrency.setMaxThreads(Runtime.getRuntime().availableProcessors());
+		ProfileOperation.printOpsPerSec(new BatchNViewDLT(), TEST_TIME);
 
 		System.out.println();
 		System.out.println("Done");
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.geo.pose;
+
+import boofcv.abst.geo.Estimate1ofPnP;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.concurrency.IntRangeConsumer;
+import boofcv.struct.geo.Point2D3D;
+import boofcv.struct.lists.RecycleStack;
+import georegression.struct.se.Se3_F64;
+import org.ddogleg.struct.FastQueue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Solves a large number of independent PnP problems at once, e.g. estimating the pose of every camera in a scene.
+ * Inputs and outputs are primitive arrays in a structure of arrays layout so that no objects need to be created
+ * for each observation. If {@link BoofConcurrency#USE_CONCURRENT} is true then problems are solved in parallel blocks
+ * with each thread having its own {@link Estimate1ofPnP}, otherwise they are solved in the calling thread.
+ * </p>
+ *
+ * <p>
+ * Inputs are checked before any problems are solved. If the estimator throws an exception the exception is passed
+ * on to the caller after all the blocks have finished.
+ * </p>
+ *
+ * Input format:
+ * <ul>
+ *     <li>Observations for problem 'i' are stored at indexes problemOffsets[i] to problemOffsets[i+1]-1</li>
+ *     <li>obsX[j], obsY[j] is the observation in normalized image coordinates</li>
+ *     <li>worldX[j], worldY[j], worldZ[j] is the location of the observed point in world coordinates</li>
+ * </ul>
+ *
+ * Output format:
+ * <ul>
+ *     <li>worldToView stores 12 elements for each problem. The rotation matrix in row-major order then
+ *     the translation.</li>
+ *     <li>success[i] is true if a solution was found for problem 'i'</li>
+ * </ul>
+ *
+ * @author Peter Abeles
+ */
+public class Estimate1ofPnPBatch {
+	// minimum number of problems processed in a block
+	public int minBlock = 10;
+
+	RecycleStack<ThreadData> threads;
+
+	public Estimate1ofPnPBatch( RecycleStack.Factory<Estimate1ofPnP> factory ) {
+		threads = new RecycleStack<>(()->new ThreadData(factory.newInstance()));
+	}
+
+	/**
+	 * Solves all the PnP problems. See class description for the format of each array.
+	 *
+	 * @param numProblems Number of problems
+	 * @param problemOffsets (Input) Index of the first observation in each problem. Length numProblems+1
+	 * @param obsX (Input) Observation x-coordinate
+	 * @param obsY (Input) Observation y-coordinate
+	 * @param worldX (Input) Point x-coordinate
+	 * @param worldY (Input) Point y-coordinate
+	 * @param worldZ (Input) Point z-coordinate
+	 * @param worldToView (Output) Found transform from world to view. 12 elements per problem.
+	 * @param success (Output) true if the problem was solved
+	 * @return Number of problems successfully solved
+	 * @throws IllegalArgumentException If the input or output arrays are too small
+	 */
+	public int process( int numProblems, int[] problemOffsets,
+						double[] obsX, double[] obsY,
+						double[] worldX, double[] worldY, double[] worldZ,
+						double[] worldToView, boolean[] success )
+	{
+		checkInputs(numProblems, problemOffsets, obsX, obsY, worldX, worldY, worldZ, worldToView, success);
+
+		if( numProblems == 0 )
+			return 0;
+
+		int[] total = new int[1];
+		RuntimeException[] failure = new RuntimeException[1];
+		IntRangeConsumer block = (i0, i1) -> {
+			ThreadData data = threads.pop();
+			try {
+				int count = process(data, i0, i1, problemOffsets, obsX, obsY, worldX, worldY, worldZ,
+						worldToView, success);
+				synchronized (total) {
+					total[0] += count;
+				}
+			} catch( RuntimeException e ) {
+				synchronized (total) {
+					if( failure[0] == null )
+						failure[0] = e;
+				}
+			} finally {
+				threads.recycle(data);
+			}
+		};
+
+		if( BoofConcurrency.USE_CONCURRENT )
+			BoofConcurrency.loopBlocks(0, numProblems, minBlock, block);
+		else
+			block.accept(0, numProblems);
+
+		if( failure[0] != null )
+			throw failure[0];
+
+		return total[0];
+	}
+
+	/**
+	 * Solves problems from i0 to i1-1
+	 *
+	 * @return Number of problems successfully solved
+	 */
+	private int process( ThreadData data, int i0, int i1, int[] problemOffsets,
+						 double[] obsX, double[] obsY,
+						 double[] worldX, double[] worldY, double[] worldZ,
+						 double[] worldToView, boolean[] success ) {
+		int count = 0;
+		for (int i = i0; i < i1; i++) {
+			data.points.reset();
+			data.pointList.clear();
+			for (int j = problemOffsets[i]; j < problemOffsets[i+1]; j++) {
+				Point2D3D p = data.points.grow();
+				p.observation.set(obsX[j], obsY[j]);
+				p.location.set(worldX[j], worldY[j], worldZ[j]);
+				data.pointList.add(p);
+			}
+
+			if( data.points.size >= data.alg.getMinimumPoints() &&
+					data.alg.process(data.pointList, data.found) ) {
+				int idx = i*12;
+				System.arraycopy(data.found.R.data, 0, worldToView, idx, 9);
+				worldToView[idx+9] = data.found.T.x;
+				worldToView[idx+10] = data.found.T.y;
+				worldToView[idx+11] = data.found.T.z;
+				success[i] = true;
+				count++;
+			} else {
+				success[i] = false;
+			}
+		}
+		return count;
+	}
+
+	private static void checkInputs( int numProblems, int[] problemOffsets,
+									 double[] obsX, double[] obsY,
+									 double[] worldX, double[] worldY, double[] worldZ,
+									 double[] worldToView, boolean[] success ) {
+		if( numProblems < 0 )
+			throw new IllegalArgumentException("numProblems can't be negative");
+		if( problemOffsets.length < numProblems+1 )
+			throw new IllegalArgumentException("problemOffsets must have a length of at least numProblems+1");
+		if( worldToView.length < numProblems*12 || success.length < numProblems )
+			throw new IllegalArgumentException("Output arrays are too small for numProblems");
+		if( problemOffsets[0] < 0 )
+			throw new IllegalArgumentException("problemOffsets can't be negative");
+		for (int i = 0; i < numProblems; i++) {
+			if( problemOffsets[i+1] < problemOffsets[i] )
+				throw new IllegalArgumentException("problemOffsets must not decrease. index="+i);
+		}
+		int numObs = problemOffsets[numProblems];
+		if( obsX.length < numObs || obsY.length < numObs ||
+				worldX.length < numObs || worldY.length < numObs || worldZ.length < numObs )
+			throw new IllegalArgumentException("Observation arrays are smaller than problemOffsets["+numProblems+"]");
+	}
+
+	class ThreadData {
+		Estimate1ofPnP alg;
+		FastQueue<Point2D3D> points = new FastQueue<>(Point2D3D.class, true);
+		// references the elements in points so that a list isn't created for every problem
+		List<Point2D3D> pointList = new ArrayList<>();
+		Se3_F64 found = new Se3_F64();
+
+		ThreadData(Estimate1ofPnP alg) {
+			this.alg = alg;
+		}
+	}
+}
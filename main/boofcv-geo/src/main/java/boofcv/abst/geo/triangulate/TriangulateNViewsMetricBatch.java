@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.geo.triangulate;
+
+import boofcv.abst.geo.TriangulateNViewsMetric;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.concurrency.IntRangeConsumer;
+import boofcv.struct.lists.RecycleStack;
+import georegression.struct.point.Point2D_F64;
+import georegression.struct.point.Point3D_F64;
+import georegression.struct.se.Se3_F64;
+import org.ddogleg.struct.FastQueue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Triangulates a large number of points at once. Inputs and outputs are primitive arrays in a structure of arrays
+ * layout so that no objects need to be created for each point. If {@link BoofConcurrency#USE_CONCURRENT} is true
+ * then points are processed in parallel blocks with each thread having its own {@link TriangulateNViewsMetric},
+ * otherwise they are processed in the calling thread.
+ * </p>
+ *
+ * <p>
+ * Inputs are checked before any points are processed. If triangulation throws an exception the exception is passed
+ * on to the caller after all the blocks have finished.
+ * </p>
+ *
+ * Input format:
+ * <ul>
+ *     <li>Observations of point 'i' are stored at indexes pointOffsets[i] to pointOffsets[i+1]-1</li>
+ *     <li>obsView[j] is the index of the view observation 'j' was seen in</li>
+ *     <li>obsX[j], obsY[j] is the observation in normalized image coordinates</li>
+ *     <li>worldToView stores 12 elements for each view. The rotation matrix in row-major order then the translation.</li>
+ * </ul>
+ *
+ * Output format:
+ * <ul>
+ *     <li>outX[i], outY[i], outZ[i] is the location of point 'i' in world coordinates</li>
+ *     <li>success[i] is true if point 'i' was successfully triangulated</li>
+ * </ul>
+ *
+ * @author Peter Abeles
+ */
+public class TriangulateNViewsMetricBatch {
+	// minimum number of points processed in a block
+	public int minBlock = 100;
+
+	RecycleStack<ThreadData> threads;
+
+	// poses converted from the input array
+	FastQueue<Se3_F64> poses = new FastQueue<>(Se3_F64.class, true);
+
+	public TriangulateNViewsMetricBatch( RecycleStack.Factory<TriangulateNViewsMetric> factory ) {
+		threads = new RecycleStack<>(()->new ThreadData(factory.newInstance()));
+	}
+
+	/**
+	 * Triangulates all the points. See class description for the format of each array.
+	 *
+	 * @param numPoints Number of points
+	 * @param pointOffsets (Input) Index of the first observation for each point. Length numPoints+1
+	 * @param obsView (Input) Index of the view for each observation
+	 * @param obsX (Input) Observation x-coordinate
+	 * @param obsY (Input) Observation y-coordinate
+	 * @param numViews Number of views
+	 * @param worldToView (Input) Transform from world to each view. 12 elements per view.
+	 * @param outX (Output) x-coordinate of each point
+	 * @param outY (Output) y-coordinate of each point
+	 * @param outZ (Output) z-coordinate of each point
+	 * @param success (Output) true if the point was successfully triangulated
+	 * @return Number of points successfully triangulated
+	 * @throws IllegalArgumentException If the input arrays are too small or observations reference unknown views
+	 */
+	public int triangulate( int numPoints, int[] pointOffsets,
+							int[] obsView, double[] obsX, double[] obsY,
+							int numViews, double[] worldToView,
+							double[] outX, double[] outY, double[] outZ, boolean[] success )
+	{
+		checkInputs(numPoints, pointOffsets, obsView, obsX, obsY, numViews, worldToView, outX, outY, outZ, success);
+
+		poses.reset();
+		for (int view = 0; view < numViews; view++) {
+			Se3_F64 p = poses.grow();
+			int idx = view*12;
+			System.arraycopy(worldToView, idx, p.R.data, 0, 9);
+			p.T.set(worldToView[idx+9],worldToView[idx+10],worldToView[idx+11]);
+		}
+
+		if( numPoints == 0 )
+			return 0;
+
+		int[] total = new int[1];
+		RuntimeException[] failure = new RuntimeException[1];
+		IntRangeConsumer block = (i0, i1) -> {
+			ThreadData data = threads.pop();
+			try {
+				int count = triangulate(data, i0, i1, pointOffsets, obsView, obsX, obsY, outX, outY, outZ, success);
+				synchronized (total) {
+					total[0] += count;
+				}
+			} catch( RuntimeException e ) {
+				synchronized (total) {
+					if( failure[0] == null )
+						failure[0] = e;
+				}
+			} finally {
+				threads.recycle(data);
+			}
+		};
+
+		if( BoofConcurrency.USE_CONCURRENT )
+			BoofConcurrency.loopBlocks(0, numPoints, minBlock, block);
+		else
+			block.accept(0, numPoints);
+
+		if( failure[0] != null )
+			throw failure[0];
+
+		return total[0];
+	}
+
+	/**
+	 * Triangulates points from i0 to i1-1
+	 *
+	 * @return Number of points successfully triangulated
+	 */
+	private int triangulate( ThreadData data, int i0, int i1, int[] pointOffsets,
+							 int[] obsView, double[] obsX, double[] obsY,
+							 double[] outX, double[] outY, double[] outZ, boolean[] success ) {
+		int count = 0;
+		for (int i = i0; i < i1; i++) {
+			data.observations.reset();
+			data.observationList.clear();
+			data.views.clear();
+			for (int j = pointOffsets[i]; j < pointOffsets[i+1]; j++) {
+				Point2D_F64 o = data.observations.grow();
+				o.set(obsX[j], obsY[j]);
+				data.observationList.add(o);
+				data.views.add(poses.get(obsView[j]));
+			}
+
+			if( data.alg.triangulate(data.observationList, data.views, data.location) ) {
+				outX[i] = data.location.x;
+				outY[i] = data.location.y;
+				outZ[i] = data.location.z;
+				success[i] = true;
+				count++;
+			} else {
+				success[i] = false;
+			}
+		}
+		return count;
+	}
+
+	private static void checkInputs( int numPoints, int[] pointOffsets,
+									 int[] obsView, double[] obsX, double[] obsY,
+									 int numViews, double[] worldToView,
+									 double[] outX, double[] outY, double[] outZ, boolean[] success ) {
+		if( numPoints < 0 || numViews < 0 )
+			throw new IllegalArgumentException("numPoints and numViews can't be negative");
+		if( pointOffsets.length < numPoints+1 )
+			throw new IllegalArgumentException("pointOffsets must have a length of at least numPoints+1");
+		if( worldToView.length < numViews*12 )
+			throw new IllegalArgumentException("worldToView must have a length of at least numViews*12");
+		if( outX.length < numPoints || outY.length < numPoints || outZ.length < numPoints ||
+				success.length < numPoints )
+			throw new IllegalArgumentException("Output arrays must have a length of at least numPoints");
+		if( pointOffsets[0] < 0 )
+			throw new IllegalArgumentException("pointOffsets can't be negative");
+		for (int i = 0; i < numPoints; i++) {
+			if( pointOffsets[i+1] < pointOffsets[i] )
+				throw new IllegalArgumentException("pointOffsets must not decrease. index="+i);
+		}
+		int numObs = pointOffsets[numPoints];
+		if( obsView.length < numObs || obsX.length < numObs || obsY.length < numObs )
+			throw new IllegalArgumentException("Observation arrays are smaller than pointOffsets["+numPoints+"]");
+		for (int j = pointOffsets[0]; j < numObs; j++) {
+			if( obsView[j] < 0 || obsView[j] >= numViews )
+				throw new IllegalArgumentException("obsView["+j+"]="+obsView[j]+" is not a valid view");
+		}
+	}
+
+	class ThreadData {
+		TriangulateNViewsMetric alg;
+		FastQueue<Point2D_F64> observations = new FastQueue<>(Point2D_F64.class, true);
+		// references the elements in observations so that a list isn't created for every point
+		List<Point2D_F64> observationList = new ArrayList<>();
+		List<Se3_F64> views = new ArrayList<>();
+		Point3D_F64 location = new Point3D_F64();
+
+		ThreadData(TriangulateNViewsMetric alg) {
+			this.alg = alg;
+		}
+	}
+}
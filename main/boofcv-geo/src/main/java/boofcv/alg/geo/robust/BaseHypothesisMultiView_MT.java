@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.robust;
+
+import boofcv.alg.geo.DistanceFromModelMultiView;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.calib.CameraPinhole;
+import boofcv.struct.lists.RecycleStack;
+import org.ddogleg.fitting.modelset.ModelGenerator;
+import org.ddogleg.fitting.modelset.ModelManager;
+import org.ddogleg.struct.GrowQueue_I32;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * <p>
+ * Base class for robust model matchers which evaluate hypotheses concurrently. Hypotheses are evaluated in batches.
+ * Each batch is split into blocks of hypotheses which are scored in parallel, with each thread having its own copy
+ * of the {@link ModelGenerator} and {@link DistanceFromModelMultiView}. The samples used to generate each
+ * hypothesis are drawn in the calling thread from a single random number generator before a batch is processed.
+ * </p>
+ *
+ * <p>
+ * Results are reproducible and independent of the number of threads. The hypothesis with the lowest score is
+ * selected and ties are resolved by selecting the hypothesis which was generated first. Early termination is only
+ * considered at the end of a batch.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public abstract class BaseHypothesisMultiView_MT<Model,Point> implements ModelMatcherMultiview<Model,Point> {
+	// number of hypotheses evaluated between checks for early termination
+	protected int batchSize = 100;
+	// the maximum number of hypotheses which will be evaluated
+	protected int maxIterations;
+
+	protected ModelManager<Model> modelManager;
+	protected Random rand;
+
+	// Distance function used to select the inliers after the best model has been found
+	protected DistanceFromModelMultiView<Model,Point> modelDistance;
+
+	// Indexes of points in the sample for each hypothesis in the batch
+	protected GrowQueue_I32 samples = new GrowQueue_I32();
+
+	// Intrinsic parameters for each view. Copied into each thread's distance function
+	protected List<CameraPinhole> intrinsics = new ArrayList<>();
+	// incremented each time the intrinsic parameters are changed
+	protected int intrinsicVersion;
+
+	protected RecycleStack<ThreadData> threadData;
+	// storage for thread data which was used in the current batch
+	protected List<ThreadData> batchData = new ArrayList<>();
+
+	// best model found and its score
+	protected Model bestModel;
+	protected double bestScore;
+	protected int bestIteration;
+
+	// inlier set and the index of each inlier in the input list
+	protected List<Point> matchSet = new ArrayList<>();
+	protected GrowQueue_I32 matchToInput = new GrowQueue_I32();
+
+	// the minimum number of points needed to generate a hypothesis
+	protected int sampleSize;
+
+	/**
+	 * Constructor
+	 *
+	 * @param randSeed Seed for the random number generator
+	 * @param maxIterations Maximum number of hypotheses which are evaluated
+	 * @param modelManager Creates and copies models
+	 * @param factoryGenerator Creates a model generator for each thread
+	 * @param factoryDistance Creates a distance function for each thread
+	 */
+	protected BaseHypothesisMultiView_MT(long randSeed, int maxIterations,
+										 ModelManager<Model> modelManager,
+										 RecycleStack.Factory<ModelGenerator<Model,Point>> factoryGenerator,
+										 RecycleStack.Factory<DistanceFromModelMultiView<Model,Point>> factoryDistance)
+	{
+		this.rand = new Random(randSeed);
+		this.maxIterations = maxIterations;
+		this.modelManager = modelManager;
+		this.modelDistance = factoryDistance.newInstance();
+		this.bestModel = modelManager.createModelInstance();
+		this.sampleSize = factoryGenerator.newInstance().getMinimumPoints();
+		for (int i = 0; i < modelDistance.getNumberOfViews(); i++) {
+			intrinsics.add(null);
+		}
+
+		threadData = new RecycleStack<>(()->
+				new ThreadData(factoryGenerator.newInstance(),factoryDistance.newInstance()));
+	}
+
+	@Override
+	public boolean process(List<Point> dataSet) {
+		matchSet.clear();
+		matchToInput.reset();
+		bestScore = Double.MAX_VALUE;
+		bestIteration = -1;
+
+		if( dataSet.size() < sampleSize )
+			return false;
+
+		for (int iteration = 0; iteration < maxIterations; iteration += batchSize ) {
+			int batchEnd = Math.min(maxIterations, iteration + batchSize);
+
+			// draw the samples in the caller's thread so that they don't depend on the number of threads
+			drawSamples(dataSet.size(), batchEnd - iteration);
+
+			final int batchStart = iteration;
+			batchData.clear();
+			BoofConcurrency.loopBlocks(batchStart, batchEnd, (i0, i1) -> {
+				ThreadData data = threadData.pop();
+				data.initialize();
+				for (int i = i0; i < i1; i++) {
+					evaluateHypothesis(data, dataSet, i, i - batchStart);
+				}
+				synchronized (batchData) {
+					batchData.add(data);
+				}
+			});
+
+			// merge results from each thread
+			for (int i = 0; i < batchData.size(); i++) {
+				ThreadData data = batchData.get(i);
+				if( data.bestIteration >= 0 && isBetter(data.bestScore, data.bestIteration) ) {
+					bestScore = data.bestScore;
+					bestIteration = data.bestIteration;
+					modelManager.copyModel(data.bestModel, bestModel);
+				}
+				threadData.recycle(data);
+			}
+
+			if( bestIteration >= 0 && isGoodEnough(bestScore, dataSet.size()) )
+				break;
+		}
+
+		if( bestIteration < 0 )
+			return false;
+
+		return selectInliers(dataSet);
+	}
+
+	/**
+	 * Randomly selects the points used to generate each hypothesis in the batch
+	 */
+	void drawSamples( int numPoints , int numHypotheses ) {
+		samples.resize(numHypotheses*sampleSize);
+		for (int hypo = 0; hypo < numHypotheses; hypo++) {
+			int offset = hypo*sampleSize;
+			for (int i = 0; i < sampleSize; i++) {
+				// sample without replacement
+				int selected;
+				boolean duplicate;
+				do {
+					selected = rand.nextInt(numPoints);
+					duplicate = false;
+					for (int j = 0; j < i; j++) {
+						if( samples.data[offset+j] == selected ) {
+							duplicate = true;
+							break;
+						}
+					}
+				} while( duplicate );
+				samples.data[offset+i] = selected;
+			}
+		}
+	}
+
+	/**
+	 * Generates a hypothesis from the sample and scores it
+	 *
+	 * @param iteration Index of the hypothesis across all batches
+	 * @param batchIndex Index of the hypothesis inside the batch
+	 */
+	void evaluateHypothesis( ThreadData data , List<Point> dataSet , int iteration , int batchIndex ) {
+		data.sample.clear();
+		int offset = batchIndex*sampleSize;
+		for (int i = 0; i < sampleSize; i++) {
+			data.sample.add(dataSet.get(samples.data[offset+i]));
+		}
+
+		if( !data.generator.generate(data.sample, data.hypothesis) )
+			return;
+
+		data.distance.setModel(data.hypothesis);
+		double score = computeScore(data, dataSet);
+
+		if( score < data.bestScore || (score == data.bestScore && iteration < data.bestIteration) ) {
+			data.bestScore = score;
+			data.bestIteration = iteration;
+			modelManager.copyModel(data.hypothesis, data.bestModel);
+		}
+	}
+
+	private boolean isBetter( double score , int iteration ) {
+		return score < bestScore || (score == bestScore && iteration < bestIteration);
+	}
+
+	/**
+	 * Computes the score of a hypothesis. Lower scores are better. The model has already been passed to the
+	 * distance function. If it's known that the score is worse than data.bestScore it can stop early and
+	 * return any score which is larger than data.bestScore.
+	 */
+	protected abstract double computeScore( ThreadData data , List<Point> dataSet );
+
+	/**
+	 * Returns true if the best score is good enough that no more hypotheses need to be evaluated
+	 */
+	protected abstract boolean isGoodEnough( double score , int numPoints );
+
+	/**
+	 * Selects the inliers using the best model found and fills in {@link #matchSet} and {@link #matchToInput}
+	 *
+	 * @return true if the best model is acceptable
+	 */
+	protected abstract boolean selectInliers( List<Point> dataSet );
+
+	@Override
+	public void setIntrinsic(int view, CameraPinhole intrinsic) {
+		modelDistance.setIntrinsic(view, intrinsic);
+		intrinsics.set(view, intrinsic);
+		intrinsicVersion++;
+	}
+
+	@Override
+	public int getNumberOfViews() {
+		return modelDistance.getNumberOfViews();
+	}
+
+	@Override
+	public Model getModelParameters() {
+		return bestModel;
+	}
+
+	@Override
+	public List<Point> getMatchSet() {
+		return matchSet;
+	}
+
+	@Override
+	public int getInputIndex(int matchIndex) {
+		return matchToInput.get(matchIndex);
+	}
+
+	@Override
+	public int getMinimumSize() {
+		return sampleSize;
+	}
+
+	@Override
+	public Class<Point> getPointType() {
+		return modelDistance.getPointType();
+	}
+
+	@Override
+	public Class<Model> getModelType() {
+		return modelDistance.getModelType();
+	}
+
+	public int getMaxIterations() {
+		return maxIterations;
+	}
+
+	public void setMaxIterations(int maxIterations) {
+		this.maxIterations = maxIterations;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Number of hypotheses which are evaluated before early termination is considered. Changing this value
+	 * can change the results.
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Storage for each thread
+	 */
+	protected class ThreadData {
+		public ModelGenerator<Model,Point> generator;
+		public DistanceFromModelMultiView<Model,Point> distance;
+		public List<Point> sample = new ArrayList<>();
+		public Model hypothesis = modelManager.createModelInstance();
+		public Model bestModel = modelManager.createModelInstance();
+		public double bestScore;
+		public int bestIteration;
+		// storage for distance of each point
+		public double[] errors = new double[0];
+		// version of the intrinsic parameters which have been passed to the distance function
+		int intrinsicVersion = -1;
+
+		public ThreadData(ModelGenerator<Model, Point> generator, DistanceFromModelMultiView<Model, Point> distance) {
+			this.generator = generator;
+			this.distance = distance;
+		}
+
+		void initialize() {
+			bestScore = Double.MAX_VALUE;
+			bestIteration = -1;
+
+			if( intrinsicVersion != BaseHypothesisMultiView_MT.this.intrinsicVersion ) {
+				intrinsicVersion = BaseHypothesisMultiView_MT.this.intrinsicVersion;
+				for (int view = 0; view < intrinsics.size(); view++) {
+					if( intrinsics.get(view) != null )
+						distance.setIntrinsic(view, intrinsics.get(view));
+				}
+			}
+		}
+	}
+}
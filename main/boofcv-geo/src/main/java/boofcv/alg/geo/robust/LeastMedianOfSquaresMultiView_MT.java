@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.robust;
+
+import boofcv.alg.geo.DistanceFromModelMultiView;
+import boofcv.struct.lists.RecycleStack;
+import org.ddogleg.fitting.modelset.ModelGenerator;
+import org.ddogleg.fitting.modelset.ModelManager;
+import org.ddogleg.sorting.QuickSelect;
+import org.ddogleg.struct.GrowQueue_F64;
+
+import java.util.List;
+
+/**
+ * Concurrent implementation of Least Median of Squares for multiview geometry. Each hypothesis is scored by
+ * the error at the specified fraction of the sorted errors, the median by default. All the hypotheses are
+ * evaluated. The inlier set is composed of points with an error less than or equal to the error at the
+ * inlier fraction. See {@link BaseHypothesisMultiView_MT} for how the work is split between threads.
+ *
+ * @see LeastMedianOfSquaresMultiView
+ *
+ * @author Peter Abeles
+ */
+public class LeastMedianOfSquaresMultiView_MT<Model,Point> extends BaseHypothesisMultiView_MT<Model,Point> {
+	// If the best median error is more than this the model is rejected
+	protected double maxMedianError;
+	// fraction of the sorted errors which is used to score a hypothesis
+	protected double errorFraction = 0.5;
+	// fraction of the points which are considered inliers
+	protected double inlierFraction;
+
+	// storage for errors when selecting inliers
+	protected GrowQueue_F64 errors = new GrowQueue_F64();
+	protected GrowQueue_F64 sorted = new GrowQueue_F64();
+
+	/**
+	 * Constructor
+	 *
+	 * @param randSeed Seed for the random number generator
+	 * @param totalCycles Number of hypotheses which are evaluated
+	 * @param maxMedianError If the best median error is larger than this the model is rejected
+	 * @param inlierFraction Fraction of the points with the smallest error which are inliers
+	 * @param modelManager Creates and copies models
+	 * @param factoryGenerator Creates a model generator for each thread
+	 * @param factoryDistance Creates a distance function for each thread
+	 */
+	public LeastMedianOfSquaresMultiView_MT(long randSeed, int totalCycles,
+											double maxMedianError, double inlierFraction,
+											ModelManager<Model> modelManager,
+											RecycleStack.Factory<ModelGenerator<Model,Point>> factoryGenerator,
+											RecycleStack.Factory<DistanceFromModelMultiView<Model,Point>> factoryDistance)
+	{
+		super(randSeed, totalCycles, modelManager, factoryGenerator, factoryDistance);
+		this.maxMedianError = maxMedianError;
+		this.inlierFraction = inlierFraction;
+	}
+
+	public LeastMedianOfSquaresMultiView_MT(long randSeed, int totalCycles,
+											ModelManager<Model> modelManager,
+											RecycleStack.Factory<ModelGenerator<Model,Point>> factoryGenerator,
+											RecycleStack.Factory<DistanceFromModelMultiView<Model,Point>> factoryDistance)
+	{
+		this(randSeed, totalCycles, Double.MAX_VALUE, 0.6, modelManager, factoryGenerator, factoryDistance);
+	}
+
+	@Override
+	protected double computeScore(ThreadData data, List<Point> dataSet) {
+		int N = dataSet.size();
+		if( data.errors.length < N )
+			data.errors = new double[N];
+
+		data.distance.computeDistance(dataSet, data.errors);
+
+		return QuickSelect.select(data.errors, selectIndex(errorFraction, N), N);
+	}
+
+	@Override
+	protected boolean isGoodEnough(double score, int numPoints) {
+		return false;
+	}
+
+	@Override
+	protected boolean selectInliers(List<Point> dataSet) {
+		if( bestScore > maxMedianError )
+			return false;
+
+		int N = dataSet.size();
+		errors.resize(N);
+		sorted.resize(N);
+
+		modelDistance.setModel(bestModel);
+		modelDistance.computeDistance(dataSet, errors.data);
+		System.arraycopy(errors.data, 0, sorted.data, 0, N);
+		double threshold = QuickSelect.select(sorted.data, selectIndex(inlierFraction, N), N);
+
+		for (int i = 0; i < N; i++) {
+			if( errors.data[i] <= threshold ) {
+				matchSet.add(dataSet.get(i));
+				matchToInput.add(i);
+			}
+		}
+		return true;
+	}
+
+	private static int selectIndex( double fraction , int N ) {
+		return Math.min(N - 1, (int)(N*fraction));
+	}
+
+	/**
+	 * Returns the error of the best model at the error fraction
+	 */
+	@Override
+	public double getFitQuality() {
+		return bestScore;
+	}
+
+	public double getErrorFraction() {
+		return errorFraction;
+	}
+
+	public void setErrorFraction(double errorFraction) {
+		this.errorFraction = errorFraction;
+	}
+
+	public double getMaxMedianError() {
+		return maxMedianError;
+	}
+
+	public void setMaxMedianError(double maxMedianError) {
+		this.maxMedianError = maxMedianError;
+	}
+
+	public double getInlierFraction() {
+		return inlierFraction;
+	}
+
+	public void setInlierFraction(double inlierFraction) {
+		this.inlierFraction = inlierFraction;
+	}
+}
@@ -0,0 +1,420 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.robust;
+
+import org.ddogleg.fitting.modelset.DistanceFromModel;
+import org.ddogleg.fitting.modelset.ModelGenerator;
+import org.ddogleg.fitting.modelset.ModelManager;
+import org.ddogleg.fitting.modelset.ModelMatcher;
+import org.ddogleg.struct.GrowQueue_I32;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * <p>
+ * PROSAC (Progressive Sample Consensus) [1] with optional early rejection of hypotheses using Wald's Sequential
+ * Probability Ratio Test (SPRT) [2]. PROSAC draws samples from a progressively larger set of the highest quality
+ * points, e.g. associations with the best fit score, and converges to RANSAC's uniform sampling in the worst case.
+ * The input list MUST be sorted by quality with the best points first.
+ * </p>
+ *
+ * <p>
+ * When SPRT is enabled hypotheses are verified one point at a time and are rejected as soon as the likelihood
+ * ratio shows that they are most likely bad. Only hypotheses which pass the test are fully scored. Points are
+ * verified in a random order, which is shuffled once per call to process, to avoid biasing the test with the
+ * sorted order. The probability of a point being
+ * consistent with a bad model is estimated online from rejected hypotheses.
+ * </p>
+ *
+ * <p>
+ * Iterations stop when the standard RANSAC criterion is met for the specified confidence, given the inlier
+ * fraction of the best hypothesis, or the maximum number of iterations has been reached.
+ * </p>
+ *
+ * <p>
+ * [1] Chum, Ondrej, and Jiri Matas. "Matching with PROSAC-progressive sample consensus." CVPR 2005<br>
+ * [2] Chum, Ondrej, and Jiri Matas. "Optimal randomized RANSAC." IEEE TPAMI 30.8 (2008)
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class Prosac<Model,Point> implements ModelMatcher<Model,Point> {
+	protected ModelManager<Model> modelManager;
+	protected ModelGenerator<Model,Point> modelGenerator;
+	protected DistanceFromModel<Model,Point> modelDistance;
+
+	protected Random rand;
+
+	// maximum number of iterations
+	protected int maxIterations;
+	// threshold for a point to be an inlier
+	protected double thresholdFit;
+	// desired probability that an all inlier sample has been drawn
+	protected double confidence = 0.99;
+
+	// If true SPRT will be used to reject hypotheses early
+	protected boolean sprt = true;
+	// Average number of points which could be verified in the time it takes to generate a hypothesis
+	protected double sprtTimeModel = 200;
+	// Initial estimate of the probability of a point being consistent with a good model
+	protected double sprtEpsilonInitial = 0.1;
+	// Initial estimate of the probability of a point being consistent with a bad model
+	protected double sprtDeltaInitial = 0.01;
+
+	// current SPRT parameters
+	protected double epsilon, delta, decisionThreshold;
+	// statistics for estimating delta from rejected hypotheses
+	protected int rejectedTested, rejectedConsistent;
+	// order points are verified in by SPRT
+	protected GrowQueue_I32 verifyOrder = new GrowQueue_I32();
+
+	// number of iterations performed in the last call to process
+	protected int iteration;
+
+	// storage for the sample and hypothesis
+	protected List<Point> sample = new ArrayList<>();
+	protected GrowQueue_I32 sampleIndexes = new GrowQueue_I32();
+	protected Model hypothesis;
+	protected Model bestModel;
+	protected int bestInliers;
+	// number of points in the input
+	protected int numPoints;
+
+	// inlier set and the index of each inlier in the input list
+	protected List<Point> matchSet = new ArrayList<>();
+	protected GrowQueue_I32 matchToInput = new GrowQueue_I32();
+
+	public Prosac(long randSeed,
+				  ModelManager<Model> modelManager,
+				  ModelGenerator<Model, Point> modelGenerator,
+				  DistanceFromModel<Model, Point> modelDistance,
+				  int maxIterations, double thresholdFit)
+	{
+		this.rand = new Random(randSeed);
+		this.modelManager = modelManager;
+		this.modelGenerator = modelGenerator;
+		this.modelDistance = modelDistance;
+		this.maxIterations = maxIterations;
+		this.thresholdFit = thresholdFit;
+
+		hypothesis = modelManager.createModelInstance();
+		bestModel = modelManager.createModelInstance();
+	}
+
+	@Override
+	public boolean process(List<Point> dataSet) {
+		matchSet.clear();
+		matchToInput.reset();
+		bestInliers = 0;
+		iteration = 0;
+
+		final int N = numPoints = dataSet.size();
+		final int m = modelGenerator.getMinimumPoints();
+		if( N < m )
+			return false;
+
+		epsilon = sprtEpsilonInitial;
+		delta = sprtDeltaInitial;
+		rejectedTested = rejectedConsistent = 0;
+		decisionThreshold = computeDecisionThreshold();
+		if( sprt )
+			shuffleVerifyOrder(N);
+
+		// Initialize PROSAC's growth function. T_n is the expected number of samples drawn from the first n points
+		// out of maxIterations samples, scaled so that T_N = maxIterations
+		int n = m;
+		double T_n = maxIterations;
+		for (int i = 0; i < m; i++) {
+			T_n *= (double)(n-i)/(N-i);
+		}
+		int T_n_prime = 1;
+
+		int limitIterations = maxIterations;
+		while( iteration < limitIterations ) {
+			iteration++;
+
+			// increase the size of the sampling set
+			if( iteration == T_n_prime && n < N ) {
+				double T_n_next = T_n*(n+1)/(n+1-m);
+				T_n_prime += (int)Math.ceil(T_n_next - T_n);
+				T_n = T_n_next;
+				n++;
+			}
+
+			if( T_n_prime < iteration ) {
+				// standard RANSAC sampling from the first n points
+				drawSample(dataSet, n, m);
+			} else {
+				// the n-th point is always included in the sample
+				drawSample(dataSet, n-1, m-1);
+				sampleIndexes.add(n-1);
+				sample.add(dataSet.get(n-1));
+			}
+
+			if( !modelGenerator.generate(sample, hypothesis) )
+				continue;
+
+			modelDistance.setModel(hypothesis);
+
+			int inliers = sprt ? verifySprt(dataSet) : countInliers(dataSet);
+
+			if( inliers > bestInliers ) {
+				bestInliers = inliers;
+				modelManager.copyModel(hypothesis, bestModel);
+
+				limitIterations = Math.min(maxIterations, iteration + 1 +
+						requiredIterations(bestInliers/(double)N, m));
+
+				// the inlier fraction of the best model is the best estimate of epsilon
+				if( sprt && bestInliers/(double)N > epsilon ) {
+					epsilon = bestInliers/(double)N;
+					decisionThreshold = computeDecisionThreshold();
+				}
+			}
+		}
+
+		if( bestInliers == 0 )
+			return false;
+
+		modelDistance.setModel(bestModel);
+		for (int i = 0; i < N; i++) {
+			Point p = dataSet.get(i);
+			if( modelDistance.computeDistance(p) <= thresholdFit ) {
+				matchSet.add(p);
+				matchToInput.add(i);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Selects 'count' unique points from the first 'n' points
+	 */
+	void drawSample( List<Point> dataSet , int n , int count ) {
+		sample.clear();
+		sampleIndexes.reset();
+		while( sampleIndexes.size < count ) {
+			int selected = rand.nextInt(n);
+			if( isInSample(selected) )
+				continue;
+			sampleIndexes.add(selected);
+			sample.add(dataSet.get(selected));
+		}
+	}
+
+	private boolean isInSample( int index ) {
+		for (int i = 0; i < sampleIndexes.size; i++) {
+			if( sampleIndexes.data[i] == index )
+				return true;
+		}
+		return false;
+	}
+
+	void shuffleVerifyOrder( int N ) {
+		verifyOrder.resize(N);
+		for (int i = 0; i < N; i++) {
+			verifyOrder.data[i] = i;
+		}
+		for (int i = N-1; i > 0; i--) {
+			int j = rand.nextInt(i+1);
+			int tmp = verifyOrder.data[i];
+			verifyOrder.data[i] = verifyOrder.data[j];
+			verifyOrder.data[j] = tmp;
+		}
+	}
+
+	int countInliers( List<Point> dataSet ) {
+		int inliers = 0;
+		for (int i = 0; i < dataSet.size(); i++) {
+			if( modelDistance.computeDistance(dataSet.get(i)) <= thresholdFit )
+				inliers++;
+		}
+		return inliers;
+	}
+
+	/**
+	 * Verifies the hypothesis using SPRT.
+	 *
+	 * @return number of inliers or -1 if it was rejected
+	 */
+	int verifySprt( List<Point> dataSet ) {
+		final int N = dataSet.size();
+		final double ratioConsistent = delta/epsilon;
+		final double ratioInconsistent = (1.0-delta)/(1.0-epsilon);
+
+		double lambda = 1.0;
+		int inliers = 0;
+		for (int i = 0; i < N; i++) {
+			if( modelDistance.computeDistance(dataSet.get(verifyOrder.data[i])) <= thresholdFit ) {
+				inliers++;
+				lambda *= ratioConsistent;
+			} else {
+				lambda *= ratioInconsistent;
+			}
+
+			if( lambda > decisionThreshold ) {
+				// Rejected. Update the estimate of delta
+				rejectedTested += i+1;
+				rejectedConsistent += inliers;
+				double deltaNew = Math.max(1e-6,rejectedConsistent/(double)rejectedTested);
+				if( Math.abs(deltaNew-delta)/delta > 0.05 && deltaNew < epsilon ) {
+					delta = deltaNew;
+					decisionThreshold = computeDecisionThreshold();
+				}
+				return -1;
+			}
+		}
+		return inliers;
+	}
+
+	/**
+	 * Computes the SPRT decision threshold A by solving A = K + 1 + log(A), see equation 17 in [2]
+	 */
+	double computeDecisionThreshold() {
+		double C = (1.0-delta)*Math.log((1.0-delta)/(1.0-epsilon)) + delta*Math.log(delta/epsilon);
+		double K = sprtTimeModel*C;
+
+		double A = K + 1.0;
+		for (int i = 0; i < 10; i++) {
+			double A_next = K + 1.0 + Math.log(A);
+			if( Math.abs(A_next-A) < 1e-8 ) {
+				A = A_next;
+				break;
+			}
+			A = A_next;
+		}
+		return A;
+	}
+
+	/**
+	 * Number of iterations needed to sample an all inlier set with the specified confidence
+	 */
+	int requiredIterations( double inlierFraction , int sampleSize ) {
+		double probAllInliers = Math.pow(inlierFraction, sampleSize);
+		if( probAllInliers >= 1.0 )
+			return 0;
+		if( probAllInliers <= 0.0 )
+			return maxIterations;
+		double k = Math.log(1.0-confidence)/Math.log(1.0-probAllInliers);
+		return (int)Math.min(maxIterations, Math.ceil(k));
+	}
+
+	@Override
+	public Model getModelParameters() {
+		return bestModel;
+	}
+
+	@Override
+	public List<Point> getMatchSet() {
+		return matchSet;
+	}
+
+	@Override
+	public int getInputIndex(int matchIndex) {
+		return matchToInput.get(matchIndex);
+	}
+
+	/**
+	 * Returns the number of points which are not inliers
+	 */
+	@Override
+	public double getFitQuality() {
+		return numPoints - matchSet.size();
+	}
+
+	@Override
+	public int getMinimumSize() {
+		return modelGenerator.getMinimumPoints();
+	}
+
+	@Override
+	public Class<Point> getPointType() {
+		return modelDistance.getPointType();
+	}
+
+	@Override
+	public Class<Model> getModelType() {
+		return modelDistance.getModelType();
+	}
+
+	/**
+	 * Number of iterations performed in the most recent call to {@link #process}
+	 */
+	public int getIteration() {
+		return iteration;
+	}
+
+	public int getMaxIterations() {
+		return maxIterations;
+	}
+
+	public void setMaxIterations(int maxIterations) {
+		this.maxIterations = maxIterations;
+	}
+
+	public double getThresholdFit() {
+		return thresholdFit;
+	}
+
+	public void setThresholdFit(double thresholdFit) {
+		this.thresholdFit = thresholdFit;
+	}
+
+	public double getConfidence() {
+		return confidence;
+	}
+
+	public void setConfidence(double confidence) {
+		this.confidence = confidence;
+	}
+
+	public boolean isSprt() {
+		return sprt;
+	}
+
+	public void setSprt(boolean sprt) {
+		this.sprt = sprt;
+	}
+
+	public double getSprtTimeModel() {
+		return sprtTimeModel;
+	}
+
+	public void setSprtTimeModel(double sprtTimeModel) {
+		this.sprtTimeModel = sprtTimeModel;
+	}
+
+	public double getSprtEpsilonInitial() {
+		return sprtEpsilonInitial;
+	}
+
+	public void setSprtEpsilonInitial(double sprtEpsilonInitial) {
+		this.sprtEpsilonInitial = sprtEpsilonInitial;
+	}
+
+	public double getSprtDeltaInitial() {
+		return sprtDeltaInitial;
+	}
+
+	public void setSprtDeltaInitial(double sprtDeltaInitial) {
+		this.sprtDeltaInitial = sprtDeltaInitial;
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.robust;
+
+import boofcv.alg.geo.DistanceFromModelMultiView;
+import boofcv.struct.lists.RecycleStack;
+import org.ddogleg.fitting.modelset.ModelGenerator;
+import org.ddogleg.fitting.modelset.ModelManager;
+
+import java.util.List;
+
+/**
+ * Concurrent implementation of RANSAC for multiview geometry. Hypotheses are scored by the number of points
+ * which are outliers and the one with the fewest outliers is selected. Points are considered inliers if their
+ * distance is less than or equal to the fit threshold. Processing stops early if a hypothesis is found that
+ * fits all the points. See {@link BaseHypothesisMultiView_MT} for how the work is split between threads.
+ *
+ * @see RansacMultiView
+ *
+ * @author Peter Abeles
+ */
+public class RansacMultiView_MT<Model,Point> extends BaseHypothesisMultiView_MT<Model,Point> {
+	// threshold for a point to be considered an inlier
+	protected double thresholdFit;
+
+	/**
+	 * Constructor
+	 *
+	 * @param randSeed Seed for the random number generator
+	 * @param modelManager Creates and copies models
+	 * @param factoryGenerator Creates a model generator for each thread
+	 * @param factoryDistance Creates a distance function for each thread
+	 * @param maxIterations Maximum number of hypotheses which are evaluated
+	 * @param thresholdFit Points with a distance less than or equal to this are inliers
+	 */
+	public RansacMultiView_MT(long randSeed,
+							  ModelManager<Model> modelManager,
+							  RecycleStack.Factory<ModelGenerator<Model,Point>> factoryGenerator,
+							  RecycleStack.Factory<DistanceFromModelMultiView<Model,Point>> factoryDistance,
+							  int maxIterations, double thresholdFit)
+	{
+		super(randSeed, maxIterations, modelManager, factoryGenerator, factoryDistance);
+		this.thresholdFit = thresholdFit;
+	}
+
+	@Override
+	protected double computeScore(ThreadData data, List<Point> dataSet) {
+		int outliers = 0;
+		for (int i = 0; i < dataSet.size(); i++) {
+			if( data.distance.computeDistance(dataSet.get(i)) > thresholdFit ) {
+				// stop once it can't be better than the best hypothesis
+				if( ++outliers > data.bestScore )
+					break;
+			}
+		}
+		return outliers;
+	}
+
+	@Override
+	protected boolean isGoodEnough(double score, int numPoints) {
+		return score == 0;
+	}
+
+	@Override
+	protected boolean selectInliers(List<Point> dataSet) {
+		modelDistance.setModel(bestModel);
+		for (int i = 0; i < dataSet.size(); i++) {
+			Point p = dataSet.get(i);
+			if( modelDistance.computeDistance(p) <= thresholdFit ) {
+				matchSet.add(p);
+				matchToInput.add(i);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of points which were not inliers
+	 */
+	@Override
+	public double getFitQuality() {
+		return bestScore;
+	}
+
+	public double getThresholdFit() {
+		return thresholdFit;
+	}
+
+	public void setThresholdFit(double thresholdFit) {
+		this.thresholdFit = thresholdFit;
+	}
+}
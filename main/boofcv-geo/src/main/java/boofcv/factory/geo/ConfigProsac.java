@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.factory.geo;
+
+import boofcv.alg.geo.robust.Prosac;
+import boofcv.struct.Configuration;
+
+/**
+ * Standard configuration for {@link Prosac PROSAC}. Observations passed to PROSAC must be sorted by quality
+ * with the best first.
+ *
+ * @author Peter Abeles
+ */
+public class ConfigProsac implements Configuration {
+	/**
+	 * Random seed that's used internally
+	 */
+	public long randSeed = 0xDEADBEEF;
+	/**
+	 * Maximum number of iterations PROSAC will perform
+	 */
+	public int maxIterations;
+	/**
+	 * Inlier threshold.
+	 */
+	public double inlierThreshold;
+	/**
+	 * Probability that a sample composed of only inliers has been drawn before it stops
+	 */
+	public double confidence = 0.99;
+	/**
+	 * If true then hypotheses are rejected early using Wald's Sequential Probability Ratio Test (SPRT)
+	 */
+	public boolean sprt = true;
+	/**
+	 * SPRT: Time it takes to generate a hypothesis in units of the time to compute the distance of one point
+	 */
+	public double sprtTimeModel = 200;
+	/**
+	 * SPRT: Initial estimate of the probability of a point being consistent with a good model
+	 */
+	public double sprtEpsilon = 0.1;
+	/**
+	 * SPRT: Initial estimate of the probability of a point being consistent with a bad model
+	 */
+	public double sprtDelta = 0.01;
+
+	public ConfigProsac(int maxIterations, double inlierThreshold) {
+		this.maxIterations = maxIterations;
+		this.inlierThreshold = inlierThreshold;
+	}
+
+	public ConfigProsac() {
+	}
+
+	@Override
+	public void checkValidity() {
+		if( maxIterations <= 0 )
+			throw new IllegalArgumentException("maxIterations must be more than zero");
+		if( inlierThreshold <= 0 )
+			throw new IllegalArgumentException("inlierThreshold must be more than zero");
+		if( confidence <= 0 || confidence >= 1 )
+			throw new IllegalArgumentException("confidence must be between 0 and 1, exclusive");
+		if( sprt && sprtDelta >= sprtEpsilon )
+			throw new IllegalArgumentException("sprtDelta must be less than sprtEpsilon");
+	}
+}
@@ -29,6 +29,7 @@ import boofcv.alg.geo.DistanceFromModelMultiView;
 import boofcv.alg.geo.f.FundamentalResidualSampson;
 import boofcv.alg.geo.pose.PnPDistanceReprojectionSq;
 import boofcv.alg.geo.robust.*;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.struct.geo.AssociatedPair;
 import boofcv.struct.geo.AssociatedTriple;
 import boofcv.struct.geo.Point2D3D;
@@ -80,6 +81,17 @@ public class FactoryMultiViewRobust {
 		configPnP.checkValidity();
 		configLMedS.checkValidity();
 
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			final ConfigPnP _configPnP = configPnP;
+			LeastMedianOfSquaresMultiView_MT<Se3_F64, Point2D3D> lmeds = new LeastMedianOfSquaresMultiView_MT<>(
+					configLMedS.randSeed, configLMedS.totalCycles, new ModelManagerSe3_F64(),
+					()->new EstimatorToGenerator<>(FactoryMultiView.pnp_1(
+							_configPnP.which, _configPnP.epnpIterations, _configPnP.numResolve)),
+					PnPDistanceReprojectionSq::new);
+			lmeds.setErrorFraction(configLMedS.errorFraction);
+			return lmeds;
+		}
+
 		Estimate1ofPnP estimatorPnP = FactoryMultiView.pnp_1( configPnP.which , configPnP.epnpIterations, configPnP.numResolve);
 
 		DistanceFromModelMultiView<Se3_F64,Point2D3D> distance = new PnPDistanceReprojectionSq();
@@ -114,15 +126,22 @@ public class FactoryMultiViewRobust {
 		pnp.checkValidity();
 		ransac.checkValidity();
 
+		// convert from pixels to pixels squared
+		double threshold = ransac.inlierThreshold*ransac.inlierThreshold;
+
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			final ConfigPnP _pnp = pnp;
+			return new RansacMultiView_MT<>(ransac.randSeed, new ModelManagerSe3_F64(),
+					()->new EstimatorToGenerator<>(FactoryMultiView.pnp_1(_pnp.which, _pnp.epnpIterations, _pnp.numResolve)),
+					PnPDistanceReprojectionSq::new, ransac.maxIterations, threshold);
+		}
+
 		Estimate1ofPnP estimatorPnP = FactoryMultiView.pnp_1(pnp.which, pnp.epnpIterations, pnp.numResolve);
 		DistanceFromModelMultiView<Se3_F64,Point2D3D> distance = new PnPDistanceReprojectionSq();
 		ModelManagerSe3_F64 manager = new ModelManagerSe3_F64();
 		EstimatorToGenerator<Se3_F64,Point2D3D> generator =
 				new EstimatorToGenerator<>(estimatorPnP);
 
-		// convert from pixels to pixels squared
-		double threshold = ransac.inlierThreshold*ransac.inlierThreshold;
-
 		return new RansacMultiView<>(ransac.randSeed, manager, generator, distance, ransac.maxIterations, threshold);
 	}
 
@@ -148,11 +167,22 @@ public class FactoryMultiViewRobust {
 		else
 			essential.checkValidity();
 
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			final ConfigEssential _essential = essential;
+			LeastMedianOfSquaresMultiView_MT<Se3_F64, AssociatedPair> alg = new LeastMedianOfSquaresMultiView_MT<>(
+					lmeds.randSeed, lmeds.totalCycles, new ModelManagerSe3_F64(),
+					()->new Se3FromEssentialGenerator(
+							FactoryMultiView.essential_1(_essential.which, _essential.numResolve),
+							createTriangulateGeometric()),
+					()->new DistanceSe3SymmetricSq(createTriangulateGeometric()));
+			alg.setErrorFraction(lmeds.errorFraction);
+			return alg;
+		}
+
 		Estimate1ofEpipolar epipolar = FactoryMultiView.
 				essential_1(essential.which, essential.numResolve);
 
-		Triangulate2ViewsMetric triangulate = FactoryMultiView.triangulate2ViewMetric(
-				new ConfigTriangulation(ConfigTriangulation.Type.GEOMETRIC));
+		Triangulate2ViewsMetric triangulate = createTriangulateGeometric();
 		ModelManager<Se3_F64> manager = new ModelManagerSe3_F64();
 		ModelGenerator<Se3_F64, AssociatedPair> generateEpipolarMotion =
 				new Se3FromEssentialGenerator(epipolar, triangulate);
@@ -222,11 +252,22 @@ public class FactoryMultiViewRobust {
 			throw new RuntimeException("Error model has to be Euclidean");
 		}
 
+		double ransacTOL = ransac.inlierThreshold * ransac.inlierThreshold * 2.0;
+
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			final ConfigEssential _essential = essential;
+			return new RansacMultiView_MT<>(ransac.randSeed, new ModelManagerSe3_F64(),
+					()->new Se3FromEssentialGenerator(
+							FactoryMultiView.essential_1(_essential.which, _essential.numResolve),
+							createTriangulateGeometric()),
+					()->new DistanceSe3SymmetricSq(createTriangulateGeometric()),
+					ransac.maxIterations, ransacTOL);
+		}
+
 		Estimate1ofEpipolar epipolar = FactoryMultiView.
 				essential_1(essential.which, essential.numResolve);
 
-		Triangulate2ViewsMetric triangulate = FactoryMultiView.triangulate2ViewMetric(
-				new ConfigTriangulation(ConfigTriangulation.Type.GEOMETRIC));
+		Triangulate2ViewsMetric triangulate = createTriangulateGeometric();
 		ModelManager<Se3_F64> manager = new ModelManagerSe3_F64();
 		ModelGenerator<Se3_F64, AssociatedPair> generateEpipolarMotion =
 				new Se3FromEssentialGenerator(epipolar, triangulate);
@@ -234,8 +275,6 @@ public class FactoryMultiViewRobust {
 		DistanceFromModelMultiView<Se3_F64, AssociatedPair> distanceSe3 =
 				new DistanceSe3SymmetricSq(triangulate);
 
-		double ransacTOL = ransac.inlierThreshold * ransac.inlierThreshold * 2.0;
-
 		return new RansacMultiView<>(ransac.randSeed, manager, generateEpipolarMotion, distanceSe3,
 				ransac.maxIterations, ransacTOL);
 	}
@@ -256,6 +295,15 @@ public class FactoryMultiViewRobust {
 		}
 
 		ModelManager<DMatrixRMaj> managerE = new ModelManagerEpipolarMatrix();
+		double ransacTOL = ransac.inlierThreshold * ransac.inlierThreshold;
+
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			final ConfigEssential _essential = essential;
+			return new RansacMultiView_MT<>(ransac.randSeed, managerE,
+					()->new GenerateEpipolarMatrix(FactoryMultiView.essential_1(_essential.which, _essential.numResolve)),
+					DistanceMultiView_EssentialSampson::new, ransac.maxIterations, ransacTOL);
+		}
+
 		Estimate1ofEpipolar estimateF = FactoryMultiView.essential_1(essential.which,
 				essential.numResolve);
 		GenerateEpipolarMatrix generateE = new GenerateEpipolarMatrix(estimateF);
@@ -263,7 +311,6 @@ public class FactoryMultiViewRobust {
 		// How the error is measured
 		DistanceFromModelMultiView<DMatrixRMaj,AssociatedPair> errorMetric =
 				new DistanceMultiView_EssentialSampson();
-		double ransacTOL = ransac.inlierThreshold * ransac.inlierThreshold;
 
 		return new RansacMultiView<>(ransac.randSeed, managerE, generateE, errorMetric,
 				ransac.maxIterations, ransacTOL);
@@ -283,20 +330,7 @@ public class FactoryMultiViewRobust {
 		GenerateEpipolarMatrix generateF = new GenerateEpipolarMatrix(estimateF);
 
 		// How the error is measured
-		DistanceFromModel<DMatrixRMaj,AssociatedPair> errorMetric;
-
-		switch( fundamental.errorModel ) {
-			case SAMPSON:
-				errorMetric = new DistanceFromModelResidual<>(new FundamentalResidualSampson());
-				break;
-
-			case GEOMETRIC:
-				errorMetric = new DistanceFundamentalGeometric();
-				break;
-
-			default:
-				throw new RuntimeException("Unknown");
-		}
+		DistanceFromModel<DMatrixRMaj,AssociatedPair> errorMetric = createFundamentalDistance(fundamental);
 
 		double ransacTOL = ransac.inlierThreshold * ransac.inlierThreshold;
 
@@ -407,30 +441,256 @@ public class FactoryMultiViewRobust {
 
 		trifocal.checkValidity();
 
-		double ransacTol;
-		DistanceFromModel<TrifocalTensor,AssociatedTriple> distance;
+		double ransacTol = trifocalTolerance(error, ransac.inlierThreshold);
+		DistanceFromModel<TrifocalTensor,AssociatedTriple> distance = createTrifocalDistance(error);
+
+		Estimate1ofTrifocalTensor estimator = FactoryMultiView.trifocal_1(trifocal);
+		ModelManager<TrifocalTensor> manager = new ManagerTrifocalTensor();
+		ModelGenerator<TrifocalTensor,AssociatedTriple> generator = new GenerateTrifocalTensor(estimator);
+
+		return new Ransac<>(ransac.randSeed, manager, generator, distance, ransac.maxIterations, ransacTol);
+	}
+
+	/**
+	 * Robust solution to PnP problem using {@link Prosac PROSAC}. Input observations are in normalized
+	 * image coordinates and must be sorted by quality with the best first. Found transform is from world to camera.
+	 *
+	 * @see #pnpRansac
+	 *
+	 * @param pnp PnP parameters. If null default is used.
+	 * @param prosac Parameters for PROSAC. Can't be null.
+	 * @return Robust Se3_F64 estimator
+	 */
+	public static ProsacMultiView<Se3_F64, Point2D3D> pnpProsac( @Nullable ConfigPnP pnp,
+																 @Nonnull ConfigProsac prosac )
+	{
+		if( pnp == null )
+			pnp = new ConfigPnP();
+		pnp.checkValidity();
+		prosac.checkValidity();
+
+		Estimate1ofPnP estimatorPnP = FactoryMultiView.pnp_1(pnp.which, pnp.epnpIterations, pnp.numResolve);
+		DistanceFromModelMultiView<Se3_F64,Point2D3D> distance = new PnPDistanceReprojectionSq();
+		ModelManagerSe3_F64 manager = new ModelManagerSe3_F64();
+		EstimatorToGenerator<Se3_F64,Point2D3D> generator = new EstimatorToGenerator<>(estimatorPnP);
+
+		// convert from pixels to pixels squared
+		double threshold = prosac.inlierThreshold*prosac.inlierThreshold;
+
+		return configure(new ProsacMultiView<>(prosac.randSeed, manager, generator, distance,
+				prosac.maxIterations, threshold),prosac);
+	}
 
+	/**
+	 * Robust solution for estimating the stereo baseline {@link Se3_F64} using epipolar geometry from two views with
+	 * {@link Prosac PROSAC}. Input observations are in normalized image coordinates and must be sorted by quality
+	 * with the best first.
+	 *
+	 * @see #baselineRansac
+	 *
+	 * @param essential Essential matrix estimation parameters.
+	 * @param prosac Parameters for PROSAC. Can't be null.
+	 * @return Robust Se3_F64 estimator
+	 */
+	public static ProsacMultiView<Se3_F64, AssociatedPair> baselineProsac( @Nullable ConfigEssential essential,
+																		   @Nonnull ConfigProsac prosac )
+	{
+		if( essential == null )
+			essential = new ConfigEssential();
+		else
+			essential.checkValidity();
+		prosac.checkValidity();
+
+		if( essential.errorModel != ConfigEssential.ErrorModel.GEOMETRIC) {
+			throw new RuntimeException("Error model has to be Euclidean");
+		}
+
+		Estimate1ofEpipolar epipolar = FactoryMultiView.essential_1(essential.which, essential.numResolve);
+		Triangulate2ViewsMetric triangulate = createTriangulateGeometric();
+		ModelGenerator<Se3_F64, AssociatedPair> generateEpipolarMotion =
+				new Se3FromEssentialGenerator(epipolar, triangulate);
+		DistanceFromModelMultiView<Se3_F64, AssociatedPair> distanceSe3 = new DistanceSe3SymmetricSq(triangulate);
+
+		double tol = prosac.inlierThreshold * prosac.inlierThreshold * 2.0;
+
+		return configure(new ProsacMultiView<>(prosac.randSeed, new ModelManagerSe3_F64(), generateEpipolarMotion,
+				distanceSe3, prosac.maxIterations, tol),prosac);
+	}
+
+	/**
+	 * Robust solution for estimating the essential matrix with {@link Prosac PROSAC}. Input observations are in
+	 * normalized image coordinates and must be sorted by quality with the best first.
+	 *
+	 * @see #essentialRansac
+	 *
+	 * @param essential Essential matrix estimation parameters.
+	 * @param prosac Parameters for PROSAC. Can't be null.
+	 * @return Robust essential matrix estimator
+	 */
+	public static ModelMatcherMultiview<DMatrixRMaj, AssociatedPair> essentialProsac( @Nullable ConfigEssential essential,
+																					 @Nonnull ConfigProsac prosac )
+	{
+		if( essential == null )
+			essential = new ConfigEssential();
+		else
+			essential.checkValidity();
+		prosac.checkValidity();
+
+		if( essential.errorModel == ConfigEssential.ErrorModel.GEOMETRIC) {
+			return new MmmvSe3ToEssential(baselineProsac(essential,prosac));
+		}
+
+		ModelManager<DMatrixRMaj> managerE = new ModelManagerEpipolarMatrix();
+		Estimate1ofEpipolar estimateE = FactoryMultiView.essential_1(essential.which, essential.numResolve);
+		GenerateEpipolarMatrix generateE = new GenerateEpipolarMatrix(estimateE);
+		DistanceFromModelMultiView<DMatrixRMaj,AssociatedPair> errorMetric =
+				new DistanceMultiView_EssentialSampson();
+		double tol = prosac.inlierThreshold * prosac.inlierThreshold;
+
+		return configure(new ProsacMultiView<>(prosac.randSeed, managerE, generateE, errorMetric,
+				prosac.maxIterations, tol),prosac);
+	}
+
+	/**
+	 * Robust solution for estimating the fundamental matrix with {@link Prosac PROSAC}. Input observations are in
+	 * pixels and must be sorted by quality with the best first.
+	 *
+	 * @see #fundamentalRansac
+	 *
+	 * @param fundamental Fundamental matrix estimation parameters. Can't be null.
+	 * @param prosac Parameters for PROSAC. Can't be null.
+	 * @return Robust fundamental matrix estimator
+	 */
+	public static Prosac<DMatrixRMaj, AssociatedPair> fundamentalProsac( @Nonnull ConfigFundamental fundamental,
+																		 @Nonnull ConfigProsac prosac )
+	{
+		fundamental.checkValidity();
+		prosac.checkValidity();
+
+		ModelManager<DMatrixRMaj> managerF = new ModelManagerEpipolarMatrix();
+		Estimate1ofEpipolar estimateF = FactoryMultiView.fundamental_1(fundamental.which, fundamental.numResolve);
+		GenerateEpipolarMatrix generateF = new GenerateEpipolarMatrix(estimateF);
+		DistanceFromModel<DMatrixRMaj,AssociatedPair> errorMetric = createFundamentalDistance(fundamental);
+
+		double tol = prosac.inlierThreshold * prosac.inlierThreshold;
+
+		return configure(new Prosac<>(prosac.randSeed, managerF, generateF, errorMetric,
+				prosac.maxIterations, tol),prosac);
+	}
+
+	/**
+	 * Robust solution for estimating {@link Homography2D_F64} with {@link Prosac PROSAC}. Input observations are
+	 * in pixel coordinates and must be sorted by quality with the best first.
+	 *
+	 * @see #homographyRansac
+	 *
+	 * @param homography Homography estimation parameters. If null default is used.
+	 * @param prosac Parameters for PROSAC. Can't be null.
+	 * @return Homography estimator
+	 */
+	public static Prosac<Homography2D_F64,AssociatedPair>
+	homographyProsac( @Nullable ConfigHomography homography , @Nonnull ConfigProsac prosac )
+	{
+		if( homography == null )
+			homography = new ConfigHomography();
+		prosac.checkValidity();
+
+		ModelManager<Homography2D_F64> manager = new ModelManagerHomography2D_F64();
+		GenerateHomographyLinear modelFitter = new GenerateHomographyLinear(homography.normalize);
+		DistanceHomographySq distance = new DistanceHomographySq();
+
+		double tol = prosac.inlierThreshold*prosac.inlierThreshold;
+
+		return configure(new Prosac<>(prosac.randSeed, manager, modelFitter, distance,
+				prosac.maxIterations, tol),prosac);
+	}
+
+	/**
+	 * Robust {@link Prosac PROSAC} based estimator for the trifocal tensor. Input observations must be sorted by
+	 * quality with the best first.
+	 *
+	 * @see #trifocalRansac
+	 *
+	 * @param trifocal Configuration for trifocal tensor calculation
+	 * @param error Configuration for how trifocal error is computed
+	 * @param prosac Configuration for PROSAC
+	 * @return PROSAC
+	 */
+	public static Prosac<TrifocalTensor, AssociatedTriple>
+	trifocalProsac( @Nullable ConfigTrifocal trifocal ,
+					@Nullable ConfigTrifocalError error,
+					@Nonnull ConfigProsac prosac ) {
+		if( trifocal == null )
+			trifocal = new ConfigTrifocal();
+		if( error == null )
+			error = new ConfigTrifocalError();
+
+		trifocal.checkValidity();
+		prosac.checkValidity();
+
+		double tol = trifocalTolerance(error, prosac.inlierThreshold);
+		DistanceFromModel<TrifocalTensor,AssociatedTriple> distance = createTrifocalDistance(error);
+
+		Estimate1ofTrifocalTensor estimator = FactoryMultiView.trifocal_1(trifocal);
+		ModelManager<TrifocalTensor> manager = new ManagerTrifocalTensor();
+		ModelGenerator<TrifocalTensor,AssociatedTriple> generator = new GenerateTrifocalTensor(estimator);
+
+		return configure(new Prosac<>(prosac.randSeed, manager, generator, distance,
+				prosac.maxIterations, tol),prosac);
+	}
+
+	private static <T extends Prosac<?,?>> T configure( T alg , ConfigProsac config ) {
+		alg.setConfidence(config.confidence);
+		alg.setSprt(config.sprt);
+		alg.setSprtTimeModel(config.sprtTimeModel);
+		alg.setSprtEpsilonInitial(config.sprtEpsilon);
+		alg.setSprtDeltaInitial(config.sprtDelta);
+		return alg;
+	}
+
+	private static DistanceFromModel<DMatrixRMaj,AssociatedPair> createFundamentalDistance( ConfigFundamental config ) {
+		switch( config.errorModel ) {
+			case SAMPSON:
+				return new DistanceFromModelResidual<>(new FundamentalResidualSampson());
+
+			case GEOMETRIC:
+				return new DistanceFundamentalGeometric();
+
+			default:
+				throw new RuntimeException("Unknown");
+		}
+	}
+
+	private static DistanceFromModel<TrifocalTensor,AssociatedTriple> createTrifocalDistance( ConfigTrifocalError error ) {
 		switch( error.model) {
-			case REPROJECTION: {
-				ransacTol = 3.0*ransac.inlierThreshold*ransac.inlierThreshold;
-				distance = new DistanceTrifocalReprojectionSq();
-			} break;
+			case REPROJECTION:
+				return new DistanceTrifocalReprojectionSq();
 			case REPROJECTION_REFINE:
-				ransacTol = 3.0*ransac.inlierThreshold*ransac.inlierThreshold;
-				distance = new DistanceTrifocalReprojectionSq(error.converge.gtol,error.converge.maxIterations);
-				break;
+				return new DistanceTrifocalReprojectionSq(error.converge.gtol,error.converge.maxIterations);
 			case POINT_TRANSFER:
-				ransacTol = 2.0*ransac.inlierThreshold*ransac.inlierThreshold;
-				distance = new DistanceTrifocalTransferSq();
-				break;
+				return new DistanceTrifocalTransferSq();
 			default:
 				throw new IllegalArgumentException("Unknown error model "+error.model);
 		}
+	}
 
-		Estimate1ofTrifocalTensor estimator = FactoryMultiView.trifocal_1(trifocal);
-		ModelManager<TrifocalTensor> manager = new ManagerTrifocalTensor();
-		ModelGenerator<TrifocalTensor,AssociatedTriple> generator = new GenerateTrifocalTensor(estimator);
+	/**
+	 * Converts the inlier threshold in pixels into the units of the trifocal error model
+	 */
+	private static double trifocalTolerance( ConfigTrifocalError error , double inlierThreshold ) {
+		switch( error.model) {
+			case REPROJECTION:
+			case REPROJECTION_REFINE:
+				return 3.0*inlierThreshold*inlierThreshold;
+			case POINT_TRANSFER:
+				return 2.0*inlierThreshold*inlierThreshold;
+			default:
+				throw new IllegalArgumentException("Unknown error model "+error.model);
+		}
+	}
 
-		return new Ransac<>(ransac.randSeed, manager, generator, distance, ransac.maxIterations, ransacTol);
+	private static Triangulate2ViewsMetric createTriangulateGeometric() {
+		return FactoryMultiView.triangulate2ViewMetric(
+				new ConfigTriangulation(ConfigTriangulation.Type.GEOMETRIC));
 	}
 }
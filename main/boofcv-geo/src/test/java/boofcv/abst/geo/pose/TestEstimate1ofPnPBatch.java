@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.geo.pose;
+
+import boofcv.abst.geo.Estimate1ofPnP;
+import boofcv.factory.geo.EnumPNP;
+import boofcv.factory.geo.FactoryMultiView;
+import boofcv.struct.geo.Point2D3D;
+import georegression.struct.point.Point3D_F64;
+import georegression.struct.se.Se3_F64;
+import georegression.struct.se.SpecialEuclideanOps_F64;
+import georegression.transform.se.SePointOps_F64;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestEstimate1ofPnPBatch {
+	Random rand = new Random(234);
+
+	/**
+	 * Solves problems with different poses and number of points
+	 */
+	@Test
+	public void perfect() {
+		int numProblems = 45;
+
+		Se3_F64[] truth = new Se3_F64[numProblems];
+		int[] offsets = new int[numProblems+1];
+		int maxObs = numProblems*20;
+		double[] obsX = new double[maxObs];
+		double[] obsY = new double[maxObs];
+		double[] worldX = new double[maxObs];
+		double[] worldY = new double[maxObs];
+		double[] worldZ = new double[maxObs];
+
+		int total = 0;
+		for (int problem = 0; problem < numProblems; problem++) {
+			truth[problem] = SpecialEuclideanOps_F64.eulerXyz(rand.nextGaussian()*0.2,rand.nextGaussian()*0.2,
+					rand.nextGaussian()*0.2,rand.nextGaussian()*0.1,rand.nextGaussian()*0.1,rand.nextGaussian()*0.1,null);
+
+			// the first problem has too few points to be solved
+			int numPoints = problem == 0 ? 2 : 6 + problem%10;
+			for (int i = 0; i < numPoints; i++) {
+				Point3D_F64 X = new Point3D_F64(rand.nextGaussian(),rand.nextGaussian(),4+rand.nextDouble());
+				Point3D_F64 Xv = SePointOps_F64.transform(truth[problem],X,null);
+				obsX[total] = Xv.x/Xv.z;
+				obsY[total] = Xv.y/Xv.z;
+				worldX[total] = X.x;
+				worldY[total] = X.y;
+				worldZ[total] = X.z;
+				total++;
+			}
+			offsets[problem+1] = total;
+		}
+
+		Estimate1ofPnPBatch alg = new Estimate1ofPnPBatch(()->FactoryMultiView.pnp_1(EnumPNP.EPNP,5,0));
+		alg.minBlock = 4;
+
+		double[] worldToView = new double[numProblems*12];
+		boolean[] success = new boolean[numProblems];
+		int found = alg.process(numProblems,offsets,obsX,obsY,worldX,worldY,worldZ,worldToView,success);
+
+		assertEquals(numProblems-1,found);
+		assertFalse(success[0]);
+		for (int problem = 1; problem < numProblems; problem++) {
+			assertTrue(success[problem]);
+			for (int i = 0; i < 9; i++) {
+				assertEquals(truth[problem].R.data[i],worldToView[problem*12+i],1e-6);
+			}
+			assertEquals(truth[problem].T.x,worldToView[problem*12+9],1e-6);
+			assertEquals(truth[problem].T.y,worldToView[problem*12+10],1e-6);
+			assertEquals(truth[problem].T.z,worldToView[problem*12+11],1e-6);
+		}
+	}
+
+	/**
+	 * Bad offsets should be caught before any problem is solved
+	 */
+	@Test
+	public void invalidInputs() {
+		Estimate1ofPnPBatch alg = new Estimate1ofPnPBatch(()->FactoryMultiView.pnp_1(EnumPNP.EPNP,5,0));
+
+		double[] obs = new double[10];
+		double[] worldToView = new double[2*12];
+		boolean[] success = new boolean[2];
+
+		// offsets decrease
+		assertThrows(IllegalArgumentException.class,()->alg.process(2,new int[]{0,6,4},
+				obs,obs,obs,obs,obs,worldToView,success));
+		// more observations than there are in the arrays
+		assertThrows(IllegalArgumentException.class,()->alg.process(2,new int[]{0,6,12},
+				obs,obs,obs,obs,obs,worldToView,success));
+		// output is too small
+		assertThrows(IllegalArgumentException.class,()->alg.process(2,new int[]{0,5,10},
+				obs,obs,obs,obs,obs,new double[12],success));
+	}
+
+	/**
+	 * If the estimator throws an exception it should be passed on to the caller
+	 */
+	@Test
+	public void estimatorFails() {
+		Estimate1ofPnPBatch alg = new Estimate1ofPnPBatch(()->new Estimate1ofPnP() {
+			@Override
+			public boolean process(List<Point2D3D> points, Se3_F64 estimatedModel) {
+				throw new IllegalStateException("failed");
+			}
+
+			@Override
+			public int getMinimumPoints() {
+				return 1;
+			}
+		});
+		alg.minBlock = 1;
+
+		int numProblems = 5;
+		int[] offsets = {0,2,4,6,8,10};
+		double[] obs = new double[10];
+
+		assertThrows(IllegalStateException.class,()->alg.process(numProblems,offsets,
+				obs,obs,obs,obs,obs,new double[numProblems*12],new boolean[numProblems]));
+	}
+}
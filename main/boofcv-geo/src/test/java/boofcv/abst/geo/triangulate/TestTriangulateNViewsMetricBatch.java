@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.geo.triangulate;
+
+import boofcv.factory.geo.ConfigTriangulation;
+import boofcv.factory.geo.FactoryMultiView;
+import georegression.struct.point.Point3D_F64;
+import georegression.struct.se.Se3_F64;
+import georegression.struct.se.SpecialEuclideanOps_F64;
+import georegression.transform.se.SePointOps_F64;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestTriangulateNViewsMetricBatch {
+	Random rand = new Random(234);
+
+	/**
+	 * Points are seen by a different number of views. See if they are all correctly triangulated
+	 */
+	@Test
+	public void perfect() {
+		int numViews = 4;
+		int numPoints = 350;
+
+		Se3_F64[] views = new Se3_F64[numViews];
+		double[] worldToView = new double[numViews*12];
+		for (int view = 0; view < numViews; view++) {
+			views[view] = SpecialEuclideanOps_F64.eulerXyz(0.3*view,0.05*view,0,0.01*view,0.05*view,0,null);
+			System.arraycopy(views[view].R.data,0,worldToView,view*12,9);
+			worldToView[view*12+9] = views[view].T.x;
+			worldToView[view*12+10] = views[view].T.y;
+			worldToView[view*12+11] = views[view].T.z;
+		}
+
+		Point3D_F64[] points = new Point3D_F64[numPoints];
+		int[] pointOffsets = new int[numPoints+1];
+		int[] obsView = new int[numPoints*numViews];
+		double[] obsX = new double[numPoints*numViews];
+		double[] obsY = new double[numPoints*numViews];
+
+		int total = 0;
+		for (int i = 0; i < numPoints; i++) {
+			points[i] = new Point3D_F64(rand.nextGaussian(),rand.nextGaussian(),4+rand.nextDouble());
+			// the first point only has one observation and can't be triangulated
+			int numObs = i == 0 ? 1 : 2 + i%(numViews-1);
+			for (int j = 0; j < numObs; j++) {
+				int view = (i+j)%numViews;
+				Point3D_F64 X = SePointOps_F64.transform(views[view],points[i],null);
+				obsView[total] = view;
+				obsX[total] = X.x/X.z;
+				obsY[total] = X.y/X.z;
+				total++;
+			}
+			pointOffsets[i+1] = total;
+		}
+
+		TriangulateNViewsMetricBatch alg = new TriangulateNViewsMetricBatch(()->
+				FactoryMultiView.triangulateNViewCalibrated(new ConfigTriangulation(ConfigTriangulation.Type.DLT)));
+		alg.minBlock = 20;
+
+		double[] outX = new double[numPoints];
+		double[] outY = new double[numPoints];
+		double[] outZ = new double[numPoints];
+		boolean[] success = new boolean[numPoints];
+
+		int found = alg.triangulate(numPoints,pointOffsets,obsView,obsX,obsY,numViews,worldToView,
+				outX,outY,outZ,success);
+
+		assertEquals(numPoints-1,found);
+		assertFalse(success[0]);
+		for (int i = 1; i < numPoints; i++) {
+			assertTrue(success[i]);
+			assertEquals(points[i].x,outX[i],1e-6);
+			assertEquals(points[i].y,outY[i],1e-6);
+			assertEquals(points[i].z,outZ[i],1e-6);
+		}
+	}
+
+	@Test
+	public void noPoints() {
+		TriangulateNViewsMetricBatch alg = new TriangulateNViewsMetricBatch(()->
+				FactoryMultiView.triangulateNViewCalibrated(null));
+
+		assertEquals(0,alg.triangulate(0,new int[1],new int[0],new double[0],new double[0],
+				0,new double[0],new double[0],new double[0],new double[0],new boolean[0]));
+	}
+
+	/**
+	 * Bad offsets or view indexes should be caught before any point is triangulated
+	 */
+	@Test
+	public void invalidInputs() {
+		TriangulateNViewsMetricBatch alg = new TriangulateNViewsMetricBatch(()->
+				FactoryMultiView.triangulateNViewCalibrated(null));
+
+		int numViews = 2;
+		double[] worldToView = new double[numViews*12];
+		double[] obs = new double[4];
+		double[] out = new double[2];
+		boolean[] success = new boolean[2];
+
+		// view index is out of bounds
+		assertThrows(IllegalArgumentException.class,()->alg.triangulate(2,new int[]{0,2,4},
+				new int[]{0,1,0,2},obs,obs,numViews,worldToView,out,out,out,success));
+		// offsets decrease
+		assertThrows(IllegalArgumentException.class,()->alg.triangulate(2,new int[]{0,3,2},
+				new int[]{0,1,0,1},obs,obs,numViews,worldToView,out,out,out,success));
+		// not enough views in worldToView
+		assertThrows(IllegalArgumentException.class,()->alg.triangulate(2,new int[]{0,2,4},
+				new int[]{0,1,0,1},obs,obs,numViews,new double[12],out,out,out,success));
+	}
+}
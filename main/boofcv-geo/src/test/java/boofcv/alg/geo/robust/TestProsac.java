@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.robust;
+
+import boofcv.alg.geo.pose.CommonMotionNPoint;
+import boofcv.alg.geo.pose.PnPDistanceReprojectionSq;
+import boofcv.factory.geo.EnumPNP;
+import boofcv.factory.geo.EstimatorToGenerator;
+import boofcv.factory.geo.FactoryMultiView;
+import boofcv.struct.geo.Point2D3D;
+import georegression.fitting.se.ModelManagerSe3_F64;
+import georegression.struct.se.Se3_F64;
+import georegression.struct.se.SpecialEuclideanOps_F64;
+import org.ejml.dense.row.MatrixFeatures_DDRM;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestProsac extends CommonMotionNPoint {
+
+	int numPoints = 200;
+	int numOutliers = 120;
+
+	@BeforeEach
+	public void setup() {
+		Se3_F64 motion = SpecialEuclideanOps_F64.eulerXyz(0.1,-0.05,0.2,0.05,-0.03,0.02,null);
+		generateScene(numPoints,motion,false);
+
+		// Outliers are at the end of the list. This simulates sorting by association quality
+		for (int i = numPoints-numOutliers; i < numPoints; i++) {
+			pointPose.get(i).observation.x += 0.2 + rand.nextDouble();
+		}
+	}
+
+	Prosac<Se3_F64,Point2D3D> createAlgorithm() {
+		return new Prosac<>(234, new ModelManagerSe3_F64(),
+				new EstimatorToGenerator<>(FactoryMultiView.pnp_1(EnumPNP.P3P_FINSTERWALDER,-1,2)),
+				new PnPDistanceReprojectionSq(), 5000, 1e-4);
+	}
+
+	@Test
+	public void perfectInliers_sprt() {
+		checkPerfectInliers(true);
+	}
+
+	@Test
+	public void perfectInliers_noSprt() {
+		checkPerfectInliers(false);
+	}
+
+	void checkPerfectInliers( boolean sprt ) {
+		Prosac<Se3_F64,Point2D3D> alg = createAlgorithm();
+		alg.setSprt(sprt);
+
+		assertTrue(alg.process(pointPose));
+
+		Se3_F64 found = alg.getModelParameters();
+		assertTrue(MatrixFeatures_DDRM.isIdentical(motion.R,found.R,1e-6));
+		assertEquals(0,motion.T.distance(found.T),1e-6);
+
+		assertEquals(numPoints-numOutliers,alg.getMatchSet().size());
+		assertEquals(numOutliers,alg.getFitQuality());
+		for (int i = 0; i < alg.getMatchSet().size(); i++) {
+			int index = alg.getInputIndex(i);
+			assertTrue(index < numPoints-numOutliers);
+			assertSame(pointPose.get(index),alg.getMatchSet().get(i));
+		}
+
+		// with sorted input it should stop well before the maximum number of iterations
+		assertTrue(alg.getIteration() < alg.getMaxIterations()/10);
+	}
+
+	/**
+	 * The decision threshold should be a solution to A = K + 1 + log(A)
+	 */
+	@Test
+	public void computeDecisionThreshold() {
+		Prosac<Se3_F64,Point2D3D> alg = createAlgorithm();
+		alg.epsilon = 0.3;
+		alg.delta = 0.05;
+
+		double A = alg.computeDecisionThreshold();
+
+		double C = (1-alg.delta)*Math.log((1-alg.delta)/(1-alg.epsilon)) +
+				alg.delta*Math.log(alg.delta/alg.epsilon);
+		double K = alg.getSprtTimeModel()*C;
+		assertEquals(K + 1 + Math.log(A), A, 1e-6);
+		assertTrue(A > 1);
+	}
+
+	@Test
+	public void requiredIterations() {
+		Prosac<Se3_F64,Point2D3D> alg = createAlgorithm();
+		alg.setConfidence(0.99);
+
+		assertEquals(0,alg.requiredIterations(1.0,3));
+		assertEquals(alg.getMaxIterations(),alg.requiredIterations(0.0,3));
+
+		int expected = (int)Math.ceil(Math.log(0.01)/Math.log(1.0-0.125));
+		assertEquals(expected,alg.requiredIterations(0.5,3));
+	}
+
+	@Test
+	public void tooFewPoints() {
+		Prosac<Se3_F64,Point2D3D> alg = createAlgorithm();
+		assertFalse(alg.process(pointPose.subList(0,alg.getMinimumSize()-1)));
+		assertEquals(0,alg.getMatchSet().size());
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.geo.robust;
+
+import boofcv.alg.geo.pose.CommonMotionNPoint;
+import boofcv.alg.geo.pose.PnPDistanceReprojectionSq;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.factory.geo.EnumPNP;
+import boofcv.factory.geo.EstimatorToGenerator;
+import boofcv.factory.geo.FactoryMultiView;
+import boofcv.struct.geo.Point2D3D;
+import georegression.fitting.se.ModelManagerSe3_F64;
+import georegression.struct.se.Se3_F64;
+import georegression.struct.se.SpecialEuclideanOps_F64;
+import org.ejml.dense.row.MatrixFeatures_DDRM;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestRansacMultiView_MT extends CommonMotionNPoint {
+
+	int numOutliers = 40;
+
+	@BeforeEach
+	public void setup() {
+		Se3_F64 motion = SpecialEuclideanOps_F64.eulerXyz(0.1,-0.05,0.2,0.05,-0.03,0.02,null);
+		generateScene(200,motion,false);
+
+		// corrupt the first few observations
+		for (int i = 0; i < numOutliers; i++) {
+			pointPose.get(i).observation.x += 0.2 + rand.nextDouble();
+		}
+	}
+
+	RansacMultiView_MT<Se3_F64,Point2D3D> createAlgorithm() {
+		return new RansacMultiView_MT<>(234, new ModelManagerSe3_F64(),
+				()->new EstimatorToGenerator<>(FactoryMultiView.pnp_1(EnumPNP.P3P_FINSTERWALDER,-1,2)),
+				PnPDistanceReprojectionSq::new, 200, 1e-4);
+	}
+
+	@Test
+	public void perfectInliers() {
+		RansacMultiView_MT<Se3_F64,Point2D3D> alg = createAlgorithm();
+
+		assertTrue(alg.process(pointPose));
+
+		Se3_F64 found = alg.getModelParameters();
+		assertTrue(MatrixFeatures_DDRM.isIdentical(motion.R,found.R,1e-6));
+		assertEquals(0,motion.T.distance(found.T),1e-6);
+
+		assertEquals(pointPose.size()-numOutliers,alg.getMatchSet().size());
+		assertEquals(numOutliers,alg.getFitQuality());
+		for (int i = 0; i < alg.getMatchSet().size(); i++) {
+			int index = alg.getInputIndex(i);
+			assertTrue(index >= numOutliers);
+			assertSame(pointPose.get(index),alg.getMatchSet().get(i));
+		}
+	}
+
+	/**
+	 * The same seed should produce the same results no matter how many threads there are
+	 */
+	@Test
+	public void independentOfThreads() {
+		int original = BoofConcurrency.getMaxThreads();
+		try {
+			// add noise so that hypotheses are not tied
+			for (int i = numOutliers; i < pointPose.size(); i++) {
+				pointPose.get(i).observation.y += 0.002*rand.nextGaussian();
+			}
+
+			BoofConcurrency.setMaxThreads(1);
+			RansacMultiView_MT<Se3_F64,Point2D3D> alg = createAlgorithm();
+			// outliers prevent early termination so more than one batch is processed
+			alg.setBatchSize(30);
+			assertTrue(alg.process(pointPose));
+			Se3_F64 expected = alg.getModelParameters().copy();
+			int expectedInliers = alg.getMatchSet().size();
+
+			BoofConcurrency.setMaxThreads(4);
+			alg = createAlgorithm();
+			alg.setBatchSize(30);
+			assertTrue(alg.process(pointPose));
+			Se3_F64 found = alg.getModelParameters();
+
+			assertTrue(MatrixFeatures_DDRM.isIdentical(expected.R,found.R,0));
+			assertEquals(0,expected.T.distance(found.T));
+			assertEquals(expectedInliers,alg.getMatchSet().size());
+		} finally {
+			BoofConcurrency.setMaxThreads(original);
+		}
+	}
+
+	@Test
+	public void tooFewPoints() {
+		RansacMultiView_MT<Se3_F64,Point2D3D> alg = createAlgorithm();
+		assertFalse(alg.process(pointPose.subList(0,alg.getMinimumSize()-1)));
+		assertEquals(0,alg.getMatchSet().size());
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.bow;
+
+import org.ddogleg.clustering.AssignCluster;
+
+/**
+ * Assigns a point to the cluster with the closest centroid using Euclidean distance. Centroids are stored in
+ * a single contiguous float array, which uses half the memory of double arrays and is more cache friendly
+ * when there are a large number of clusters.
+ *
+ * Soft assignment gives each cluster a weight proportional to the inverse of its distance squared.
+ *
+ * @author Peter Abeles
+ */
+public class AssignNearestCentroid_F32 implements AssignCluster<double[]> {
+
+	// centroids of each cluster. centroid i starts at element i*dof
+	float[] centroids;
+	// number of elements in a point
+	int dof;
+	// number of clusters
+	int numClusters;
+
+	/**
+	 * Specifies the clusters
+	 *
+	 * @param centroids Array containing all the centroids. Reference is saved.
+	 * @param numClusters Number of clusters
+	 * @param dof Degrees of freedom in a point
+	 */
+	public AssignNearestCentroid_F32(float[] centroids, int numClusters, int dof) {
+		if( centroids.length < numClusters*dof )
+			throw new IllegalArgumentException("centroids array is too small");
+		this.centroids = centroids;
+		this.numClusters = numClusters;
+		this.dof = dof;
+	}
+
+	protected AssignNearestCentroid_F32() {
+	}
+
+	@Override
+	public int assign(double[] point) {
+		int best = -1;
+		double bestDistance = Double.MAX_VALUE;
+		for (int i = 0; i < numClusters; i++) {
+			double d = distanceSq(point,i);
+			if( d < bestDistance ) {
+				bestDistance = d;
+				best = i;
+			}
+		}
+		return best;
+	}
+
+	@Override
+	public void assign(double[] point, double[] fit) {
+		double total = 0;
+		for (int i = 0; i < numClusters; i++) {
+			double d = distanceSq(point,i);
+			if( d == 0 ) {
+				// the point lies exactly on a centroid
+				for (int j = 0; j < numClusters; j++) {
+					fit[j] = 0;
+				}
+				fit[i] = 1.0;
+				return;
+			}
+			fit[i] = 1.0/d;
+			total += fit[i];
+		}
+		for (int i = 0; i < numClusters; i++) {
+			fit[i] /= total;
+		}
+	}
+
+	/**
+	 * Euclidean distance squared between the point and the specified centroid
+	 */
+	public double distanceSq( double[] point , int cluster ) {
+		int index = cluster*dof;
+		double total = 0;
+		for (int i = 0; i < dof; i++) {
+			double d = point[i] - centroids[index++];
+			total += d*d;
+		}
+		return total;
+	}
+
+	@Override
+	public int getNumberOfClusters() {
+		return numClusters;
+	}
+
+	/**
+	 * Centroids are not modified so the copy references the same array
+	 */
+	@Override
+	public AssignCluster<double[]> copy() {
+		return new AssignNearestCentroid_F32(centroids,numClusters,dof);
+	}
+
+	public float[] getCentroids() {
+		return centroids;
+	}
+
+	public int getDof() {
+		return dof;
+	}
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.bow;
+
+import org.ddogleg.clustering.AssignCluster;
+import org.ddogleg.clustering.ComputeClusters;
+import org.ddogleg.struct.GrowQueue_F64;
+import org.ddogleg.struct.GrowQueue_I32;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * <p>
+ * Mini-batch k-means [1]. Instead of assigning every point to a cluster at each iteration, a small batch of points
+ * is assigned and each centroid is moved towards its points using a per-cluster learning rate. This makes it
+ * possible to cluster data sets which are too large to fit in memory, since points can be read incrementally
+ * and provided one batch at a time with {@link #update}. Initial centroids are selected
+ * using k-means++ [2] on a sample of the points.
+ * </p>
+ *
+ * <p>
+ * Centroids are stored in a single contiguous float array. When used as a {@link ComputeClusters} all the points
+ * are provided at once and batches are randomly sampled from them.
+ * </p>
+ *
+ * <p>
+ * Usage for streaming data:
+ * <ol>
+ * <li>{@link #init}</li>
+ * <li>{@link #initialize} with a sample of the points</li>
+ * <li>{@link #update} with each batch as it is read</li>
+ * <li>{@link #getAssignment}</li>
+ * </ol>
+ * </p>
+ *
+ * <p>
+ * [1] Sculley, David. "Web-scale k-means clustering." WWW 2010<br>
+ * [2] Arthur, David, and Sergei Vassilvitskii. "k-means++: The advantages of careful seeding." SODA 2007
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class MiniBatchKMeans_F64 implements ComputeClusters<double[]> {
+
+	/**
+	 * Number of points in each batch when sampling from a list of points
+	 */
+	public int batchSize = 1000;
+	/**
+	 * Number of batches processed when sampling from a list of points
+	 */
+	public int maxIterations = 200;
+	/**
+	 * Maximum number of points sampled for k-means++ seeding
+	 */
+	public int seedSampleSize = 10000;
+
+	// Degrees of freedom in a point
+	protected int dof;
+	protected Random rand;
+	protected boolean verbose;
+
+	// Centroid of each cluster. Centroid i starts at element i*dof
+	protected float[] centroids = new float[0];
+	protected int numClusters;
+	// Number of points which have been used to update each cluster
+	protected int[] counts = new int[0];
+
+	// cluster each point in the most recent batch was assigned to and the distance squared
+	protected GrowQueue_I32 assignments = new GrowQueue_I32();
+	protected GrowQueue_F64 distances = new GrowQueue_F64();
+
+	// sum of distance squared for the most recent set of points
+	protected double distanceMeasure;
+
+	// work space
+	protected List<double[]> work = new ArrayList<>();
+
+	@Override
+	public void init(int pointDimension, long randomSeed) {
+		this.dof = pointDimension;
+		this.rand = new Random(randomSeed);
+		this.numClusters = 0;
+	}
+
+	@Override
+	public void process(List<double[]> points, int numCluster) {
+		// Select the initial seeds from a sample
+		sample(points,Math.min(seedSampleSize,points.size()),false);
+		initialize(work,numCluster);
+
+		for (int iteration = 0; iteration < maxIterations; iteration++) {
+			sample(points,Math.min(batchSize,points.size()),true);
+			update(work);
+			if( verbose )
+				System.out.println("iteration "+iteration+" batch distance "+distanceMeasure);
+		}
+
+		// score the final clusters using every point
+		assign(points);
+		distanceMeasure = sumDistances(points.size());
+	}
+
+	/**
+	 * Randomly selects points and puts them in the work list
+	 *
+	 * @param replacement If true then it will sample with replacement
+	 */
+	private void sample( List<double[]> points , int size , boolean replacement ) {
+		work.clear();
+		if( replacement ) {
+			for (int i = 0; i < size; i++) {
+				work.add(points.get(rand.nextInt(points.size())));
+			}
+		} else if( size == points.size() ) {
+			work.addAll(points);
+		} else {
+			// partial Fisher-Yates shuffle on the indexes
+			int[] indexes = new int[points.size()];
+			for (int i = 0; i < indexes.length; i++) {
+				indexes[i] = i;
+			}
+			for (int i = 0; i < size; i++) {
+				int j = i + rand.nextInt(indexes.length-i);
+				int tmp = indexes[i];
+				indexes[i] = indexes[j];
+				indexes[j] = tmp;
+				work.add(points.get(indexes[i]));
+			}
+		}
+	}
+
+	/**
+	 * Selects the initial centroids using k-means++
+	 *
+	 * @param sample Points which are sampled. Must have at least numClusters points.
+	 * @param numClusters Number of clusters
+	 */
+	public void initialize( List<double[]> sample , int numClusters ) {
+		if( sample.size() < numClusters )
+			throw new IllegalArgumentException("There must be at least as many points as clusters");
+
+		this.numClusters = numClusters;
+		if( centroids.length != numClusters*dof )
+			centroids = new float[numClusters*dof];
+		counts = new int[numClusters];
+
+		// first seed is selected at random
+		setCentroid(0,sample.get(rand.nextInt(sample.size())));
+
+		// distance from each point to the closest seed
+		distances.resize(sample.size());
+		for (int i = 0; i < sample.size(); i++) {
+			distances.data[i] = Double.MAX_VALUE;
+		}
+		updateSeedDistances(sample,0);
+
+		for (int cluster = 1; cluster < numClusters; cluster++) {
+			double total = sumDistances(sample.size());
+
+			int selected;
+			if( total == 0 ) {
+				// every point lies on a seed
+				selected = rand.nextInt(sample.size());
+			} else {
+				// select points with a probability proportional to distance squared
+				double r = rand.nextDouble()*total;
+				double sum = 0;
+				selected = sample.size()-1;
+				for (int i = 0; i < sample.size(); i++) {
+					sum += distances.data[i];
+					if( sum >= r && distances.data[i] > 0 ) {
+						selected = i;
+						break;
+					}
+				}
+			}
+			setCentroid(cluster,sample.get(selected));
+			updateSeedDistances(sample,cluster);
+		}
+	}
+
+	/**
+	 * Updates the clusters using a batch of points
+	 *
+	 * @param batch Points in the batch
+	 */
+	public void update( List<double[]> batch ) {
+		if( numClusters == 0 )
+			throw new IllegalArgumentException("Must call initialize() first");
+
+		// the assignment is done using the centroids at the start of the batch
+		assign(batch);
+
+		// centroids are updated in the same order every time so the results are deterministic
+		for (int i = 0; i < batch.size(); i++) {
+			int cluster = assignments.data[i];
+			double[] p = batch.get(i);
+			float eta = 1.0f/(++counts[cluster]);
+			int index = cluster*dof;
+			for (int j = 0; j < dof; j++, index++) {
+				centroids[index] += eta*(float)(p[j]-centroids[index]);
+			}
+		}
+
+		distanceMeasure = sumDistances(batch.size());
+	}
+
+	/**
+	 * Assigns every point to its nearest cluster and saves the distance
+	 */
+	protected void assign( List<double[]> points ) {
+		assignments.resize(points.size());
+		distances.resize(points.size());
+		assignRange(points,0,points.size());
+	}
+
+	protected void assignRange( List<double[]> points , int idx0 , int idx1 ) {
+		for (int i = idx0; i < idx1; i++) {
+			double[] p = points.get(i);
+			int best = -1;
+			double bestDistance = Double.MAX_VALUE;
+			for (int cluster = 0; cluster < numClusters; cluster++) {
+				double d = distanceSq(p,cluster);
+				if( d < bestDistance ) {
+					bestDistance = d;
+					best = cluster;
+				}
+			}
+			assignments.data[i] = best;
+			distances.data[i] = bestDistance;
+		}
+	}
+
+	/**
+	 * Updates the distance from each point to the closest seed after a new seed has been added
+	 */
+	protected void updateSeedDistances( List<double[]> sample , int cluster ) {
+		updateSeedDistances(sample,cluster,0,sample.size());
+	}
+
+	protected void updateSeedDistances( List<double[]> sample , int cluster , int idx0 , int idx1 ) {
+		for (int i = idx0; i < idx1; i++) {
+			double d = distanceSq(sample.get(i),cluster);
+			if( d < distances.data[i] )
+				distances.data[i] = d;
+		}
+	}
+
+	protected double distanceSq( double[] point , int cluster ) {
+		int index = cluster*dof;
+		double total = 0;
+		for (int i = 0; i < dof; i++) {
+			double d = point[i] - centroids[index++];
+			total += d*d;
+		}
+		return total;
+	}
+
+	private double sumDistances( int length ) {
+		double total = 0;
+		for (int i = 0; i < length; i++) {
+			total += distances.data[i];
+		}
+		return total;
+	}
+
+	private void setCentroid( int cluster , double[] point ) {
+		int index = cluster*dof;
+		for (int i = 0; i < dof; i++) {
+			centroids[index+i] = (float)point[i];
+		}
+	}
+
+	/**
+	 * Returns an assignment which references a copy of the current centroids
+	 */
+	@Override
+	public AssignCluster<double[]> getAssignment() {
+		return new AssignNearestCentroid_F32(centroids.clone(),numClusters,dof);
+	}
+
+	/**
+	 * Sum of Euclidean distance squared from each point to its cluster. Computed from all the points
+	 * in {@link #process} or only the most recent batch in {@link #update}.
+	 */
+	@Override
+	public double getDistanceMeasure() {
+		return distanceMeasure;
+	}
+
+	@Override
+	public void setVerbose(boolean verbose) {
+		this.verbose = verbose;
+	}
+
+	public float[] getCentroids() {
+		return centroids;
+	}
+
+	public int getNumberOfClusters() {
+		return numClusters;
+	}
+}
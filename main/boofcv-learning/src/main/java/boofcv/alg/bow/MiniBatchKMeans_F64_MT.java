@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.bow;
+
+import boofcv.concurrency.BoofConcurrency;
+
+import java.util.List;
+
+/**
+ * <p>Concurrent implementation of {@link MiniBatchKMeans_F64}. Assigning points to their nearest centroid and
+ * updating the k-means++ seed distances dominate the computational cost and are divided between threads.
+ * Centroids are updated in a single thread in the same order as the single threaded version, so the results
+ * are identical.</p>
+ *
+ * @author Peter Abeles
+ */
+public class MiniBatchKMeans_F64_MT extends MiniBatchKMeans_F64 {
+
+	// Minimum number of points processed by a thread
+	public int minBlock = 50;
+
+	@Override
+	protected void assign(List<double[]> points) {
+		assignments.resize(points.size());
+		distances.resize(points.size());
+		if( points.isEmpty() )
+			return;
+		BoofConcurrency.loopBlocks(0,points.size(),minBlock,(idx0,idx1)->assignRange(points,idx0,idx1));
+	}
+
+	@Override
+	protected void updateSeedDistances(List<double[]> sample, int cluster) {
+		if( sample.isEmpty() )
+			return;
+		BoofConcurrency.loopBlocks(0,sample.size(),minBlock,
+				(idx0,idx1)->updateSeedDistances(sample,cluster,idx0,idx1));
+	}
+}
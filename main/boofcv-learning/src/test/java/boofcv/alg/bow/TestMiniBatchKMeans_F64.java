@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.bow;
+
+import org.ddogleg.clustering.AssignCluster;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestMiniBatchKMeans_F64 {
+
+	Random rand = new Random(234);
+	int DOF = 3;
+
+	/**
+	 * Well separated blobs which should each be a single cluster
+	 */
+	@Test
+	public void process_blobs() {
+		List<double[]> centers = new ArrayList<>();
+		List<double[]> points = createBlobs(5, 200, centers);
+
+		MiniBatchKMeans_F64 alg = create();
+		alg.batchSize = 100;
+		alg.maxIterations = 50;
+		alg.init(DOF,0xBEEF);
+		alg.process(points,5);
+
+		checkBlobs(alg.getAssignment(), centers, points);
+		// average distance should be close to the noise
+		assertTrue(alg.getDistanceMeasure()/points.size() < 0.02);
+	}
+
+	/**
+	 * Provide the data one batch at a time
+	 */
+	@Test
+	public void streaming() {
+		List<double[]> centers = new ArrayList<>();
+		List<double[]> points = createBlobs(4, 300, centers);
+
+		MiniBatchKMeans_F64 alg = create();
+		alg.init(DOF,0xBEEF);
+		alg.initialize(points.subList(0,400),4);
+		for (int i = 0; i < points.size(); i += 100) {
+			alg.update(points.subList(i,i+100));
+		}
+
+		checkBlobs(alg.getAssignment(), centers, points);
+	}
+
+	@Test
+	public void initialize_tooFewPoints() {
+		MiniBatchKMeans_F64 alg = create();
+		alg.init(DOF,0xBEEF);
+		List<double[]> points = createBlobs(2, 2, new ArrayList<>());
+		assertThrows(IllegalArgumentException.class,()->alg.initialize(points,5));
+	}
+
+	/**
+	 * The assignment should be a copy and not change when the clusters do
+	 */
+	@Test
+	public void getAssignment_copy() {
+		List<double[]> points = createBlobs(3, 50, new ArrayList<>());
+
+		MiniBatchKMeans_F64 alg = create();
+		alg.init(DOF,0xBEEF);
+		alg.initialize(points,3);
+		AssignNearestCentroid_F32 assignment = (AssignNearestCentroid_F32)alg.getAssignment();
+		float[] before = assignment.getCentroids().clone();
+		alg.update(points);
+		assertArrayEquals(before,assignment.getCentroids());
+	}
+
+	protected MiniBatchKMeans_F64 create() {
+		return new MiniBatchKMeans_F64();
+	}
+
+	List<double[]> createBlobs( int numBlobs , int pointsPerBlob , List<double[]> centers ) {
+		for (int blob = 0; blob < numBlobs; blob++) {
+			double[] c = new double[DOF];
+			for (int i = 0; i < DOF; i++) {
+				c[i] = rand.nextDouble()*100;
+			}
+			centers.add(c);
+		}
+
+		// interleave the points so that a batch contains points from every blob
+		List<double[]> points = new ArrayList<>();
+		for (int i = 0; i < pointsPerBlob; i++) {
+			for (int blob = 0; blob < numBlobs; blob++) {
+				double[] p = centers.get(blob).clone();
+				for (int j = 0; j < DOF; j++) {
+					p[j] += rand.nextGaussian()*0.05;
+				}
+				points.add(p);
+			}
+		}
+		return points;
+	}
+
+	private void checkBlobs(AssignCluster<double[]> assignment, List<double[]> centers, List<double[]> points) {
+		int numBlobs = centers.size();
+		assertEquals(numBlobs,assignment.getNumberOfClusters());
+		boolean[] used = new boolean[numBlobs];
+		for (int blob = 0; blob < numBlobs; blob++) {
+			int cluster = assignment.assign(centers.get(blob));
+			assertFalse(used[cluster]);
+			used[cluster] = true;
+		}
+		for (int i = 0; i < points.size(); i++) {
+			assertEquals(assignment.assign(centers.get(i%numBlobs)),assignment.assign(points.get(i)));
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.bow;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestMiniBatchKMeans_F64_MT extends TestMiniBatchKMeans_F64 {
+
+	@Override
+	protected MiniBatchKMeans_F64 create() {
+		MiniBatchKMeans_F64_MT alg = new MiniBatchKMeans_F64_MT();
+		alg.minBlock = 10;
+		return alg;
+	}
+
+	/**
+	 * Results should be identical to the single threaded version
+	 */
+	@Test
+	public void compareToSingle() {
+		List<double[]> points = createBlobs(6, 100, new ArrayList<>());
+
+		MiniBatchKMeans_F64 single = new MiniBatchKMeans_F64();
+		MiniBatchKMeans_F64 multi = create();
+		for( MiniBatchKMeans_F64 alg : new MiniBatchKMeans_F64[]{single,multi}) {
+			alg.batchSize = 50;
+			alg.maxIterations = 20;
+			alg.init(DOF,0xBEEF);
+			alg.process(points,6);
+		}
+
+		assertArrayEquals(single.getCentroids(),multi.getCentroids());
+		assertEquals(single.getDistanceMeasure(),multi.getDistanceMeasure(),1e-8);
+	}
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.fiducial;
+
+import boofcv.alg.fiducial.qrcode.QrCode;
+import boofcv.factory.fiducial.ConfigQrCodeTracking;
+import boofcv.struct.image.ImageGray;
+import georegression.struct.homography.Homography2D_F64;
+import georegression.struct.point.Point2D_F64;
+import georegression.struct.shapes.Polygon2D_F64;
+import georegression.struct.shapes.Rectangle2D_I32;
+import org.ddogleg.struct.FastQueue;
+
+import java.util.List;
+
+/**
+ * <p>
+ * QR Code detector for video sequences. The location of QR Codes found in the previous frame is used to predict
+ * where they will be in the current frame, assuming a constant velocity. Only a small region around each predicted
+ * location is then passed to the wrapped detector, which avoids thresholding and searching for position patterns
+ * across the entire image. A full frame scan is periodically done to find new QR Codes and also done whenever
+ * a tracked QR Code is lost.
+ * </p>
+ *
+ * <p>
+ * NOTE: Lens distortion should not be specified in the wrapped detector since it will be given sub-images.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class QrCodeTrackingDetector<T extends ImageGray<T>> implements QrCodeDetector<T> {
+
+	// Detector which is applied to the full image or regions inside of it
+	QrCodeDetector<T> detector;
+
+	ConfigQrCodeTracking config;
+
+	// Output found in the most recent image
+	FastQueue<QrCode> detections = new FastQueue<>(QrCode.class,true);
+	FastQueue<QrCode> failures = new FastQueue<>(QrCode.class,true);
+
+	// QR Codes being tracked and work space for updating them
+	FastQueue<Track> tracks = new FastQueue<>(Track.class,true);
+	FastQueue<Track> workTracks = new FastQueue<>(Track.class,true);
+
+	// number of frames processed since the last time the whole image was scanned
+	int framesSinceFullScan;
+	// true if the whole image was scanned in the most recent frame
+	boolean fullScan;
+
+	// storage for the search region
+	Rectangle2D_I32 region = new Rectangle2D_I32();
+	T subimage;
+
+	/**
+	 * Specifies configuration and the detector
+	 *
+	 * @param detector Detector that's applied to the whole image or regions inside of it
+	 * @param config Configuration. If null then defaults are used
+	 */
+	public QrCodeTrackingDetector(QrCodeDetector<T> detector, ConfigQrCodeTracking config) {
+		if( config == null )
+			config = new ConfigQrCodeTracking();
+		config.checkValidity();
+
+		this.detector = detector;
+		this.config = config;
+	}
+
+	/**
+	 * Discards all tracks. The next image will be fully scanned.
+	 */
+	public void reset() {
+		tracks.reset();
+		framesSinceFullScan = 0;
+	}
+
+	@Override
+	public void process(T image) {
+		boolean scanImage = tracks.size == 0 ||
+				(config.fullScanPeriod > 0 && framesSinceFullScan >= config.fullScanPeriod);
+
+		if( !scanImage ) {
+			boolean lost = scanRegions(image);
+			scanImage = lost && config.fullScanOnLoss;
+		}
+
+		if( scanImage ) {
+			scanFull(image);
+			framesSinceFullScan = 0;
+		} else {
+			framesSinceFullScan++;
+		}
+		fullScan = scanImage;
+
+		updateTracks();
+	}
+
+	/**
+	 * Applies the detector to the entire image
+	 */
+	void scanFull(T image) {
+		detections.reset();
+		failures.reset();
+
+		detector.process(image);
+
+		List<QrCode> found = detector.getDetections();
+		for (int i = 0; i < found.size(); i++) {
+			detections.grow().set(found.get(i));
+		}
+		List<QrCode> failed = detector.getFailures();
+		for (int i = 0; i < failed.size(); i++) {
+			failures.grow().set(failed.get(i));
+		}
+	}
+
+	/**
+	 * Searches for each track inside a region around its predicted location
+	 *
+	 * @return true if one or more tracks could not be found
+	 */
+	boolean scanRegions(T image) {
+		detections.reset();
+		failures.reset();
+
+		boolean lost = false;
+		for (int trackIdx = 0; trackIdx < tracks.size; trackIdx++) {
+			Track track = tracks.get(trackIdx);
+
+			if( !predictRegion(track,image.width,image.height,region) ) {
+				lost = true;
+				continue;
+			}
+
+			subimage = image.subimage(region.x0,region.y0,region.x1,region.y1,subimage);
+			detector.process(subimage);
+
+			boolean found = false;
+			List<QrCode> regionFound = detector.getDetections();
+			for (int i = 0; i < regionFound.size(); i++) {
+				QrCode qr = detections.grow();
+				qr.set(regionFound.get(i));
+				offset(qr,region.x0,region.y0);
+
+				// regions can overlap and the same QR Code might have been found already
+				if( isDuplicate(qr) ) {
+					detections.removeTail();
+				} else {
+					found = true;
+				}
+			}
+			List<QrCode> regionFailed = detector.getFailures();
+			for (int i = 0; i < regionFailed.size(); i++) {
+				QrCode qr = failures.grow();
+				qr.set(regionFailed.get(i));
+				offset(qr,region.x0,region.y0);
+			}
+
+			// a duplicate means another track found it, which still counts as this track being lost
+			if( !found )
+				lost = true;
+		}
+		return lost;
+	}
+
+	/**
+	 * Computes the region which is to be searched for the track given its predicted motion
+	 *
+	 * @return true if the region is inside the image
+	 */
+	boolean predictRegion( Track track , int imageWidth , int imageHeight , Rectangle2D_I32 region ) {
+		double x0 = Double.MAX_VALUE, y0 = Double.MAX_VALUE;
+		double x1 = -Double.MAX_VALUE, y1 = -Double.MAX_VALUE;
+
+		for (int i = 0; i < track.bounds.size(); i++) {
+			Point2D_F64 p = track.bounds.get(i);
+			x0 = Math.min(x0,p.x); y0 = Math.min(y0,p.y);
+			x1 = Math.max(x1,p.x); y1 = Math.max(y1,p.y);
+		}
+
+		// apply the constant velocity motion model
+		x0 += track.velocity.x; x1 += track.velocity.x;
+		y0 += track.velocity.y; y1 += track.velocity.y;
+
+		// Expand the region so that errors in the prediction can be tolerated
+		double margin = config.regionMargin*Math.max(x1-x0,y1-y0);
+		double width = Math.max(x1-x0+2*margin,config.minimumRegionSize);
+		double height = Math.max(y1-y0+2*margin,config.minimumRegionSize);
+		double cx = (x0+x1)/2.0, cy = (y0+y1)/2.0;
+
+		region.x0 = Math.max(0,(int)(cx-width/2.0));
+		region.y0 = Math.max(0,(int)(cy-height/2.0));
+		region.x1 = Math.min(imageWidth,(int)(cx+width/2.0+0.5));
+		region.y1 = Math.min(imageHeight,(int)(cy+height/2.0+0.5));
+
+		return region.x1 > region.x0 && region.y1 > region.y0;
+	}
+
+	/**
+	 * Checks to see if the center of the QR Code is already contained inside a previously found QR Code.
+	 * The most recently added detection is the one being checked.
+	 */
+	boolean isDuplicate( QrCode qr ) {
+		double cx=0,cy=0;
+		for (int i = 0; i < 4; i++) {
+			cx += qr.bounds.get(i).x;
+			cy += qr.bounds.get(i).y;
+		}
+		cx /= 4; cy /= 4;
+
+		for (int i = 0; i < detections.size-1; i++) {
+			Polygon2D_F64 b = detections.get(i).bounds;
+			double radius = Math.max(b.get(0).distance(b.get(2)),b.get(1).distance(b.get(3)))/2.0;
+			double bx=0,by=0;
+			for (int j = 0; j < 4; j++) {
+				bx += b.get(j).x;
+				by += b.get(j).y;
+			}
+			bx /= 4; by /= 4;
+			if( Math.abs(bx-cx) <= radius/2.0 && Math.abs(by-cy) <= radius/2.0 )
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Converts the QR Code from sub-image coordinates into input image coordinates
+	 */
+	static void offset( QrCode qr , int x0 , int y0 ) {
+		offset(qr.ppCorner,x0,y0);
+		offset(qr.ppDown,x0,y0);
+		offset(qr.ppRight,x0,y0);
+		offset(qr.bounds,x0,y0);
+		for (int i = 0; i < qr.alignment.size; i++) {
+			qr.alignment.get(i).pixel.x += x0;
+			qr.alignment.get(i).pixel.y += y0;
+		}
+
+		// Hinv goes from grid to pixel. Apply a translation after it
+		Homography2D_F64 H = qr.Hinv;
+		H.a11 += x0*H.a31; H.a12 += x0*H.a32; H.a13 += x0*H.a33;
+		H.a21 += y0*H.a31; H.a22 += y0*H.a32; H.a23 += y0*H.a33;
+	}
+
+	static void offset( Polygon2D_F64 polygon , int x0 , int y0 ) {
+		for (int i = 0; i < polygon.size(); i++) {
+			Point2D_F64 p = polygon.get(i);
+			p.x += x0;
+			p.y += y0;
+		}
+	}
+
+	/**
+	 * Creates a new set of tracks from the current detections. If a detection is close to an old track then the
+	 * velocity is estimated from the change in its location.
+	 */
+	void updateTracks() {
+		workTracks.reset();
+		for (int i = 0; i < detections.size; i++) {
+			QrCode qr = detections.get(i);
+			Track track = workTracks.grow();
+			track.bounds.set(qr.bounds);
+			track.computeCenter();
+
+			Track prev = findClosest(track);
+			if( prev == null ) {
+				track.velocity.set(0,0);
+			} else {
+				track.velocity.x = track.center.x - prev.center.x;
+				track.velocity.y = track.center.y - prev.center.y;
+			}
+		}
+
+		// swap the lists
+		FastQueue<Track> tmp = tracks;
+		tracks = workTracks;
+		workTracks = tmp;
+	}
+
+	/**
+	 * Finds the old track which is closest to the new track. It must be within the new track's size
+	 */
+	Track findClosest( Track target ) {
+		double tol = target.bounds.get(0).distance(target.bounds.get(2));
+		Track best = null;
+		double bestDistance = tol*tol;
+		for (int i = 0; i < tracks.size; i++) {
+			Track t = tracks.get(i);
+			double d = t.center.distance2(target.center);
+			if( d <= bestDistance ) {
+				bestDistance = d;
+				best = t;
+			}
+		}
+		return best;
+	}
+
+	@Override
+	public List<QrCode> getDetections() {
+		return detections.toList();
+	}
+
+	@Override
+	public List<QrCode> getFailures() {
+		return failures.toList();
+	}
+
+	@Override
+	public Class<T> getImageType() {
+		return detector.getImageType();
+	}
+
+	/**
+	 * Returns true if the entire image was scanned in the most recent call to process
+	 */
+	public boolean isFullScan() {
+		return fullScan;
+	}
+
+	public int getTotalTracks() {
+		return tracks.size;
+	}
+
+	public QrCodeDetector<T> getDetector() {
+		return detector;
+	}
+
+	public ConfigQrCodeTracking getConfig() {
+		return config;
+	}
+
+	/**
+	 * Location and motion of a QR Code
+	 */
+	public static class Track {
+		// outside corners of the QR Code
+		public Polygon2D_F64 bounds = new Polygon2D_F64(4);
+		// center of the bounding polygon
+		public Point2D_F64 center = new Point2D_F64();
+		// estimated motion in pixels per frame
+		public Point2D_F64 velocity = new Point2D_F64();
+
+		public void computeCenter() {
+			center.set(0,0);
+			for (int i = 0; i < bounds.size(); i++) {
+				center.x += bounds.get(i).x;
+				center.y += bounds.get(i).y;
+			}
+			center.x /= bounds.size();
+			center.y /= bounds.size();
+		}
+	}
+}
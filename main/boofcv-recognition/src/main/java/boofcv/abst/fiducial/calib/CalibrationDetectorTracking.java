@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.fiducial.calib;
+
+import boofcv.abst.feature.tracker.PointTrack;
+import boofcv.abst.feature.tracker.PointTrackerKltPyramid;
+import boofcv.abst.filter.derivative.ImageGradient;
+import boofcv.abst.geo.Estimate1ofEpipolar;
+import boofcv.abst.geo.calibration.DetectorFiducialCalibration;
+import boofcv.alg.distort.LensDistortionNarrowFOV;
+import boofcv.alg.geo.calibration.CalibrationObservation;
+import boofcv.alg.interpolate.InterpolateRectangle;
+import boofcv.factory.filter.derivative.FactoryDerivative;
+import boofcv.factory.geo.FactoryMultiView;
+import boofcv.factory.interpolate.FactoryInterpolation;
+import boofcv.factory.transform.pyramid.FactoryPyramid;
+import boofcv.struct.distort.Point2Transform2_F64;
+import boofcv.struct.geo.AssociatedPair;
+import boofcv.struct.geo.PointIndex2D_F64;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.ImageType;
+import boofcv.struct.pyramid.PyramidDiscrete;
+import georegression.geometry.GeometryMath_F64;
+import georegression.struct.point.Point2D_F64;
+import org.ddogleg.struct.FastQueue;
+import org.ejml.data.DMatrixRMaj;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Wrapper around a {@link DetectorFiducialCalibration} which is intended for processing a video sequence,
+ * e.g. live calibration. Once the target has been detected its calibration points are tracked in
+ * following frames using KLT. The full detector is only run again when tracking fails or periodically to
+ * remove drift. Tracking is considered to have failed if any point is lost or if the tracked points are not
+ * consistent with a homography computed from the target's known layout.
+ * </p>
+ *
+ * <p>
+ * Calibration only benefits from views which are significantly different. To reduce the size of the
+ * calibration problem, views which are nearly identical to a previously accepted view can be rejected.
+ * After {@link #process} returns true, {@link #isNewView()} indicates if the current view should be
+ * passed on to calibration.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class CalibrationDetectorTracking implements DetectorFiducialCalibration {
+
+	// Detects the target from scratch
+	DetectorFiducialCalibration detector;
+
+	// Tracks calibration points
+	PointTrackerKltPyramid<GrayF32,GrayF32> tracker;
+
+	ConfigCalibrationTracking config;
+
+	// Observations found in the most recent frame
+	CalibrationObservation detected;
+	// Storage for observations found by the tracker. Also used as the empty observation when nothing is found
+	CalibrationObservation tracked = new CalibrationObservation(0,0);
+
+	// true if tracks are being maintained for every detected point
+	boolean tracking = false;
+	// true if the most recent observation came from the tracker
+	boolean fromTracker = false;
+	// true if the most recent observation is not a duplicate
+	boolean newView = false;
+	// number of frames since the full detector was last used successfully
+	int framesSinceDetect;
+	// number of points which are being tracked
+	int expectedTracks;
+
+	// Transforms to and from undistorted pixels. null if no lens distortion has been specified
+	Point2Transform2_F64 distToUndist, undistToDist;
+
+	// Previously accepted views, used to reject duplicate views
+	List<CalibrationObservation> acceptedViews = new ArrayList<>();
+
+	// Used to check the geometric consistency of tracked points
+	Estimate1ofEpipolar computeHomography = FactoryMultiView.homographyDLT(true);
+	FastQueue<AssociatedPair> pairs = new FastQueue<>(AssociatedPair.class,true);
+	DMatrixRMaj H = new DMatrixRMaj(3,3);
+
+	// work space
+	List<PointTrack> active = new ArrayList<>();
+	Point2D_F64 pixel = new Point2D_F64();
+
+	/**
+	 * Configures the detector
+	 *
+	 * @param detector Detector used to find the target in a single image
+	 * @param config Configuration for tracking
+	 */
+	public CalibrationDetectorTracking(DetectorFiducialCalibration detector, ConfigCalibrationTracking config) {
+		this.detector = detector;
+		this.config = config;
+
+		PyramidDiscrete<GrayF32> pyramid = FactoryPyramid.discreteGaussian(
+				config.klt.pyramidScaling,-1,2,true, ImageType.single(GrayF32.class));
+		ImageGradient<GrayF32,GrayF32> gradient = FactoryDerivative.sobel(GrayF32.class, GrayF32.class);
+		InterpolateRectangle<GrayF32> interpInput = FactoryInterpolation.bilinearRectangle(GrayF32.class);
+		InterpolateRectangle<GrayF32> interpDeriv = FactoryInterpolation.bilinearRectangle(GrayF32.class);
+
+		// The detector isn't needed since tracks are only created at known calibration points
+		tracker = new PointTrackerKltPyramid<>(config.klt.config, config.klt.templateRadius,
+				pyramid, null, gradient, interpInput, interpDeriv, GrayF32.class);
+	}
+
+	@Override
+	public boolean process(GrayF32 input) {
+		tracker.process(input);
+
+		fromTracker = false;
+		newView = false;
+
+		boolean success = false;
+		if( tracking && (config.redetectPeriod <= 0 || framesSinceDetect < config.redetectPeriod) ) {
+			success = fromTracker = updateUsingTracks(input);
+		}
+
+		if( !success ) {
+			success = detect(input);
+		}
+
+		if( success ) {
+			framesSinceDetect++;
+			newView = checkNewView();
+		} else {
+			tracked.reset(input.width,input.height);
+			detected = tracked;
+		}
+
+		return success;
+	}
+
+	/**
+	 * Detects the target using the full detector and spawns new tracks at every calibration point
+	 */
+	private boolean detect( GrayF32 input ) {
+		tracker.dropAllTracks();
+		tracking = false;
+
+		if( !detector.process(input) )
+			return false;
+
+		detected = detector.getDetectedPoints();
+		framesSinceDetect = 0;
+
+		// spawn tracks at the calibration points. Tracking is done in the distorted image
+		tracking = true;
+		expectedTracks = detected.size();
+		for (int i = 0; i < detected.size(); i++) {
+			PointIndex2D_F64 p = detected.get(i);
+			if( undistToDist != null ) {
+				undistToDist.compute(p.x,p.y,pixel);
+			} else {
+				pixel.set(p);
+			}
+
+			PointTrack t = tracker.addTrack(pixel.x,pixel.y);
+			if( t == null ) {
+				// not all the points can be tracked. Detect again next frame
+				tracking = false;
+				break;
+			}
+			t.cookie = p.index;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Creates the observation from tracked points and makes sure they are geometrically consistent
+	 *
+	 * @return true if tracking was successful
+	 */
+	private boolean updateUsingTracks( GrayF32 input ) {
+		active.clear();
+		tracker.getActiveTracks(active);
+
+		if( active.size() != expectedTracks )
+			return false;
+
+		tracked.reset(input.width,input.height);
+		for (int i = 0; i < active.size(); i++) {
+			PointTrack t = active.get(i);
+			if( distToUndist != null ) {
+				distToUndist.compute(t.x,t.y,pixel);
+				tracked.add(pixel,(Integer)t.cookie);
+			} else {
+				tracked.add(t,(Integer)t.cookie);
+			}
+		}
+		tracked.sort();
+
+		if( !isConsistent(tracked) )
+			return false;
+
+		detected = tracked;
+		return true;
+	}
+
+	/**
+	 * Checks to see if the observed points are consistent with a homography from the target's layout
+	 */
+	boolean isConsistent( CalibrationObservation found ) {
+		List<Point2D_F64> layout = detector.getLayout();
+
+		pairs.reset();
+		for (int i = 0; i < found.size(); i++) {
+			PointIndex2D_F64 p = found.get(i);
+			AssociatedPair pair = pairs.grow();
+			pair.p1.set(layout.get(p.index));
+			pair.p2.set(p);
+		}
+
+		if( pairs.size < 4 || !computeHomography.process(pairs.toList(),H) )
+			return false;
+
+		double tol = config.maxHomographyError*config.maxHomographyError;
+		for (int i = 0; i < pairs.size; i++) {
+			AssociatedPair pair = pairs.get(i);
+			GeometryMath_F64.mult(H,pair.p1,pixel);
+			if( pixel.distance2(pair.p2) > tol )
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Compares the current observation against previously accepted views. If it isn't a duplicate then it's
+	 * saved.
+	 *
+	 * @return true if it's a new view
+	 */
+	boolean checkNewView() {
+		if( config.minViewChange <= 0 )
+			return true;
+
+		double w = detected.getWidth(), h = detected.getHeight();
+		double tol = config.minViewChange*Math.sqrt(w*w + h*h);
+
+		for (int i = 0; i < acceptedViews.size(); i++) {
+			if( averageDistance(acceptedViews.get(i),detected) < tol )
+				return false;
+		}
+
+		acceptedViews.add(detected.copy());
+		return true;
+	}
+
+	/**
+	 * Average distance between points with the same index in two observations. If no points are in common
+	 * then infinity is returned.
+	 */
+	static double averageDistance( CalibrationObservation a , CalibrationObservation b ) {
+		double total = 0;
+		int count = 0;
+
+		// both are sorted by index
+		int idxA = 0, idxB = 0;
+		while( idxA < a.size() && idxB < b.size() ) {
+			PointIndex2D_F64 pa = a.get(idxA);
+			PointIndex2D_F64 pb = b.get(idxB);
+			if( pa.index == pb.index ) {
+				total += pa.distance(pb);
+				count++;
+				idxA++; idxB++;
+			} else if( pa.index < pb.index ) {
+				idxA++;
+			} else {
+				idxB++;
+			}
+		}
+
+		return count == 0 ? Double.POSITIVE_INFINITY : total/count;
+	}
+
+	/**
+	 * Discards all tracks and previously accepted views
+	 */
+	public void reset() {
+		tracker.reset();
+		tracking = false;
+		fromTracker = false;
+		newView = false;
+		acceptedViews.clear();
+	}
+
+	@Override
+	public CalibrationObservation getDetectedPoints() {
+		return detected;
+	}
+
+	@Override
+	public List<Point2D_F64> getLayout() {
+		return detector.getLayout();
+	}
+
+	@Override
+	public void setLensDistortion(@Nullable LensDistortionNarrowFOV distortion, int width, int height) {
+		detector.setLensDistortion(distortion, width, height);
+		if( distortion == null ) {
+			distToUndist = undistToDist = null;
+		} else {
+			distToUndist = distortion.undistort_F64(true, true);
+			undistToDist = distortion.distort_F64(true, true);
+		}
+		tracker.dropAllTracks();
+		tracking = false;
+	}
+
+	/**
+	 * If true then the most recent observation was found by tracking and not by the full detector
+	 */
+	public boolean isFromTracker() {
+		return fromTracker;
+	}
+
+	/**
+	 * If true then the most recent observation was not a duplicate of a previously accepted view and should
+	 * be used for calibration.
+	 */
+	public boolean isNewView() {
+		return newView;
+	}
+
+	public List<CalibrationObservation> getAcceptedViews() {
+		return acceptedViews;
+	}
+
+	public DetectorFiducialCalibration getDetector() {
+		return detector;
+	}
+
+	public ConfigCalibrationTracking getConfig() {
+		return config;
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.fiducial.calib;
+
+import boofcv.alg.tracker.klt.PkltConfig;
+import boofcv.struct.Configuration;
+
+/**
+ * Configuration for {@link CalibrationDetectorTracking}.
+ *
+ * @author Peter Abeles
+ */
+public class ConfigCalibrationTracking implements Configuration {
+
+	/**
+	 * Configuration for the KLT tracker used to follow calibration points between frames
+	 */
+	public PkltConfig klt = new PkltConfig(5, new int[]{1,2,4});
+
+	/**
+	 * The target is detected from scratch after it has been tracked for this many frames. This prevents
+	 * tracking drift from accumulating. If &le; 0 then it will only be detected again when tracking fails.
+	 */
+	public int redetectPeriod = 30;
+
+	/**
+	 * Tracked points must be consistent with a homography computed from the target's layout. If any point
+	 * has an error larger than this, in pixels, then tracking is considered to have failed.
+	 */
+	public double maxHomographyError = 1.5;
+
+	/**
+	 * Views in which the points have moved less than this fraction of the image's diagonal, on average,
+	 * relative to a previously accepted view are considered to be duplicates. If &le; 0 then every view is
+	 * accepted.
+	 */
+	public double minViewChange = 0.02;
+
+	@Override
+	public void checkValidity() {
+		if( klt.templateRadius <= 0 )
+			throw new IllegalArgumentException("KLT template radius must be more than zero");
+		if( maxHomographyError <= 0 )
+			throw new IllegalArgumentException("maxHomographyError must be more than zero");
+	}
+}
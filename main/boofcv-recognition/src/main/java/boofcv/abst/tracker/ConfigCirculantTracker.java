@@ -59,6 +59,18 @@ public class ConfigCirculantTracker {
 	 */
 	public int workSpace = 64;
 
+	/**
+	 * Scale factors which are searched when tracking.  Only used by
+	 * {@link boofcv.alg.tracker.circulant.CirculantTracker_F32}.  Must include 1.  By default the target's size is fixed.
+	 */
+	public double[] scales = new double[]{1.0};
+
+	/**
+	 * Response at scales other than 1 is multiplied by this value.  Values less than 1 favor the current size.
+	 * Only used by {@link boofcv.alg.tracker.circulant.CirculantTracker_F32}.
+	 */
+	public double scalePenalty = 0.98;
+
 	public ConfigCirculantTracker(float interp_factor) {
 		this.interp_factor = interp_factor;
 	}
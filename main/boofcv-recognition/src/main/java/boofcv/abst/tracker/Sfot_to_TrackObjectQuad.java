@@ -33,7 +33,7 @@ import georegression.struct.shapes.Quadrilateral_F64;
  * @author Peter Abeles
  */
 public class Sfot_to_TrackObjectQuad<T extends ImageGray<T>, D extends ImageGray<D>>
-		implements TrackerObjectQuad<T>
+		implements TrackerObjectQuadShared<T>
 {
 	SparseFlowObjectTracker<T,D> alg;
 
@@ -76,6 +76,16 @@ public class Sfot_to_TrackObjectQuad<T extends ImageGray<T>, D extends ImageGray
 		return true;
 	}
 
+	@Override
+	public SharedFramePreprocessing<T> createSharedPreprocessing() {
+		return new SharedPyramidKltFrames<>(alg.createFrames());
+	}
+
+	@Override
+	public void setSharedPreprocessing(SharedFramePreprocessing<T> shared) {
+		alg.setSharedFrames(((SharedPyramidKltFrames<T,D>)shared).getFrames());
+	}
+
 	@Override
 	public ImageType<T> getImageType() {
 		return type;
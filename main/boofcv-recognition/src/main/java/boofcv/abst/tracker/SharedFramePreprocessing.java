@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.tracker;
+
+import boofcv.struct.image.ImageBase;
+
+/**
+ * Image processing which a {@link TrackerObjectQuad} performs on the entire image each frame, e.g. computing
+ * an image pyramid and its gradient. When several objects are being tracked with the same type of tracker, this
+ * only needs to be done once per frame and the results can be shared by all the trackers.
+ *
+ * @see TrackerObjectQuadShared#createSharedPreprocessing()
+ * @see TrackerObjectQuadManager
+ *
+ * @author Peter Abeles
+ */
+public interface SharedFramePreprocessing<T extends ImageBase<T>> {
+
+	/**
+	 * Processes the next image in the sequence. Must be called once for each image before it's passed to
+	 * any of the trackers which share this preprocessing.
+	 *
+	 * @param frame (Input) The next image in the video sequence.
+	 */
+	void process( T frame );
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.tracker;
+
+import boofcv.alg.tracker.klt.PyramidKltFrames;
+import boofcv.alg.tracker.tld.TldIntegralImages;
+import boofcv.struct.image.ImageGray;
+
+/**
+ * Shares {@link PyramidKltFrames} and {@link TldIntegralImages} between TLD trackers. Both only depend on the
+ * input image and are computed once per frame.
+ *
+ * @author Peter Abeles
+ */
+public class SharedTldFrames<T extends ImageGray<T>, D extends ImageGray<D>>
+		extends SharedPyramidKltFrames<T,D>
+{
+	TldIntegralImages<T> integral;
+
+	public SharedTldFrames(PyramidKltFrames<T, D> frames, TldIntegralImages<T> integral ) {
+		super(frames);
+		this.integral = integral;
+	}
+
+	@Override
+	public void process(T frame) {
+		super.process(frame);
+		integral.process(frame);
+	}
+
+	public TldIntegralImages<T> getIntegral() {
+		return integral;
+	}
+}
@@ -31,7 +31,7 @@ import georegression.struct.shapes.Rectangle2D_F64;
  * @author Peter Abeles
  */
 public class Tld_to_TrackerObjectQuad<T extends ImageGray<T>, D extends ImageGray<D>>
-		implements TrackerObjectQuad<T>
+		implements TrackerObjectQuadShared<T>
 {
 	Rectangle2D_F64 rect = new Rectangle2D_F64();
 	TldTracker<T,D> tracker;
@@ -79,6 +79,18 @@ public class Tld_to_TrackerObjectQuad<T extends ImageGray<T>, D extends ImageGra
 		return true;
 	}
 
+	@Override
+	public SharedFramePreprocessing<T> createSharedPreprocessing() {
+		return new SharedTldFrames<>(tracker.createFrames(), tracker.createIntegralImages());
+	}
+
+	@Override
+	public void setSharedPreprocessing(SharedFramePreprocessing<T> shared) {
+		SharedTldFrames<T,D> frames = (SharedTldFrames<T,D>)shared;
+		tracker.setSharedFrames(frames.getFrames());
+		tracker.setSharedIntegralImages(frames.getIntegral());
+	}
+
 	@Override
 	public ImageType<T> getImageType() {
 		return type;
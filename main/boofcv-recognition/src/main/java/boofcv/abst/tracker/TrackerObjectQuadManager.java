@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.tracker;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.image.ImageBase;
+import georegression.struct.shapes.Quadrilateral_F64;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Tracks multiple objects in the same video sequence. Each object has its own {@link TrackerObjectQuad}, all of
+ * the same type and created by the same {@link Factory}. If the trackers implement {@link TrackerObjectQuadShared},
+ * the image processing which is done on the entire image, e.g. image pyramids and gradients, is done only once per
+ * frame and shared by all the trackers. Targets are then updated in parallel when
+ * {@link BoofConcurrency#USE_CONCURRENT} is true.
+ * </p>
+ *
+ * <p>
+ * How long each target took to update is recorded so that expensive targets can be identified.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class TrackerObjectQuadManager<T extends ImageBase<T>> {
+
+	// Creates a new tracker for each target
+	private Factory<T> factory;
+
+	// Processing which is shared between all the trackers. null if not supported
+	private SharedFramePreprocessing<T> shared;
+	// true if a tracker has been created and it's known if sharing is supported
+	private boolean sharingChecked = false;
+
+	// All the targets which are being tracked
+	private List<Target<T>> targets = new ArrayList<>();
+	// Trackers from removed targets which can be reused
+	private List<TrackerObjectQuad<T>> unused = new ArrayList<>();
+
+	// ID which will be assigned to the next target
+	private int nextTargetID = 0;
+
+	// time in nano seconds to compute the shared preprocessing and process the entire frame
+	private long timePreprocessing;
+	private long timeFrame;
+
+	/**
+	 * Configures the manager
+	 *
+	 * @param factory Creates trackers. Each tracker must have the same type and configuration.
+	 */
+	public TrackerObjectQuadManager( Factory<T> factory ) {
+		this.factory = factory;
+	}
+
+	/**
+	 * Adds a new target. The tracker is initialized when the next frame is processed
+	 *
+	 * @param location Location of the target in the image which will be passed to {@link #process} next.
+	 *                 The quadrilateral is copied.
+	 * @return ID of the target
+	 */
+	public int addTarget( Quadrilateral_F64 location ) {
+		Target<T> t = new Target<>();
+		t.id = nextTargetID++;
+		t.tracker = createTracker();
+		t.location.set(location);
+		targets.add(t);
+		return t.id;
+	}
+
+	/**
+	 * Stops tracking the target. Its tracker will be recycled.
+	 *
+	 * @param targetID ID of the target
+	 * @return true if a target with the ID was found and removed
+	 */
+	public boolean removeTarget( int targetID ) {
+		for( int i = 0; i < targets.size(); i++ ) {
+			Target<T> t = targets.get(i);
+			if( t.id == targetID ) {
+				targets.remove(i);
+				unused.add(t.tracker);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes all targets
+	 */
+	public void reset() {
+		for( int i = 0; i < targets.size(); i++ ) {
+			unused.add(targets.get(i).tracker);
+		}
+		targets.clear();
+	}
+
+	/**
+	 * Processes the next frame in the video sequence. First shared preprocessing is done, then new targets are
+	 * initialized and existing targets are updated.
+	 *
+	 * @param frame (Input) The next image in the video sequence.
+	 */
+	public void process( T frame ) {
+		long time0 = System.nanoTime();
+		if( shared != null )
+			shared.process(frame);
+		long time1 = System.nanoTime();
+
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			BoofConcurrency.loopFor(0, targets.size(), i -> update(targets.get(i), frame));
+		} else {
+			for( int i = 0; i < targets.size(); i++ ) {
+				update(targets.get(i), frame);
+			}
+		}
+		long time2 = System.nanoTime();
+
+		timePreprocessing = time1-time0;
+		timeFrame = time2-time0;
+	}
+
+	/**
+	 * Initializes or updates a single target. Only the target is modified, so different targets can be
+	 * updated at the same time.
+	 */
+	private void update( Target<T> t , T frame ) {
+		long before = System.nanoTime();
+
+		if( !t.initialized ) {
+			t.initialized = true;
+			t.valid = t.tracker.initialize(frame,t.location);
+			t.visible = t.valid;
+		} else if( t.valid ) {
+			t.visible = t.tracker.process(frame,t.location);
+		}
+
+		t.timeUpdate = System.nanoTime()-before;
+		t.timeTotal += t.timeUpdate;
+		t.totalFrames++;
+	}
+
+	/**
+	 * Creates a new tracker or reuses an old one. The first time a tracker is created it's checked to see if it
+	 * supports shared preprocessing.
+	 */
+	private TrackerObjectQuad<T> createTracker() {
+		TrackerObjectQuad<T> tracker;
+		if( unused.isEmpty() ) {
+			tracker = factory.newInstance();
+			if( !sharingChecked ) {
+				sharingChecked = true;
+				if( tracker instanceof TrackerObjectQuadShared )
+					shared = ((TrackerObjectQuadShared<T>)tracker).createSharedPreprocessing();
+			}
+			if( shared != null )
+				((TrackerObjectQuadShared<T>)tracker).setSharedPreprocessing(shared);
+		} else {
+			tracker = unused.remove(unused.size()-1);
+		}
+		return tracker;
+	}
+
+	/**
+	 * Returns the target with the specified ID or null if there is no such target
+	 */
+	public Target<T> lookupTarget( int targetID ) {
+		for( int i = 0; i < targets.size(); i++ ) {
+			if( targets.get(i).id == targetID )
+				return targets.get(i);
+		}
+		return null;
+	}
+
+	/**
+	 * List of all targets. Do not modify.
+	 */
+	public List<Target<T>> getTargets() {
+		return targets;
+	}
+
+	/**
+	 * True if the trackers are sharing preprocessing. Only known after the first target has been added.
+	 */
+	public boolean isSharingPreprocessing() {
+		return shared != null;
+	}
+
+	/**
+	 * Time in milliseconds the shared preprocessing took in the most recent frame
+	 */
+	public double getTimePreprocessingMS() {
+		return timePreprocessing*1e-6;
+	}
+
+	/**
+	 * Time in milliseconds it took to process the most recent frame, including preprocessing
+	 */
+	public double getTimeFrameMS() {
+		return timeFrame*1e-6;
+	}
+
+	/**
+	 * An object being tracked
+	 */
+	public static class Target<T extends ImageBase<T>> {
+		int id;
+		TrackerObjectQuad<T> tracker;
+		// most recent location of the target
+		Quadrilateral_F64 location = new Quadrilateral_F64();
+		// has the tracker been initialized yet
+		boolean initialized = false;
+		// true if initialization was successful
+		boolean valid;
+		// true if the target was found in the most recent frame
+		boolean visible;
+
+		// time in nano seconds the most recent update took and the sum of all updates
+		long timeUpdate;
+		long timeTotal;
+		// number of frames this target has been processed in
+		int totalFrames;
+
+		public int getId() {
+			return id;
+		}
+
+		public TrackerObjectQuad<T> getTracker() {
+			return tracker;
+		}
+
+		/**
+		 * Location of the target in the most recent frame it was visible in
+		 */
+		public Quadrilateral_F64 getLocation() {
+			return location;
+		}
+
+		/**
+		 * True if the target was found in the most recent frame
+		 */
+		public boolean isVisible() {
+			return visible;
+		}
+
+		/**
+		 * Time in milliseconds it took to update this target in the most recent frame
+		 */
+		public double getTimeUpdateMS() {
+			return timeUpdate*1e-6;
+		}
+
+		/**
+		 * Average time in milliseconds it took to update this target
+		 */
+		public double getAverageTimeMS() {
+			if( totalFrames == 0 )
+				return 0;
+			return timeTotal*1e-6/totalFrames;
+		}
+
+		public int getTotalFrames() {
+			return totalFrames;
+		}
+	}
+
+	/**
+	 * Creates new instances of a tracker
+	 */
+	public interface Factory<T extends ImageBase<T>> {
+		TrackerObjectQuad<T> newInstance();
+	}
+}
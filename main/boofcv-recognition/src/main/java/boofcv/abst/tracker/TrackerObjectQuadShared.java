@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.tracker;
+
+import boofcv.struct.image.ImageBase;
+
+/**
+ * A {@link TrackerObjectQuad} which can share the image processing it performs on the entire image each frame
+ * with other trackers of the same type and configuration.
+ *
+ * @see TrackerObjectQuadManager
+ *
+ * @author Peter Abeles
+ */
+public interface TrackerObjectQuadShared<T extends ImageBase<T>> extends TrackerObjectQuad<T> {
+
+	/**
+	 * Creates the image processing which this tracker performs on the entire image every frame, so that it can
+	 * be done once and shared with other trackers of the same type and configuration.
+	 *
+	 * @return Preprocessing which can be shared
+	 */
+	SharedFramePreprocessing<T> createSharedPreprocessing();
+
+	/**
+	 * Tells the tracker to use preprocessing which is shared with other trackers instead of computing its own.
+	 * Before an image is passed to {@link #initialize} or {@link #process}, {@link SharedFramePreprocessing#process}
+	 * must have already been called with the same image. Must be called before {@link #initialize}.
+	 *
+	 * @param shared Preprocessing created by {@link #createSharedPreprocessing()} from a tracker of the same type
+	 *               and configuration.
+	 */
+	void setSharedPreprocessing( SharedFramePreprocessing<T> shared );
+}
@@ -27,6 +27,7 @@ import boofcv.alg.distort.*;
 import boofcv.alg.interpolate.InterpolatePixelS;
 import boofcv.alg.shapes.polygon.DetectPolygonBinaryGrayRefine;
 import boofcv.alg.shapes.polygon.DetectPolygonFromContour;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.core.image.border.FactoryImageBorder;
 import boofcv.factory.distort.FactoryDistort;
 import boofcv.factory.geo.EpipolarError;
@@ -38,6 +39,7 @@ import boofcv.struct.geo.AssociatedPair;
 import boofcv.struct.image.GrayF32;
 import boofcv.struct.image.GrayU8;
 import boofcv.struct.image.ImageGray;
+import boofcv.struct.lists.RecycleStack;
 import georegression.geometry.UtilPolygons2D_F64;
 import georegression.struct.ConvertFloatType;
 import georegression.struct.homography.Homography2D_F64;
@@ -88,15 +90,14 @@ public abstract class BaseDetectFiducialSquare<T extends ImageGray<T>> {
 	// image with lens and perspective distortion removed from it
 	GrayF32 square;
 
-	// Used to compute/remove perspective distortion
-	private Estimate1ofEpipolar computeHomography = FactoryMultiView.homographyDLT(true);
-	private RefineEpipolar refineHomography = FactoryMultiView.homographyRefine(1e-4,100, EpipolarError.SAMPSON);
-	private DMatrixRMaj H = new DMatrixRMaj(3,3);
-	private DMatrixRMaj H_refined = new DMatrixRMaj(3,3);
-	private Homography2D_F64 H_fixed = new Homography2D_F64();
-	private List<AssociatedPair> pairsRemovePerspective = new ArrayList<>();
-	private ImageDistort<T,GrayF32> removePerspective;
-	private PointTransformHomography_F32 transformHomography = new PointTransformHomography_F32();
+	// Used to compute/remove perspective distortion. The first is used when single threaded
+	private RemovePerspective removePerspective;
+	private RecycleStack<RemovePerspective> removePerspectiveStack = new RecycleStack<>(RemovePerspective::new);
+
+	// Lens distortion model. null if there is no lens distortion
+	private LensDistortionNarrowFOV distortion;
+	// Incremented every time the lens distortion changes. Used to update models which remove perspective
+	private int distortionVersion = 0;
 
 	private Point2Transform2_F64 undistToDist = new DoNothing2Transform2_F64();
 
@@ -105,9 +106,6 @@ public abstract class BaseDetectFiducialSquare<T extends ImageGray<T>> {
 	// the minimum fraction of border pixels which must be black for it to be considered a fiducial
 	private double minimumBorderBlackFraction;
 
-	// Storage for results of fiducial reading
-	private Result result = new Result();
-
 	// type of input image
 	private Class<T> inputType;
 
@@ -150,18 +148,7 @@ public abstract class BaseDetectFiducialSquare<T extends ImageGray<T>> {
 		this.inputType = inputType;
 		this.square = new GrayF32(squarePixels,squarePixels);
 
-		for (int i = 0; i < 4; i++) {
-			pairsRemovePerspective.add(new AssociatedPair());
-		}
-
-		// this combines two separate sources of distortion together so that it can be removed in the final image which
-		// is sent to fiducial decoder
-		InterpolatePixelS<T> interp = FactoryInterpolation.nearestNeighborPixelS(inputType);
-		interp.setBorder(FactoryImageBorder.single(inputType, BorderType.EXTENDED));
-		removePerspective = FactoryDistort.distortSB(false, interp, GrayF32.class);
-
-		// if no camera parameters is specified default to this
-		removePerspective.setModel(new PointToPixelTransform_F32(transformHomography));
+		removePerspective = new RemovePerspective(square);
 
 		BinaryContourFinder contourFinder = squareDetector.getDetector().getContourFinder();
 		contourHelper = new BinaryContourHelper(contourFinder,binaryCopy);
@@ -177,12 +164,12 @@ public abstract class BaseDetectFiducialSquare<T extends ImageGray<T>> {
 	 *              if no lens distortion
 	 */
 	public void configure(LensDistortionNarrowFOV distortion, int width , int height , boolean cache ) {
+		distortionVersion++;
 		if( distortion == null ) {
-			removePerspective.setModel(new PointToPixelTransform_F32(transformHomography));
+			this.distortion = null;
 			squareDetector.setLensDistortion(width,height,null,null);
 			undistToDist = new DoNothing2Transform2_F64();
 		} else {
-			Point2Transform2_F32 pointSquareToInput;
 			Point2Transform2_F32 pointDistToUndist = distortion.undistort_F32(true, true);
 			Point2Transform2_F32 pointUndistToDist = distortion.distort_F32(true, true);
 			PixelTransform<Point2D_F32> distToUndist = new PointToPixelTransform_F32(pointDistToUndist);
@@ -202,22 +189,21 @@ public abstract class BaseDetectFiducialSquare<T extends ImageGray<T>> {
 
 				squareDetector.setLensDistortion(width, height, distToUndist, undistToDist);
 
-				pointSquareToInput = new SequencePoint2Transform2_F32(transformHomography, pointUndistToDist);
-
-				// provide intrinsic camera parameters
-				PixelTransform<Point2D_F32> squareToInput = new PointToPixelTransform_F32(pointSquareToInput);
-				removePerspective.setModel(squareToInput);
-
+				// the model used to remove perspective is created by each RemovePerspective when it's needed
+				this.distortion = distortion;
 				this.undistToDist = distortion.distort_F64(true, true);
 			}
 		}
 	}
 
-	private Polygon2D_F64 interpolationHack = new Polygon2D_F64(4);
-
 	List<Polygon2D_F64> candidates = new ArrayList<>();
 	List<DetectPolygonFromContour.Info> candidatesInfo = new ArrayList<>();
 
+	// Storage for results of fiducial reading. One for each candidate
+	private FastQueue<Result> results = new FastQueue<>(Result.class, true);
+	// Used to ensure that only one thread at a time calls processSquare()
+	private final Object lockDecode = new Object();
+
 	/**
 	 * Examines the input image to detect fiducials inside of it
 	 *
@@ -235,87 +221,81 @@ public abstract class BaseDetectFiducialSquare<T extends ImageGray<T>> {
 		squareDetector.getPolygons(candidates,candidatesInfo);
 
 		found.reset();
+		results.resize(candidates.size());
 
 		if( verbose ) System.out.println("---------- Got Polygons! "+candidates.size());
 
-		for (int i = 0; i < candidates.size(); i++) {
-			// compute the homography from the input image to an undistorted square image
-			// If lens distortion has been specified this polygon will be in undistorted pixels
-			Polygon2D_F64 p = candidates.get(i);
-//			System.out.println(i+"  processing...  "+p.areaSimple()+" at "+p.get(0));
-
-			// sanity check before processing
-			if( !checkSideSize(p) ) {
-				if( verbose ) System.out.println("  rejected side aspect ratio or size");
-				continue;
-			}
-
-			// REMOVE EVENTUALLY  This is a hack around how interpolation is performed
-			// Using a surface integral instead would remove the need for this.  Basically by having it start
-			// interpolating from the lower extent it samples inside the image more
-			// A good unit test to see if this hack is no longer needed is to rotate the order of the polygon and
-			// see if it returns the same undistorted image each time
-			double best=Double.MAX_VALUE;
-			for (int j = 0; j < 4; j++) {
-				double found = p.get(0).normSq();
-				if( found < best ) {
-					best = found;
-					interpolationHack.set(p);
-				}
-				UtilPolygons2D_F64.shiftDown(p);
-			}
-
-			p.set(interpolationHack);
-
-			// remember, visual clockwise isn't the same as math clockwise, hence
-			// counter clockwise visual to the clockwise quad
-			pairsRemovePerspective.get(0).set(0, 0, p.get(0).x, p.get(0).y);
-			pairsRemovePerspective.get(1).set( square.width ,      0        , p.get(1).x , p.get(1).y );
-			pairsRemovePerspective.get(2).set( square.width , square.height , p.get(2).x , p.get(2).y );
-			pairsRemovePerspective.get(3).set( 0            , square.height , p.get(3).x , p.get(3).y );
-
-			if( !computeHomography.process(pairsRemovePerspective,H) ) {
-				if( verbose ) System.out.println("  rejected initial homography");
-				continue;
+		if( BoofConcurrency.USE_CONCURRENT && candidates.size() > 1 ) {
+			// Removing perspective distortion dominates and is done in parallel. Decoding is done one
+			// candidate at a time since it's inexpensive and implementations are not thread safe
+			BoofConcurrency.loopFor(0,candidates.size(),i->{
+				RemovePerspective work = removePerspectiveStack.pop();
+				results.get(i).accepted = processCandidate(gray,i,work,true);
+				removePerspectiveStack.recycle(work);
+			});
+		} else {
+			for (int i = 0; i < candidates.size(); i++) {
+				results.get(i).accepted = processCandidate(gray,i,removePerspective,false);
 			}
+		}
 
-			// refine homography estimate
-			if( !refineHomography.fitModel(pairsRemovePerspective,H,H_refined) ) {
-				if( verbose ) System.out.println("  rejected refine homography");
-				continue;
+		// Output is always in the same order as the candidates
+		for (int i = 0; i < candidates.size(); i++) {
+			Result result = results.get(i);
+			if( result.accepted ) {
+				prepareForOutput(candidates.get(i),result);
 			}
+		}
+	}
 
-			// pass the found homography onto the image transform
-			ConvertDMatrixStruct.convert(H_refined,H_fixed);
-			ConvertFloatType.convert(H_fixed, transformHomography.getModel());
-
-			// TODO Improve how perspective is removed
-			// The current method introduces artifacts.  If the "square" is larger
-			// than the detected region and bilinear interpolation is used then pixels outside will// influence the
-			// value of pixels inside and shift things over.  this is all bad
+	/**
+	 * Removes perspective distortion from a candidate and attempts to decode it
+	 *
+	 * @param gray Input image
+	 * @param which Index of the candidate
+	 * @param work Storage and algorithms for removing perspective distortion
+	 * @param concurrent If true then other threads are processing candidates at the same time
+	 * @return true if it was decoded successfully
+	 */
+	private boolean processCandidate( T gray , int which , RemovePerspective work , boolean concurrent ) {
+		// compute the homography from the input image to an undistorted square image
+		// If lens distortion has been specified this polygon will be in undistorted pixels
+		Polygon2D_F64 p = candidates.get(which);
+//		System.out.println(which+"  processing...  "+p.areaSimple()+" at "+p.get(0));
+
+		// sanity check before processing
+		if( !checkSideSize(p) ) {
+			if( verbose ) System.out.println("  rejected side aspect ratio or size");
+			return false;
+		}
 
-			// remove the perspective distortion and process it
-			removePerspective.apply(gray, square);
+		if( !work.apply(gray,p) )
+			return false;
 
-			DetectPolygonFromContour.Info info = candidatesInfo.get(i);
+		DetectPolygonFromContour.Info info = candidatesInfo.get(which);
 
-			// see if the black border is actually black
-			if( minimumBorderBlackFraction > 0 ) {
-				double pixelThreshold = (info.edgeInside + info.edgeOutside) / 2;
-				double foundFraction = computeFractionBoundary((float) pixelThreshold);
-				if( foundFraction < minimumBorderBlackFraction ) {
-					if( verbose ) System.out.println("  rejected black border fraction "+foundFraction);
-					continue;
-				}
+		// see if the black border is actually black
+		if( minimumBorderBlackFraction > 0 ) {
+			double pixelThreshold = (info.edgeInside + info.edgeOutside) / 2;
+			double foundFraction = computeFractionBoundary(work.square,(float) pixelThreshold);
+			if( foundFraction < minimumBorderBlackFraction ) {
+				if( verbose ) System.out.println("  rejected black border fraction "+foundFraction);
+				return false;
 			}
-			if( processSquare(square,result,info.edgeInside,info.edgeOutside)) {
-				prepareForOutput(p,result);
+		}
 
-				if( verbose ) System.out.println("  accepted!");
-			} else {
-				if( verbose ) System.out.println("  rejected process square");
+		Result result = results.get(which);
+		boolean success;
+		if( concurrent ) {
+			synchronized (lockDecode) {
+				success = processSquare(work.square, result, info.edgeInside, info.edgeOutside);
 			}
+		} else {
+			success = processSquare(work.square, result, info.edgeInside, info.edgeOutside);
 		}
+
+		if( verbose ) System.out.println(success ? "  accepted!" : "  rejected process square");
+		return success;
 	}
 
 	/**
@@ -357,6 +337,16 @@ public abstract class BaseDetectFiducialSquare<T extends ImageGray<T>> {
 	 * @return fraction of border that's black
 	 */
 	protected double computeFractionBoundary( float pixelThreshold ) {
+		return computeFractionBoundary(square,pixelThreshold);
+	}
+
+	/**
+	 * Computes the fraction of pixels inside the image border which are black
+	 * @param square Image of the undistorted square
+	 * @param pixelThreshold Pixel's less than this value are considered black
+	 * @return fraction of border that's black
+	 */
+	protected double computeFractionBoundary( GrayF32 square , float pixelThreshold ) {
 		// TODO ignore outer pixels from this computation.  Will require 8 regions (4 corners + top/bottom + left/right)
 		final int w = square.width;
 		int radius = (int) (w * borderWidthFraction);
@@ -464,7 +454,128 @@ public abstract class BaseDetectFiducialSquare<T extends ImageGray<T>> {
 		this.thresholdSideRatio = thresholdSideRatio;
 	}
 
+	/**
+	 * Storage and algorithms for removing perspective distortion from a candidate and rendering it into
+	 * a square image. Each thread needs its own instance.
+	 */
+	protected class RemovePerspective {
+		Estimate1ofEpipolar computeHomography = FactoryMultiView.homographyDLT(true);
+		RefineEpipolar refineHomography = FactoryMultiView.homographyRefine(1e-4,100, EpipolarError.SAMPSON);
+		DMatrixRMaj H = new DMatrixRMaj(3,3);
+		DMatrixRMaj H_refined = new DMatrixRMaj(3,3);
+		Homography2D_F64 H_fixed = new Homography2D_F64();
+		List<AssociatedPair> pairs = new ArrayList<>();
+		ImageDistort<T,GrayF32> distort;
+		PointTransformHomography_F32 transformHomography = new PointTransformHomography_F32();
+		Polygon2D_F64 interpolationHack = new Polygon2D_F64(4);
+
+		// image with lens and perspective distortion removed from it
+		GrayF32 square;
+
+		// version of the lens distortion model that the distort model was configured for
+		int version = -1;
+
+		RemovePerspective( GrayF32 square ) {
+			this.square = square;
+
+			for (int i = 0; i < 4; i++) {
+				pairs.add(new AssociatedPair());
+			}
+
+			// this combines two separate sources of distortion together so that it can be removed in the final
+			// image which is sent to fiducial decoder
+			InterpolatePixelS<T> interp = FactoryInterpolation.nearestNeighborPixelS(inputType);
+			interp.setBorder(FactoryImageBorder.single(inputType, BorderType.EXTENDED));
+			distort = FactoryDistort.distortSB(false, interp, GrayF32.class);
+		}
+
+		RemovePerspective() {
+			this(new GrayF32(BaseDetectFiducialSquare.this.square.width,BaseDetectFiducialSquare.this.square.height));
+		}
+
+		/**
+		 * Makes sure the model is up to date with the latest lens distortion
+		 */
+		void updateModel() {
+			if( version == distortionVersion )
+				return;
+			version = distortionVersion;
+
+			if( distortion == null ) {
+				// if no camera parameters is specified default to this
+				distort.setModel(new PointToPixelTransform_F32(transformHomography));
+			} else {
+				// transforms aren't thread safe so a new one is created here
+				Point2Transform2_F32 pointUndistToDist = distortion.distort_F32(true, true);
+				Point2Transform2_F32 pointSquareToInput =
+						new SequencePoint2Transform2_F32(transformHomography, pointUndistToDist);
+
+				// provide intrinsic camera parameters
+				distort.setModel(new PointToPixelTransform_F32(pointSquareToInput));
+			}
+		}
+
+		/**
+		 * Renders the polygon into the square image with perspective distortion removed
+		 *
+		 * @return true if successful
+		 */
+		boolean apply( T gray , Polygon2D_F64 p ) {
+			updateModel();
+
+			// REMOVE EVENTUALLY  This is a hack around how interpolation is performed
+			// Using a surface integral instead would remove the need for this.  Basically by having it start
+			// interpolating from the lower extent it samples inside the image more
+			// A good unit test to see if this hack is no longer needed is to rotate the order of the polygon and
+			// see if it returns the same undistorted image each time
+			double best=Double.MAX_VALUE;
+			for (int j = 0; j < 4; j++) {
+				double found = p.get(0).normSq();
+				if( found < best ) {
+					best = found;
+					interpolationHack.set(p);
+				}
+				UtilPolygons2D_F64.shiftDown(p);
+			}
+
+			p.set(interpolationHack);
+
+			// remember, visual clockwise isn't the same as math clockwise, hence
+			// counter clockwise visual to the clockwise quad
+			pairs.get(0).set(0, 0, p.get(0).x, p.get(0).y);
+			pairs.get(1).set( square.width ,      0        , p.get(1).x , p.get(1).y );
+			pairs.get(2).set( square.width , square.height , p.get(2).x , p.get(2).y );
+			pairs.get(3).set( 0            , square.height , p.get(3).x , p.get(3).y );
+
+			if( !computeHomography.process(pairs,H) ) {
+				if( verbose ) System.out.println("  rejected initial homography");
+				return false;
+			}
+
+			// refine homography estimate
+			if( !refineHomography.fitModel(pairs,H,H_refined) ) {
+				if( verbose ) System.out.println("  rejected refine homography");
+				return false;
+			}
+
+			// pass the found homography onto the image transform
+			ConvertDMatrixStruct.convert(H_refined,H_fixed);
+			ConvertFloatType.convert(H_fixed, transformHomography.getModel());
+
+			// TODO Improve how perspective is removed
+			// The current method introduces artifacts.  If the "square" is larger
+			// than the detected region and bilinear interpolation is used then pixels outside will// influence the
+			// value of pixels inside and shift things over.  this is all bad
+
+			// remove the perspective distortion and process it
+			distort.apply(gray, square);
+			return true;
+		}
+	}
+
 	public static class Result {
+		// true if the candidate was successfully decoded
+		boolean accepted;
 		int which;
 		// length of one of the sides in world units
 		double lengthSide;
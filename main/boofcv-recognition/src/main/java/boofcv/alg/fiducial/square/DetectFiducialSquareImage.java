@@ -20,7 +20,6 @@ package boofcv.alg.fiducial.square;
 
 import boofcv.abst.distort.FDistort;
 import boofcv.abst.filter.binary.InputToBinary;
-import boofcv.alg.descriptor.DescriptorDistance;
 import boofcv.alg.filter.binary.GThresholdImageOps;
 import boofcv.alg.filter.misc.AverageDownSampleOps;
 import boofcv.alg.misc.ImageMiscOps;
@@ -71,6 +70,8 @@ public class DetectFiducialSquareImage<T extends ImageGray<T>>
 
 	// list of all known targets
 	private List<FiducialDef> targets = new ArrayList<>();
+	// index for quickly finding the best match. Contains every target in all 4 orientations
+	private HammingPatternIndex dictionary = new HammingPatternIndex();
 
 	// description of the current target candidate
 	private  short squareDef[] = new short[DESC_LENGTH];
@@ -152,6 +153,11 @@ public class DetectFiducialSquareImage<T extends ImageGray<T>>
 		ImageMiscOps.rotateCCW(binary);
 		binaryToDef(binary, def.desc[3]);
 
+		// pattern index in the tree = target*4 + rotation
+		for (int i = 0; i < 4; i++) {
+			dictionary.add(def.desc[i]);
+		}
+
 		int index = targets.size();
 		targets.add( def );
 		return index;
@@ -185,35 +191,23 @@ public class DetectFiducialSquareImage<T extends ImageGray<T>>
 //		binary.printBinary();
 		binaryToDef(binary, squareDef);
 
-		boolean matched = false;
-		int bestScore = hammingThreshold+1;
-		for (int i = 0; i < targets.size(); i++) {
-			FiducialDef def = targets.get(i);
-
-			for (int j = 0; j < 4; j++) {
-				int score = hamming(def.desc[j], squareDef);
-				if( score < bestScore ) {
-					bestScore = score;
-					result.rotation = j;
-					result.which = i;
-					result.lengthSide = def.lengthSide;
-					matched = true;
-				}
-			}
-		}
+		int match = dictionary.search(squareDef,hammingThreshold);
+		if( match < 0 )
+			return false;
+
+		FiducialDef def = targets.get(match/4);
+		result.which = match/4;
+		result.rotation = match%4;
+		result.lengthSide = def.lengthSide;
 
-		return matched;
+		return true;
 	}
 
 	/**
 	 * Computes the hamming score between two descriptions.  Larger the number better the fit
 	 */
 	protected int hamming(short[] a, short[] b) {
-		int distance = 0;
-		for (int i = 0; i < a.length; i++) {
-			distance += DescriptorDistance.hamming((a[i]&0xFFFF) ^ (b[i]&0xFFFF));
-		}
-		return distance;
+		return HammingPatternIndex.hamming(a,b);
 	}
 
 	public List<FiducialDef> getTargets() {
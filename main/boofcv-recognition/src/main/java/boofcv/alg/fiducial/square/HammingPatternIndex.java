@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.fiducial.square;
+
+import boofcv.alg.descriptor.DescriptorDistance;
+import org.ddogleg.struct.GrowQueue_I32;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * Index for finding the closest binary pattern, using hamming distance, to a query pattern. Patterns are stored
+ * in a vantage point tree (VP-Tree). Since hamming distance is a metric, the triangle inequality can be used to
+ * prune branches of the tree which can't contain a better match than the best one found so far. When the patterns
+ * are well separated, e.g. a fiducial dictionary, the number of distance computations is sub-linear in the
+ * number of patterns.
+ * </p>
+ *
+ * <p>
+ * The search is exact. If multiple patterns have the same distance then the one which was added first is
+ * returned, making it equivalent to an exhaustive search. The tree is lazily rebuilt the first time it's searched
+ * after patterns have been added.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class HammingPatternIndex {
+
+	// patterns encoded in 16-bit blocks
+	List<short[]> patterns = new ArrayList<>();
+
+	// Tree nodes. A node is a pattern which is used as the vantage point
+	GrowQueue_I32 nodePattern = new GrowQueue_I32();
+	// distance threshold which splits the inside and outside children
+	GrowQueue_I32 nodeThreshold = new GrowQueue_I32();
+	// index of inside and outside children. -1 if there is no child
+	GrowQueue_I32 nodeInside = new GrowQueue_I32();
+	GrowQueue_I32 nodeOutside = new GrowQueue_I32();
+	int root = -1;
+
+	// true if patterns have been added since the last time the tree was built
+	boolean dirty = false;
+
+	// work space for building the tree. upper 32-bits is distance, lower is the pattern index
+	long[] work = new long[0];
+
+	// best match found while searching
+	int bestPattern;
+	int bestDistance;
+	// number of times hamming distance was computed in the last search
+	int totalComparisons;
+
+	/**
+	 * Removes all patterns
+	 */
+	public void reset() {
+		patterns.clear();
+		root = -1;
+		dirty = false;
+	}
+
+	/**
+	 * Adds a new pattern. A reference to the array is saved and it should not be modified.
+	 *
+	 * @param pattern The pattern
+	 * @return Index of the pattern
+	 */
+	public int add( short[] pattern ) {
+		if( patterns.size() > 0 && patterns.get(0).length != pattern.length )
+			throw new IllegalArgumentException("All patterns must have the same length");
+		patterns.add(pattern);
+		dirty = true;
+		return patterns.size()-1;
+	}
+
+	/**
+	 * Finds the pattern with the smallest hamming distance to the query
+	 *
+	 * @param query The pattern being searched for
+	 * @param maxDistance Only patterns with a distance &le; to this value are considered a match
+	 * @return Index of the best pattern or -1 if none are within the maximum distance
+	 */
+	public int search( short[] query , int maxDistance ) {
+		if( dirty )
+			buildTree();
+
+		bestPattern = Integer.MAX_VALUE;
+		bestDistance = maxDistance;
+		totalComparisons = 0;
+
+		if( root >= 0 )
+			search(root,query);
+
+		return bestPattern == Integer.MAX_VALUE ? -1 : bestPattern;
+	}
+
+	private void search( int node , short[] query ) {
+		int pattern = nodePattern.data[node];
+		int d = hamming(patterns.get(pattern),query);
+		totalComparisons++;
+
+		// ties go to the pattern which was added first
+		if( d < bestDistance || (d == bestDistance && pattern < bestPattern) ) {
+			bestDistance = d;
+			bestPattern = pattern;
+		}
+
+		int mu = nodeThreshold.data[node];
+		int inside = nodeInside.data[node];
+		int outside = nodeOutside.data[node];
+
+		// search the side which is most likely to contain the match first to reduce the search radius sooner
+		if( d <= mu ) {
+			if( inside >= 0 && d - bestDistance <= mu )
+				search(inside,query);
+			if( outside >= 0 && d + bestDistance >= mu )
+				search(outside,query);
+		} else {
+			if( outside >= 0 && d + bestDistance >= mu )
+				search(outside,query);
+			if( inside >= 0 && d - bestDistance <= mu )
+				search(inside,query);
+		}
+	}
+
+	/**
+	 * Builds the VP-Tree from scratch
+	 */
+	void buildTree() {
+		int N = patterns.size();
+		nodePattern.reset();
+		nodeThreshold.reset();
+		nodeInside.reset();
+		nodeOutside.reset();
+
+		if( work.length < N )
+			work = new long[N];
+		for (int i = 0; i < N; i++) {
+			work[i] = i;
+		}
+
+		root = N > 0 ? buildNode(0,N) : -1;
+		dirty = false;
+	}
+
+	/**
+	 * Creates a node from the patterns in the specified range of the work array
+	 *
+	 * @return index of the node
+	 */
+	private int buildNode( int lower , int upper ) {
+		if( lower >= upper )
+			return -1;
+
+		int node = nodePattern.size;
+		// pattern with the lowest index is used as the vantage point. Deterministic and no worse than random
+		// since patterns are added in an arbitrary order
+		int vantage = (int)work[lower];
+		nodePattern.add(vantage);
+		nodeThreshold.add(0);
+		nodeInside.add(-1);
+		nodeOutside.add(-1);
+
+		if( upper-lower == 1 )
+			return node;
+
+		// sort the remaining patterns by their distance from the vantage point
+		short[] vp = patterns.get(vantage);
+		for (int i = lower+1; i < upper; i++) {
+			int index = (int)work[i];
+			work[i] = ((long)hamming(vp,patterns.get(index)) << 32) | index;
+		}
+		Arrays.sort(work,lower+1,upper);
+		for (int i = lower+1; i < upper; i++) {
+			work[i] &= 0xFFFFFFFFL;
+		}
+
+		// Everything before the median is inside and everything after is outside
+		int middle = (lower+1+upper)/2;
+		nodeThreshold.data[node] = hamming(vp,patterns.get((int)work[middle]));
+
+		int inside = buildNode(lower+1,middle);
+		int outside = buildNode(middle,upper);
+		nodeInside.data[node] = inside;
+		nodeOutside.data[node] = outside;
+
+		return node;
+	}
+
+	/**
+	 * Computes the hamming distance between two patterns
+	 */
+	public static int hamming(short[] a, short[] b) {
+		int distance = 0;
+		for (int i = 0; i < a.length; i++) {
+			distance += DescriptorDistance.hamming((a[i]&0xFFFF) ^ (b[i]&0xFFFF));
+		}
+		return distance;
+	}
+
+	/**
+	 * Distance of the best match found in the last search
+	 */
+	public int getBestDistance() {
+		return bestDistance;
+	}
+
+	/**
+	 * Number of distance computations in the last search. Useful for evaluating how effective the tree is.
+	 */
+	public int getTotalComparisons() {
+		return totalComparisons;
+	}
+
+	public int size() {
+		return patterns.size();
+	}
+}
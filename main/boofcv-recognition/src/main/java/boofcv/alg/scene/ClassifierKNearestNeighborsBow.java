@@ -113,11 +113,7 @@ public class ClassifierKNearestNeighborsBow<T extends ImageBase<T>,Desc extends
 
 		// find which word the feature matches and construct a frequency histogram
 		featureToHistogram.reset();
-		List<Desc> imageFeatures = describe.getDescriptions();
-		for (int i = 0; i < imageFeatures.size(); i++) {
-			Desc d = imageFeatures.get(i);
-			featureToHistogram.addFeature(d);
-		}
+		featureToHistogram.addFeatures(describe.getDescriptions());
 		featureToHistogram.process();
 		temp.histogram = featureToHistogram.getHistogram();
 
@@ -20,6 +20,8 @@ package boofcv.alg.scene;
 
 import boofcv.struct.feature.TupleDesc;
 
+import java.util.List;
+
 /**
  * Used to construct a normalized histogram which represents the frequency of certain words in an image for use
  * in a BOW based classifier.  Features are added one at a time and internally placed in the histogram.  When
@@ -42,6 +44,18 @@ public interface FeatureToWordHistogram<Desc extends TupleDesc> {
 	 */
 	void addFeature( Desc feature );
 
+	/**
+	 * Adds all the features in the list to the histogram. Implementations can override this to process
+	 * the features in parallel.
+	 *
+	 * @param features Features which are to be matched to words.  Not modified.
+	 */
+	default void addFeatures( List<Desc> features ) {
+		for (int i = 0; i < features.size(); i++) {
+			addFeature(features.get(i));
+		}
+	}
+
 	/**
 	 * No more features are being added.  Normalized the computed histogram.
 	 */
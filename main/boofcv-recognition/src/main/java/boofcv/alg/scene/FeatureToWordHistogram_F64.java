@@ -39,14 +39,14 @@ public class FeatureToWordHistogram_F64
 		implements FeatureToWordHistogram<TupleDesc_F64>
 {
 	// Assigns a feature to a word
-	private AssignCluster<double[]> assignment;
+	protected AssignCluster<double[]> assignment;
 
 	// should it use hard or soft assignment
-	private boolean hardAssignment;
+	protected boolean hardAssignment;
 
 	// total number of features which have been assigned to the histogram
-	private int total;
-	private double histogram[];
+	protected int total;
+	protected double histogram[];
 
 	// internal work space
 	private double temp[];
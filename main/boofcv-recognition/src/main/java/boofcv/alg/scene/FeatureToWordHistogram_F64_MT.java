@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene;
+
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.feature.TupleDesc_F64;
+import boofcv.struct.lists.RecycleStack;
+import org.ddogleg.clustering.AssignCluster;
+import org.ddogleg.struct.GrowQueue_I32;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>Concurrent implementation of {@link FeatureToWordHistogram_F64}. When features are added as a list with
+ * {@link #addFeatures} they are assigned to words in parallel. Each thread has its own copy of the assignment
+ * algorithm. With hard assignment the words are saved and added to the histogram in a single thread, so the
+ * results are identical to the single threaded version. With soft assignment each thread has its own histogram which
+ * is then added to the total and the results can differ due to floating point round off.</p>
+ *
+ * @author Peter Abeles
+ */
+public class FeatureToWordHistogram_F64_MT extends FeatureToWordHistogram_F64 {
+
+	// Minimum number of features processed by a thread
+	public int minBlock = 50;
+
+	// work space for each thread
+	RecycleStack<ThreadWork> workStack;
+
+	// word each feature was assigned to
+	GrowQueue_I32 words = new GrowQueue_I32();
+
+	/**
+	 * @see FeatureToWordHistogram_F64#FeatureToWordHistogram_F64
+	 */
+	public FeatureToWordHistogram_F64_MT(AssignCluster<double[]> assignment, boolean hardAssignment) {
+		super(assignment, hardAssignment);
+		workStack = new RecycleStack<>(()->new ThreadWork(assignment.copy()));
+	}
+
+	@Override
+	public void addFeatures(List<TupleDesc_F64> features) {
+		if( features.isEmpty() )
+			return;
+
+		if( hardAssignment ) {
+			words.resize(features.size());
+			BoofConcurrency.loopBlocks(0,features.size(),minBlock,(idx0,idx1)->{
+				ThreadWork w = workStack.pop();
+				for (int i = idx0; i < idx1; i++) {
+					words.data[i] = w.assignment.assign(features.get(i).getValue());
+				}
+				workStack.recycle(w);
+			});
+			for (int i = 0; i < words.size; i++) {
+				histogram[words.data[i]] += 1;
+			}
+		} else {
+			BoofConcurrency.loopBlocks(0,features.size(),minBlock,(idx0,idx1)->{
+				ThreadWork w = workStack.pop();
+				Arrays.fill(w.histogram,0);
+				for (int i = idx0; i < idx1; i++) {
+					w.assignment.assign(features.get(i).getValue(),w.temp);
+					for (int j = 0; j < w.histogram.length; j++) {
+						w.histogram[j] += w.temp[j];
+					}
+				}
+				synchronized (histogram) {
+					for (int j = 0; j < histogram.length; j++) {
+						histogram[j] += w.histogram[j];
+					}
+				}
+				workStack.recycle(w);
+			});
+		}
+		total += features.size();
+	}
+
+	class ThreadWork {
+		AssignCluster<double[]> assignment;
+		double[] histogram;
+		double[] temp;
+
+		public ThreadWork(AssignCluster<double[]> assignment) {
+			this.assignment = assignment;
+			histogram = new double[assignment.getNumberOfClusters()];
+			temp = new double[assignment.getNumberOfClusters()];
+		}
+	}
+}
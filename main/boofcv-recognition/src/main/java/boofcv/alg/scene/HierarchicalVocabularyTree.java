@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene;
+
+import org.ddogleg.clustering.AssignCluster;
+import org.ddogleg.clustering.ComputeClusters;
+import org.ddogleg.struct.FastQueue;
+import org.ddogleg.struct.GrowQueue_I32;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * Hierarchical vocabulary tree, a.k.a. hierarchical k-means, for converting image features into visual words. Each
+ * node in the tree has up to {@link #branchFactor} children, which are found by clustering the points that
+ * were assigned to the node.  Words are the leaves in the tree.  Looking up a word requires
+ * branchFactor*maximumLevel distance computations instead of one for every word, which is what makes large
+ * vocabularies practical.
+ * </p>
+ *
+ * <p>
+ * Since this implements {@link AssignCluster} it can be used anywhere a flat vocabulary is used, e.g.
+ * {@link FeatureToWordHistogram_F64}.  Soft assignment puts all the weight on the selected word.
+ * </p>
+ *
+ * <p>
+ * [1] Nister, David, and Henrik Stewenius. "Scalable recognition with a vocabulary tree." CVPR 2006
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class HierarchicalVocabularyTree implements AssignCluster<double[]> {
+
+	/**
+	 * Number of children each node can have
+	 */
+	public int branchFactor;
+	/**
+	 * Maximum number of levels in the tree. The root is level 0 and is not counted
+	 */
+	public int maximumLevel;
+
+	// Degrees of freedom in a point
+	int pointDOF;
+
+	// All the nodes in the tree. Index 0 is the root
+	FastQueue<Node> nodes = new FastQueue<>(Node.class,true);
+
+	// Number of leaves/words in the tree
+	int numberOfWords;
+
+	/**
+	 * Specifies the tree's shape
+	 *
+	 * @param branchFactor Number of children each node can have
+	 * @param maximumLevel Maximum number of levels in the tree
+	 */
+	public HierarchicalVocabularyTree(int branchFactor, int maximumLevel) {
+		if( branchFactor < 2 )
+			throw new IllegalArgumentException("branchFactor must be at least 2");
+		if( maximumLevel < 1 )
+			throw new IllegalArgumentException("maximumLevel must be at least 1");
+		this.branchFactor = branchFactor;
+		this.maximumLevel = maximumLevel;
+	}
+
+	protected HierarchicalVocabularyTree() {
+	}
+
+	/**
+	 * Learns the tree by recursively clustering the points
+	 *
+	 * @param points Points that are to be clustered. Not modified.
+	 * @param clusters Clustering algorithm that's used at each node
+	 * @param randomSeed Seed for the random number generator.  Each node gets a different seed derived from this
+	 */
+	public void learn( List<double[]> points , ComputeClusters<double[]> clusters , long randomSeed ) {
+		if( points.isEmpty() )
+			throw new IllegalArgumentException("No points to learn from");
+
+		nodes.reset();
+		numberOfWords = 0;
+		pointDOF = points.get(0).length;
+
+		Node root = nodes.grow();
+		root.reset(0,pointDOF);
+		computeMean(points,root.mean);
+
+		learnChildren(0,points,clusters,randomSeed);
+	}
+
+	/**
+	 * Splits the points assigned to a node into its children, then recursively processes each child
+	 */
+	private void learnChildren(int parentIdx , List<double[]> points ,
+							   ComputeClusters<double[]> clusters , long randomSeed ) {
+		Node parent = nodes.get(parentIdx);
+
+		// see if this should be a leaf
+		if( parent.level >= maximumLevel || points.size() <= branchFactor ) {
+			parent.word = numberOfWords++;
+			return;
+		}
+
+		clusters.init(pointDOF,randomSeed+parentIdx);
+		clusters.process(points,branchFactor);
+		AssignCluster<double[]> assignment = clusters.getAssignment();
+
+		// Partition the points by which cluster they belong to
+		List<List<double[]>> partitions = new ArrayList<>();
+		for (int i = 0; i < assignment.getNumberOfClusters(); i++) {
+			partitions.add(new ArrayList<>());
+		}
+		for (int i = 0; i < points.size(); i++) {
+			double[] p = points.get(i);
+			partitions.get(assignment.assign(p)).add(p);
+		}
+
+		// Degenerate case. Clustering couldn't split the points
+		int nonEmpty = 0;
+		for (int i = 0; i < partitions.size(); i++) {
+			if( !partitions.get(i).isEmpty() )
+				nonEmpty++;
+		}
+		if( nonEmpty <= 1 ) {
+			parent.word = numberOfWords++;
+			return;
+		}
+
+		// Create the children before recursing so that they are stored next to each other
+		int firstChild = nodes.size;
+		for (int i = 0; i < partitions.size(); i++) {
+			List<double[]> members = partitions.get(i);
+			if( members.isEmpty() )
+				continue;
+			Node child = nodes.grow();
+			child.reset(parent.level+1,pointDOF);
+			computeMean(members,child.mean);
+			parent.children.add(nodes.size-1);
+		}
+
+		int childIdx = firstChild;
+		for (int i = 0; i < partitions.size(); i++) {
+			List<double[]> members = partitions.get(i);
+			if( members.isEmpty() )
+				continue;
+			learnChildren(childIdx++,members,clusters,randomSeed);
+		}
+	}
+
+	/**
+	 * Traverses the tree and finds the leaf which is closest to the point
+	 *
+	 * @param point (Input) point
+	 * @return Index of the leaf node
+	 */
+	public int searchLeaf( double[] point ) {
+		if( nodes.size == 0 )
+			throw new IllegalArgumentException("Tree has not been learned yet");
+		int nodeIdx = 0;
+		while( true ) {
+			Node n = nodes.get(nodeIdx);
+			if( n.children.size == 0 )
+				return nodeIdx;
+
+			double bestDistance = Double.MAX_VALUE;
+			int best = -1;
+			for (int i = 0; i < n.children.size; i++) {
+				int c = n.children.data[i];
+				double d = distanceSq(point,nodes.get(c).mean);
+				if( d < bestDistance ) {
+					bestDistance = d;
+					best = c;
+				}
+			}
+			nodeIdx = best;
+		}
+	}
+
+	/**
+	 * Returns the word the point belongs to
+	 */
+	@Override
+	public int assign(double[] point) {
+		return nodes.get(searchLeaf(point)).word;
+	}
+
+	@Override
+	public void assign(double[] point, double[] fit) {
+		Arrays.fill(fit,0,numberOfWords,0);
+		fit[assign(point)] = 1.0;
+	}
+
+	@Override
+	public int getNumberOfClusters() {
+		return numberOfWords;
+	}
+
+	/**
+	 * The tree is not modified when searching so the copy references the same nodes
+	 */
+	@Override
+	public AssignCluster<double[]> copy() {
+		HierarchicalVocabularyTree ret = new HierarchicalVocabularyTree();
+		ret.branchFactor = branchFactor;
+		ret.maximumLevel = maximumLevel;
+		ret.pointDOF = pointDOF;
+		ret.nodes = nodes;
+		ret.numberOfWords = numberOfWords;
+		return ret;
+	}
+
+	public Node getNode( int index ) {
+		return nodes.get(index);
+	}
+
+	public int getTotalNodes() {
+		return nodes.size;
+	}
+
+	public int getPointDOF() {
+		return pointDOF;
+	}
+
+	static void computeMean( List<double[]> points , double[] mean ) {
+		Arrays.fill(mean,0);
+		for (int i = 0; i < points.size(); i++) {
+			double[] p = points.get(i);
+			for (int j = 0; j < mean.length; j++) {
+				mean[j] += p[j];
+			}
+		}
+		for (int j = 0; j < mean.length; j++) {
+			mean[j] /= points.size();
+		}
+	}
+
+	static double distanceSq( double[] a , double[] b ) {
+		double total = 0;
+		for (int i = 0; i < a.length; i++) {
+			double d = a[i]-b[i];
+			total += d*d;
+		}
+		return total;
+	}
+
+	/**
+	 * Node in the tree
+	 */
+	public static class Node {
+		/**
+		 * Depth of the node in the tree. Root is 0
+		 */
+		public int level;
+		/**
+		 * Mean of all the points which were assigned to this node
+		 */
+		public double[] mean;
+		/**
+		 * Index of the word this node represents. -1 if it's not a leaf
+		 */
+		public int word;
+		/**
+		 * Indexes of child nodes
+		 */
+		public GrowQueue_I32 children = new GrowQueue_I32();
+
+		public void reset( int level , int dof ) {
+			this.level = level;
+			this.word = -1;
+			this.children.reset();
+			if( mean == null || mean.length != dof )
+				mean = new double[dof];
+		}
+
+		public boolean isLeaf() {
+			return children.size == 0;
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene;
+
+import org.ddogleg.nn.NearestNeighbor;
+import org.ddogleg.nn.NnData;
+import org.ddogleg.struct.FastQueue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Nearest-neighbor search for {@link HistogramScene} which uses an {@link InvertedFileWordIndex inverted file}.
+ * A drop in replacement for a kd-tree with {@link KdTreeHistogramScene_F64}. Unlike a kd-tree the cost of a search
+ * depends on how many histograms share words with the query and not on the number of words, making it suitable
+ * for large vocabularies.
+ * </p>
+ *
+ * <p>
+ * Histograms are converted into a sparse format then weighted using TF-IDF. The returned distance is the L1 distance
+ * between the weighted histograms and is from 0 to 2. Histograms which don't share any words with the query
+ * are never returned.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class InvertedFileHistogramScene_F64 implements NearestNeighbor<HistogramScene> {
+
+	InvertedFileWordIndex index = new InvertedFileWordIndex();
+
+	// The original points
+	List<HistogramScene> points;
+
+	// work space
+	SparseWordHistogram sparse = new SparseWordHistogram();
+	SparseWordHistogram weighted = new SparseWordHistogram();
+	FastQueue<InvertedFileWordIndex.Match> matches = new FastQueue<>(InvertedFileWordIndex.Match.class,true);
+
+	@Override
+	public void setPoints(List<HistogramScene> points, boolean trackIndicies) {
+		this.points = points;
+
+		List<SparseWordHistogram> documents = new ArrayList<>();
+		int numWords = 0;
+		for (int i = 0; i < points.size(); i++) {
+			SparseWordHistogram h = new SparseWordHistogram();
+			h.setDense(points.get(i).histogram);
+			documents.add(h);
+			numWords = Math.max(numWords,points.get(i).histogram.length);
+		}
+		index.setDocuments(documents,numWords);
+	}
+
+	@Override
+	public boolean findNearest(HistogramScene point, double maxDistance, NnData<HistogramScene> result) {
+		search(point,maxDistance,1);
+		if( matches.size == 0 )
+			return false;
+		copy(matches.get(0),result);
+		return true;
+	}
+
+	@Override
+	public void findNearest(HistogramScene point, double maxDistance, int numNeighbors,
+							FastQueue<NnData<HistogramScene>> results) {
+		search(point,maxDistance,numNeighbors);
+		for (int i = 0; i < matches.size; i++) {
+			copy(matches.get(i),results.grow());
+		}
+	}
+
+	private void search( HistogramScene point , double maxDistance , int numNeighbors ) {
+		sparse.setDense(point.histogram);
+		index.weight(sparse,weighted);
+
+		// distance = 2 - 2*score
+		double minScore = maxDistance < 0 ? 0 : 1.0 - maxDistance/2.0;
+		index.search(weighted,-1,numNeighbors,minScore,matches);
+	}
+
+	private void copy( InvertedFileWordIndex.Match m , NnData<HistogramScene> result ) {
+		result.point = points.get(m.document);
+		result.index = m.document;
+		result.distance = 2.0 - 2.0*m.score;
+	}
+
+	public InvertedFileWordIndex getIndex() {
+		return index;
+	}
+}
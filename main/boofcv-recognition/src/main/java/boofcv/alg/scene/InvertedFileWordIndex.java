@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene;
+
+import org.ddogleg.sorting.QuickSelect;
+import org.ddogleg.struct.FastQueue;
+import org.ddogleg.struct.GrowQueue_F64;
+import org.ddogleg.struct.GrowQueue_I32;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * Inverted file index for finding the documents (images) with the most similar word histograms. For each word
+ * a list of documents it appears in is saved, so a search only considers documents which share at least one word
+ * with the query.  Histograms are weighted using TF-IDF and L1 normalized. The similarity score
+ * is the sum of min(q[i],d[i]) across all words, which is 1 for identical histograms and 0 when no words are shared.
+ * The L1 distance between the two histograms is 2 - 2*score.
+ * </p>
+ *
+ * <p>
+ * Early termination: Query words are processed from the largest to smallest weight. A document's score can
+ * increase by at most the sum of the remaining query weights.  Once that sum is less than the k-th best score no
+ * new documents can enter the results and only documents which have already been seen are updated.  Scores only
+ * increase, so an old k-th best score is a lower bound and it's only recomputed each time the remaining sum has
+ * halved. The results are identical to an exhaustive search.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class InvertedFileWordIndex {
+
+	/**
+	 * If true then new documents are ignored once they can't be in the results.
+	 */
+	public boolean earlyTermination = true;
+
+	// For each word the documents it appears in and the document's weight for that word
+	List<GrowQueue_I32> postingDocs = new ArrayList<>();
+	List<GrowQueue_F64> postingWeights = new ArrayList<>();
+
+	// inverse document frequency for each word
+	double[] idf = new double[0];
+
+	// number of documents in the database
+	int numDocuments;
+
+	// work space for searches
+	double[] scores = new double[0];
+	GrowQueue_I32 touched = new GrowQueue_I32();
+	GrowQueue_F64 selectWork = new GrowQueue_F64();
+	long[] order = new long[0];
+	SparseWordHistogram weighted = new SparseWordHistogram();
+
+	/**
+	 * Specifies the documents in the database. Computes the IDF and constructs the inverted files.
+	 *
+	 * @param documents Term frequency histogram for each document. Not modified.
+	 * @param numWords Number of words in the vocabulary
+	 */
+	public void setDocuments( List<SparseWordHistogram> documents , int numWords ) {
+		numDocuments = documents.size();
+
+		// document frequency of each word
+		int[] df = new int[numWords];
+		for (int i = 0; i < documents.size(); i++) {
+			SparseWordHistogram h = documents.get(i);
+			for (int j = 0; j < h.size(); j++) {
+				df[h.getWord(j)]++;
+			}
+		}
+
+		idf = new double[numWords];
+		for (int i = 0; i < numWords; i++) {
+			idf[i] = df[i] == 0 ? 0 : Math.log(numDocuments/(double)df[i]);
+		}
+
+		postingDocs.clear();
+		postingWeights.clear();
+		for (int i = 0; i < numWords; i++) {
+			postingDocs.add(new GrowQueue_I32(df[i]));
+			postingWeights.add(new GrowQueue_F64(df[i]));
+		}
+
+		for (int docIdx = 0; docIdx < documents.size(); docIdx++) {
+			weight(documents.get(docIdx),weighted);
+			for (int j = 0; j < weighted.size(); j++) {
+				int word = weighted.getWord(j);
+				postingDocs.get(word).add(docIdx);
+				postingWeights.get(word).add(weighted.getWeight(j));
+			}
+		}
+
+		scores = new double[numDocuments];
+	}
+
+	/**
+	 * Applies TF-IDF weighting and normalizes. Words with a weight of zero are removed.
+	 *
+	 * @param tf (Input) term frequency histogram
+	 * @param output (Output) weighted and normalized histogram
+	 */
+	public void weight( SparseWordHistogram tf , SparseWordHistogram output ) {
+		output.reset();
+		for (int i = 0; i < tf.size(); i++) {
+			int word = tf.getWord(i);
+			if( word >= idf.length )
+				continue;
+			double w = tf.getWeight(i)*idf[word];
+			if( w != 0 )
+				output.add(word,w);
+		}
+		output.normalizeL1();
+	}
+
+	/**
+	 * Finds the documents which are the most similar to the query
+	 *
+	 * @param query (Input) Histogram which has already been weighted by {@link #weight}.
+	 * @param ignore Index of a document which is to be skipped. -1 to consider all.
+	 * @param maxResults Maximum number of documents returned
+	 * @param minScore Documents with a score less than this are skipped
+	 * @param results (Output) Best matches sorted from most to least similar
+	 */
+	public void search( SparseWordHistogram query , int ignore , int maxResults , double minScore ,
+						FastQueue<Match> results ) {
+		if( maxResults <= 0 )
+			throw new IllegalArgumentException("maxResults must be more than zero");
+		results.reset();
+		touched.reset();
+
+		// process words with the largest weight first so that early termination is triggered earlier
+		sortByWeight(query);
+
+		double remaining = 0;
+		for (int i = 0; i < query.size(); i++) {
+			remaining += query.getWeight(i);
+		}
+
+		boolean acceptNew = true;
+		double maxScore = 0;
+		// lower bound on the k-th best score and the value remaining must drop below before it's recomputed
+		double kthBound = 0;
+		double nextSelect = Double.MAX_VALUE;
+		for (int orderIdx = query.size()-1; orderIdx >= 0; orderIdx--) {
+			int i = (int)(order[orderIdx] & 0xFFFFFFFFL);
+			double q = query.getWeight(i);
+			remaining -= q;
+
+			GrowQueue_I32 docs = postingDocs.get(query.getWord(i));
+			GrowQueue_F64 weights = postingWeights.get(query.getWord(i));
+			for (int j = 0; j < docs.size; j++) {
+				int docIdx = docs.data[j];
+				if( docIdx == ignore )
+					continue;
+				if( scores[docIdx] == 0 ) {
+					if( !acceptNew )
+						continue;
+					touched.add(docIdx);
+				}
+				double s = scores[docIdx] += Math.min(q,weights.data[j]);
+				if( s > maxScore )
+					maxScore = s;
+			}
+
+			// See if an unseen document could still make it into the results
+			if( earlyTermination && acceptNew && touched.size >= maxResults && remaining < maxScore ) {
+				if( remaining >= kthBound && remaining < nextSelect ) {
+					kthBound = selectScore(maxResults);
+					nextSelect = remaining*0.5;
+				}
+				if( remaining < kthBound )
+					acceptNew = false;
+			}
+		}
+
+		// Select the best documents. Only consider those which could be in the results
+		double threshold = minScore;
+		if( touched.size > maxResults )
+			threshold = Math.max(threshold,selectScore(maxResults));
+
+		for (int i = 0; i < touched.size; i++) {
+			int docIdx = touched.data[i];
+			double score = scores[docIdx];
+			scores[docIdx] = 0;
+			if( score < threshold )
+				continue;
+			if( results.size == maxResults && results.get(maxResults-1).score >= score )
+				continue;
+
+			// insert it into the sorted list
+			if( results.size < maxResults )
+				results.grow();
+			int location = results.size-1;
+			while( location > 0 && results.get(location-1).score < score ) {
+				results.get(location).set(results.get(location-1));
+				location--;
+			}
+			results.get(location).set(docIdx,score);
+		}
+	}
+
+	/**
+	 * Returns the k-th largest score out of all the touched documents
+	 */
+	double selectScore( int k ) {
+		selectWork.resize(touched.size);
+		for (int i = 0; i < touched.size; i++) {
+			selectWork.data[i] = scores[touched.data[i]];
+		}
+		return QuickSelect.select(selectWork.data,touched.size-k,touched.size);
+	}
+
+	/**
+	 * Sorts the query's elements by weight in ascending order. The weight is encoded as a float in the upper bits
+	 * and the element's index in the lower bits. Floats which are positive have the same order as their bits.
+	 */
+	void sortByWeight( SparseWordHistogram query ) {
+		if( order.length < query.size() )
+			order = new long[query.size()];
+		for (int i = 0; i < query.size(); i++) {
+			long bits = Float.floatToIntBits((float)query.getWeight(i));
+			order[i] = (bits << 32) | i;
+		}
+		Arrays.sort(order,0,query.size());
+	}
+
+	public int getNumDocuments() {
+		return numDocuments;
+	}
+
+	public int getNumWords() {
+		return idf.length;
+	}
+
+	/**
+	 * Document which matched a query and its score
+	 */
+	public static class Match {
+		public int document;
+		public double score;
+
+		public void set( int document , double score ) {
+			this.document = document;
+			this.score = score;
+		}
+
+		public void set( Match src ) {
+			set(src.document,src.score);
+		}
+	}
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene;
+
+import boofcv.abst.feature.associate.AssociateDescription;
+import boofcv.abst.feature.detdesc.DetectDescribePoint;
+import boofcv.alg.sfm.structure2.LookupSimilarImages;
+import boofcv.struct.feature.AssociatedIndex;
+import boofcv.struct.feature.TupleDesc_F64;
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.image.ImageDimension;
+import georegression.struct.point.Point2D_F64;
+import org.ddogleg.clustering.ComputeClusters;
+import org.ddogleg.struct.FastQueue;
+import org.ddogleg.struct.GrowQueue_I32;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * Implementation of {@link LookupSimilarImages} which uses a {@link HierarchicalVocabularyTree vocabulary tree}
+ * and TF-IDF weighted {@link InvertedFileWordIndex inverted files} to find the images with the most similar
+ * appearance [1].  Each image is described by a sparse vector of word weights which has been L1 normalized.  The
+ * similarity between two images is the sum of min(q[i],d[i]) across all words, which is equivalent to the L1
+ * distance between the two vectors.
+ * Only images which share a word with the query are ever considered, so the cost of a query depends on the
+ * length of the inverted files and not the number of images.
+ * </p>
+ *
+ * <p>
+ * Usage: Add all the images, learn the vocabulary if one was not provided, then call {@link #process()}.  Feature
+ * association between two images is only computed when {@link #lookupMatches} is called.
+ * </p>
+ *
+ * <p>
+ * [1] Nister, David, and Henrik Stewenius. "Scalable recognition with a vocabulary tree." CVPR 2006
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class LookupSimilarImagesVocabularyTree<T extends ImageBase<T>> implements LookupSimilarImages {
+
+	/**
+	 * The maximum number of similar images returned for each image
+	 */
+	public int maximumSimilar = 10;
+	/**
+	 * Images with a similarity score less than this are ignored. 0 to 1.
+	 */
+	public double minimumSimilarity = 0.05;
+
+	// Used to detect features inside of images. Can be null if features are provided directly
+	DetectDescribePoint<T,TupleDesc_F64> detector;
+	// Used to find matching features between two images
+	AssociateDescription<TupleDesc_F64> associate;
+	// Converts descriptions into words
+	HierarchicalVocabularyTree tree;
+
+	// Information on each image which has been added
+	List<ImageInfo> images = new ArrayList<>();
+	List<String> imageIds = new ArrayList<>();
+	Map<String,ImageInfo> idToImage = new HashMap<>();
+
+	// Inverted files. For each word the images it appears in and its weight in that image
+	InvertedFileWordIndex index = new InvertedFileWordIndex();
+
+	// work space
+	GrowQueue_I32 assigned = new GrowQueue_I32();
+	SparseWordHistogram weighted = new SparseWordHistogram();
+	FastQueue<InvertedFileWordIndex.Match> matches = new FastQueue<>(InvertedFileWordIndex.Match.class,true);
+
+	/**
+	 * Specifies internal algorithms
+	 *
+	 * @param detector Detects features in the image.  If null then features must be added directly
+	 * @param associate Associates features between two images
+	 * @param tree Vocabulary tree. If not already learned then {@link #learnVocabulary} must be called.
+	 */
+	public LookupSimilarImagesVocabularyTree(DetectDescribePoint<T,TupleDesc_F64> detector,
+											 AssociateDescription<TupleDesc_F64> associate,
+											 HierarchicalVocabularyTree tree ) {
+		this.detector = detector;
+		this.associate = associate;
+		this.tree = tree;
+	}
+
+	/**
+	 * Detects features inside the image and adds it to the list of images
+	 *
+	 * @param id Unique ID of the image
+	 * @param image The image
+	 */
+	public void addImage( String id , T image ) {
+		if( detector == null )
+			throw new IllegalArgumentException("No detector was specified");
+		detector.detect(image);
+
+		ImageInfo info = createImage(id,image.width,image.height);
+		int N = detector.getNumberOfFeatures();
+		for (int i = 0; i < N; i++) {
+			info.pixels.grow().set(detector.getLocation(i));
+			info.descriptions.add(detector.getDescription(i).copy());
+		}
+	}
+
+	/**
+	 * Adds an image which has had its features already computed. Data is copied.
+	 *
+	 * @param id Unique ID of the image
+	 * @param width Image width
+	 * @param height Image height
+	 * @param pixels Pixel location of each feature
+	 * @param descriptions Description of each feature
+	 */
+	public void addImage( String id , int width , int height ,
+						  List<Point2D_F64> pixels , List<TupleDesc_F64> descriptions ) {
+		if( pixels.size() != descriptions.size() )
+			throw new IllegalArgumentException("Number of pixels and descriptions must match");
+
+		ImageInfo info = createImage(id,width,height);
+		for (int i = 0; i < pixels.size(); i++) {
+			info.pixels.grow().set(pixels.get(i));
+			info.descriptions.add(descriptions.get(i).copy());
+		}
+	}
+
+	private ImageInfo createImage( String id , int width , int height ) {
+		if( idToImage.containsKey(id) )
+			throw new IllegalArgumentException("Image with the same ID has already been added. "+id);
+		ImageInfo info = new ImageInfo(id,images.size());
+		info.shape.set(width,height);
+		images.add(info);
+		imageIds.add(id);
+		idToImage.put(id,info);
+		return info;
+	}
+
+	/**
+	 * Learns the vocabulary from the features in all the images which have been added
+	 *
+	 * @param clusters Clustering algorithm used at each node in the tree
+	 * @param randomSeed Random seed
+	 */
+	public void learnVocabulary( ComputeClusters<double[]> clusters , long randomSeed ) {
+		List<double[]> points = new ArrayList<>();
+		for (int i = 0; i < images.size(); i++) {
+			FastQueue<TupleDesc_F64> descs = images.get(i).descriptions;
+			for (int j = 0; j < descs.size; j++) {
+				points.add(descs.get(j).value);
+			}
+		}
+		tree.learn(points,clusters,randomSeed);
+	}
+
+	/**
+	 * Converts each image into a weighted word vector, builds the inverted files, then finds the most similar
+	 * images to each image.
+	 */
+	public void process() {
+		int numWords = tree.getNumberOfClusters();
+		if( numWords == 0 )
+			throw new IllegalArgumentException("The vocabulary has not been learned");
+
+		List<SparseWordHistogram> documents = new ArrayList<>();
+		for (int i = 0; i < images.size(); i++) {
+			ImageInfo info = images.get(i);
+			computeTermFrequency(info);
+			documents.add(info.words);
+		}
+		index.setDocuments(documents,numWords);
+
+		// Find similar images for each image
+		for (int i = 0; i < images.size(); i++) {
+			ImageInfo info = images.get(i);
+			index.weight(info.words,weighted);
+			index.search(weighted,i,maximumSimilar,minimumSimilarity,matches);
+			info.similar.reset();
+			for (int j = 0; j < matches.size; j++) {
+				info.similar.grow().set(matches.get(j));
+			}
+		}
+	}
+
+	/**
+	 * Finds the unique words in the image and how often they occur
+	 */
+	void computeTermFrequency( ImageInfo info ) {
+		assigned.reset();
+		for (int i = 0; i < info.descriptions.size; i++) {
+			assigned.add(tree.assign(info.descriptions.get(i).value));
+		}
+		info.words.setCounts(assigned);
+	}
+
+	@Override
+	public List<String> getImageIDs() {
+		return imageIds;
+	}
+
+	@Override
+	public void findSimilar(String target, List<String> similar) {
+		similar.clear();
+		FastQueue<InvertedFileWordIndex.Match> matches = lookup(target).similar;
+		for (int i = 0; i < matches.size; i++) {
+			similar.add(imageIds.get(matches.get(i).document));
+		}
+	}
+
+	/**
+	 * Returns the similarity score between two images. Only valid for images in the similar list.
+	 *
+	 * @return similarity score from 0 to 1 or 0 if viewB isn't similar to viewA
+	 */
+	public double lookupSimilarity( String viewA , String viewB ) {
+		FastQueue<InvertedFileWordIndex.Match> matches = lookup(viewA).similar;
+		int indexB = lookup(viewB).index;
+		for (int i = 0; i < matches.size; i++) {
+			if( matches.get(i).document == indexB )
+				return matches.get(i).score;
+		}
+		return 0;
+	}
+
+	@Override
+	public void lookupPixelFeats(String target, FastQueue<Point2D_F64> features) {
+		FastQueue<Point2D_F64> pixels = lookup(target).pixels;
+		features.reset();
+		for (int i = 0; i < pixels.size; i++) {
+			features.grow().set(pixels.get(i));
+		}
+	}
+
+	@Override
+	public boolean lookupMatches(String viewA, String viewB, FastQueue<AssociatedIndex> pairs) {
+		pairs.reset();
+		associate.setSource(lookup(viewA).descriptions);
+		associate.setDestination(lookup(viewB).descriptions);
+		associate.associate();
+
+		FastQueue<AssociatedIndex> matches = associate.getMatches();
+		for (int i = 0; i < matches.size; i++) {
+			pairs.grow().set(matches.get(i));
+		}
+		return pairs.size > 0;
+	}
+
+	@Override
+	public void lookupShape(String target, ImageDimension shape) {
+		ImageDimension original = lookup(target).shape;
+		shape.set(original.width,original.height);
+	}
+
+	private ImageInfo lookup( String id ) {
+		ImageInfo info = idToImage.get(id);
+		if( info == null )
+			throw new IllegalArgumentException("Unknown image ID "+id);
+		return info;
+	}
+
+	public HierarchicalVocabularyTree getTree() {
+		return tree;
+	}
+
+	/**
+	 * Everything which is known about an image
+	 */
+	class ImageInfo {
+		String id;
+		int index;
+		ImageDimension shape = new ImageDimension();
+		FastQueue<Point2D_F64> pixels = new FastQueue<>(Point2D_F64.class,true);
+		FastQueue<TupleDesc_F64> descriptions = new FastQueue<>(TupleDesc_F64.class,false);
+		// frequency of each word in the image
+		SparseWordHistogram words = new SparseWordHistogram();
+		// most similar images
+		FastQueue<InvertedFileWordIndex.Match> similar = new FastQueue<>(InvertedFileWordIndex.Match.class,true);
+
+		ImageInfo(String id, int index) {
+			this.id = id;
+			this.index = index;
+		}
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene;
+
+import org.ddogleg.struct.GrowQueue_F64;
+import org.ddogleg.struct.GrowQueue_I32;
+
+import java.util.Arrays;
+
+/**
+ * Sparse representation of a word histogram. Only words with a non-zero weight are saved. With large vocabularies
+ * most words do not appear in any given image, so this is much more compact than a dense histogram.
+ *
+ * @author Peter Abeles
+ */
+public class SparseWordHistogram {
+	/**
+	 * Index of each word with a non-zero weight.
+	 */
+	public GrowQueue_I32 words = new GrowQueue_I32();
+	/**
+	 * Weight for each word
+	 */
+	public GrowQueue_F64 weights = new GrowQueue_F64();
+
+	public void reset() {
+		words.reset();
+		weights.reset();
+	}
+
+	public void add( int word , double weight ) {
+		words.add(word);
+		weights.add(weight);
+	}
+
+	/**
+	 * Copies all the non-zero elements in the dense histogram
+	 */
+	public void setDense( double[] histogram ) {
+		reset();
+		for (int i = 0; i < histogram.length; i++) {
+			if( histogram[i] != 0 )
+				add(i,histogram[i]);
+		}
+	}
+
+	/**
+	 * Creates a histogram of word counts from the list of words assigned to each feature
+	 *
+	 * @param assigned (Input) The word assigned to each feature. Modified, it gets sorted.
+	 */
+	public void setCounts( GrowQueue_I32 assigned ) {
+		reset();
+		Arrays.sort(assigned.data,0,assigned.size);
+		for (int i = 0; i < assigned.size; ) {
+			int word = assigned.data[i];
+			int j = i+1;
+			while( j < assigned.size && assigned.data[j] == word )
+				j++;
+			add(word,j-i);
+			i = j;
+		}
+	}
+
+	/**
+	 * Normalizes the weights so that they sum up to one. Nothing is done if all the weights are zero.
+	 */
+	public void normalizeL1() {
+		double total = 0;
+		for (int i = 0; i < weights.size; i++) {
+			total += Math.abs(weights.data[i]);
+		}
+		if( total == 0 )
+			return;
+		for (int i = 0; i < weights.size; i++) {
+			weights.data[i] /= total;
+		}
+	}
+
+	public void setTo( SparseWordHistogram src ) {
+		reset();
+		for (int i = 0; i < src.size(); i++) {
+			add(src.words.data[i],src.weights.data[i]);
+		}
+	}
+
+	public int size() {
+		return words.size;
+	}
+
+	public int getWord( int index ) {
+		return words.data[index];
+	}
+
+	public double getWeight( int index ) {
+		return weights.data[index];
+	}
+}
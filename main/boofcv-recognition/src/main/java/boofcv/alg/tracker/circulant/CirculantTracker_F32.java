@@ -0,0 +1,777 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.tracker.circulant;
+
+import boofcv.abst.feature.detect.peak.SearchLocalPeak;
+import boofcv.alg.interpolate.InterpolatePixelS;
+import boofcv.alg.misc.PixelMath;
+import boofcv.alg.transform.fft.DiscreteFourierTransformOps;
+import boofcv.alg.transform.fft.GeneralPurposeFFT_F32_2D;
+import boofcv.factory.feature.detect.peak.FactorySearchLocalPeak;
+import boofcv.misc.BoofMiscOps;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.ImageGray;
+import georegression.struct.shapes.RectangleLength2D_F32;
+
+import java.util.Random;
+
+/**
+ * <p>
+ * Single precision implementation of {@link CirculantTracker} which is designed to minimize the number of FFTs
+ * and memory bandwidth. The output is the same as the double precision tracker up to floating point error.
+ * </p>
+ *
+ * <p>
+ * Differences from {@link CirculantTracker}:<br>
+ * <ul>
+ * <li>All work images and spectra are 32-bit floats.</li>
+ * <li>Real-to-complex transforms are used and only half of each spectrum is stored, using the packed layout
+ * of {@link GeneralPurposeFFT_F32_2D#realForward(float[])}.  Each transform is about half the cost of a full
+ * complex transform and each spectrum is the same size as the image.</li>
+ * <li>The template's spectrum is cached when learning and reused when tracking.  Since the spectrum is linear in
+ * the template the cached spectrum is updated using the same interpolation as the template, without an FFT.</li>
+ * <li>The circular shift of the cross-correlation is folded into the evaluation of the Gaussian kernel
+ * instead of copying the image.</li>
+ * <li>Optionally, several scales can be searched in a single pass.  Every scale is compared against the same
+ * cached template spectrum and the scale with the best response is selected.</li>
+ * </ul>
+ * Because of the packed real transform the work region must be a power of two.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class CirculantTracker_F32<T extends ImageGray<T>> {
+
+	// --- Tuning parameters
+	// spatial bandwidth (proportional to target)
+	private float output_sigma_factor;
+
+	// gaussian kernel bandwidth
+	private float sigma;
+
+	// regularization term
+	private float lambda;
+	// linear interpolation term.  Adjusts how fast it can learn
+	private float interp_factor;
+
+	// the maximum pixel value
+	private float maxPixelValue;
+
+	// extra padding around the selected region
+	private float padding;
+
+	// scale factors which are searched when tracking. 1 = no change in scale
+	private float[] scales = new float[]{1.0f};
+	// response at scales other than one is multiplied by this to favor the current scale
+	private float scalePenalty = 1.0f;
+
+	//----- Internal variables
+	// Input image width and height
+	private int imageWidth,imageHeight;
+
+	// computes the FFT
+	private GeneralPurposeFFT_F32_2D fft;
+
+	// storage for subimage of input image
+	protected GrayF32 templateNew = new GrayF32(1,1);
+	// storage for the subimage of the previous frame
+	protected GrayF32 template = new GrayF32(1,1);
+	// dot product of the template with itself
+	protected float templateDot;
+
+	// cosine window used to reduce artifacts from FFT
+	protected GrayF32 cosine = new GrayF32(1,1);
+
+	// Storage for the kernel's response
+	private GrayF32 k = new GrayF32(1,1);
+
+	// All spectra are stored using the packed half spectrum layout
+	// spectrum of the template
+	protected float[] templatef = new float[0];
+	// spectrum of the most recent subimage
+	private float[] templateNewf = new float[0];
+	// spectrum of the kernel's response
+	private float[] kf = new float[0];
+
+	// Learn values.  used to compute weight in linear classifier
+	private float[] alphaf = new float[0];
+	private float[] newAlphaf = new float[0];
+
+	// location of target
+	protected RectangleLength2D_F32 regionTrack = new RectangleLength2D_F32();
+	protected RectangleLength2D_F32 regionOut = new RectangleLength2D_F32();
+
+	// Used for computing the gaussian kernel
+	protected GrayF32 gaussianWeight = new GrayF32(1,1);
+	protected float[] gaussianWeightDFT = new float[0];
+
+	// detector response for the best scale and the scale being considered
+	private GrayF32 response = new GrayF32(1,1);
+	private GrayF32 responseWork = new GrayF32(1,1);
+
+	// storage for storing temporary results
+	private GrayF32 tmpReal0 = new GrayF32(1,1);
+	private float[] tmpFourier0 = new float[0];
+
+	// interpolation used when sampling input image into work space
+	private InterpolatePixelS<T> interp;
+
+	// used to compute sub-pixel location
+	private SearchLocalPeak<GrayF32> localPeak =
+			FactorySearchLocalPeak.meanShiftUniform(5, 1e-4f, GrayF32.class);
+
+	// adjustment from sub-pixel
+	protected float offX,offY;
+
+	// size of the work space in pixels
+	private int workRegionSize;
+	// conversion from workspace to image pixels
+	private float stepX,stepY;
+
+	// used to fill the area outside of the image with unstructured data.
+	private Random rand = new Random(234);
+
+	/**
+	 * Configure tracker
+	 *
+	 * @param output_sigma_factor  spatial bandwidth (proportional to target) Try 1.0/16.0
+	 * @param sigma Sigma for Gaussian kernel in linear classifier.  Try 0.2
+	 * @param lambda Try 1e-2
+	 * @param interp_factor Try 0.075
+	 * @param padding Padding added around the selected target.  Try 1
+	 * @param workRegionSize Size of work region. Must be a power of 2.  Try 64
+	 * @param maxPixelValue Maximum pixel value.  Typically 255
+	 */
+	public CirculantTracker_F32(float output_sigma_factor, float sigma, float lambda, float interp_factor,
+								float padding ,
+								int workRegionSize ,
+								float maxPixelValue,
+								InterpolatePixelS<T> interp ) {
+		if( workRegionSize < 4 )
+			throw new IllegalArgumentException("Minimum size of work region is 4 pixels.");
+		if( !DiscreteFourierTransformOps.isPowerOf2(workRegionSize) )
+			throw new IllegalArgumentException("Work region must be a power of two. "+workRegionSize);
+
+		this.output_sigma_factor = output_sigma_factor;
+		this.sigma = sigma;
+		this.lambda = lambda;
+		this.interp_factor = interp_factor;
+		this.maxPixelValue = maxPixelValue;
+		this.interp = interp;
+
+		this.padding = padding;
+		this.workRegionSize = workRegionSize;
+
+		fft = new GeneralPurposeFFT_F32_2D(workRegionSize,workRegionSize);
+		resizeImages(workRegionSize);
+		computeCosineWindow(cosine);
+		computeGaussianWeights(workRegionSize);
+	}
+
+	/**
+	 * Specifies which scales are searched when tracking.  By default only a scale of 1 is searched, i.e.
+	 * the target's size is fixed.
+	 *
+	 * @param scales Scale factors relative to the current target size, e.g. {0.95,1,1.05}. Must include 1.
+	 * @param scalePenalty Response at scales other than 1 is multiplied by this value.  Try 0.98
+	 */
+	public void setScales( float[] scales , float scalePenalty ) {
+		boolean foundOne = false;
+		for( int i = 0; i < scales.length; i++ ) {
+			if( scales[i] == 1.0f ) {
+				foundOne = true;
+				break;
+			}
+		}
+		if( !foundOne )
+			throw new IllegalArgumentException("Scales must include 1.0");
+		this.scales = scales.clone();
+		this.scalePenalty = scalePenalty;
+	}
+
+	/**
+	 * Initializes tracking around the specified rectangle region
+	 * @param image Image to start tracking from
+	 * @param x0 top-left corner of region
+	 * @param y0 top-left corner of region
+	 * @param regionWidth region's width
+	 * @param regionHeight region's height
+	 */
+	public void initialize( T image , int x0 , int y0 , int regionWidth , int regionHeight ) {
+
+		this.imageWidth = image.width;
+		this.imageHeight = image.height;
+
+		setTrackLocation(x0,y0,regionWidth,regionHeight);
+
+		initialLearning(image);
+	}
+
+	/**
+	 * Used to change the track's location. If this method is used it is assumed that tracking is active and that
+	 * the appearance of the target has not changed
+	 * @param x0 top-left corner of region
+	 * @param y0 top-left corner of region
+	 * @param regionWidth region's width
+	 * @param regionHeight region's height
+	 */
+	public void setTrackLocation( int x0 , int y0 , int regionWidth , int regionHeight ) {
+		if( imageWidth < regionWidth || imageHeight < regionHeight)
+			throw new IllegalArgumentException("Track region is larger than input image: "+regionWidth+" "+regionHeight);
+
+		regionOut.width = regionWidth;
+		regionOut.height = regionHeight;
+
+		// adjust for padding
+		int w = (int)(regionWidth*(1+padding));
+		int h = (int)(regionHeight*(1+padding));
+		int cx = x0 + regionWidth/2;
+		int cy = y0 + regionHeight/2;
+
+		// save the track location
+		this.regionTrack.width = w;
+		this.regionTrack.height = h;
+		this.regionTrack.x0 = cx-w/2;
+		this.regionTrack.y0 = cy-h/2;
+
+		stepX = (w-1)/(float)(workRegionSize-1);
+		stepY = (h-1)/(float)(workRegionSize-1);
+
+		updateRegionOut();
+	}
+
+	/**
+	 * Learn the target's appearance.
+	 */
+	protected void initialLearning( T image ) {
+		// get subwindow at current estimated target position, to train classifier
+		get_subwindow(image, regionTrack.x0, regionTrack.y0, stepX, stepY, template);
+		forward(template, templatef);
+		templateDot = imageDotProduct(template);
+
+		// Kernel Regularized Least-Squares, calculate alphas (in Fourier domain)
+		//	k = dense_gauss_kernel(sigma, x);
+		dense_gauss_kernel(sigma, templatef, templateDot, templatef, templateDot, k);
+		forward(k, kf);
+
+		// new_alphaf = yf ./ (fft2(k) + lambda);   %(Eq. 7)
+		computeAlphas(gaussianWeightDFT, kf, lambda, alphaf, workRegionSize, workRegionSize);
+	}
+
+	/**
+	 * Computes the cosine window
+	 */
+	protected static void computeCosineWindow( GrayF32 cosine ) {
+		double cosX[] = new double[ cosine.width ];
+		for( int x = 0; x < cosine.width; x++ ) {
+			cosX[x] = 0.5*(1 - Math.cos( 2.0*Math.PI*x/(cosine.width-1) ));
+		}
+		for( int y = 0; y < cosine.height; y++ ) {
+			int index = cosine.startIndex + y*cosine.stride;
+			double cosY = 0.5*(1 - Math.cos( 2.0*Math.PI*y/(cosine.height-1) ));
+			for( int x = 0; x < cosine.width; x++ ) {
+				cosine.data[index++] = (float)(cosX[x]*cosY);
+			}
+		}
+	}
+
+	/**
+	 * Computes the weights used in the gaussian kernel
+	 *
+	 * @see CirculantTracker#computeGaussianWeights(int)
+	 */
+	protected void computeGaussianWeights( int width ) {
+		// desired output (gaussian shaped), bandwidth proportional to target size
+		double output_sigma = Math.sqrt(width*width) * output_sigma_factor;
+
+		double left = -0.5/(output_sigma*output_sigma);
+
+		int radius = width/2;
+
+		for( int y = 0; y < gaussianWeight.height; y++ ) {
+			int index = gaussianWeight.startIndex + y*gaussianWeight.stride;
+
+			double ry = y-radius;
+
+			for( int x = 0; x < width; x++ ) {
+				double rx = x-radius;
+
+				gaussianWeight.data[index++] = (float)Math.exp(left * (ry * ry + rx * rx));
+			}
+		}
+
+		forward(gaussianWeight,gaussianWeightDFT);
+	}
+
+	protected void resizeImages( int workRegionSize ) {
+		int N = workRegionSize*workRegionSize;
+
+		templateNew.reshape(workRegionSize, workRegionSize);
+		template.reshape(workRegionSize, workRegionSize);
+		cosine.reshape(workRegionSize,workRegionSize);
+		k.reshape(workRegionSize,workRegionSize);
+		response.reshape(workRegionSize,workRegionSize);
+		responseWork.reshape(workRegionSize,workRegionSize);
+		tmpReal0.reshape(workRegionSize,workRegionSize);
+		gaussianWeight.reshape(workRegionSize,workRegionSize);
+
+		templatef = new float[N];
+		templateNewf = new float[N];
+		kf = new float[N];
+		alphaf = new float[N];
+		newAlphaf = new float[N];
+		gaussianWeightDFT = new float[N];
+		tmpFourier0 = new float[N];
+	}
+
+	/**
+	 * Search for the track in the image and
+	 *
+	 * @param image Next image in the sequence
+	 * @return true if the target was found or false if tracking failed
+	 */
+	public boolean performTracking( T image ) {
+		if( image.width != imageWidth || image.height != imageHeight )
+			throw new IllegalArgumentException("Tracking image size is not the same as " +
+					"input image. Expected "+imageWidth+" x "+imageHeight);
+		if( !updateTrackLocation(image) )
+			return false;
+		if( interp_factor != 0 )
+			performLearning(image);
+		return true;
+	}
+
+	/**
+	 * Find the target inside the current image by searching around its last known location at every scale
+	 *
+	 * @return true if a peak was found or false if every response was invalid, e.g. NaN
+	 */
+	protected boolean updateTrackLocation(T image) {
+		int N = workRegionSize*workRegionSize;
+
+		float bestValue = -Float.MAX_VALUE;
+		int bestIndex = -1;
+		float bestScale = 1;
+		float bestX0=0,bestY0=0;
+
+		for( int scaleIdx = 0; scaleIdx < scales.length; scaleIdx++ ) {
+			float scale = scales[scaleIdx];
+			if( scale != 1.0f && !isValidScale(scale) )
+				continue;
+
+			// sample the region around its center at this scale
+			float stepXs = stepX*scale;
+			float stepYs = stepY*scale;
+			float x0 = regionTrack.x0 + (workRegionSize-1)*(stepX-stepXs)/2.0f;
+			float y0 = regionTrack.y0 + (workRegionSize-1)*(stepY-stepYs)/2.0f;
+
+			get_subwindow(image, x0, y0, stepXs, stepYs, templateNew);
+			forward(templateNew, templateNewf);
+			float zz = imageDotProduct(templateNew);
+
+			// calculate response of the classifier at all locations
+			// matlab: k = dense_gauss_kernel(sigma, x, z);
+			dense_gauss_kernel(sigma, templateNewf, zz, templatef, templateDot, k);
+			forward(k, kf);
+
+			// response = real(ifft2(alphaf .* fft2(k)));   %(Eq. 9)
+			multiplyComplex(alphaf, kf, tmpFourier0, workRegionSize, workRegionSize);
+			inverse(tmpFourier0, responseWork);
+
+			// find the pixel with the largest response
+			int indexBest = -1;
+			float valueBest = -Float.MAX_VALUE;
+			for( int i = 0; i < N; i++ ) {
+				float v = responseWork.data[i];
+				if( v > valueBest ) {
+					valueBest = v;
+					indexBest = i;
+				}
+			}
+
+			if( scale != 1.0f )
+				valueBest *= scalePenalty;
+
+			if( valueBest > bestValue ) {
+				bestValue = valueBest;
+				bestIndex = indexBest;
+				bestScale = scale;
+				bestX0 = x0;
+				bestY0 = y0;
+
+				GrayF32 tmp = response;
+				response = responseWork;
+				responseWork = tmp;
+			}
+		}
+
+		// the response is NaN everywhere and there is no peak to refine
+		if( bestIndex < 0 )
+			return false;
+
+		int peakX = bestIndex % response.width;
+		int peakY = bestIndex / response.width;
+
+		// sub-pixel peak estimation
+		subpixelPeak(peakX, peakY);
+
+		// peak in region's coordinate system
+		float deltaX = (peakX+offX) - templateNew.width/2;
+		float deltaY = (peakY+offY) - templateNew.height/2;
+
+		// adjust the target's size to the selected scale
+		if( bestScale != 1.0f ) {
+			stepX *= bestScale;
+			stepY *= bestScale;
+			regionTrack.width *= bestScale;
+			regionTrack.height *= bestScale;
+			regionOut.width *= bestScale;
+			regionOut.height *= bestScale;
+		}
+
+		// convert peak location into image coordinate system
+		regionTrack.x0 = bestX0 + deltaX*stepX;
+		regionTrack.y0 = bestY0 + deltaY*stepY;
+
+		updateRegionOut();
+		return true;
+	}
+
+	/**
+	 * Scales which would make the target too small or larger than the image are skipped
+	 */
+	private boolean isValidScale( float scale ) {
+		float w = regionOut.width*scale;
+		float h = regionOut.height*scale;
+
+		return w >= 4 && h >= 4 && w <= imageWidth && h <= imageHeight;
+	}
+
+	/**
+	 * Refine the local-peak using a search algorithm for sub-pixel accuracy.
+	 */
+	protected void subpixelPeak(int peakX, int peakY) {
+		// this function for r was determined empirically by using work regions of 32,64,128
+		int r = Math.min(2,response.width/25);
+		if( r < 0 )
+			return;
+
+		localPeak.setImage(response);
+		localPeak.setSearchRadius(r);
+		localPeak.search(peakX,peakY);
+
+		offX = localPeak.getPeakX() - peakX;
+		offY = localPeak.getPeakY() - peakY;
+	}
+
+	private void updateRegionOut() {
+		regionOut.x0 = (regionTrack.x0+((int)regionTrack.width)/2)-((int)regionOut.width)/2;
+		regionOut.y0 = (regionTrack.y0+((int)regionTrack.height)/2)-((int)regionOut.height)/2;
+	}
+
+	/**
+	 * Update the alphas and the track's appearance
+	 */
+	public void performLearning(T image) {
+		// use the update track location
+		get_subwindow(image, regionTrack.x0, regionTrack.y0, stepX, stepY, templateNew);
+		forward(templateNew, templateNewf);
+		float zz = imageDotProduct(templateNew);
+
+		// Kernel Regularized Least-Squares, calculate alphas (in Fourier domain)
+		//	k = dense_gauss_kernel(sigma, x);
+		dense_gauss_kernel(sigma, templateNewf, zz, templateNewf, zz, k);
+		forward(k, kf);
+
+		// new_alphaf = yf ./ (fft2(k) + lambda);   %(Eq. 7)
+		computeAlphas(gaussianWeightDFT, kf, lambda, newAlphaf, workRegionSize, workRegionSize);
+
+		// subsequent frames, interpolate model
+		// alphaf = (1 - interp_factor) * alphaf + interp_factor * new_alphaf;
+		int N = workRegionSize*workRegionSize;
+		for( int i = 0; i < N; i++ ) {
+			alphaf[i] = (1-interp_factor)*alphaf[i] + interp_factor*newAlphaf[i];
+		}
+
+		// Set the previous image to be an interpolated version
+		//		z = (1 - interp_factor) * z + interp_factor * new_z;
+		// The FFT is linear so the cached spectrum is interpolated the same way
+		for( int i = 0; i < N; i++ ) {
+			template.data[i] = (1-interp_factor)*template.data[i] + interp_factor*templateNew.data[i];
+			templatef[i] = (1-interp_factor)*templatef[i] + interp_factor*templateNewf[i];
+		}
+		templateDot = imageDotProduct(template);
+	}
+
+	/**
+	 * Gaussian Kernel with dense sampling. Same as {@link CirculantTracker#dense_gauss_kernel}, but the
+	 * images are provided in the Fourier domain along with their dot products so that the spectrum of
+	 * the template can be reused.
+	 *
+	 * @param sigma Gaussian kernel bandwidth
+	 * @param xf Packed spectrum of input image x
+	 * @param xx Dot product of x with itself
+	 * @param yf Packed spectrum of input image y
+	 * @param yy Dot product of y with itself
+	 * @param k Output containing Gaussian kernel for each element in target region
+	 */
+	public void dense_gauss_kernel(float sigma , float[] xf , float xx , float[] yf , float yy , GrayF32 k ) {
+		//----   xy = invF[ F(x)*F(y) ]
+		// cross-correlation term in Fourier domain
+		elementMultConjB(xf,yf,tmpFourier0,k.height,k.width);
+		// convert to spatial domain
+		inverse(tmpFourier0,tmpReal0);
+
+		// calculate gaussian response for all positions
+		gaussianKernel(xx, yy, tmpReal0, sigma, k);
+	}
+
+	/**
+	 * Forward FFT of a real image into a packed half spectrum
+	 */
+	protected void forward( GrayF32 image , float[] spectrum ) {
+		System.arraycopy(image.data,0,spectrum,0,image.width*image.height);
+		fft.realForward(spectrum);
+	}
+
+	/**
+	 * Inverse FFT of a packed half spectrum into a real image
+	 */
+	protected void inverse( float[] spectrum , GrayF32 image ) {
+		System.arraycopy(spectrum,0,image.data,0,image.width*image.height);
+		fft.realInverse(image.data,true);
+	}
+
+	/**
+	 * Computes the dot product of the image with itself
+	 */
+	public static float imageDotProduct(GrayF32 a) {
+
+		float total = 0;
+
+		int N = a.width*a.height;
+		for( int index = 0; index < N; index++ ) {
+			float value = a.data[index];
+			total += value*value;
+		}
+
+		return total;
+	}
+
+	/**
+	 * Element-wise multiplication of two spectra in the packed half spectrum layout.
+	 *
+	 * @param rows Number of rows in the image
+	 * @param cols Number of columns in the image
+	 */
+	public static void multiplyComplex( float[] a , float[] b , float[] output , int rows , int cols ) {
+		int halfRows = rows/2;
+		for( int k1 = 0; k1 < rows; k1++ ) {
+			int row = k1*cols;
+			// regular complex numbers
+			for( int i = row+2; i < row+cols; i += 2 ) {
+				multiplyElement(a,b,output,i,i+1);
+			}
+			// columns 0 and cols/2 are packed together at the start of each row
+			if( k1 == 0 || k1 == halfRows ) {
+				output[row] = a[row]*b[row];
+				output[row+1] = a[row+1]*b[row+1];
+			} else if( k1 < halfRows ) {
+				multiplyElement(a,b,output,row,row+1);
+			} else {
+				multiplyElement(a,b,output,row+1,row);
+			}
+		}
+	}
+
+	private static void multiplyElement( float[] a , float[] b , float[] output , int ir , int ii ) {
+		float realA = a[ir], imgA = a[ii];
+		float realB = b[ir], imgB = b[ii];
+
+		output[ir] = realA*realB - imgA*imgB;
+		output[ii] = realA*imgB + imgA*realB;
+	}
+
+	/**
+	 * Element-wise multiplication of 'a' and the complex conjugate of 'b' in the packed half spectrum layout.
+	 *
+	 * @param rows Number of rows in the image
+	 * @param cols Number of columns in the image
+	 */
+	public static void elementMultConjB( float[] a , float[] b , float[] output , int rows , int cols ) {
+		int halfRows = rows/2;
+		for( int k1 = 0; k1 < rows; k1++ ) {
+			int row = k1*cols;
+			for( int i = row+2; i < row+cols; i += 2 ) {
+				multConjBElement(a,b,output,i,i+1);
+			}
+			if( k1 == 0 || k1 == halfRows ) {
+				output[row] = a[row]*b[row];
+				output[row+1] = a[row+1]*b[row+1];
+			} else if( k1 < halfRows ) {
+				multConjBElement(a,b,output,row,row+1);
+			} else {
+				multConjBElement(a,b,output,row+1,row);
+			}
+		}
+	}
+
+	private static void multConjBElement( float[] a , float[] b , float[] output , int ir , int ii ) {
+		float realA = a[ir], imgA = a[ii];
+		float realB = b[ir], imgB = b[ii];
+
+		output[ir] = realA*realB + imgA*imgB;
+		output[ii] = -realA*imgB + imgA*realB;
+	}
+
+	/**
+	 * new_alphaf = yf ./ (fft2(k) + lambda);   %(Eq. 7)  in the packed half spectrum layout.
+	 *
+	 * @param rows Number of rows in the image
+	 * @param cols Number of columns in the image
+	 */
+	protected static void computeAlphas( float[] yf , float[] kf , float lambda , float[] alphaf ,
+										 int rows , int cols ) {
+		int halfRows = rows/2;
+		for( int k1 = 0; k1 < rows; k1++ ) {
+			int row = k1*cols;
+			for( int i = row+2; i < row+cols; i += 2 ) {
+				alphaElement(yf,kf,lambda,alphaf,i,i+1);
+			}
+			if( k1 == 0 || k1 == halfRows ) {
+				alphaf[row] = yf[row]/(kf[row]+lambda);
+				alphaf[row+1] = yf[row+1]/(kf[row+1]+lambda);
+			} else if( k1 < halfRows ) {
+				alphaElement(yf,kf,lambda,alphaf,row,row+1);
+			} else {
+				alphaElement(yf,kf,lambda,alphaf,row+1,row);
+			}
+		}
+	}
+
+	private static void alphaElement( float[] yf , float[] kf , float lambda , float[] alphaf , int ir , int ii ) {
+		float a = yf[ir];
+		float b = yf[ii];
+
+		float c = kf[ir] + lambda;
+		float d = kf[ii];
+
+		float bottom = c*c + d*d;
+
+		alphaf[ir] = (a*c + b*d)/bottom;
+		alphaf[ii] = (b*c - a*d)/bottom;
+	}
+
+	/**
+	 * Computes the output of the Gaussian kernel for each element in the target region.  The output is
+	 * circularly shifted by half the image size, which removes the need for a separate circshift.
+	 *
+	 * k = circshift(exp(-1 / sigma^2 * max(0, (xx + yy - 2 * xy) / numel(x))));
+	 *
+	 * @param xx ||x||^2
+	 * @param yy ||y||^2
+	 */
+	protected static void gaussianKernel(float xx , float yy , GrayF32 xy , float sigma  , GrayF32 output ) {
+		float sigma2 = sigma*sigma;
+		float N = xy.width*xy.height;
+		int w2 = xy.width/2;
+		int h2 = xy.height/2;
+
+		for( int y = 0; y < xy.height; y++ ) {
+			int index = xy.startIndex + y*xy.stride;
+			int indexOut = output.startIndex + ((y+h2)%xy.height)*output.stride;
+
+			for( int x = 0; x < xy.width; x++ , index++ ) {
+				int xx_out = x + w2;
+				if( xx_out >= xy.width )
+					xx_out -= xy.width;
+
+				// (xx + yy - 2 * xy) / numel(x)
+				float value = (xx + yy - 2*xy.data[index])/N;
+
+				output.data[indexOut+xx_out] = (float)Math.exp(-Math.max(0, value) / sigma2);
+			}
+		}
+	}
+
+	/**
+	 * Copies the target into the output image and applies the cosine window to it.
+	 *
+	 * @param x0 top-left corner of sampled region
+	 * @param y0 top-left corner of sampled region
+	 * @param stepX spacing between samples along x-axis
+	 * @param stepY spacing between samples along y-axis
+	 */
+	protected void get_subwindow( T image , float x0 , float y0 , float stepX , float stepY , GrayF32 output ) {
+
+		// copy the target region
+
+		interp.setImage(image);
+		int index = 0;
+		for( int y = 0; y < workRegionSize; y++ ) {
+			float yy = y0 + y*stepY;
+
+			for( int x = 0; x < workRegionSize; x++ ) {
+				float xx = x0 + x*stepX;
+
+				if( interp.isInFastBounds(xx,yy))
+					output.data[index++] = interp.get_fast(xx,yy);
+				else if( BoofMiscOps.checkInside(image, xx, yy))
+					output.data[index++] = interp.get(xx, yy);
+				else {
+					// randomize to make pixels outside the image poorly correlate.  It will then focus on matching
+					// what's inside the image since it has structure
+					output.data[index++] = rand.nextFloat()*maxPixelValue;
+				}
+			}
+		}
+
+		// normalize values to be from -0.5 to 0.5
+		PixelMath.divide(output, maxPixelValue, output);
+		PixelMath.plus(output, -0.5f, output);
+		// apply the cosine window to it
+		PixelMath.multiply(output,cosine,output);
+	}
+
+	/**
+	 * The location of the target in the image
+	 */
+	public RectangleLength2D_F32 getTargetLocation() {
+		return regionOut;
+	}
+
+	/**
+	 * Visual appearance of the target
+	 */
+	public GrayF32 getTargetTemplate() {
+		return template;
+	}
+
+	public GrayF32 getResponse() {
+		return response;
+	}
+
+	public float[] getScales() {
+		return scales;
+	}
+
+	public float getScalePenalty() {
+		return scalePenalty;
+	}
+}
@@ -24,23 +24,18 @@ import boofcv.alg.sfm.robust.GenerateScaleTranslateRotate2D;
 import boofcv.alg.sfm.robust.ModelManagerScaleTranslateRotate2D;
 import boofcv.alg.tracker.klt.KltTrackFault;
 import boofcv.alg.tracker.klt.PyramidKltFeature;
+import boofcv.alg.tracker.klt.PyramidKltFrames;
 import boofcv.alg.tracker.klt.PyramidKltTracker;
-import boofcv.alg.tracker.tld.TldTracker;
-import boofcv.core.image.GeneralizedImageOps;
 import boofcv.factory.tracker.FactoryTrackerAlg;
-import boofcv.factory.transform.pyramid.FactoryPyramid;
 import boofcv.struct.RectangleRotate_F64;
 import boofcv.struct.geo.AssociatedPair;
 import boofcv.struct.image.ImageGray;
-import boofcv.struct.image.ImageType;
 import boofcv.struct.pyramid.ImagePyramid;
 import boofcv.struct.sfm.ScaleTranslateRotate2D;
 import georegression.geometry.UtilPoint2D_F32;
 import org.ddogleg.fitting.modelset.lmeds.LeastMedianOfSquares;
 import org.ddogleg.struct.FastQueue;
 
-import java.lang.reflect.Array;
-
 /**
  * Uses a pyramidal KLT tracker to track features inside the user selected region.  The motion of the region
  * is found robustly using {@link LeastMedianOfSquares} and a translation + rotation model.  Drift is a problem
@@ -52,15 +47,10 @@ import java.lang.reflect.Array;
  */
 public class SparseFlowObjectTracker<Image extends ImageGray<Image>, Derivative extends ImageGray<Derivative>>
 {
-	// for the current image
-	private ImagePyramid<Image> currentImage;
-	private Derivative[] currentDerivX;
-	private Derivative[] currentDerivY;
-
-	// previous image
-	private ImagePyramid<Image> previousImage;
-	private Derivative[] previousDerivX;
-	private Derivative[] previousDerivY;
+	// image pyramids and gradients for the current and previous image
+	private PyramidKltFrames<Image,Derivative> frames;
+	// if true then frames is shared with other trackers and is updated externally
+	private boolean sharedFrames = false;
 
 	// tracks features from frame-to-frame
 	private PyramidKltTracker<Image, Derivative> klt;
@@ -98,6 +88,8 @@ public class SparseFlowObjectTracker<Image extends ImageGray<Image>, Derivative
 		this.gradient = gradient;
 		maximumErrorFB = (float)(config.maximumErrorFB*config.maximumErrorFB);
 
+		frames = createFrames();
+
 		klt = FactoryTrackerAlg.kltPyramid(config.trackerConfig, imageType, derivType);
 
 		ModelManagerScaleTranslateRotate2D manager = new ModelManagerScaleTranslateRotate2D();
@@ -108,16 +100,37 @@ public class SparseFlowObjectTracker<Image extends ImageGray<Image>, Derivative
 				config.randSeed, config.robustCycles, Double.MAX_VALUE, 0, manager, generator, distance);
 	}
 
-	public void init( Image input , RectangleRotate_F64 region ) {
-		if( currentImage == null ||
-				currentImage.getInputWidth() != input.width || currentImage.getInputHeight() != input.height) {
-			declarePyramid(input.width,input.height);
+	/**
+	 * Creates image pyramids which are compatible with this tracker and can be shared with other trackers
+	 * that have the same configuration.
+	 */
+	public PyramidKltFrames<Image,Derivative> createFrames() {
+		int minSize = (config.trackerFeatureRadius*2+1)*5;
+		return new PyramidKltFrames<>(minSize, gradient, imageType, derivType);
+	}
+
+	/**
+	 * Specifies image pyramids which are shared with other trackers. The user is then responsible for calling
+	 * {@link PyramidKltFrames#process} with each image before it's passed to {@link #init} or {@link #update}.
+	 *
+	 * @param frames Shared pyramids. If null then the tracker will go back to computing its own pyramids.
+	 */
+	public void setSharedFrames( PyramidKltFrames<Image,Derivative> frames ) {
+		if( frames == null ) {
+			this.frames = createFrames();
+			this.sharedFrames = false;
+		} else {
+			this.frames = frames;
+			this.sharedFrames = true;
 		}
+	}
 
-		previousImage.process(input);
-		for( int i = 0; i < previousImage.getNumLayers(); i++ ) {
-			Image layer = previousImage.getLayer(i);
-			gradient.process(layer,previousDerivX[i],previousDerivY[i]);
+	public void init( Image input , RectangleRotate_F64 region ) {
+		if( !sharedFrames )
+			frames.process(input);
+
+		if( track == null || track.desc.length != frames.getNumLayers() ) {
+			track = new PyramidKltFeature(frames.getNumLayers(),config.trackerFeatureRadius);
 		}
 
 		trackLost = false;
@@ -179,9 +192,6 @@ public class SparseFlowObjectTracker<Image extends ImageGray<Image>, Derivative
 
 		output.set(region);
 
-		// make the current image into the previous image
-		swapImages();
-
 		return true;
 	}
 
@@ -192,11 +202,16 @@ public class SparseFlowObjectTracker<Image extends ImageGray<Image>, Derivative
 	private void trackFeatures(Image input, RectangleRotate_F64 region) {
 		pairs.reset();
 
-		currentImage.process(input);
-		for( int i = 0; i < currentImage.getNumLayers(); i++ ) {
-			Image layer = currentImage.getLayer(i);
-			gradient.process(layer,currentDerivX[i],currentDerivY[i]);
-		}
+		// the most recent image is now the previous image
+		if( !sharedFrames )
+			frames.process(input);
+
+		ImagePyramid<Image> previousImage = frames.getPreviousImage();
+		Derivative[] previousDerivX = frames.getPreviousDerivX();
+		Derivative[] previousDerivY = frames.getPreviousDerivY();
+		ImagePyramid<Image> currentImage = frames.getCurrentImage();
+		Derivative[] currentDerivX = frames.getCurrentDerivX();
+		Derivative[] currentDerivY = frames.getCurrentDerivY();
 
 		// convert to float to avoid excessive conversions from double to float
 		float cx = (float)region.cx;
@@ -261,58 +276,6 @@ public class SparseFlowObjectTracker<Image extends ImageGray<Image>, Derivative
 		}
 	}
 
-	/**
-	 * Declares internal data structures
-	 */
-	private void declarePyramid( int imageWidth , int imageHeight ) {
-		int minSize = (config.trackerFeatureRadius*2+1)*5;
-		int scales[] = TldTracker.selectPyramidScale(imageWidth, imageHeight, minSize);
-		currentImage = FactoryPyramid.discreteGaussian(scales,-1,1,false, ImageType.single(imageType));
-		currentImage.initialize(imageWidth, imageHeight);
-		previousImage = FactoryPyramid.discreteGaussian(scales, -1, 1, false,ImageType.single(imageType));
-		previousImage.initialize(imageWidth, imageHeight);
-
-		int numPyramidLayers = currentImage.getNumLayers();
-
-		previousDerivX = (Derivative[]) Array.newInstance(derivType, numPyramidLayers);
-		previousDerivY = (Derivative[])Array.newInstance(derivType,numPyramidLayers);
-		currentDerivX = (Derivative[])Array.newInstance(derivType,numPyramidLayers);
-		currentDerivY = (Derivative[])Array.newInstance(derivType,numPyramidLayers);
-
-		for( int i = 0; i < numPyramidLayers; i++ ) {
-			int w = currentImage.getWidth(i);
-			int h = currentImage.getHeight(i);
-
-			previousDerivX[i] = GeneralizedImageOps.createSingleBand(derivType, w, h);
-			previousDerivY[i] = GeneralizedImageOps.createSingleBand(derivType, w, h);
-			currentDerivX[i] = GeneralizedImageOps.createSingleBand(derivType, w, h);
-			currentDerivY[i] = GeneralizedImageOps.createSingleBand(derivType, w, h);
-		}
-
-		track = new PyramidKltFeature(numPyramidLayers,config.trackerFeatureRadius);
-	}
-
-	/**
-	 * Swaps the current and previous so that image derivative doesn't need to be recomputed or compied.
-	 */
-	private void swapImages() {
-		ImagePyramid<Image> tempP;
-
-		tempP = currentImage;
-		currentImage = previousImage;
-		previousImage = tempP;
-
-		Derivative[] tempD;
-
-		tempD = previousDerivX;
-		previousDerivX = currentDerivX;
-		currentDerivX = tempD;
-
-		tempD = previousDerivY;
-		previousDerivY = currentDerivY;
-		currentDerivY = tempD;
-	}
-
 	public boolean isTrackLost() {
 		return trackLost;
 	}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.tracker.tld;
+
+import boofcv.alg.interpolate.InterpolatePixelS;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.ImageRectangle;
+import boofcv.struct.feature.NccFeature;
+import boofcv.struct.image.ImageGray;
+import boofcv.struct.lists.RecycleStack;
+import org.ddogleg.struct.FastQueue;
+import org.ddogleg.struct.GrowQueue_F64;
+import org.ddogleg.struct.GrowQueue_I32;
+
+/**
+ * Concurrent implementation of {@link TldDetection}. The variance and fern tests, and then the template test,
+ * are applied to regions in parallel. Each thread has its own fern and NCC descriptor storage and its own
+ * interpolation. Results are written into per-region arrays, so threads never write to the same element, and
+ * then merged without locks in the same order as the single threaded code. The output is identical.
+ *
+ * @author Peter Abeles
+ */
+public class TldDetection_MT<T extends ImageGray<T>> extends TldDetection<T> {
+
+	// minimum number of regions processed by a thread in the variance and fern tests
+	public int minBlockCascade = 50;
+	// minimum number of regions processed by a thread in the template test
+	public int minBlockTemplate = 5;
+
+	// Results for each cascade region. A negative sumP indicates the region was rejected
+	private GrowQueue_I32 regionSumP = new GrowQueue_I32();
+	private GrowQueue_I32 regionSumN = new GrowQueue_I32();
+	// Template confidence for each region which passed the fern test
+	private GrowQueue_F64 regionConfidence = new GrowQueue_F64();
+
+	// storage for each thread
+	private RecycleStack<ThreadData> threads = new RecycleStack<>(ThreadData::new);
+
+	public TldDetection_MT(TldFernClassifier<T> fern, TldTemplateMatching<T> template, TldVarianceFilter<T> variance, TldParameters config) {
+		super(fern, template, variance, config);
+
+		nonmax = new TldNonMaximalSuppression_MT(config.regionConnect);
+	}
+
+	@Override
+	protected void computeFernInfo( FastQueue<ImageRectangle> cascadeRegions ) {
+		final int N = cascadeRegions.size;
+		if( N == 0 )
+			return;
+
+		regionSumP.resize(N);
+		regionSumN.resize(N);
+
+		BoofConcurrency.loopBlocks(0, N, minBlockCascade, (i0, i1) -> {
+			ThreadData data = popThreadData();
+			TldRegionFernInfo info = data.info;
+
+			for( int i = i0; i < i1; i++ ) {
+				ImageRectangle region = cascadeRegions.get(i);
+
+				regionSumP.data[i] = -1;
+				if( !variance.checkVariance(region)) {
+					continue;
+				}
+
+				info.r = region;
+
+				if( fern.lookupFernPN(info, data.interpFern)) {
+					regionSumP.data[i] = info.sumP;
+					regionSumN.data[i] = info.sumN;
+				}
+			}
+
+			threads.recycle(data);
+		});
+
+		// Add regions in the same order as the single threaded code
+		for( int i = 0; i < N; i++ ) {
+			if( regionSumP.data[i] < 0 )
+				continue;
+			TldRegionFernInfo info = fernInfo.grow();
+			info.r = cascadeRegions.get(i);
+			info.sumP = regionSumP.data[i];
+			info.sumN = regionSumN.data[i];
+		}
+	}
+
+	@Override
+	protected void computeTemplateConfidence() {
+		final int N = fernRegions.size();
+		if( N == 0 )
+			return;
+
+		regionConfidence.resize(N);
+
+		BoofConcurrency.loopBlocks(0, N, minBlockTemplate, (i0, i1) -> {
+			ThreadData data = popThreadData();
+
+			for( int i = i0; i < i1; i++ ) {
+				ImageRectangle r = fernRegions.get(i);
+				regionConfidence.data[i] = template.computeConfidence(r.x0, r.y0, r.x1, r.y1,
+						data.observed, data.interpTemplate);
+			}
+
+			threads.recycle(data);
+		});
+
+		for( int i = 0; i < N; i++ ) {
+			double confidence = regionConfidence.data[i];
+
+			if( confidence < config.confidenceThresholdUpper)
+				continue;
+			TldRegion r = candidateDetections.grow();
+			r.connections = 0;
+			r.rect.set(fernRegions.get(i));
+			r.confidence = confidence;
+		}
+	}
+
+	/**
+	 * Returns storage for a thread with its interpolation set to the current image
+	 */
+	private ThreadData popThreadData() {
+		ThreadData data = threads.pop();
+		T image = fern.getInterpolate().getImage();
+		if( data.interpFern.getImage() != image )
+			data.interpFern.setImage(image);
+		image = template.getInterpolate().getImage();
+		if( data.interpTemplate.getImage() != image )
+			data.interpTemplate.setImage(image);
+		return data;
+	}
+
+	private class ThreadData {
+		TldRegionFernInfo info = new TldRegionFernInfo();
+		NccFeature observed = new NccFeature(15*15);
+		InterpolatePixelS<T> interpFern = fern.getInterpolate().copy();
+		InterpolatePixelS<T> interpTemplate = template.getInterpolate().copy();
+	}
+}
@@ -23,6 +23,7 @@ import boofcv.struct.ImageRectangle;
 import boofcv.struct.image.ImageGray;
 import georegression.struct.point.Point2D_F32;
 
+import java.util.List;
 import java.util.Random;
 
 /**
@@ -49,7 +50,7 @@ public class TldFernClassifier<T extends ImageGray<T>> {
 	protected TldFernManager[] managers;
 
 	// provides sub-pixel interpolation to improve quality at different scales
-	private InterpolatePixelS<T> interpolate;
+	protected InterpolatePixelS<T> interpolate;
 
 	/**
 	 * Configures fern algorithm
@@ -120,6 +121,15 @@ public class TldFernClassifier<T extends ImageGray<T>> {
 		}
 	}
 
+	/**
+	 * Learns ferns from each region in the list.  No noise is added.
+	 */
+	public void learnFern(boolean positive, List<ImageRectangle> regions ) {
+		for( int i = 0; i < regions.size(); i++ ) {
+			learnFern(positive, regions.get(i));
+		}
+	}
+
 	/**
 	 * Computes the value for each fern inside the region and update's their P and N value.  Noise is added
 	 * to the image measurements to take in account the variability.
@@ -151,7 +161,7 @@ public class TldFernClassifier<T extends ImageGray<T>> {
 	 * Increments the P and N value for a fern.  Also updates the maxP and maxN statistics so that it
 	 * knows when to re-normalize data structures.
 	 */
-	private void increment( TldFernFeature f , boolean positive ) {
+	protected void increment( TldFernFeature f , boolean positive ) {
 		if( positive ) {
 			f.incrementP();
 			if( f.numP > maxP )
@@ -170,6 +180,14 @@ public class TldFernClassifier<T extends ImageGray<T>> {
 	 * @return true if a known value for any of the ferns was observed in this region
 	 */
 	public boolean lookupFernPN( TldRegionFernInfo info ) {
+		return lookupFernPN(info, interpolate);
+	}
+
+	/**
+	 * Same as {@link #lookupFernPN(TldRegionFernInfo)} but samples the image using the provided interpolation.
+	 * Allows several threads to look up ferns at the same time, each with its own interpolation.
+	 */
+	public boolean lookupFernPN( TldRegionFernInfo info , InterpolatePixelS<T> interp ) {
 
 		ImageRectangle r = info.r;
 
@@ -185,7 +203,7 @@ public class TldFernClassifier<T extends ImageGray<T>> {
 		for( int i = 0; i < ferns.length; i++ ) {
 			TldFernDescription fern = ferns[i];
 
-			int value = computeFernValue(c_x, c_y, rectWidth, rectHeight, fern);
+			int value = computeFernValue(c_x, c_y, rectWidth, rectHeight, fern, interp);
 
 			TldFernFeature f = managers[i].table[value];
 			if( f != null ) {
@@ -204,6 +222,15 @@ public class TldFernClassifier<T extends ImageGray<T>> {
 	 * Computes the value of the specified fern at the specified location in the image.
 	 */
 	protected int computeFernValue(float c_x, float c_y, float rectWidth , float rectHeight , TldFernDescription fern ) {
+		return computeFernValue(c_x, c_y, rectWidth, rectHeight, fern, interpolate);
+	}
+
+	/**
+	 * Computes the value of the specified fern at the specified location in the image using the provided
+	 * interpolation.
+	 */
+	protected int computeFernValue(float c_x, float c_y, float rectWidth , float rectHeight , TldFernDescription fern ,
+								   InterpolatePixelS<T> interp ) {
 
 		rectWidth -= 1;
 		rectHeight -= 1;
@@ -213,8 +240,8 @@ public class TldFernClassifier<T extends ImageGray<T>> {
 			Point2D_F32 p_a = fern.pairs[i].a;
 			Point2D_F32 p_b = fern.pairs[i].b;
 
-			float valA = interpolate.get_fast(c_x + p_a.x * rectWidth, c_y + p_a.y * rectHeight);
-			float valB = interpolate.get_fast(c_x + p_b.x * rectWidth, c_y + p_b.y * rectHeight);
+			float valA = interp.get_fast(c_x + p_a.x * rectWidth, c_y + p_a.y * rectHeight);
+			float valB = interp.get_fast(c_x + p_b.x * rectWidth, c_y + p_b.y * rectHeight);
 
 			desc *= 2;
 
@@ -291,6 +318,10 @@ public class TldFernClassifier<T extends ImageGray<T>> {
 		maxN = targetMax;
 	}
 
+	public InterpolatePixelS<T> getInterpolate() {
+		return interpolate;
+	}
+
 	public int getMaxP() {
 		return maxP;
 	}
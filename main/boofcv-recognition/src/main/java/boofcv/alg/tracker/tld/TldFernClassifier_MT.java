@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.tracker.tld;
+
+import boofcv.alg.interpolate.InterpolatePixelS;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.ImageRectangle;
+import boofcv.struct.image.ImageGray;
+import boofcv.struct.lists.RecycleStack;
+import org.ddogleg.struct.GrowQueue_I32;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Concurrent implementation of {@link TldFernClassifier}. When learning from a list of regions, fern values are
+ * computed in parallel with each thread having its own interpolation. The fern statistics are then updated
+ * in the same order as the single threaded code.
+ *
+ * @author Peter Abeles
+ */
+public class TldFernClassifier_MT<T extends ImageGray<T>> extends TldFernClassifier<T> {
+
+	// minimum number of regions processed by a thread
+	public int minBlock = 20;
+
+	// fern values for each region and fern. A thread only writes to the elements of the regions it was assigned
+	private GrowQueue_I32 values = new GrowQueue_I32();
+
+	// interpolation for each thread
+	private RecycleStack<InterpolatePixelS<T>> interpolators;
+
+	/**
+	 * @see TldFernClassifier#TldFernClassifier(Random, int, int, int, float, InterpolatePixelS)
+	 */
+	public TldFernClassifier_MT( Random rand , int numFerns , int descriptorSize ,
+								 int numLearnRandom , float fernLearnNoise ,
+								 InterpolatePixelS<T> interpolate ) {
+		super(rand, numFerns, descriptorSize, numLearnRandom, fernLearnNoise, interpolate);
+		interpolators = new RecycleStack<>(interpolate::copy);
+	}
+
+	@Override
+	public void learnFern(boolean positive, List<ImageRectangle> regions ) {
+		final int N = regions.size();
+		if( N == 0 )
+			return;
+
+		final int numFerns = ferns.length;
+		values.resize(N*numFerns);
+
+		BoofConcurrency.loopBlocks(0, N, minBlock, (i0, i1) -> {
+			InterpolatePixelS<T> interp = interpolators.pop();
+			if( interp.getImage() != interpolate.getImage() )
+				interp.setImage(interpolate.getImage());
+
+			for( int i = i0; i < i1; i++ ) {
+				ImageRectangle r = regions.get(i);
+
+				float rectWidth = r.getWidth();
+				float rectHeight = r.getHeight();
+
+				float c_x = r.x0+(rectWidth-1)/2f;
+				float c_y = r.y0+(rectHeight-1)/2f;
+
+				int index = i*numFerns;
+				for( int j = 0; j < numFerns; j++ ) {
+					values.data[index+j] = computeFernValue(c_x, c_y, rectWidth, rectHeight, ferns[j], interp);
+				}
+			}
+
+			interpolators.recycle(interp);
+		});
+
+		// update the statistics in the same order as the single threaded code
+		for( int i = 0, index = 0; i < N; i++ ) {
+			for( int j = 0; j < numFerns; j++ ) {
+				TldFernFeature f = managers[j].lookupFern(values.data[index++]);
+				increment(f,positive);
+			}
+		}
+	}
+}
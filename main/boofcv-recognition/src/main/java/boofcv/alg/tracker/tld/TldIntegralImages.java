@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.tracker.tld;
+
+import boofcv.alg.transform.ii.GIntegralImageOps;
+import boofcv.core.image.GeneralizedImageOps;
+import boofcv.struct.image.*;
+
+/**
+ * Integral image and integral image of the pixel value squared for a single frame. Used by
+ * {@link TldVarianceFilter} to compute the variance of a rectangular region. Only depends on the input image, so
+ * when multiple targets are tracked in the same frame a single instance can be computed once and shared.
+ *
+ * @author Peter Abeles
+ */
+public class TldIntegralImages<T extends ImageGray<T>> {
+	// integral image used to compute mean
+	ImageGray integral;
+	// integral image of the pixel value squared
+	ImageGray integralSq;
+
+	/**
+	 * Constructor which specifies the input image type.
+	 *
+	 * @param imageType  Either {@link GrayU8} or {@link GrayF32}
+	 */
+	public TldIntegralImages( Class<T> imageType ) {
+		if(GeneralizedImageOps.isFloatingPoint(imageType) ) {
+			integral = new GrayF32(1,1);
+			integralSq = new GrayF64(1,1);
+		} else {
+			integral = new GrayS32(1,1);
+			integralSq = new GrayS64(1,1);
+		}
+	}
+
+	/**
+	 * Computes the integral images for the input image
+	 *
+	 * @param gray input image
+	 */
+	public void process( T gray ) {
+		integral.reshape(gray.width,gray.height);
+		integralSq.reshape(gray.width,gray.height);
+
+		GIntegralImageOps.transform(gray,integral);
+		if( gray.getDataType().isInteger())
+			TldVarianceFilter.transformSq((GrayU8)gray,(GrayS64)integralSq);
+		else
+			TldVarianceFilter.transformSq((GrayF32)gray,(GrayF64)integralSq);
+	}
+
+	public ImageGray getIntegral() {
+		return integral;
+	}
+
+	public ImageGray getIntegralSq() {
+		return integralSq;
+	}
+}
@@ -113,11 +113,7 @@ public class TldLearning<T extends ImageGray<T>> {
 
 		// randomize which regions are used
 //		Collections.shuffle(fernNegative,rand);
-		int N = fernNegative.size();//Math.min(config.numNegativeFerns,fernNegative.size());
-
-		for( int i = 0; i < N; i++ ) {
-			fern.learnFern(false, fernNegative.get(i) );
-		}
+		fern.learnFern(false, fernNegative);
 
 		// run detection algorithm and if there is an ambiguous solution mark it as not target
 		detection.detectionCascade(cascadeRegions);
@@ -133,6 +129,7 @@ public class TldLearning<T extends ImageGray<T>> {
 	public void updateLearning( Rectangle2D_F64 targetRegion ) {
 
 		storageMetric.reset();
+		fernNegative.clear();
 
 		// learn the initial descriptor
 		TldHelperFunctions.convertRegion(targetRegion, targetRegion_I32);
@@ -155,8 +152,9 @@ public class TldLearning<T extends ImageGray<T>> {
 			if( overlap > config.overlapLower )
 				continue;
 
-			fern.learnFern(false, f.r );
+			fernNegative.add(f.r);
 		}
+		fern.learnFern(false, fernNegative);
 
 		learnAmbiguousNegative(targetRegion);
 	}
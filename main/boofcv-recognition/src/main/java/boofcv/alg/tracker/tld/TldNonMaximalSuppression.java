@@ -34,10 +34,10 @@ import org.ddogleg.struct.FastQueue;
 public class TldNonMaximalSuppression {
 
 	// cut off for connecting two nodes
-	private double connectionThreshold;
+	protected double connectionThreshold;
 
 	// connection graph
-	private FastQueue<Connections> conn = new FastQueue<>(Connections.class, true);
+	protected FastQueue<Connections> conn = new FastQueue<>(Connections.class, true);
 
 	// used for computing the overlap between two regions
 	private TldHelperFunctions helper = new TldHelperFunctions();
@@ -69,6 +69,31 @@ public class TldNonMaximalSuppression {
 		}
 
 		// Create the graph of connected regions and mark which regions are local maximums
+		connectRegions(regions);
+
+		// Compute the output from local maximums.
+		for( int i = 0; i < N; i++ ) {
+			TldRegion ra = regions.get(i);
+			Connections ca = conn.data[i];
+
+			if( ca.maximum ) {
+				TldRegion o = output.grow();
+				o.connections = ra.connections;
+				o.confidence = ra.confidence;
+				o.rect.set(ra.rect);
+			} else if( ra.connections == 0 ) {
+				System.out.println("Not a maximum but has zero connections?");
+			}
+		}
+	}
+
+	/**
+	 * Connects regions which overlap, counts the number of connections, and marks which regions
+	 * are strict local maximums
+	 */
+	protected void connectRegions( FastQueue<TldRegion> regions ) {
+		final int N = regions.size;
+
 		for( int i = 0; i < N; i++ ) {
 			TldRegion ra = regions.get(i);
 			Connections ca = conn.data[i];
@@ -90,21 +115,6 @@ public class TldNonMaximalSuppression {
 				rb.connections++;
 			}
 		}
-
-		// Compute the output from local maximums.
-		for( int i = 0; i < N; i++ ) {
-			TldRegion ra = regions.get(i);
-			Connections ca = conn.data[i];
-
-			if( ca.maximum ) {
-				TldRegion o = output.grow();
-				o.connections = ra.connections;
-				o.confidence = ra.confidence;
-				o.rect.set(ra.rect);
-			} else if( ra.connections == 0 ) {
-				System.out.println("Not a maximum but has zero connections?");
-			}
-		}
 	}
 
 	public FastQueue<Connections> getConnections() {
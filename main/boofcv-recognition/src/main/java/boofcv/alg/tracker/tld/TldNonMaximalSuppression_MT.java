@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.tracker.tld;
+
+import boofcv.concurrency.BoofConcurrency;
+import org.ddogleg.struct.FastQueue;
+
+/**
+ * Concurrent implementation of {@link TldNonMaximalSuppression}. Each thread is assigned a set of regions and only
+ * modifies those regions. This requires the overlap between each pair to be computed twice, but no locking is
+ * needed and the output is identical to the single threaded version.
+ *
+ * @author Peter Abeles
+ */
+public class TldNonMaximalSuppression_MT extends TldNonMaximalSuppression {
+
+	// minimum number of regions processed by a thread
+	public int minBlock = 10;
+
+	public TldNonMaximalSuppression_MT(double connectionThreshold) {
+		super(connectionThreshold);
+	}
+
+	@Override
+	protected void connectRegions( FastQueue<TldRegion> regions ) {
+		final int N = regions.size;
+		if( N == 0 )
+			return;
+
+		BoofConcurrency.loopBlocks(0, N, minBlock, (i0, i1) -> {
+			TldHelperFunctions helper = new TldHelperFunctions();
+
+			for( int i = i0; i < i1; i++ ) {
+				TldRegion ra = regions.get(i);
+				Connections ca = conn.data[i];
+
+				for( int j = 0; j < N; j++ ) {
+					if( i == j )
+						continue;
+					TldRegion rb = regions.get(j);
+
+					// see if they are connected
+					double overlap = helper.computeOverlap(ra.rect,rb.rect);
+					if( overlap < connectionThreshold ) {
+						continue;
+					}
+
+					// connect the two and check for strict maximums
+					ca.maximum &= ra.confidence > rb.confidence;
+					ra.connections++;
+				}
+			}
+		});
+	}
+}
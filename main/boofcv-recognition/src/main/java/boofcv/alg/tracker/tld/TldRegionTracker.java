@@ -21,6 +21,7 @@ package boofcv.alg.tracker.tld;
 import boofcv.abst.filter.derivative.ImageGradient;
 import boofcv.alg.tracker.klt.KltTrackFault;
 import boofcv.alg.tracker.klt.PyramidKltFeature;
+import boofcv.alg.tracker.klt.PyramidKltFrames;
 import boofcv.alg.tracker.klt.PyramidKltTracker;
 import boofcv.core.image.GeneralizedImageOps;
 import boofcv.factory.transform.pyramid.FactoryPyramid;
@@ -61,6 +62,9 @@ public class TldRegionTracker<I extends ImageGray<I>, D extends ImageGray<D>> {
 	private D[] previousDerivX;
 	private D[] previousDerivY;
 
+	// if true then the images above are owned by shared frames and not this class
+	private boolean sharedImages = false;
+
 	// Derivative image type
 	private Class<D> derivType;
 
@@ -122,7 +126,7 @@ public class TldRegionTracker<I extends ImageGray<I>, D extends ImageGray<D>> {
 	 * @param image Most recent video image.
 	 */
 	public void initialize(PyramidDiscrete<I> image ) {
-		if( previousDerivX == null || previousDerivX.length != image.getNumLayers()
+		if( sharedImages || previousDerivX == null || previousDerivX.length != image.getNumLayers()
 				|| previousImage.getInputWidth() != image.getInputWidth() || previousImage.getInputHeight() != image.getInputHeight() ) {
 			declareDataStructures(image);
 		}
@@ -134,6 +138,19 @@ public class TldRegionTracker<I extends ImageGray<I>, D extends ImageGray<D>> {
 		previousImage.setTo(image);
 	}
 
+	/**
+	 * Call for the first image being tracked when the image pyramids and gradients are computed externally and
+	 * can be shared with other trackers. The most recent image in frames is used.
+	 *
+	 * @param frames Pyramids and gradients which have processed the most recent video image.
+	 */
+	public void initialize( PyramidKltFrames<I,D> frames ) {
+		if( numPyramidLayers != frames.getNumLayers() || tracks[0] == null ) {
+			numPyramidLayers = frames.getNumLayers();
+			declareTracks();
+		}
+	}
+
 	/**
 	 * Declares internal data structures based on the input image pyramid
 	 */
@@ -158,7 +175,12 @@ public class TldRegionTracker<I extends ImageGray<I>, D extends ImageGray<D>> {
 		Class imageClass = image.getImageType().getImageClass();
 		previousImage = FactoryPyramid.discreteGaussian(image.getScales(), -1, 1, false, ImageType.single(imageClass));
 		previousImage.initialize(image.getInputWidth(), image.getInputHeight());
+		sharedImages = false;
+
+		declareTracks();
+	}
 
+	private void declareTracks() {
 		for( int i = 0; i < tracks.length; i++ ) {
 			Track t = new Track();
 			t.klt = new PyramidKltFeature(numPyramidLayers,featureRadius);
@@ -191,6 +213,30 @@ public class TldRegionTracker<I extends ImageGray<I>, D extends ImageGray<D>> {
 		return success;
 	}
 
+	/**
+	 * Same as {@link #process(ImagePyramid, Rectangle2D_F64)} but the image pyramids and gradients for the current
+	 * and previous image are provided by frames which are shared with other trackers.
+	 *
+	 * @param frames Pyramids and gradients which have processed the most recent video image.
+	 * @param targetRectangle Location of target in previous frame. Not modified.
+	 * @return true if tracking was successful or false if not
+	 */
+	public boolean process( PyramidKltFrames<I,D> frames , Rectangle2D_F64 targetRectangle ) {
+		sharedImages = true;
+		currentImage = frames.getCurrentImage();
+		currentDerivX = frames.getCurrentDerivX();
+		currentDerivY = frames.getCurrentDerivY();
+		previousImage = frames.getPreviousImage();
+		previousDerivX = frames.getPreviousDerivX();
+		previousDerivY = frames.getPreviousDerivY();
+
+		// create feature tracks
+		spawnGrid(targetRectangle);
+
+		// track features while computing forward/backward error and NCC error
+		return trackFeature();
+	}
+
 	/**
 	 * Computes the gradient and changes the reference to the current pyramid
 	 */
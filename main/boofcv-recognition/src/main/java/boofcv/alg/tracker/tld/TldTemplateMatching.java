@@ -45,7 +45,7 @@ public class TldTemplateMatching<T extends ImageGray<T>> {
 	private NccFeature observed = new NccFeature(15*15);
 
 	// used when sampling the image
-	private InterpolatePixelS<T> interpolate;
+	protected InterpolatePixelS<T> interpolate;
 
 	// storage for descriptors which can be recycled
 	protected Stack<NccFeature> unused = new Stack<>();
@@ -127,6 +127,15 @@ public class TldTemplateMatching<T extends ImageGray<T>> {
 	 * Computes the NCC descriptor by sample points at evenly spaced distances inside the rectangle
 	 */
 	public void computeNccDescriptor( NccFeature f , float x0 , float y0 , float x1 , float y1 ) {
+		computeNccDescriptor(f, x0, y0, x1, y1, interpolate);
+	}
+
+	/**
+	 * Same as {@link #computeNccDescriptor(NccFeature, float, float, float, float)} but samples the image using
+	 * the provided interpolation.
+	 */
+	public void computeNccDescriptor( NccFeature f , float x0 , float y0 , float x1 , float y1 ,
+									  InterpolatePixelS<T> interp ) {
 		double mean = 0;
 		float widthStep = (x1-x0)/15.0f;
 		float heightStep = (y1-y0)/15.0f;
@@ -136,7 +145,7 @@ public class TldTemplateMatching<T extends ImageGray<T>> {
 		for( int y = 0; y < 15; y++ ) {
 			float sampleY = y0 + y*heightStep;
 			for( int x = 0; x < 15; x++ ) {
-				mean += f.value[index++] = interpolate.get_fast(x0 + x * widthStep, sampleY);
+				mean += f.value[index++] = interp.get_fast(x0 + x * widthStep, sampleY);
 			}
 		}
 		mean /= 15*15;
@@ -177,8 +186,18 @@ public class TldTemplateMatching<T extends ImageGray<T>> {
 	 * @return value from 0 to 1, where higher values are more confident
 	 */
 	public double computeConfidence( int x0 , int y0 , int x1 , int y1 ) {
+		return computeConfidence(x0, y0, x1, y1, observed, interpolate);
+	}
 
-		computeNccDescriptor(observed,x0,y0,x1,y1);
+	/**
+	 * Same as {@link #computeConfidence(int, int, int, int)} but with caller provided storage for the observed
+	 * descriptor and interpolation. Allows several threads to compute the confidence at the same time, as long
+	 * as templates are not being added.
+	 */
+	public double computeConfidence( int x0 , int y0 , int x1 , int y1 ,
+									 NccFeature observed , InterpolatePixelS<T> interp ) {
+
+		computeNccDescriptor(observed,x0,y0,x1,y1,interp);
 
 		// distance from each set of templates
 		if( templateNegative.size() > 0 && templatePositive.size() > 0 ) {
@@ -220,6 +239,10 @@ public class TldTemplateMatching<T extends ImageGray<T>> {
 		return 1-0.5*(maximum + 1);
 	}
 
+	public InterpolatePixelS<T> getInterpolate() {
+		return interpolate;
+	}
+
 	public List<NccFeature> getTemplatePositive() {
 		return templatePositive;
 	}
@@ -20,7 +20,9 @@ package boofcv.alg.tracker.tld;
 
 import boofcv.abst.filter.derivative.ImageGradient;
 import boofcv.alg.interpolate.InterpolatePixelS;
+import boofcv.alg.tracker.klt.PyramidKltFrames;
 import boofcv.alg.tracker.klt.PyramidKltTracker;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.tracker.FactoryTrackerAlg;
 import boofcv.factory.transform.pyramid.FactoryPyramid;
 import boofcv.struct.ImageRectangle;
@@ -80,6 +82,10 @@ public class TldTracker<T extends ImageGray<T>, D extends ImageGray<D>> {
 
 	// Image pyramid of input image
 	private PyramidDiscrete<T> imagePyramid;
+	// If not null then image pyramids and gradients are shared with other trackers and updated externally
+	private PyramidKltFrames<T,D> sharedFrames;
+	// If not null then integral images used by the variance filter are shared and updated externally
+	private TldIntegralImages<T> sharedIntegral;
 
 	// Tracks features inside the current region
 	private TldRegionTracker<T,D> tracking;
@@ -110,6 +116,11 @@ public class TldTracker<T extends ImageGray<T>, D extends ImageGray<D>> {
 	// is learning on or off
 	private boolean performLearning = true;
 
+	// used to create shared image pyramids
+	private ImageGradient<T,D> gradient;
+	private Class<T> imageType;
+	private Class<D> derivType;
+
 	/**
 	 * Configures the TLD tracker
 	 *
@@ -119,6 +130,9 @@ public class TldTracker<T extends ImageGray<T>, D extends ImageGray<D>> {
 					   InterpolatePixelS<T> interpolate , ImageGradient<T,D> gradient ,
 					   Class<T> imageType , Class<D> derivType) {
 		this.config = config;
+		this.gradient = gradient;
+		this.imageType = imageType;
+		this.derivType = derivType;
 
 		Random rand = new Random(config.randomSeed);
 
@@ -129,10 +143,15 @@ public class TldTracker<T extends ImageGray<T>, D extends ImageGray<D>> {
 		adjustRegion = new TldAdjustRegion(config.motionIterations);
 		variance = new TldVarianceFilter<>(imageType);
 		template = new TldTemplateMatching<>(interpolate);
-		fern = new TldFernClassifier<>(
-				rand, config.numFerns, config.fernSize, 20, 0.5f, interpolate);
-
-		detection = new TldDetection<>(fern, template, variance, config);
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			fern = new TldFernClassifier_MT<>(
+					rand, config.numFerns, config.fernSize, 20, 0.5f, interpolate);
+			detection = new TldDetection_MT<>(fern, template, variance, config);
+		} else {
+			fern = new TldFernClassifier<>(
+					rand, config.numFerns, config.fernSize, 20, 0.5f, interpolate);
+			detection = new TldDetection<>(fern, template, variance, config);
+		}
 		learning = new TldLearning<>(rand, config, template, variance, fern, detection);
 	}
 
@@ -147,13 +166,15 @@ public class TldTracker<T extends ImageGray<T>, D extends ImageGray<D>> {
 	 */
 	public void initialize( T image , int x0 , int y0 , int x1 , int y1 ) {
 
-		if( imagePyramid == null ||
-				imagePyramid.getInputWidth() != image.width || imagePyramid.getInputHeight() != image.height ) {
-			int minSize = (config.trackerFeatureRadius*2+1)*5;
-			int scales[] = selectPyramidScale(image.width,image.height,minSize);
-			imagePyramid = FactoryPyramid.discreteGaussian(scales,-1,1,true,image.getImageType());
+		if( sharedFrames == null ) {
+			if( imagePyramid == null ||
+					imagePyramid.getInputWidth() != image.width || imagePyramid.getInputHeight() != image.height ) {
+				int minSize = (config.trackerFeatureRadius*2+1)*5;
+				int scales[] = selectPyramidScale(image.width,image.height,minSize);
+				imagePyramid = FactoryPyramid.discreteGaussian(scales,-1,1,true,image.getImageType());
+			}
+			imagePyramid.process(image);
 		}
-		imagePyramid.process(image);
 
 		reacquiring = false;
 
@@ -163,8 +184,8 @@ public class TldTracker<T extends ImageGray<T>, D extends ImageGray<D>> {
 		template.reset();
 		fern.reset();
 
-		tracking.initialize(imagePyramid);
-		variance.setImage(image);
+		initializeTracking();
+		setVarianceImage(image);
 		template.setImage(image);
 		fern.setImage(image);
 		adjustRegion.init(image.width,image.height);
@@ -260,9 +281,10 @@ public class TldTracker<T extends ImageGray<T>, D extends ImageGray<D>> {
 		boolean success = true;
 		valid = false;
 
-		imagePyramid.process(image);
+		if( sharedFrames == null )
+			imagePyramid.process(image);
 		template.setImage(image);
-		variance.setImage(image);
+		setVarianceImage(image);
 		fern.setImage(image);
 
 		if( reacquiring ) {
@@ -277,7 +299,7 @@ public class TldTracker<T extends ImageGray<T>, D extends ImageGray<D>> {
 				ImageRectangle r = region.rect;
 				targetRegion.set(r.x0, r.y0, r.x1, r.y1);
 				// get tracking running again
-				tracking.initialize(imagePyramid);
+				initializeTracking();
 
 				checkNewTrackStrong(region.confidence);
 
@@ -289,7 +311,8 @@ public class TldTracker<T extends ImageGray<T>, D extends ImageGray<D>> {
 
 			// update the previous track region using the tracker
 			trackerRegion.set(targetRegion);
-			boolean trackingWorked = tracking.process(imagePyramid, trackerRegion);
+			boolean trackingWorked = sharedFrames == null ?
+					tracking.process(imagePyramid, trackerRegion) : tracking.process(sharedFrames, trackerRegion);
 			trackingWorked &= adjustRegion.process(tracking.getPairs(), trackerRegion);
 			TldHelperFunctions.convertRegion(trackerRegion, trackerRegion_I32);
 
@@ -384,29 +407,64 @@ public class TldTracker<T extends ImageGray<T>, D extends ImageGray<D>> {
 		return confidenceTarget >= config.confidenceAccept;
 	}
 
+	private void setVarianceImage( T image ) {
+		if( sharedIntegral == null )
+			variance.setImage(image);
+		else
+			variance.setIntegralImages(sharedIntegral);
+	}
+
+	private void initializeTracking() {
+		if( sharedFrames == null )
+			tracking.initialize(imagePyramid);
+		else
+			tracking.initialize(sharedFrames);
+	}
+
+	/**
+	 * Creates image pyramids and gradients which are compatible with this tracker and can be shared with
+	 * other trackers that have the same configuration.
+	 */
+	public PyramidKltFrames<T,D> createFrames() {
+		int minSize = (config.trackerFeatureRadius*2+1)*5;
+		return new PyramidKltFrames<>(minSize, gradient, imageType, derivType);
+	}
+
+	/**
+	 * Specifies image pyramids and gradients which are shared with other trackers. The user is then responsible
+	 * for calling {@link PyramidKltFrames#process} with each image before it's passed to {@link #initialize}
+	 * or {@link #track}. Must be called before {@link #initialize}.
+	 *
+	 * @param frames Shared pyramids. If null then the tracker will go back to computing its own pyramids.
+	 */
+	public void setSharedFrames( PyramidKltFrames<T,D> frames ) {
+		this.sharedFrames = frames;
+	}
+
+	/**
+	 * Creates integral images which are compatible with this tracker and can be shared with other trackers.
+	 */
+	public TldIntegralImages<T> createIntegralImages() {
+		return new TldIntegralImages<>(imageType);
+	}
+
+	/**
+	 * Specifies integral images which are shared with other trackers. The user is then responsible for calling
+	 * {@link TldIntegralImages#process} with each image before it's passed to {@link #initialize} or {@link #track}.
+	 * Must be called before {@link #initialize}.
+	 *
+	 * @param integral Shared integral images. If null then the tracker will go back to computing its own.
+	 */
+	public void setSharedIntegralImages( TldIntegralImages<T> integral ) {
+		this.sharedIntegral = integral;
+	}
+
 	/**
 	 * Selects the scale for the image pyramid based on image size and feature size
 	 * @return scales for image pyramid
 	 */
 	public static int[] selectPyramidScale( int imageWidth , int imageHeight, int minSize ) {
-		int w = Math.max(imageWidth,imageHeight);
-
-		int maxScale = w/minSize;
-		int n = 1;
-		int scale = 1;
-		while( scale*2 < maxScale ) {
-			n++;
-			scale *= 2;
-		}
-
-		int ret[] = new int[n];
-		scale = 1;
-		for( int i = 0; i < n; i++ ) {
-			ret[i] = scale;
-			scale *= 2;
-		}
-
-		return ret;
+		return PyramidKltFrames.selectPyramidScale(imageWidth, imageHeight, minSize);
 	}
 
 	public boolean isPerformLearning() {
@@ -440,4 +498,8 @@ public class TldTracker<T extends ImageGray<T>, D extends ImageGray<D>> {
 	public TldDetection<T> getDetection() {
 		return detection;
 	}
+
+	public TldVarianceFilter<T> getVariance() {
+		return variance;
+	}
 }
@@ -19,14 +19,14 @@
 package boofcv.alg.tracker.tld;
 
 import boofcv.alg.transform.ii.GIntegralImageOps;
-import boofcv.core.image.GeneralizedImageOps;
 import boofcv.struct.ImageRectangle;
 import boofcv.struct.image.*;
 
 /**
  * Compute the variance for a rectangular region using the integral image.  Supports both U8 and F32 input images.
  * For each new image in the sequence a call to {@link #setImage(ImageGray)} must be done
- * so that it can compute the required integral images.  See paper for mathematical details on how the variance
+ * so that it can compute the required integral images, or integral images which have already been computed can be
+ * provided using {@link #setIntegralImages}. See paper for mathematical details on how the variance
  * is computed using integral images.
  *
  * @author Peter Abeles
@@ -36,6 +36,8 @@ public class TldVarianceFilter<T extends ImageGray<T>> {
 	// threshold for selecting candidate regions
 	private double thresholdLower;
 
+	// integral images computed by this filter
+	private TldIntegralImages<T> owned;
 	// integral image used to compute mean
 	private ImageGray integral;
 	// integral image of the pixel value squared
@@ -47,15 +49,7 @@ public class TldVarianceFilter<T extends ImageGray<T>> {
 	 * @param imageType  Either {@link GrayU8} or {@link GrayF32}
 	 */
 	public TldVarianceFilter( Class<T> imageType ) {
-
-		// declare integral images.
-		if(GeneralizedImageOps.isFloatingPoint(imageType) ) {
-			integral = new GrayF32(1,1);
-			integralSq = new GrayF64(1,1);
-		} else {
-			integral = new GrayS32(1,1);
-			integralSq = new GrayS64(1,1);
-		}
+		owned = new TldIntegralImages<>(imageType);
 	}
 
 	protected TldVarianceFilter() {
@@ -67,14 +61,19 @@ public class TldVarianceFilter<T extends ImageGray<T>> {
 	 * @param gray input image
 	 */
 	public void setImage(T gray) {
-		integral.reshape(gray.width,gray.height);
-		integralSq.reshape(gray.width,gray.height);
-
-		GIntegralImageOps.transform(gray,integral);
-		if( gray.getDataType().isInteger())
-			transformSq((GrayU8)gray,(GrayS64)integralSq);
-		else
-			transformSq((GrayF32)gray,(GrayF64)integralSq);
+		owned.process(gray);
+		setIntegralImages(owned);
+	}
+
+	/**
+	 * Specifies integral images which have already been computed for the current image. Used instead of
+	 * {@link #setImage} when the integral images are shared between trackers.
+	 *
+	 * @param images Integral images of the current image
+	 */
+	public void setIntegralImages( TldIntegralImages<T> images ) {
+		integral = images.integral;
+		integralSq = images.integralSq;
 	}
 
 	/**
@@ -192,4 +191,12 @@ public class TldVarianceFilter<T extends ImageGray<T>> {
 	public double getThresholdLower() {
 		return thresholdLower;
 	}
+
+	public ImageGray getIntegral() {
+		return integral;
+	}
+
+	public ImageGray getIntegralSq() {
+		return integralSq;
+	}
 }
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.factory.fiducial;
+
+import boofcv.struct.Configuration;
+
+/**
+ * Configuration for {@link boofcv.abst.fiducial.QrCodeTrackingDetector}
+ *
+ * @author Peter Abeles
+ */
+public class ConfigQrCodeTracking implements Configuration {
+
+	/**
+	 * A full frame scan is forced after this many frames have been processed using only regions of interest.
+	 * If &le; 0 then a full scan is only done when there are no tracks or a track has been lost.
+	 */
+	public int fullScanPeriod = 10;
+
+	/**
+	 * If true then a full frame scan will be done on the same frame if any of the tracked QR Codes could not be
+	 * found inside its predicted region.
+	 */
+	public boolean fullScanOnLoss = true;
+
+	/**
+	 * How much the predicted bounding box of a QR Code is expanded by on each side, relative to its size
+	 */
+	public double regionMargin = 0.5;
+
+	/**
+	 * The width and height of a search region will be at least this many pixels. Thresholding and the contour
+	 * based search need a few blocks of context around the QR Code to work well.
+	 */
+	public int minimumRegionSize = 100;
+
+	@Override
+	public void checkValidity() {
+		if( regionMargin < 0 )
+			throw new IllegalArgumentException("regionMargin must be >= 0");
+		if( minimumRegionSize < 0 )
+			throw new IllegalArgumentException("minimumRegionSize must be >= 0");
+	}
+}
@@ -175,6 +175,21 @@ public class FactoryFiducial {
 		return new QrCodePreciseDetector<>(inputToBinary,detectPositionPatterns, config.forceEncoding,false, imageType);
 	}
 
+	/**
+	 * QR Code detector for video sequences. Previously found QR Codes are searched for in a small region
+	 * around their predicted location and the entire image is only scanned periodically.
+	 *
+	 * @param config Configuration for the QR Code detector. Can be null.
+	 * @param configTracking Configuration for tracking. Can be null.
+	 * @param imageType type of input image
+	 * @return the detector
+	 */
+	public static <T extends ImageGray<T>>
+	QrCodeTrackingDetector<T> qrcodeTracking(ConfigQrCode config, ConfigQrCodeTracking configTracking,
+											 Class<T> imageType) {
+		return new QrCodeTrackingDetector<>(qrcode(config,imageType),configTracking);
+	}
+
 	/**
 	 * QR Code but with the ability to estimate it's 3D pose using PnP. Implements {@link FiducialDetector}.
 	 *
@@ -19,8 +19,11 @@
 package boofcv.factory.fiducial;
 
 import boofcv.abst.fiducial.calib.*;
+import boofcv.abst.geo.calibration.DetectorFiducialCalibration;
 import boofcv.alg.fiducial.calib.chess.DetectChessboardFiducial;
 
+import javax.annotation.Nullable;
+
 /**
  * Creates detectors of calibration targets.  These detectors return found key points in the image and
  * their known 2D location on the fiducial.
@@ -96,4 +99,24 @@ public class FactoryFiducialCalibration {
 
 		return new CalibrationDetectorCircleRegularGrid(config);
 	}
+
+	/**
+	 * Wraps a calibration target detector so that it's better suited for processing video. Calibration points
+	 * are tracked between frames and the full detector is only used when tracking fails. Nearly duplicate
+	 * views can also be rejected.
+	 *
+	 * @see CalibrationDetectorTracking
+	 *
+	 * @param detector Detector used to find the target in a single image
+	 * @param config Configuration for tracking. null for default.
+	 * @return The tracking detector
+	 */
+	public static CalibrationDetectorTracking tracking( DetectorFiducialCalibration detector ,
+														@Nullable ConfigCalibrationTracking config ) {
+		if( config == null )
+			config = new ConfigCalibrationTracking();
+		config.checkValidity();
+
+		return new CalibrationDetectorTracking(detector, config);
+	}
 }
@@ -18,8 +18,14 @@
 
 package boofcv.factory.scene;
 
+import boofcv.abst.feature.dense.DescribeImageDense;
+import boofcv.alg.scene.*;
 import boofcv.deepboof.ImageClassifierNiNImageNet;
 import boofcv.deepboof.ImageClassifierVggCifar10;
+import boofcv.struct.feature.TupleDesc;
+import boofcv.struct.image.ImageBase;
+import org.ddogleg.nn.FactoryNearestNeighbor;
+import org.ddogleg.nn.NearestNeighbor;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -68,4 +74,33 @@ public class FactoryImageClassifier {
 
 		return ret;
 	}
+
+	/**
+	 * Bag-of-words scene classifier which uses k-nearest neighbors to select the scene
+	 *
+	 * @see ClassifierKNearestNeighborsBow
+	 * @see InvertedFileHistogramScene_F64
+	 *
+	 * @param describe Computes dense features in the image
+	 * @param featureToHistogram Converts features into a word histogram
+	 * @param numNeighbors Number of neighbors it will consider
+	 * @param invertedFile If true then a TF-IDF weighted inverted file is searched. Recommended for large
+	 *                     vocabularies. If false then an exhaustive search is done on the histograms.
+	 * @return The classifier. Classification data still needs to be specified.
+	 */
+	public static <T extends ImageBase<T>,Desc extends TupleDesc>
+	ClassifierKNearestNeighborsBow<T,Desc> nearestNeighborBow( DescribeImageDense<T,Desc> describe ,
+															   FeatureToWordHistogram<Desc> featureToHistogram ,
+															   int numNeighbors , boolean invertedFile ) {
+		NearestNeighbor<HistogramScene> nn;
+		if( invertedFile ) {
+			nn = new InvertedFileHistogramScene_F64();
+		} else {
+			nn = FactoryNearestNeighbor.exhaustive(new KdTreeHistogramScene_F64(featureToHistogram.getTotalWords()));
+		}
+
+		ClassifierKNearestNeighborsBow<T,Desc> ret = new ClassifierKNearestNeighborsBow<>(nn,describe,featureToHistogram);
+		ret.setNumNeighbors(numNeighbors);
+		return ret;
+	}
 }
@@ -24,6 +24,7 @@ import boofcv.abst.tracker.ConfigComaniciu2003;
 import boofcv.alg.interpolate.InterpolatePixelMB;
 import boofcv.alg.interpolate.InterpolatePixelS;
 import boofcv.alg.tracker.circulant.CirculantTracker;
+import boofcv.alg.tracker.circulant.CirculantTracker_F32;
 import boofcv.alg.tracker.meanshift.*;
 import boofcv.alg.tracker.sfot.SfotConfig;
 import boofcv.alg.tracker.sfot.SparseFlowObjectTracker;
@@ -123,6 +124,28 @@ public class FactoryTrackerObjectAlgs {
 				config.maxPixelValue,interp);
 	}
 
+	public static <T extends ImageGray<T>>
+	CirculantTracker_F32<T> circulantF32( ConfigCirculantTracker config , Class<T> imageType) {
+		if( config == null )
+			config = new ConfigCirculantTracker();
+
+		InterpolatePixelS<T> interp = FactoryInterpolation.bilinearPixelS(imageType, BorderType.EXTENDED);
+
+		CirculantTracker_F32<T> alg = new CirculantTracker_F32<>(
+				(float)config.output_sigma_factor,(float)config.sigma,(float)config.lambda,(float)config.interp_factor,
+				(float)config.padding,
+				config.workSpace,
+				(float)config.maxPixelValue,interp);
+
+		float[] scales = new float[config.scales.length];
+		for( int i = 0; i < scales.length; i++ ) {
+			scales[i] = (float)config.scales[i];
+		}
+		alg.setScales(scales,(float)config.scalePenalty);
+
+		return alg;
+	}
+
 	public static <T extends ImageBase<T>>
 	TrackerMeanShiftComaniciu2003<T> meanShiftComaniciu2003(ConfigComaniciu2003 config, ImageType<T> imageType ) {
 
@@ -23,6 +23,7 @@ import boofcv.abst.tracker.*;
 import boofcv.alg.filter.derivative.GImageDerivativeOps;
 import boofcv.alg.interpolate.InterpolatePixelS;
 import boofcv.alg.tracker.circulant.CirculantTracker;
+import boofcv.alg.tracker.circulant.CirculantTracker_F32;
 import boofcv.alg.tracker.meanshift.PixelLikelihood;
 import boofcv.alg.tracker.meanshift.TrackerMeanShiftComaniciu2003;
 import boofcv.alg.tracker.meanshift.TrackerMeanShiftLikelihood;
@@ -177,4 +178,21 @@ public class FactoryTrackerObjectQuad {
 
 		return new Circulant_to_TrackerObjectQuad<>(alg, ImageType.single(imageType));
 	}
+
+	/**
+	 * Single precision variant of {@link #circulant}.  Caches the template's spectrum, uses real FFTs, and can
+	 * search several scales in one pass.  The work space must be a power of two.
+	 *
+	 * @see CirculantTracker_F32
+	 *
+	 * @param config Configuration
+	 * @return CirculantTracker_F32
+	 */
+	public static <T extends ImageGray<T>>
+	TrackerObjectQuad<T> circulantF32( ConfigCirculantTracker config , Class<T> imageType ) {
+
+		CirculantTracker_F32<T> alg = FactoryTrackerObjectAlgs.circulantF32(config,imageType);
+
+		return new CirculantF32_to_TrackerObjectQuad<>(alg, ImageType.single(imageType));
+	}
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.fiducial;
+
+import boofcv.alg.fiducial.qrcode.QrCode;
+import boofcv.alg.fiducial.qrcode.QrCodeEncoder;
+import boofcv.alg.fiducial.qrcode.QrCodeGeneratorImage;
+import boofcv.core.image.ConvertImage;
+import boofcv.factory.fiducial.ConfigQrCode;
+import boofcv.factory.fiducial.ConfigQrCodeTracking;
+import boofcv.factory.fiducial.FactoryFiducial;
+import boofcv.io.calibration.CalibrationIO;
+import boofcv.simulation.SimulatePlanarWorld;
+import boofcv.struct.calib.CameraPinholeBrown;
+import boofcv.struct.image.GrayF32;
+import georegression.geometry.ConvertRotation3D_F64;
+import georegression.struct.EulerType;
+import georegression.struct.point.Point2D_F64;
+import georegression.struct.se.Se3_F64;
+import georegression.transform.homography.HomographyPointOps_F64;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestQrCodeTrackingDetector extends GenericQrCodeDetectorChecks {
+
+	@Override
+	protected QrCodeDetector<GrayF32> createDetector() {
+		return FactoryFiducial.qrcodeTracking(new ConfigQrCode(),null,GrayF32.class);
+	}
+
+	/**
+	 * Marker moves across the image. After the first frame it should be found only by searching a region
+	 */
+	@Test
+	void translating() {
+		ConfigQrCodeTracking configTracking = new ConfigQrCodeTracking();
+		configTracking.fullScanPeriod = 0;
+		QrCodeTrackingDetector<GrayF32> detector =
+				FactoryFiducial.qrcodeTracking(new ConfigQrCode(),configTracking,GrayF32.class);
+
+		QrCode expected = new QrCodeEncoder().addAlphanumeric("MOVING").fixate();
+		QrCodeGeneratorImage generator = new QrCodeGeneratorImage(4);
+		generator.render(expected);
+		GrayF32 marker = ConvertImage.convert(generator.getGray(),(GrayF32)null);
+
+		CameraPinholeBrown model = CalibrationIO.load(getClass().getResource("calib/pinhole_radial.yaml"));
+		SimulatePlanarWorld simulator = new SimulatePlanarWorld();
+		simulator.setCamera(model);
+		Se3_F64 markerToWorld = new Se3_F64();
+		simulator.addSurface(markerToWorld, 0.3, marker);
+		ConvertRotation3D_F64.eulerToMatrix(EulerType.XYZ,0,Math.PI,0,markerToWorld.R);
+		markerToWorld.T.set(-0.1, 0, 0.8);
+
+		for (int i = 0; i < 10; i++) {
+			simulator.render();
+			detector.process(simulator.getOutput());
+
+			assertEquals(1,detector.getDetections().size());
+			assertEquals("MOVING",detector.getDetections().get(0).message);
+			assertEquals(i==0,detector.isFullScan());
+
+			markerToWorld.T.x += 0.02;
+		}
+	}
+
+	/**
+	 * Make sure that every coordinate is shifted
+	 */
+	@Test
+	void offset() {
+		QrCode qr = new QrCode();
+		for (int i = 0; i < 4; i++) {
+			qr.ppCorner.get(i).set(i,1);
+			qr.ppDown.get(i).set(i,2);
+			qr.ppRight.get(i).set(i,3);
+			qr.bounds.get(i).set(i,4);
+		}
+		qr.alignment.grow().pixel.set(5,6);
+		qr.Hinv.set(1,0,1, 0,1,2, 0,0,1);
+
+		QrCodeTrackingDetector.offset(qr,10,20);
+
+		for (int i = 0; i < 4; i++) {
+			assertEquals(0.0,qr.ppCorner.get(i).distance(i+10,21),1e-8);
+			assertEquals(0.0,qr.ppDown.get(i).distance(i+10,22),1e-8);
+			assertEquals(0.0,qr.ppRight.get(i).distance(i+10,23),1e-8);
+			assertEquals(0.0,qr.bounds.get(i).distance(i+10,24),1e-8);
+		}
+		assertEquals(0.0,qr.alignment.get(0).pixel.distance(15,26),1e-8);
+
+		// grid coordinate (0,0) should map to the translated pixel
+		Point2D_F64 found = new Point2D_F64();
+		HomographyPointOps_F64.transform(qr.Hinv,0,0,found);
+		assertEquals(0.0,found.distance(11,22),1e-8);
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.fiducial.calib;
+
+import boofcv.alg.geo.calibration.CalibrationObservation;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.factory.fiducial.FactoryFiducialCalibration;
+import boofcv.gui.RenderCalibrationTargetsGraphics2D;
+import boofcv.struct.geo.PointIndex2D_F64;
+import boofcv.struct.image.GrayF32;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestCalibrationDetectorTracking {
+
+	ConfigChessboard configTarget = new ConfigChessboard(5, 4, 30);
+	GrayF32 pattern;
+
+	public TestCalibrationDetectorTracking() {
+		RenderCalibrationTargetsGraphics2D renderer = new RenderCalibrationTargetsGraphics2D(40,1);
+		renderer.chessboard(configTarget.numRows,configTarget.numCols,40);
+		pattern = renderer.getGrayF32();
+	}
+
+	/**
+	 * Renders the pattern inside a larger image with the specified offset
+	 */
+	private GrayF32 render( int offsetX , int offsetY ) {
+		GrayF32 frame = new GrayF32(pattern.width+40,pattern.height+40);
+		ImageMiscOps.fill(frame,255);
+		frame.subimage(offsetX,offsetY,offsetX+pattern.width,offsetY+pattern.height).setTo(pattern);
+		return frame;
+	}
+
+	/**
+	 * Detect in the first frame then track the points as the target moves
+	 */
+	@Test
+	public void trackAfterDetect() {
+		ConfigCalibrationTracking config = new ConfigCalibrationTracking();
+		config.minViewChange = 0;
+		CalibrationDetectorTracking alg = createAlg(config);
+
+		assertTrue(alg.process(render(10,10)));
+		assertFalse(alg.isFromTracker());
+		CalibrationObservation first = alg.getDetectedPoints().copy();
+
+		for (int i = 1; i <= 5; i++) {
+			assertTrue(alg.process(render(10+i,10+i/2)));
+			assertTrue(alg.isFromTracker());
+
+			CalibrationObservation found = alg.getDetectedPoints();
+			assertEquals(first.size(),found.size());
+			for (int j = 0; j < found.size(); j++) {
+				PointIndex2D_F64 a = first.get(j);
+				PointIndex2D_F64 b = found.get(j);
+				assertEquals(a.index,b.index);
+				assertEquals(a.x+i,b.x,0.2);
+				assertEquals(a.y+i/2,b.y,0.2);
+			}
+		}
+	}
+
+	/**
+	 * Observations from the tracker and empty observations should not be declared each frame
+	 */
+	@Test
+	public void reuseObservation() {
+		ConfigCalibrationTracking config = new ConfigCalibrationTracking();
+		config.minViewChange = 0;
+		CalibrationDetectorTracking alg = createAlg(config);
+
+		assertTrue(alg.process(render(10,10)));
+		assertTrue(alg.process(render(11,10)));
+		assertTrue(alg.isFromTracker());
+		CalibrationObservation tracked = alg.getDetectedPoints();
+		assertTrue(alg.process(render(12,10)));
+		assertTrue(alg.isFromTracker());
+		assertSame(tracked,alg.getDetectedPoints());
+
+		GrayF32 blank = render(10,10);
+		ImageMiscOps.fill(blank,255);
+		assertFalse(alg.process(blank));
+		assertSame(tracked,alg.getDetectedPoints());
+		assertEquals(0,tracked.size());
+		assertEquals(blank.width,tracked.getWidth());
+		assertEquals(blank.height,tracked.getHeight());
+	}
+
+	/**
+	 * The full detector should be run again after the specified number of frames
+	 */
+	@Test
+	public void redetectPeriod() {
+		ConfigCalibrationTracking config = new ConfigCalibrationTracking();
+		config.redetectPeriod = 2;
+		CalibrationDetectorTracking alg = createAlg(config);
+
+		GrayF32 frame = render(10,10);
+		assertTrue(alg.process(frame));
+		assertFalse(alg.isFromTracker());
+		assertTrue(alg.process(frame));
+		assertTrue(alg.isFromTracker());
+		assertTrue(alg.process(frame));
+		assertFalse(alg.isFromTracker());
+	}
+
+	/**
+	 * Tracking should fail when the target disappears
+	 */
+	@Test
+	public void targetLost() {
+		CalibrationDetectorTracking alg = createAlg(new ConfigCalibrationTracking());
+
+		assertTrue(alg.process(render(10,10)));
+		GrayF32 blank = render(10,10);
+		ImageMiscOps.fill(blank,255);
+		assertFalse(alg.process(blank));
+		assertFalse(alg.isNewView());
+		assertEquals(0,alg.getDetectedPoints().size());
+	}
+
+	/**
+	 * Nearly identical views should be rejected
+	 */
+	@Test
+	public void rejectDuplicateViews() {
+		ConfigCalibrationTracking config = new ConfigCalibrationTracking();
+		config.minViewChange = 0.02;
+		CalibrationDetectorTracking alg = createAlg(config);
+
+		assertTrue(alg.process(render(10,10)));
+		assertTrue(alg.isNewView());
+		assertTrue(alg.process(render(11,10)));
+		assertFalse(alg.isNewView());
+
+		// move it enough to be considered a new view
+		assertTrue(alg.process(render(30,30)));
+		assertTrue(alg.isNewView());
+
+		assertEquals(2,alg.getAcceptedViews().size());
+
+		alg.reset();
+		assertEquals(0,alg.getAcceptedViews().size());
+	}
+
+	@Test
+	public void averageDistance() {
+		CalibrationObservation a = new CalibrationObservation(100,100);
+		CalibrationObservation b = new CalibrationObservation(100,100);
+
+		a.add(10,10,0);
+		a.add(20,10,2);
+		a.add(30,10,3);
+		b.add(10,12,0);
+		b.add(20,14,2);
+		b.add(5,10,4);
+
+		assertEquals(3,CalibrationDetectorTracking.averageDistance(a,b),1e-8);
+
+		b.reset();
+		b.add(10,12,1);
+		assertEquals(Double.POSITIVE_INFINITY,CalibrationDetectorTracking.averageDistance(a,b));
+	}
+
+	private CalibrationDetectorTracking createAlg( ConfigCalibrationTracking config ) {
+		return FactoryFiducialCalibration.tracking(FactoryFiducialCalibration.chessboard(configTarget),config);
+	}
+}
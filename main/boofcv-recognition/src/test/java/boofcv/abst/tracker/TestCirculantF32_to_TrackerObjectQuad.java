@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.tracker;
+
+import boofcv.factory.tracker.FactoryTrackerObjectQuad;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageType;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestCirculantF32_to_TrackerObjectQuad extends TextureGrayTrackerObjectRectangleTests {
+
+	public TestCirculantF32_to_TrackerObjectQuad() {
+		tolStationary = 1;
+	}
+
+	@Override
+	public TrackerObjectQuad<GrayU8> create(ImageType<GrayU8> imageType) {
+
+		ConfigCirculantTracker config = new ConfigCirculantTracker();
+		config.scales = new double[]{0.95,1.0,1.05};
+
+		return FactoryTrackerObjectQuad.circulantF32(config, GrayU8.class);
+	}
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.tracker;
+
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.alg.tracker.tld.TldIntegralImages;
+import boofcv.alg.tracker.tld.TldTracker;
+import boofcv.factory.tracker.FactoryTrackerObjectQuad;
+import boofcv.struct.image.GrayS16;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageType;
+import georegression.struct.shapes.Quadrilateral_F64;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestTrackerObjectQuadManager {
+
+	Random rand = new Random(234);
+
+	int width = 200;
+	int height = 150;
+
+	/**
+	 * New targets should be initialized with the next frame and then updated after that
+	 */
+	@Test
+	public void initializeThenProcess() {
+		List<DummyTracker> created = new ArrayList<>();
+		TrackerObjectQuadManager<GrayU8> alg = new TrackerObjectQuadManager<>(() -> {
+			DummyTracker t = new DummyTracker();
+			created.add(t);
+			return t;
+		});
+
+		GrayU8 frame = new GrayU8(width,height);
+		int idA = alg.addTarget(quad(10));
+		alg.process(frame);
+		int idB = alg.addTarget(quad(20));
+		alg.process(frame);
+		alg.process(frame);
+
+		assertNotEquals(idA,idB);
+		assertEquals(2,created.size());
+		assertEquals(1,created.get(0).numInitialize);
+		assertEquals(2,created.get(0).numProcess);
+		assertEquals(1,created.get(1).numInitialize);
+		assertEquals(1,created.get(1).numProcess);
+
+		TrackerObjectQuadManager.Target<GrayU8> a = alg.lookupTarget(idA);
+		TrackerObjectQuadManager.Target<GrayU8> b = alg.lookupTarget(idB);
+		assertEquals(3,a.getTotalFrames());
+		assertEquals(2,b.getTotalFrames());
+		assertTrue(a.isVisible());
+		// the dummy tracker moves the target one pixel each time process is called
+		assertEquals(12,a.getLocation().a.x,1e-8);
+		assertEquals(21,b.getLocation().a.x,1e-8);
+		assertTrue(a.getAverageTimeMS() >= 0);
+		assertTrue(a.getTimeUpdateMS() >= 0);
+		assertTrue(alg.getTimeFrameMS() >= alg.getTimePreprocessingMS());
+		assertFalse(alg.isSharingPreprocessing());
+	}
+
+	/**
+	 * Shared preprocessing should be computed once per frame before any tracker sees the frame
+	 */
+	@Test
+	public void sharedPreprocessing() {
+		List<DummyTracker> created = new ArrayList<>();
+		TrackerObjectQuadManager<GrayU8> alg = new TrackerObjectQuadManager<>(() -> {
+			DummyTracker t = new DummySharingTracker();
+			created.add(t);
+			return t;
+		});
+
+		for( int i = 0; i < 5; i++ ) {
+			alg.addTarget(quad(i*10));
+		}
+		assertTrue(alg.isSharingPreprocessing());
+
+		for( int i = 0; i < 4; i++ ) {
+			alg.process(new GrayU8(width,height));
+		}
+
+		DummyShared shared = created.get(0).shared;
+		assertEquals(4,shared.numProcess);
+		for( DummyTracker t : created ) {
+			assertTrue(t.shared == shared);
+			assertEquals(1,t.numInitialize);
+			assertEquals(3,t.numProcess);
+			assertFalse(t.wrongFrame);
+		}
+	}
+
+	/**
+	 * Trackers from removed targets should be reused
+	 */
+	@Test
+	public void removeTarget() {
+		List<DummyTracker> created = new ArrayList<>();
+		TrackerObjectQuadManager<GrayU8> alg = new TrackerObjectQuadManager<>(() -> {
+			DummyTracker t = new DummyTracker();
+			created.add(t);
+			return t;
+		});
+
+		GrayU8 frame = new GrayU8(width,height);
+		int idA = alg.addTarget(quad(10));
+		int idB = alg.addTarget(quad(20));
+		alg.process(frame);
+
+		assertTrue(alg.removeTarget(idA));
+		assertFalse(alg.removeTarget(idA));
+		assertNull(alg.lookupTarget(idA));
+		assertEquals(1,alg.getTargets().size());
+		assertEquals(idB,alg.getTargets().get(0).getId());
+
+		int idC = alg.addTarget(quad(30));
+		assertEquals(2,created.size());
+		assertTrue(created.get(0) == alg.lookupTarget(idC).getTracker());
+
+		alg.process(frame);
+		assertEquals(2,created.get(0).numInitialize);
+
+		alg.reset();
+		assertEquals(0,alg.getTargets().size());
+	}
+
+	/**
+	 * Sharing pyramids should produce the same results as each tracker computing its own
+	 */
+	@Test
+	public void compareToIndependent_sparseFlow() {
+		compareToIndependent(() -> FactoryTrackerObjectQuad.sparseFlow(null, GrayU8.class, null));
+	}
+
+	@Test
+	public void compareToIndependent_tld() {
+		compareToIndependent(() -> FactoryTrackerObjectQuad.tld(null, GrayU8.class));
+	}
+
+	/**
+	 * With multiple TLD targets the integral images should be computed once per frame and used by every tracker
+	 */
+	@Test
+	public void tld_integralImagesOncePerFrame() {
+		List<CountingIntegral> shared = new ArrayList<>();
+		List<Tld_to_TrackerObjectQuad<GrayU8,GrayS16>> created = new ArrayList<>();
+		TrackerObjectQuadManager<GrayU8> alg = new TrackerObjectQuadManager<>(() -> {
+			Tld_to_TrackerObjectQuad<GrayU8,GrayS16> t = createCountingTld(shared);
+			created.add(t);
+			return t;
+		});
+
+		GrayU8 frame = new GrayU8(width,height);
+		ImageMiscOps.fillUniform(frame,rand,0,200);
+		for( int i = 0; i < 3; i++ ) {
+			alg.addTarget(quad(20+i*50));
+		}
+
+		for( int i = 0; i < 4; i++ ) {
+			alg.process(frame);
+		}
+
+		assertEquals(3,created.size());
+		assertEquals(1,shared.size());
+		assertEquals(4,shared.get(0).numProcess);
+		for( Tld_to_TrackerObjectQuad<GrayU8,GrayS16> t : created ) {
+			TldTracker<GrayU8,GrayS16> tracker = t.getLowLevelTracker();
+			assertTrue(tracker.getVariance().getIntegral() == shared.get(0).getIntegral());
+			assertTrue(tracker.getVariance().getIntegralSq() == shared.get(0).getIntegralSq());
+		}
+	}
+
+	private static Tld_to_TrackerObjectQuad<GrayU8,GrayS16> createCountingTld( List<CountingIntegral> shared ) {
+		Tld_to_TrackerObjectQuad<GrayU8,GrayS16> tld =
+				(Tld_to_TrackerObjectQuad)FactoryTrackerObjectQuad.tld(null, GrayU8.class);
+		return new Tld_to_TrackerObjectQuad<GrayU8,GrayS16>(tld.getLowLevelTracker(),GrayU8.class) {
+			@Override
+			public SharedFramePreprocessing<GrayU8> createSharedPreprocessing() {
+				CountingIntegral integral = new CountingIntegral();
+				shared.add(integral);
+				return new SharedTldFrames<>(tracker.createFrames(), integral);
+			}
+		};
+	}
+
+	private void compareToIndependent( TrackerObjectQuadManager.Factory<GrayU8> factory ) {
+		GrayU8 background = new GrayU8(width+40,height+40);
+		ImageMiscOps.fillUniform(background,rand,0,200);
+		GrayU8 frame = new GrayU8(width,height);
+
+		TrackerObjectQuadManager<GrayU8> alg = new TrackerObjectQuadManager<>(factory);
+		List<TrackerObjectQuad<GrayU8>> independent = new ArrayList<>();
+		List<Quadrilateral_F64> expected = new ArrayList<>();
+		List<Integer> ids = new ArrayList<>();
+
+		for( int i = 0; i < 3; i++ ) {
+			ids.add(alg.addTarget(quad(20+i*50)));
+			independent.add(factory.newInstance());
+			expected.add(quad(20+i*50));
+		}
+		assertTrue(alg.isSharingPreprocessing());
+
+		for( int frameIdx = 0; frameIdx < 8; frameIdx++ ) {
+			// the scene moves one pixel each frame
+			frame.setTo(background.subimage(frameIdx,frameIdx/2,frameIdx+width,frameIdx/2+height));
+
+			alg.process(frame);
+
+			for( int i = 0; i < independent.size(); i++ ) {
+				TrackerObjectQuadManager.Target<GrayU8> t = alg.lookupTarget(ids.get(i));
+				boolean visible;
+				if( frameIdx == 0 )
+					visible = independent.get(i).initialize(frame,expected.get(i));
+				else
+					visible = independent.get(i).process(frame,expected.get(i));
+
+				assertEquals(visible,t.isVisible());
+				Quadrilateral_F64 e = expected.get(i);
+				Quadrilateral_F64 f = t.getLocation();
+				assertEquals(0, e.a.distance(f.a), 1e-8);
+				assertEquals(0, e.b.distance(f.b), 1e-8);
+				assertEquals(0, e.c.distance(f.c), 1e-8);
+				assertEquals(0, e.d.distance(f.d), 1e-8);
+			}
+		}
+	}
+
+	private static Quadrilateral_F64 quad( double x0 ) {
+		double y0 = x0/2+10;
+		return new Quadrilateral_F64(x0,y0,x0+40,y0,x0+40,y0+40,x0,y0+40);
+	}
+
+	private static class CountingIntegral extends TldIntegralImages<GrayU8> {
+		int numProcess = 0;
+
+		CountingIntegral() {
+			super(GrayU8.class);
+		}
+
+		@Override
+		public void process(GrayU8 gray) {
+			numProcess++;
+			super.process(gray);
+		}
+	}
+
+	private static class DummyShared implements SharedFramePreprocessing<GrayU8> {
+		int numProcess = 0;
+		GrayU8 last;
+
+		@Override
+		public void process(GrayU8 frame) {
+			numProcess++;
+			last = frame;
+		}
+	}
+
+	private static class DummyTracker implements TrackerObjectQuad<GrayU8> {
+		DummyShared shared;
+		int numInitialize = 0;
+		int numProcess = 0;
+		// set to true if called with a frame which the shared preprocessing hasn't seen
+		boolean wrongFrame = false;
+
+		@Override
+		public boolean initialize(GrayU8 image, Quadrilateral_F64 location) {
+			numInitialize++;
+			checkFrame(image);
+			return true;
+		}
+
+		@Override
+		public void hint(Quadrilateral_F64 hint) {}
+
+		@Override
+		public boolean process(GrayU8 image, Quadrilateral_F64 results) {
+			numProcess++;
+			checkFrame(image);
+			results.a.x += 1;
+			return true;
+		}
+
+		private void checkFrame( GrayU8 image ) {
+			if( shared != null && shared.last != image )
+				wrongFrame = true;
+		}
+
+		@Override
+		public ImageType<GrayU8> getImageType() {
+			return ImageType.single(GrayU8.class);
+		}
+
+		@Override
+		public <T> T getLowLevelTracker() {
+			return null;
+		}
+	}
+
+	private static class DummySharingTracker extends DummyTracker implements TrackerObjectQuadShared<GrayU8> {
+		@Override
+		public SharedFramePreprocessing<GrayU8> createSharedPreprocessing() {
+			return new DummyShared();
+		}
+
+		@Override
+		public void setSharedPreprocessing(SharedFramePreprocessing<GrayU8> shared) {
+			this.shared = (DummyShared)shared;
+		}
+	}
+}
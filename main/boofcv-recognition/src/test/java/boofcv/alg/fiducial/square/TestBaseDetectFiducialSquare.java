@@ -21,6 +21,7 @@ package boofcv.alg.fiducial.square;
 import boofcv.alg.distort.brown.LensDistortionBrown;
 import boofcv.alg.misc.GImageMiscOps;
 import boofcv.alg.misc.ImageMiscOps;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.core.image.ConvertImage;
 import boofcv.factory.filter.binary.FactoryThresholdBinary;
 import boofcv.factory.shape.ConfigPolygonDetector;
@@ -91,6 +92,54 @@ public class TestBaseDetectFiducialSquare {
 		assertEquals(1,detector.getFound().size);
 	}
 
+	/**
+	 * Multiple fiducials are processed concurrently. Results should be identical to when single threaded
+	 */
+	@Test
+	public void concurrent() {
+		int width = 640,height=480;
+		CameraPinholeBrown intrinsic = new CameraPinholeBrown(500,500,0,width/2,height/2,width,height).fsetRadial(-0.01,-0.15);
+		SimulatePlanarWorld simulator = new SimulatePlanarWorld();
+		simulator.setCamera(intrinsic);
+
+		GrayF32 pattern = new GrayF32(100,100);
+		ImageMiscOps.fill(pattern,0);
+		ImageMiscOps.fillRectangle(pattern,255,25,25,50,50);
+		simulator.setBackground(255);
+		simulator.resetScene();
+		for (int i = 0; i < 3; i++) {
+			Se3_F64 markerToWorld = SpecialEuclideanOps_F64.eulerXyz(-0.3+i*0.3,0,0.8,0,Math.PI,0,null);
+			simulator.addSurface(markerToWorld, 0.2, pattern);
+		}
+		simulator.render();
+
+		GrayU8 grayU8 = new GrayU8(width,height);
+		ConvertImage.convert(simulator.getOutput(),grayU8);
+
+		DetectCorner single = new DetectCorner();
+		single.configure(new LensDistortionBrown(intrinsic),width,height,false);
+		single.process(grayU8);
+		assertEquals(3,single.getFound().size);
+
+		DetectCorner concurrent = new DetectCorner();
+		concurrent.configure(new LensDistortionBrown(intrinsic),width,height,false);
+		BoofConcurrency.USE_CONCURRENT = true;
+		try {
+			concurrent.process(grayU8);
+		} finally {
+			BoofConcurrency.USE_CONCURRENT = false;
+		}
+
+		assertEquals(single.getFound().size,concurrent.getFound().size);
+		for (int i = 0; i < single.getFound().size; i++) {
+			FoundFiducial a = single.getFound().get(i);
+			FoundFiducial b = concurrent.getFound().get(i);
+			for (int j = 0; j < 4; j++) {
+				assertEquals(0.0,a.distortedPixels.get(j).distance(b.distortedPixels.get(j)),1e-8);
+			}
+		}
+	}
+
 	@Test
 	public void computeFractionBoundary() {
 		Dummy alg = new Dummy();
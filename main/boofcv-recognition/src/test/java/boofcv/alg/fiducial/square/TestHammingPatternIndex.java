@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.fiducial.square;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestHammingPatternIndex {
+
+	Random rand = new Random(234);
+
+	/**
+	 * Compare against an exhaustive search
+	 */
+	@Test
+	public void compareToExhaustive() {
+		HammingPatternIndex alg = new HammingPatternIndex();
+		List<short[]> patterns = new ArrayList<>();
+
+		for (int i = 0; i < 300; i++) {
+			short[] p = randomPattern(8);
+			patterns.add(p);
+			alg.add(p);
+		}
+		// add a duplicate to see if ties are handled correctly
+		patterns.add(patterns.get(20).clone());
+		alg.add(patterns.get(patterns.size()-1));
+
+		for (int trial = 0; trial < 200; trial++) {
+			short[] query;
+			if( trial%2 == 0 ) {
+				query = randomPattern(8);
+			} else {
+				// perturb an existing pattern so that there's a good match
+				query = patterns.get(rand.nextInt(patterns.size())).clone();
+				for (int i = 0; i < 5; i++) {
+					query[rand.nextInt(query.length)] ^= 1 << rand.nextInt(16);
+				}
+			}
+
+			for( int maxDistance : new int[]{10,40,128}) {
+				int expected = exhaustive(patterns,query,maxDistance);
+				int found = alg.search(query,maxDistance);
+				assertEquals(expected,found);
+				if( found >= 0 )
+					assertEquals(HammingPatternIndex.hamming(patterns.get(found),query),alg.getBestDistance());
+			}
+		}
+	}
+
+	/**
+	 * Patterns which are far apart should require fewer comparisons than an exhaustive search
+	 */
+	@Test
+	public void subLinear() {
+		HammingPatternIndex alg = new HammingPatternIndex();
+		List<short[]> patterns = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			short[] p = randomPattern(16);
+			patterns.add(p);
+			alg.add(p);
+		}
+
+		int total = 0;
+		for (int i = 0; i < 50; i++) {
+			short[] query = patterns.get(rand.nextInt(patterns.size())).clone();
+			query[0] ^= 1;
+			assertTrue(alg.search(query,20) >= 0);
+			total += alg.getTotalComparisons();
+		}
+		assertTrue(total/50 < patterns.size()/2);
+	}
+
+	/**
+	 * Patterns added after a search should be found
+	 */
+	@Test
+	public void addAfterSearch() {
+		HammingPatternIndex alg = new HammingPatternIndex();
+		short[] a = randomPattern(4);
+		short[] b = randomPattern(4);
+		alg.add(a);
+		assertEquals(0,alg.search(a,0));
+		assertEquals(-1,alg.search(b,0));
+		alg.add(b);
+		assertEquals(1,alg.search(b,0));
+		assertEquals(2,alg.size());
+
+		alg.reset();
+		assertEquals(-1,alg.search(a,64));
+	}
+
+	private int exhaustive( List<short[]> patterns , short[] query , int maxDistance ) {
+		int best = -1;
+		int bestScore = maxDistance+1;
+		for (int i = 0; i < patterns.size(); i++) {
+			int d = HammingPatternIndex.hamming(patterns.get(i),query);
+			if( d < bestScore ) {
+				bestScore = d;
+				best = i;
+			}
+		}
+		return best;
+	}
+
+	private short[] randomPattern( int length ) {
+		short[] p = new short[length];
+		for (int i = 0; i < length; i++) {
+			p[i] = (short)rand.nextInt();
+		}
+		return p;
+	}
+}
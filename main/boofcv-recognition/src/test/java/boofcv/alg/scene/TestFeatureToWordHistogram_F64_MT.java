@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene;
+
+import boofcv.struct.feature.TupleDesc_F64;
+import org.ddogleg.clustering.AssignCluster;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestFeatureToWordHistogram_F64_MT {
+
+	Random rand = new Random(234);
+	int numWords = 7;
+
+	@Test
+	public void compareToSingle_hard() {
+		compareToSingle(true);
+	}
+
+	@Test
+	public void compareToSingle_soft() {
+		compareToSingle(false);
+	}
+
+	void compareToSingle( boolean hard ) {
+		List<TupleDesc_F64> features = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			TupleDesc_F64 d = new TupleDesc_F64(2);
+			d.value[0] = rand.nextDouble();
+			d.value[1] = rand.nextDouble();
+			features.add(d);
+		}
+
+		FeatureToWordHistogram_F64 single = new FeatureToWordHistogram_F64(new Assign(),hard);
+		FeatureToWordHistogram_F64_MT multi = new FeatureToWordHistogram_F64_MT(new Assign(),hard);
+		multi.minBlock = 20;
+
+		single.reset();
+		multi.reset();
+		single.addFeatures(features);
+		// add a single feature too to make sure they can be mixed
+		single.addFeature(features.get(0));
+		multi.addFeatures(features);
+		multi.addFeature(features.get(0));
+		single.process();
+		multi.process();
+
+		assertArrayEquals(single.getHistogram(),multi.getHistogram(),hard ? 0 : 1e-8);
+	}
+
+	/**
+	 * Deterministic assignment which depends on the feature's value
+	 */
+	private class Assign implements AssignCluster<double[]> {
+		@Override
+		public int assign(double[] point) {
+			return (int)(point[0]*numWords);
+		}
+
+		@Override
+		public void assign(double[] point, double[] fit) {
+			double total = 0;
+			for (int i = 0; i < numWords; i++) {
+				fit[i] = 1.0/(1.0+Math.abs(point[0]*numWords-i)+point[1]);
+				total += fit[i];
+			}
+			for (int i = 0; i < numWords; i++) {
+				fit[i] /= total;
+			}
+		}
+
+		@Override
+		public int getNumberOfClusters() {
+			return numWords;
+		}
+
+		@Override
+		public AssignCluster<double[]> copy() {
+			return new Assign();
+		}
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene;
+
+import org.ddogleg.clustering.FactoryClustering;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestHierarchicalVocabularyTree {
+
+	Random rand = new Random(234);
+
+	/**
+	 * Points are in blobs which can be split perfectly at each level
+	 */
+	@Test
+	void learn_blobs() {
+		List<double[]> points = new ArrayList<>();
+		List<double[]> centers = new ArrayList<>();
+		for (int blob = 0; blob < 8; blob++) {
+			double[] c = new double[]{(blob/4)*1000 + ((blob/2)%2)*100 + (blob%2)*10, 5};
+			centers.add(c);
+			for (int i = 0; i < 20; i++) {
+				points.add(new double[]{c[0]+rand.nextGaussian()*0.1,c[1]+rand.nextGaussian()*0.1});
+			}
+		}
+
+		HierarchicalVocabularyTree alg = new HierarchicalVocabularyTree(2,3);
+		alg.learn(points, FactoryClustering.kMeans_F64(null, 100, 20, 1e-6),0xBEEF);
+
+		assertEquals(8,alg.getNumberOfClusters());
+		assertEquals(15,alg.getTotalNodes());
+
+		// every blob should be a unique word
+		boolean[] used = new boolean[8];
+		for (int blob = 0; blob < 8; blob++) {
+			int word = alg.assign(centers.get(blob));
+			assertFalse(used[word]);
+			used[word] = true;
+			for (int i = 0; i < 20; i++) {
+				assertEquals(word,alg.assign(points.get(blob*20+i)));
+			}
+		}
+	}
+
+	/**
+	 * All the points are identical and can't be split
+	 */
+	@Test
+	void learn_degenerate() {
+		List<double[]> points = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			points.add(new double[]{1,2,3});
+		}
+
+		HierarchicalVocabularyTree alg = new HierarchicalVocabularyTree(4,5);
+		alg.learn(points, FactoryClustering.kMeans_F64(null, 100, 20, 1e-6),0xBEEF);
+
+		assertEquals(1,alg.getNumberOfClusters());
+		assertEquals(0,alg.assign(new double[]{1,2,3}));
+	}
+
+	@Test
+	void assign_soft() {
+		List<double[]> points = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			points.add(new double[]{rand.nextDouble(),rand.nextDouble()});
+		}
+
+		HierarchicalVocabularyTree alg = new HierarchicalVocabularyTree(3,2);
+		alg.learn(points, FactoryClustering.kMeans_F64(null, 100, 20, 1e-6),0xBEEF);
+		assertTrue(alg.getNumberOfClusters() > 1);
+
+		double[] fit = new double[alg.getNumberOfClusters()];
+		double[] p = points.get(5);
+		alg.assign(p,fit);
+		int word = alg.assign(p);
+		for (int i = 0; i < fit.length; i++) {
+			assertEquals(i==word?1.0:0.0,fit[i]);
+		}
+
+		// copy should produce identical results
+		assertEquals(word,alg.copy().assign(p));
+	}
+}
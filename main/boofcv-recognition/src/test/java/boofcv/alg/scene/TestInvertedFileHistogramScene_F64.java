@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene;
+
+import org.ddogleg.nn.NnData;
+import org.ddogleg.struct.FastQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestInvertedFileHistogramScene_F64 {
+
+	Random rand = new Random(234);
+	int numWords = 100;
+
+	@Test
+	void findNearest() {
+		List<HistogramScene> points = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			HistogramScene h = new HistogramScene(numWords);
+			for (int j = 0; j < 10; j++) {
+				h.histogram[rand.nextInt(numWords)] += 0.1;
+			}
+			h.type = i%3;
+			points.add(h);
+		}
+
+		InvertedFileHistogramScene_F64 alg = new InvertedFileHistogramScene_F64();
+		alg.setPoints(points,true);
+
+		NnData<HistogramScene> result = new NnData<>();
+		assertTrue(alg.findNearest(points.get(12),-1,result));
+		assertSame(points.get(12),result.point);
+		assertEquals(12,result.index);
+		assertEquals(0,result.distance,1e-8);
+
+		FastQueue<NnData<HistogramScene>> results = new FastQueue(NnData.class,true);
+		alg.findNearest(points.get(12),-1,4,results);
+		assertEquals(4,results.size);
+		assertSame(points.get(12),results.get(0).point);
+		for (int i = 1; i < results.size; i++) {
+			assertTrue(results.get(i).distance >= results.get(i-1).distance);
+			assertTrue(results.get(i).distance <= 2.0);
+		}
+
+		// maximum distance should filter out everything but itself
+		results.reset();
+		alg.findNearest(points.get(12),1e-4,4,results);
+		assertEquals(1,results.size);
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene;
+
+import org.ddogleg.struct.FastQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestInvertedFileWordIndex {
+
+	Random rand = new Random(234);
+	int numWords = 200;
+
+	/**
+	 * Compare against a brute force computation of the score with and without early termination
+	 */
+	@Test
+	void search_bruteForce() {
+		List<SparseWordHistogram> documents = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			documents.add(randomHistogram(20));
+		}
+
+		InvertedFileWordIndex alg = new InvertedFileWordIndex();
+		alg.setDocuments(documents,numWords);
+		assertEquals(300,alg.getNumDocuments());
+
+		List<SparseWordHistogram> weightedDocs = new ArrayList<>();
+		for (int i = 0; i < documents.size(); i++) {
+			SparseWordHistogram w = new SparseWordHistogram();
+			alg.weight(documents.get(i),w);
+			weightedDocs.add(w);
+		}
+
+		FastQueue<InvertedFileWordIndex.Match> found = new FastQueue<>(InvertedFileWordIndex.Match.class,true);
+		SparseWordHistogram query = new SparseWordHistogram();
+		for (boolean early : new boolean[]{true,false}) {
+			alg.earlyTermination = early;
+			for (int trial = 0; trial < 20; trial++) {
+				alg.weight(randomHistogram(30),query);
+				alg.search(query,-1,5,0,found);
+
+				double[] expected = new double[documents.size()];
+				for (int i = 0; i < documents.size(); i++) {
+					expected[i] = score(query,weightedDocs.get(i));
+				}
+
+				assertEquals(5,found.size);
+				for (int i = 0; i < found.size; i++) {
+					InvertedFileWordIndex.Match m = found.get(i);
+					assertEquals(expected[m.document],m.score,1e-8);
+					if( i > 0 )
+						assertTrue(found.get(i-1).score >= m.score);
+					// nothing not in the list should have a better score
+					for (int j = 0; j < expected.length; j++) {
+						if( expected[j] > m.score+1e-8 )
+							assertTrue(contains(found,j));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * The k-th best score should not be recomputed for every query word. This happens when one document is much
+	 * better than the rest, since the best score is then large long before the k-th best score is.
+	 */
+	@Test
+	void search_fewSelections() {
+		numWords = 1000;
+		List<SparseWordHistogram> documents = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			documents.add(randomHistogram(150));
+		}
+
+		int[] numSelect = new int[1];
+		InvertedFileWordIndex alg = new InvertedFileWordIndex() {
+			@Override
+			double selectScore(int k) {
+				numSelect[0]++;
+				return super.selectScore(k);
+			}
+		};
+		alg.setDocuments(documents,numWords);
+
+		FastQueue<InvertedFileWordIndex.Match> found = new FastQueue<>(InvertedFileWordIndex.Match.class,true);
+		SparseWordHistogram query = new SparseWordHistogram();
+		alg.weight(documents.get(0),query);
+		alg.search(query,-1,5,0,found);
+
+		assertEquals(0,found.get(0).document);
+		assertTrue(numSelect[0] > 0);
+		assertTrue(numSelect[0] < query.size()/10);
+	}
+
+	@Test
+	void search_ignoreAndMinScore() {
+		List<SparseWordHistogram> documents = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			documents.add(randomHistogram(20));
+		}
+		InvertedFileWordIndex alg = new InvertedFileWordIndex();
+		alg.setDocuments(documents,numWords);
+
+		FastQueue<InvertedFileWordIndex.Match> found = new FastQueue<>(InvertedFileWordIndex.Match.class,true);
+		SparseWordHistogram query = new SparseWordHistogram();
+		alg.weight(documents.get(7),query);
+
+		// it should match itself perfectly
+		alg.search(query,-1,3,0,found);
+		assertEquals(7,found.get(0).document);
+		assertEquals(1.0,found.get(0).score,1e-8);
+
+		// skip itself
+		alg.search(query,7,3,0,found);
+		assertFalse(contains(found,7));
+
+		// only itself is above this threshold
+		alg.search(query,-1,3,0.999,found);
+		assertEquals(1,found.size);
+	}
+
+	@Test
+	void weight() {
+		List<SparseWordHistogram> documents = new ArrayList<>();
+		SparseWordHistogram a = new SparseWordHistogram();
+		a.add(0,2);a.add(1,1);
+		SparseWordHistogram b = new SparseWordHistogram();
+		b.add(0,1);b.add(2,3);
+		documents.add(a);
+		documents.add(b);
+
+		InvertedFileWordIndex alg = new InvertedFileWordIndex();
+		alg.setDocuments(documents,3);
+
+		// word 0 appears in every document and has no weight
+		SparseWordHistogram found = new SparseWordHistogram();
+		alg.weight(b,found);
+		assertEquals(1,found.size());
+		assertEquals(2,found.getWord(0));
+		assertEquals(1.0,found.getWeight(0),1e-8);
+	}
+
+	private SparseWordHistogram randomHistogram( int numFeatures ) {
+		SparseWordHistogram h = new SparseWordHistogram();
+		boolean[] used = new boolean[numWords];
+		for (int i = 0; i < numFeatures; i++) {
+			int word = rand.nextInt(numWords);
+			if( used[word] )
+				continue;
+			used[word] = true;
+			h.add(word,1+rand.nextInt(4));
+		}
+		return h;
+	}
+
+	private static double score( SparseWordHistogram a , SparseWordHistogram b ) {
+		double total = 0;
+		for (int i = 0; i < a.size(); i++) {
+			for (int j = 0; j < b.size(); j++) {
+				if( a.getWord(i) == b.getWord(j) )
+					total += Math.min(a.getWeight(i),b.getWeight(j));
+			}
+		}
+		return total;
+	}
+
+	private static boolean contains( FastQueue<InvertedFileWordIndex.Match> found , int document ) {
+		for (int i = 0; i < found.size; i++) {
+			if( found.get(i).document == document )
+				return true;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.scene;
+
+import boofcv.abst.feature.associate.ScoreAssociation;
+import boofcv.factory.feature.associate.FactoryAssociation;
+import boofcv.struct.feature.AssociatedIndex;
+import boofcv.struct.feature.TupleDesc_F64;
+import boofcv.struct.image.GrayU8;
+import boofcv.struct.image.ImageDimension;
+import georegression.struct.point.Point2D_F64;
+import org.ddogleg.clustering.FactoryClustering;
+import org.ddogleg.struct.FastQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+class TestLookupSimilarImagesVocabularyTree {
+
+	Random rand = new Random(234);
+	int DOF = 8;
+	int numScenes = 3;
+	int featuresPerScene = 60;
+
+	/**
+	 * Each scene has its own set of features. Two images are created for each scene with different noise
+	 */
+	@Test
+	void process() {
+		LookupSimilarImagesVocabularyTree<GrayU8> alg = createAndProcess();
+
+		List<String> similar = new ArrayList<>();
+		for (int scene = 0; scene < numScenes; scene++) {
+			for (int view = 0; view < 2; view++) {
+				alg.findSimilar(name(scene,view),similar);
+				assertTrue(similar.size() >= 1);
+				assertTrue(similar.size() <= alg.maximumSimilar);
+				assertEquals(name(scene,1-view),similar.get(0));
+				assertFalse(similar.contains(name(scene,view)));
+
+				double best = alg.lookupSimilarity(name(scene,view),similar.get(0));
+				assertTrue(best > 0 && best <= 1.0+1e-8);
+				for (int i = 1; i < similar.size(); i++) {
+					assertTrue(best >= alg.lookupSimilarity(name(scene,view),similar.get(i)));
+				}
+			}
+		}
+	}
+
+	@Test
+	void maximumSimilar() {
+		LookupSimilarImagesVocabularyTree<GrayU8> alg = createAndProcess();
+		alg.maximumSimilar = 1;
+		alg.minimumSimilarity = 0;
+		alg.process();
+
+		List<String> similar = new ArrayList<>();
+		alg.findSimilar(name(1,0),similar);
+		assertEquals(1,similar.size());
+		assertEquals(name(1,1),similar.get(0));
+	}
+
+	@Test
+	void lookupFeaturesAndShape() {
+		LookupSimilarImagesVocabularyTree<GrayU8> alg = createAndProcess();
+
+		assertEquals(numScenes*2,alg.getImageIDs().size());
+
+		FastQueue<Point2D_F64> pixels = new FastQueue<>(Point2D_F64.class,true);
+		alg.lookupPixelFeats(name(2,1),pixels);
+		assertEquals(featuresPerScene,pixels.size);
+		assertEquals(2*1000+1, pixels.get(0).x);
+
+		ImageDimension shape = new ImageDimension();
+		alg.lookupShape(name(2,1),shape);
+		assertEquals(640,shape.width);
+		assertEquals(480,shape.height);
+
+		FastQueue<AssociatedIndex> pairs = new FastQueue<>(AssociatedIndex.class,true);
+		assertTrue(alg.lookupMatches(name(2,0),name(2,1),pairs));
+		assertEquals(featuresPerScene,pairs.size);
+		for (int i = 0; i < pairs.size; i++) {
+			assertEquals(pairs.get(i).src,pairs.get(i).dst);
+		}
+	}
+
+	private LookupSimilarImagesVocabularyTree<GrayU8> createAndProcess() {
+		ScoreAssociation<TupleDesc_F64> score = FactoryAssociation.scoreEuclidean(TupleDesc_F64.class, true);
+		LookupSimilarImagesVocabularyTree<GrayU8> alg = new LookupSimilarImagesVocabularyTree<>(
+				null, FactoryAssociation.greedy(score, Double.MAX_VALUE, true),
+				new HierarchicalVocabularyTree(4,3));
+
+		for (int scene = 0; scene < numScenes; scene++) {
+			List<TupleDesc_F64> sceneDesc = new ArrayList<>();
+			for (int i = 0; i < featuresPerScene; i++) {
+				TupleDesc_F64 d = new TupleDesc_F64(DOF);
+				for (int j = 0; j < DOF; j++) {
+					d.value[j] = rand.nextDouble();
+				}
+				sceneDesc.add(d);
+			}
+
+			for (int view = 0; view < 2; view++) {
+				List<Point2D_F64> pixels = new ArrayList<>();
+				List<TupleDesc_F64> descs = new ArrayList<>();
+				for (int i = 0; i < featuresPerScene; i++) {
+					pixels.add(new Point2D_F64(scene*1000+view,i));
+					TupleDesc_F64 d = sceneDesc.get(i).copy();
+					for (int j = 0; j < DOF; j++) {
+						d.value[j] += rand.nextGaussian()*0.0001;
+					}
+					descs.add(d);
+				}
+				alg.addImage(name(scene,view),640,480,pixels,descs);
+			}
+		}
+
+		alg.learnVocabulary(FactoryClustering.kMeans_F64(null, 100, 20, 1e-6),0xBEEF);
+		alg.process();
+		return alg;
+	}
+
+	private static String name( int scene , int view ) {
+		return "scene"+scene+"_"+view;
+	}
+}
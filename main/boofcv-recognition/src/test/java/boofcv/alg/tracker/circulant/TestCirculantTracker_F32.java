@@ -0,0 +1,411 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.tracker.circulant;
+
+import boofcv.abst.transform.fft.DiscreteFourierTransform;
+import boofcv.alg.filter.blur.BlurImageOps;
+import boofcv.alg.interpolate.InterpolatePixelS;
+import boofcv.alg.misc.GImageMiscOps;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.alg.transform.fft.DiscreteFourierTransformOps;
+import boofcv.alg.transform.fft.GeneralPurposeFFT_F32_2D;
+import boofcv.factory.interpolate.FactoryInterpolation;
+import boofcv.struct.border.BorderType;
+import boofcv.struct.image.GrayF32;
+import boofcv.struct.image.InterleavedF32;
+import georegression.struct.shapes.RectangleLength2D_F32;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestCirculantTracker_F32 {
+
+	Random rand = new Random(234);
+
+	InterpolatePixelS<GrayF32> interp;
+
+	public TestCirculantTracker_F32() {
+		interp = FactoryInterpolation.bilinearPixelS(GrayF32.class, BorderType.EXTENDED);
+	}
+
+	private CirculantTracker_F32<GrayF32> create( int workRegion ) {
+		return new CirculantTracker_F32<>(1f/16,0.2f,1e-2f,0.075f,1.0f,workRegion,255,interp);
+	}
+
+	@Test
+	public void notPowerOfTwo() {
+		assertThrows(IllegalArgumentException.class,()->create(60));
+	}
+
+	@Test
+	public void basicTrackingCheck() {
+		GrayF32 a = new GrayF32(30,35);
+		GrayF32 b = new GrayF32(30,35);
+
+		// randomize input image and move it
+		GImageMiscOps.fillUniform(a,rand,0,200);
+		GImageMiscOps.fillUniform(b,rand,0,200);
+
+		CirculantTracker_F32<GrayF32> alg = create(64);
+		alg.initialize(a, 5, 6, 20, 25);
+
+		shiftCopy(2,4,a,b);
+		alg.performTracking(b);
+
+		double tolerance = 1;
+
+		RectangleLength2D_F32 r = alg.getTargetLocation();
+		assertEquals(5+2,r.x0,tolerance);
+		assertEquals(6+4,r.y0,tolerance);
+	}
+
+	/**
+	 * Check a few simple motions.
+	 */
+	@Test
+	public void updateTrackLocation() {
+		GrayF32 a = new GrayF32(100,100);
+		GrayF32 b = new GrayF32(100,100);
+
+		// randomize input image and move it
+		GImageMiscOps.fillUniform(a,rand,0,200);
+		GImageMiscOps.fillUniform(b,rand,0,200);
+		shiftCopy(0,0,a,b);
+
+		CirculantTracker_F32<GrayF32> alg = create(64);
+		alg.initialize(a,5,6,20,25);
+
+		alg.updateTrackLocation(b);
+
+		// only pixel level precision.
+		float tolerance = 1f;
+
+		// No motion motion
+		RectangleLength2D_F32 r = alg.getTargetLocation();
+		assertEquals(5,r.x0,tolerance);
+		assertEquals(6,r.y0,tolerance);
+
+		// check estimated motion
+		GImageMiscOps.fillUniform(b,rand,0,200);
+		shiftCopy(-3,2,a,b);
+		alg.updateTrackLocation(b);
+		r = alg.getTargetLocation();
+		assertEquals(5-3,r.x0,tolerance);
+		assertEquals(6+2,r.y0,tolerance);
+	}
+
+	/**
+	 * The output should be the same as the double precision tracker up to floating point error
+	 */
+	@Test
+	public void compareToF64() {
+		GrayF32 a = new GrayF32(100,90);
+		GrayF32 b = new GrayF32(100,90);
+		GImageMiscOps.fillUniform(a,rand,0,200);
+
+		CirculantTracker_F32<GrayF32> alg = create(64);
+		CirculantTracker<GrayF32> expected = new CirculantTracker<>(1f/16,0.2,1e-2,0.075,1.0,64,255,interp);
+
+		alg.initialize(a,30,25,20,25);
+		expected.initialize(a,30,25,20,25);
+
+		for( int i = 0; i < 6; i++ ) {
+			GImageMiscOps.fillUniform(b,rand,0,200);
+			shiftCopy(i,-i/2,a,b);
+
+			alg.performTracking(b);
+			expected.performTracking(b);
+
+			RectangleLength2D_F32 found = alg.getTargetLocation();
+			RectangleLength2D_F32 e = expected.getTargetLocation();
+
+			assertEquals(e.x0,found.x0,0.05);
+			assertEquals(e.y0,found.y0,0.05);
+			assertEquals(e.width,found.width,1e-4);
+			assertEquals(e.height,found.height,1e-4);
+		}
+	}
+
+	/**
+	 * The cached spectrum of the template should be the same as computing it directly
+	 */
+	@Test
+	public void performLearning_cachedSpectrum() {
+		GrayF32 a = new GrayF32(50,45);
+		GrayF32 b = new GrayF32(50,45);
+		GImageMiscOps.fillUniform(a,rand,0,200);
+		GImageMiscOps.fillUniform(b,rand,0,200);
+
+		CirculantTracker_F32<GrayF32> alg = create(32);
+		alg.initialize(a,10,8,20,25);
+		alg.performLearning(b);
+		alg.performLearning(a);
+
+		float[] direct = new float[32*32];
+		alg.forward(alg.template, direct);
+
+		for( int i = 0; i < direct.length; i++ ) {
+			assertEquals(direct[i],alg.templatef[i],1e-3);
+		}
+		assertEquals(CirculantTracker_F32.imageDotProduct(alg.template),alg.templateDot,1e-3);
+	}
+
+	/**
+	 * The target grows in size and the tracker should select a larger scale
+	 */
+	@Test
+	public void multipleScales() {
+		GrayF32 a = new GrayF32(120,120);
+		GrayF32 b = new GrayF32(120,120);
+
+		// textured target on a flat background
+		GrayF32 noise = new GrayF32(120,120);
+		ImageMiscOps.fill(noise,50);
+		ImageMiscOps.fillUniform(noise.subimage(40,40,80,80),rand,0,255);
+		BlurImageOps.gaussian(noise,a,-1,1,null);
+
+		float cx = 60, cy = 60;
+		float scale = 1.2f;
+		interp.setImage(a);
+		for( int y = 0; y < b.height; y++ ) {
+			for( int x = 0; x < b.width; x++ ) {
+				b.set(x,y,interp.get(cx+(x-cx)/scale,cy+(y-cy)/scale));
+			}
+		}
+
+		CirculantTracker_F32<GrayF32> alg = create(64);
+		alg.setScales(new float[]{0.8f,1.0f,1.2f},1.0f);
+		alg.initialize(a,40,40,40,40);
+		alg.updateTrackLocation(b);
+
+		RectangleLength2D_F32 r = alg.getTargetLocation();
+		assertEquals(40*scale,r.width,1e-3);
+		assertEquals(40*scale,r.height,1e-3);
+		assertEquals(cx,r.x0+r.width/2,1.5);
+		assertEquals(cy,r.y0+r.height/2,1.5);
+	}
+
+	/**
+	 * Scale 1 must always be searched, otherwise there might not be a valid scale to select
+	 */
+	@Test
+	public void setScales_mustIncludeOne() {
+		CirculantTracker_F32<GrayF32> alg = create(32);
+		assertThrows(IllegalArgumentException.class,()->alg.setScales(new float[]{0.5f,2f},0.98f));
+		assertThrows(IllegalArgumentException.class,()->alg.setScales(new float[0],0.98f));
+		alg.setScales(new float[]{0.5f,1f,2f},0.98f);
+	}
+
+	/**
+	 * Target is near the image border and large, so the larger scale is skipped. Tracking should still work
+	 */
+	@Test
+	public void multipleScales_nearBorder() {
+		GrayF32 a = new GrayF32(100,100);
+		GrayF32 b = new GrayF32(100,100);
+		GImageMiscOps.fillUniform(a,rand,0,200);
+		GImageMiscOps.fillUniform(b,rand,0,200);
+		shiftCopy(1,-1,a,b);
+
+		CirculantTracker_F32<GrayF32> alg = create(64);
+		alg.setScales(new float[]{0.5f,1f,2f},0.98f);
+		alg.initialize(a,38,36,60,62);
+
+		assertTrue(alg.performTracking(b));
+		RectangleLength2D_F32 r = alg.getTargetLocation();
+		assertEquals(60,r.width,1e-3);
+		assertEquals(62,r.height,1e-3);
+		assertEquals(38+1,r.x0,1);
+		assertEquals(36-1,r.y0,1);
+	}
+
+	/**
+	 * If the response is NaN everywhere tracking should fail instead of crashing
+	 */
+	@Test
+	public void performTracking_nanResponse() {
+		GrayF32 a = new GrayF32(60,60);
+		GrayF32 b = new GrayF32(60,60);
+		GImageMiscOps.fillUniform(a,rand,0,200);
+		ImageMiscOps.fill(b,Float.NaN);
+
+		CirculantTracker_F32<GrayF32> alg = create(32);
+		alg.setScales(new float[]{0.5f,1f,2f},0.98f);
+		alg.initialize(a,2,3,20,25);
+
+		assertFalse(alg.performTracking(b));
+	}
+
+	@Test
+	public void dense_gauss_kernel() {
+		// try several different shifts
+		dense_gauss_kernel(0,0);
+		dense_gauss_kernel(5,0);
+		dense_gauss_kernel(0,5);
+		dense_gauss_kernel(-3,-2);
+	}
+
+	public void dense_gauss_kernel( int offX , int offY ) {
+		GrayF32 region = new GrayF32(32,32);
+		GrayF32 target = new GrayF32(32,32);
+		GrayF32 k = new GrayF32(32,32);
+
+		CirculantTracker_F32<GrayF32> alg = create(32);
+		alg.initialize(new GrayF32(32,32),0,0,32,32);
+
+		// create a shape inside the image
+		GImageMiscOps.fillRectangle(region,200,10,15,5,7);
+
+		// copy a shifted portion of the region
+		shiftCopy(offX, offY, region, target);
+
+		float[] regionf = new float[32*32];
+		float[] targetf = new float[32*32];
+		alg.forward(region,regionf);
+		alg.forward(target,targetf);
+
+		// process and see if the peak is where it should be
+		alg.dense_gauss_kernel(0.2f,regionf,CirculantTracker_F32.imageDotProduct(region),
+				targetf,CirculantTracker_F32.imageDotProduct(target),k);
+
+		int maxX=-1,maxY=-1;
+		double maxValue = -1;
+		for( int y = 0; y < k.height;y++ ){
+			for( int x=0; x < k.width;x++ ) {
+				if( k.get(x,y) > maxValue ) {
+					maxValue = k.get(x,y);
+					maxX = x;
+					maxY = y;
+				}
+			}
+		}
+
+		int expectedX = k.width/2-offX;
+		int expectedY = k.height/2-offY;
+
+		assertEquals(expectedX,maxX);
+		assertEquals(expectedY,maxY);
+	}
+
+	/**
+	 * Compare packed operations against the same operation applied to the full spectrum
+	 */
+	@Test
+	public void packedOperations() {
+		packedOperations(16,16);
+		packedOperations(8,32);
+	}
+
+	private void packedOperations( int width , int height ) {
+		GrayF32 a = new GrayF32(width,height);
+		GrayF32 b = new GrayF32(width,height);
+		ImageMiscOps.fillUniform(a,rand,-10,10);
+		ImageMiscOps.fillUniform(b,rand,-10,10);
+
+		DiscreteFourierTransform<GrayF32,InterleavedF32> dft = DiscreteFourierTransformOps.createTransformF32();
+		InterleavedF32 fullA = new InterleavedF32(width,height,2);
+		InterleavedF32 fullB = new InterleavedF32(width,height,2);
+		InterleavedF32 fullC = new InterleavedF32(width,height,2);
+		dft.forward(a,fullA);
+		dft.forward(b,fullB);
+
+		GeneralPurposeFFT_F32_2D fft = new GeneralPurposeFFT_F32_2D(height,width);
+		float[] packedA = new float[width*height];
+		float[] packedB = new float[width*height];
+		float[] packedC = new float[width*height];
+		System.arraycopy(a.data,0,packedA,0,packedA.length);
+		System.arraycopy(b.data,0,packedB,0,packedB.length);
+		fft.realForward(packedA);
+		fft.realForward(packedB);
+
+		GrayF32 expected = new GrayF32(width,height);
+		GrayF32 found = new GrayF32(width,height);
+
+		// multiplication
+		DiscreteFourierTransformOps.multiplyComplex(fullA,fullB,fullC);
+		CirculantTracker_F32.multiplyComplex(packedA,packedB,packedC,height,width);
+		dft.inverse(fullC,expected);
+		inverse(fft,packedC,found);
+		assertImagesEqual(expected,found);
+
+		// multiplication by the conjugate
+		for( int i = 0; i < width*height*2; i += 2 ) {
+			float realA = fullA.data[i], imgA = fullA.data[i+1];
+			float realB = fullB.data[i], imgB = fullB.data[i+1];
+			fullC.data[i] = realA*realB + imgA*imgB;
+			fullC.data[i+1] = -realA*imgB + imgA*realB;
+		}
+		CirculantTracker_F32.elementMultConjB(packedA,packedB,packedC,height,width);
+		dft.inverse(fullC,expected);
+		inverse(fft,packedC,found);
+		assertImagesEqual(expected,found);
+
+		// alphas
+		float lambda = 0.5f;
+		for( int i = 0; i < width*height*2; i += 2 ) {
+			float realA = fullA.data[i], imgA = fullA.data[i+1];
+			float c = fullB.data[i]+lambda, d = fullB.data[i+1];
+			float bottom = c*c + d*d;
+			fullC.data[i] = (realA*c + imgA*d)/bottom;
+			fullC.data[i+1] = (imgA*c - realA*d)/bottom;
+		}
+		CirculantTracker_F32.computeAlphas(packedA,packedB,lambda,packedC,height,width);
+		dft.inverse(fullC,expected);
+		inverse(fft,packedC,found);
+		assertImagesEqual(expected,found);
+	}
+
+	private static void inverse( GeneralPurposeFFT_F32_2D fft , float[] packed , GrayF32 output ) {
+		System.arraycopy(packed,0,output.data,0,packed.length);
+		fft.realInverse(output.data,true);
+	}
+
+	private static void assertImagesEqual( GrayF32 expected , GrayF32 found ) {
+		float tol = 1e-3f*(1+maxAbs(expected));
+		for( int i = 0; i < expected.data.length; i++ ) {
+			assertEquals(expected.data[i],found.data[i],tol);
+		}
+	}
+
+	private static float maxAbs( GrayF32 image ) {
+		float max = 0;
+		for( int i = 0; i < image.data.length; i++ ) {
+			max = Math.max(max,Math.abs(image.data[i]));
+		}
+		return max;
+	}
+
+	private void shiftCopy(int offX, int offY, GrayF32 src, GrayF32 dst) {
+		for( int y = 0; y < src.height; y++ ) {
+			for( int x = 0; x < src.width; x++ ) {
+				int xx = x + offX;
+				int yy = y + offY;
+
+				if( xx >= 0 && xx < src.width && yy >= 0 && yy < src.height ) {
+					dst.set(xx, yy, src.get(x, y));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.tracker.tld;
+
+import boofcv.alg.interpolate.InterpolatePixelS;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.factory.interpolate.FactoryInterpolation;
+import boofcv.struct.ImageRectangle;
+import boofcv.struct.border.BorderType;
+import boofcv.struct.image.GrayU8;
+import georegression.struct.shapes.Rectangle2D_F64;
+import org.ddogleg.struct.FastQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestTldDetection_MT {
+
+	Random rand = new Random(234);
+
+	int width = 120;
+	int height = 100;
+
+	/**
+	 * Learn from the same image then run the detection cascade. The results should be identical
+	 */
+	@Test
+	public void compareToSingle() {
+		GrayU8 image = new GrayU8(width,height);
+		ImageMiscOps.fillUniform(image,rand,0,200);
+		// add a distinctive target
+		ImageMiscOps.fillRectangle(image,250,40,30,20,25);
+		ImageMiscOps.fillRectangle(image,10,45,35,10,15);
+
+		Rectangle2D_F64 target = new Rectangle2D_F64(40,30,60,55);
+
+		FastQueue<ImageRectangle> cascadeRegions = new FastQueue<>(ImageRectangle.class, true);
+		for( int y0 = 1; y0 < height-25; y0 += 2 ) {
+			for( int x0 = 1; x0 < width-20; x0 += 2 ) {
+				cascadeRegions.grow().set(x0,y0,x0+20,y0+25);
+			}
+		}
+
+		Pipeline single = new Pipeline(false, image);
+		Pipeline multi = new Pipeline(true, image);
+
+		single.learning.initialLearning(target, cascadeRegions);
+		multi.learning.initialLearning(target, cascadeRegions);
+		single.detection.detectionCascade(cascadeRegions);
+		multi.detection.detectionCascade(cascadeRegions);
+
+		TldDetection<GrayU8> a = single.detection;
+		TldDetection<GrayU8> b = multi.detection;
+
+		assertTrue(a.getFernInfo().size > 0);
+		assertEquals(a.getFernInfo().size, b.getFernInfo().size);
+		for( int i = 0; i < a.getFernInfo().size; i++ ) {
+			TldRegionFernInfo fa = a.getFernInfo().get(i);
+			TldRegionFernInfo fb = b.getFernInfo().get(i);
+			assertTrue(fa.r == fb.r);
+			assertEquals(fa.sumP, fb.sumP);
+			assertEquals(fa.sumN, fb.sumN);
+		}
+
+		assertTrue(a.getCandidateDetections().size > 0);
+		compare(a.getCandidateDetections(), b.getCandidateDetections());
+		compare(a.getLocalMaximums(), b.getLocalMaximums());
+
+		assertEquals(a.isSuccess(), b.isSuccess());
+		assertEquals(a.isAmbiguous(), b.isAmbiguous());
+		if( a.isSuccess() ) {
+			compare(a.getBest(), b.getBest());
+		}
+	}
+
+	private void compare( FastQueue<TldRegion> expected , FastQueue<TldRegion> found ) {
+		assertEquals(expected.size, found.size);
+		for( int i = 0; i < expected.size; i++ ) {
+			compare(expected.get(i), found.get(i));
+		}
+	}
+
+	private void compare( TldRegion expected , TldRegion found ) {
+		assertEquals(expected.confidence, found.confidence);
+		assertEquals(expected.connections, found.connections);
+		assertEquals(expected.rect.x0, found.rect.x0);
+		assertEquals(expected.rect.y0, found.rect.y0);
+		assertEquals(expected.rect.x1, found.rect.x1);
+		assertEquals(expected.rect.y1, found.rect.y1);
+	}
+
+	private static class Pipeline {
+		TldDetection<GrayU8> detection;
+		TldLearning<GrayU8> learning;
+
+		Pipeline( boolean concurrent , GrayU8 image ) {
+			TldParameters config = new TldParameters();
+			Random rand = new Random(345);
+
+			TldVarianceFilter<GrayU8> variance = new TldVarianceFilter<>(GrayU8.class);
+			TldTemplateMatching<GrayU8> template = new TldTemplateMatching<>(createInterpolate());
+			TldFernClassifier<GrayU8> fern;
+
+			if( concurrent ) {
+				TldFernClassifier_MT<GrayU8> fernMT = new TldFernClassifier_MT<>(
+						rand, config.numFerns, config.fernSize, 20, 0.5f, createInterpolate());
+				fernMT.minBlock = 5;
+				fern = fernMT;
+				TldDetection_MT<GrayU8> detectionMT = new TldDetection_MT<>(fern, template, variance, config);
+				detectionMT.minBlockCascade = 10;
+				detectionMT.minBlockTemplate = 1;
+				detection = detectionMT;
+			} else {
+				fern = new TldFernClassifier<>(
+						rand, config.numFerns, config.fernSize, 20, 0.5f, createInterpolate());
+				detection = new TldDetection<>(fern, template, variance, config);
+			}
+			learning = new TldLearning<>(rand, config, template, variance, fern, detection);
+
+			variance.setImage(image);
+			template.setImage(image);
+			fern.setImage(image);
+		}
+	}
+
+	private static InterpolatePixelS<GrayU8> createInterpolate() {
+		return FactoryInterpolation.bilinearPixelS(GrayU8.class, BorderType.EXTENDED);
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.tracker.tld;
+
+import boofcv.alg.interpolate.InterpolatePixelS;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.factory.interpolate.FactoryInterpolation;
+import boofcv.struct.ImageRectangle;
+import boofcv.struct.border.BorderType;
+import boofcv.struct.image.GrayU8;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestTldFernClassifier_MT {
+
+	Random rand = new Random(234);
+
+	GrayU8 input = new GrayU8(60,80);
+
+	public TestTldFernClassifier_MT() {
+		ImageMiscOps.fillUniform(input,rand,0,200);
+	}
+
+	@Test
+	public void learnFern_list() {
+		TldFernClassifier<GrayU8> single = new TldFernClassifier<>(
+				new Random(234),5,8,7,10,createInterpolate());
+		TldFernClassifier_MT<GrayU8> multi = new TldFernClassifier_MT<>(
+				new Random(234),5,8,7,10,createInterpolate());
+		multi.minBlock = 5;
+
+		single.setImage(input);
+		multi.setImage(input);
+
+		List<ImageRectangle> regions = new ArrayList<>();
+		for( int i = 0; i < 100; i++ ) {
+			int x0 = rand.nextInt(30);
+			int y0 = rand.nextInt(40);
+			regions.add(new ImageRectangle(x0,y0,x0+10+rand.nextInt(20),y0+10+rand.nextInt(30)));
+		}
+
+		single.learnFern(true, regions);
+		multi.learnFern(true, regions);
+		single.learnFern(false, regions.subList(0,60));
+		multi.learnFern(false, regions.subList(0,60));
+
+		assertTrue(single.getMaxP() > 0);
+		assertEquals(single.getMaxP(), multi.getMaxP());
+		assertEquals(single.getMaxN(), multi.getMaxN());
+
+		for( int i = 0; i < single.managers.length; i++ ) {
+			TldFernFeature[] tableA = single.managers[i].table;
+			TldFernFeature[] tableB = multi.managers[i].table;
+			for( int j = 0; j < tableA.length; j++ ) {
+				if( tableA[j] == null ) {
+					assertTrue(tableB[j] == null);
+				} else {
+					assertEquals(tableA[j].numP, tableB[j].numP);
+					assertEquals(tableA[j].numN, tableB[j].numN);
+					assertEquals(tableA[j].posterior, tableB[j].posterior);
+				}
+			}
+		}
+	}
+
+	private InterpolatePixelS<GrayU8> createInterpolate() {
+		return FactoryInterpolation.bilinearPixelS(GrayU8.class, BorderType.EXTENDED);
+	}
+}
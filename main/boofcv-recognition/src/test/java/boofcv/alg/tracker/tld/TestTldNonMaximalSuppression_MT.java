@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.tracker.tld;
+
+import org.ddogleg.struct.FastQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestTldNonMaximalSuppression_MT {
+
+	Random rand = new Random(234);
+
+	@Test
+	public void compareToSingle() {
+		FastQueue<TldRegion> regions = new FastQueue<>(TldRegion.class, true);
+		for( int i = 0; i < 200; i++ ) {
+			TldRegion r = regions.grow();
+			int x0 = rand.nextInt(100);
+			int y0 = rand.nextInt(100);
+			r.rect.set(x0,y0,x0+10+rand.nextInt(10),y0+10+rand.nextInt(10));
+			r.confidence = rand.nextDouble();
+		}
+
+		TldNonMaximalSuppression single = new TldNonMaximalSuppression(0.5);
+		TldNonMaximalSuppression_MT multi = new TldNonMaximalSuppression_MT(0.5);
+		multi.minBlock = 10;
+
+		FastQueue<TldRegion> expected = new FastQueue<>(TldRegion.class, true);
+		FastQueue<TldRegion> found = new FastQueue<>(TldRegion.class, true);
+
+		single.process(regions,expected);
+		int[] connections = new int[regions.size];
+		for( int i = 0; i < regions.size; i++ ) {
+			connections[i] = regions.get(i).connections;
+			regions.get(i).connections = 0;
+		}
+		multi.process(regions,found);
+
+		assertTrue(expected.size > 0);
+		assertEquals(expected.size, found.size);
+		for( int i = 0; i < expected.size; i++ ) {
+			TldRegion a = expected.get(i);
+			TldRegion b = found.get(i);
+			assertEquals(a.confidence, b.confidence);
+			assertEquals(a.connections, b.connections);
+			assertEquals(a.rect.x0, b.rect.x0);
+			assertEquals(a.rect.y0, b.rect.y0);
+			assertEquals(a.rect.x1, b.rect.x1);
+			assertEquals(a.rect.y1, b.rect.y1);
+		}
+
+		for( int i = 0; i < regions.size; i++ ) {
+			assertEquals(connections[i], regions.get(i).connections);
+			assertEquals(single.getConnections().data[i].maximum, multi.getConnections().data[i].maximum);
+		}
+	}
+}
@@ -58,12 +58,12 @@ public class StitchingFromMotion2D<I extends ImageBase<I>, IT extends Invertible
 	// estimates image motion
 	private ImageMotion2D<I,IT> motion;
 	// renders the distorted image according to results from motion
-	private ImageDistort<I,I> distorter;
+	protected ImageDistort<I,I> distorter;
 	// converts different types of motion models into other formats
-	private StitchingTransform<IT> converter;
+	protected StitchingTransform<IT> converter;
 
 	// Transform from first video frame to the initial location in the stitched image
-	private IT worldToInit;
+	protected IT worldToInit;
 	// size of the stitch image
 	private int widthStitch, heightStitch;
 
@@ -75,15 +75,18 @@ public class StitchingFromMotion2D<I extends ImageBase<I>, IT extends Invertible
 	private double previousArea;
 
 	// storage for the transform from current frame to the initial frame
-	private IT worldToCurr;
+	protected IT worldToCurr;
 
-	private PixelTransform<Point2D_F32> tranWorldToCurr;
-	private PixelTransform<Point2D_F32> tranCurrToWorld;
+	protected PixelTransform<Point2D_F32> tranWorldToCurr;
+	protected PixelTransform<Point2D_F32> tranCurrToWorld;
 	private Point2D_F32 work = new Point2D_F32();
 
 	// storage for the stitched image
-	private I stitchedImage;
-	private I workImage;
+	protected I stitchedImage;
+	protected I workImage;
+
+	// storage for the transform from new to old stitch image when resizing
+	private Homography2D_F64 newToOldH = new Homography2D_F64();
 
 	// first time that it has been called
 	private boolean first = true;
@@ -209,10 +212,26 @@ public class StitchingFromMotion2D<I extends ImageBase<I>, IT extends Invertible
 		int x1 = box.x0 + box.width;
 		int y1 = box.y0 + box.height;
 
+		renderFrame(image, x0, y0, x1, y1);
+	}
+
+	/**
+	 * Renders the current frame into the stitched image inside the specified region of the stitched image
+	 * using {@link #tranWorldToCurr}.
+	 */
+	protected void renderFrame( I image , int x0 , int y0 , int x1 , int y1 ) {
 		distorter.setModel(tranWorldToCurr);
 		distorter.apply(image, stitchedImage,x0,y0,x1,y1);
 	}
 
+	/**
+	 * Renders the entire 'dst' stitch image from the 'src' stitch image
+	 */
+	protected void renderStitch( I src , I dst , PixelTransform<Point2D_F32> dstToSrc ) {
+		distorter.setModel(dstToSrc);
+		distorter.apply(src, dst);
+	}
+
 	private void computeCurrToInit_PixelTran() {
 		IT initToCurr = motion.getFirstToCurrent();
 		worldToInit.concat(initToCurr, worldToCurr);
@@ -238,8 +257,7 @@ public class StitchingFromMotion2D<I extends ImageBase<I>, IT extends Invertible
 		// fill in the background color
 		GImageMiscOps.fill(workImage, 0);
 		// render the transform
-		distorter.setModel(newToOld);
-		distorter.apply(stitchedImage, workImage);
+		renderStitch(stitchedImage, workImage, newToOld);
 
 		// swap the two images
 		I s = workImage;
@@ -256,6 +274,8 @@ public class StitchingFromMotion2D<I extends ImageBase<I>, IT extends Invertible
 	/**
 	 * Resizes the stitch image.  If no transform is provided then the old stitch region is simply
 	 * places on top of the new one and copied.  Pixels which do not exist in the old image are filled with zero.
+	 * If the transform is a translation by a whole number of pixels then the old image is copied instead of
+	 * being rendered again.
 	 *
 	 * @param widthStitch The new width of the stitch image.
 	 * @param heightStitch The new height of the stitch image.
@@ -267,9 +287,14 @@ public class StitchingFromMotion2D<I extends ImageBase<I>, IT extends Invertible
 		workImage.reshape(widthStitch,heightStitch);
 		GImageMiscOps.fill(workImage, 0);
 		if( newToOldStitch != null ) {
-			PixelTransform<Point2D_F32> newToOld = converter.convertPixel(newToOldStitch,null);
-			distorter.setModel(newToOld);
-			distorter.apply(stitchedImage, workImage);
+			converter.convertH(newToOldStitch, newToOldH);
+			if( isPixelTranslation(newToOldH) ) {
+				copyTranslated((int)Math.round(newToOldH.a13/newToOldH.a33),
+						(int)Math.round(newToOldH.a23/newToOldH.a33));
+			} else {
+				PixelTransform<Point2D_F32> newToOld = converter.convertPixel(newToOldStitch, null);
+				renderStitch(stitchedImage, workImage, newToOld);
+			}
 
 			// update the transforms
 			IT tmp = (IT)worldToCurr.createInstance();
@@ -291,6 +316,33 @@ public class StitchingFromMotion2D<I extends ImageBase<I>, IT extends Invertible
 		this.heightStitch = heightStitch;
 	}
 
+	/**
+	 * Returns true if the transform is a translation by a whole number of pixels
+	 */
+	static boolean isPixelTranslation( Homography2D_F64 H ) {
+		double tol = 1e-8*Math.abs(H.a33);
+		if( H.a33 == 0 || Math.abs(H.a31) > tol || Math.abs(H.a32) > tol || Math.abs(H.a12) > tol || Math.abs(H.a21) > tol )
+			return false;
+		if( Math.abs(H.a11-H.a33) > tol || Math.abs(H.a22-H.a33) > tol )
+			return false;
+		double tx = H.a13/H.a33, ty = H.a23/H.a33;
+		return Math.abs(tx-Math.round(tx)) < 1e-6 && Math.abs(ty-Math.round(ty)) < 1e-6;
+	}
+
+	/**
+	 * Copies the stitched image into the work image where pixel (x,y) in the work image is pixel (x+tx,y+ty)
+	 * in the stitched image
+	 */
+	private void copyTranslated( int tx , int ty ) {
+		int dstX0 = Math.max(0, -tx);
+		int dstY0 = Math.max(0, -ty);
+		int dstX1 = Math.min(workImage.width, stitchedImage.width - tx);
+		int dstY1 = Math.min(workImage.height, stitchedImage.height - ty);
+		if( dstX1 <= dstX0 || dstY1 <= dstY0 )
+			return;
+		GImageMiscOps.copy(dstX0+tx, dstY0+ty, dstX0, dstY0, dstX1-dstX0, dstY1-dstY0, stitchedImage, workImage);
+	}
+
 	/**
 	 * Returns the location of the input image's corners inside the stitch image.
 	 *
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.sfm.d2;
+
+import boofcv.abst.sfm.d2.ImageMotion2D;
+import boofcv.alg.distort.ImageDistort;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.distort.PixelTransform;
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.lists.RecycleStack;
+import georegression.struct.InvertibleTransform;
+import georegression.struct.point.Point2D_F32;
+import georegression.struct.point.Point2D_F64;
+import org.ddogleg.struct.GrowQueue_I32;
+
+/**
+ * <p>
+ * Concurrent implementation of {@link StitchingFromMotion2D}. The stitched image is divided into square tiles.
+ * When a frame is added only the tiles which intersect the frame's footprint are rendered, and they are
+ * rendered in parallel with each thread having its own {@link ImageDistort}. Rendering the entire stitch
+ * image, e.g. when resizing or changing the origin, is also done in parallel by tile.
+ * </p>
+ *
+ * <p>
+ * Tiles which are inside the footprint's bounding box but outside of the footprint are only skipped if
+ * the distorter does not render all pixels, see {@link ImageDistort#setRenderAll(boolean)}, since otherwise
+ * they would be modified by the single threaded version.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class StitchingFromMotion2D_MT<I extends ImageBase<I>, IT extends InvertibleTransform>
+		extends StitchingFromMotion2D<I,IT>
+{
+	// width and height of a tile in pixels
+	protected int tileSize = 128;
+
+	// creates and recycles distorters for each thread
+	protected RecycleStack<ImageDistort<I,I>> distorters;
+
+	// index of each tile which needs to be rendered, y*numTilesX + x
+	protected GrowQueue_I32 dirtyTiles = new GrowQueue_I32();
+
+	// footprint of the current frame in the stitched image
+	private Corners footprint = new Corners();
+	private Point2D_F64[] polygon = new Point2D_F64[4];
+
+	/**
+	 * Provides internal algorithms and tuning parameters.
+	 *
+	 * @param motion Estimates image motion
+	 * @param factoryDistort Creates a distorter for each thread. All must be configured the same.
+	 * @param converter Converts internal model into a homogenous transformation
+	 * @param maxJumpFraction If the view area changes by more than this fraction a fault is declared
+	 */
+	public StitchingFromMotion2D_MT(ImageMotion2D<I, IT> motion,
+									RecycleStack.Factory<ImageDistort<I,I>> factoryDistort,
+									StitchingTransform<IT> converter,
+									double maxJumpFraction)
+	{
+		super(motion, factoryDistort.newInstance(), converter, maxJumpFraction);
+		distorters = new RecycleStack<>(factoryDistort);
+	}
+
+	@Override
+	protected void renderFrame(I image, int x0, int y0, int x1, int y1) {
+		if( x1 <= x0 || y1 <= y0 )
+			return;
+
+		// tiles are aligned to the stitched image so that their borders don't change between frames
+		int tx0 = x0/tileSize, ty0 = y0/tileSize;
+		int tx1 = (x1 + tileSize - 1)/tileSize, ty1 = (y1 + tileSize - 1)/tileSize;
+		int numTilesX = numTiles(stitchedImage.width);
+
+		getImageCorners(image.width, image.height, footprint);
+		boolean skipOutside = !distorter.getRenderAll() && isConvex(footprint);
+
+		dirtyTiles.reset();
+		for (int ty = ty0; ty < ty1; ty++) {
+			for (int tx = tx0; tx < tx1; tx++) {
+				if( skipOutside && !intersects(tx*tileSize, ty*tileSize, (tx+1)*tileSize, (ty+1)*tileSize) )
+					continue;
+				dirtyTiles.add(ty*numTilesX + tx);
+			}
+		}
+
+		renderTiles(image, stitchedImage, tranWorldToCurr, x0, y0, x1, y1);
+	}
+
+	@Override
+	protected void renderStitch(I src, I dst, PixelTransform<Point2D_F32> dstToSrc) {
+		int numTilesX = numTiles(dst.width);
+		int numTilesY = numTiles(dst.height);
+
+		dirtyTiles.reset();
+		for (int i = 0; i < numTilesX*numTilesY; i++) {
+			dirtyTiles.add(i);
+		}
+
+		renderTiles(src, dst, dstToSrc, 0, 0, dst.width, dst.height);
+	}
+
+	/**
+	 * Renders all the dirty tiles in parallel. Tiles are cropped by the specified region.
+	 */
+	protected void renderTiles( I src , I dst , PixelTransform<Point2D_F32> dstToSrc ,
+								int x0 , int y0 , int x1 , int y1 )
+	{
+		if( dirtyTiles.size == 0 )
+			return;
+
+		int numTilesX = numTiles(dst.width);
+		BoofConcurrency.loopBlocks(0, dirtyTiles.size, (i0, i1) -> {
+			ImageDistort<I,I> alg = distorters.pop();
+			alg.setModel(dstToSrc.copy());
+			for (int i = i0; i < i1; i++) {
+				int tile = dirtyTiles.data[i];
+				int tx = tile%numTilesX, ty = tile/numTilesX;
+				int px0 = Math.max(x0, tx*tileSize), py0 = Math.max(y0, ty*tileSize);
+				int px1 = Math.min(x1, (tx+1)*tileSize), py1 = Math.min(y1, (ty+1)*tileSize);
+				if( px1 > px0 && py1 > py0 )
+					alg.apply(src, dst, px0, py0, px1, py1);
+			}
+			distorters.recycle(alg);
+		});
+	}
+
+	private int numTiles( int length ) {
+		return (length + tileSize - 1)/tileSize;
+	}
+
+	/**
+	 * Checks to see if the footprint is a convex polygon
+	 */
+	boolean isConvex( Corners c ) {
+		polygon[0] = c.p0; polygon[1] = c.p1; polygon[2] = c.p2; polygon[3] = c.p3;
+		int sign = 0;
+		for (int i = 0; i < 4; i++) {
+			Point2D_F64 a = polygon[i], b = polygon[(i+1)%4], d = polygon[(i+2)%4];
+			double cross = (b.x-a.x)*(d.y-b.y) - (b.y-a.y)*(d.x-b.x);
+			int s = cross > 0 ? 1 : (cross < 0 ? -1 : 0);
+			if( s == 0 )
+				continue;
+			if( sign == 0 )
+				sign = s;
+			else if( sign != s )
+				return false;
+		}
+		return sign != 0;
+	}
+
+	/**
+	 * Tests to see if the rectangle intersects the convex footprint using the separating axis theorem. The
+	 * rectangle's axes are not tested since only tiles inside the footprint's bounding box are considered.
+	 * Must be called after {@link #isConvex}.
+	 */
+	boolean intersects( double rx0 , double ry0 , double rx1 , double ry1 ) {
+		for (int i = 0; i < 4; i++) {
+			Point2D_F64 a = polygon[i], b = polygon[(i+1)%4];
+			// normal of the edge
+			double nx = b.y-a.y, ny = a.x-b.x;
+
+			double polyMin = Double.MAX_VALUE, polyMax = -Double.MAX_VALUE;
+			for (int j = 0; j < 4; j++) {
+				double v = nx*polygon[j].x + ny*polygon[j].y;
+				polyMin = Math.min(polyMin, v);
+				polyMax = Math.max(polyMax, v);
+			}
+
+			double r0 = nx*rx0 + ny*ry0, r1 = nx*rx1 + ny*ry0, r2 = nx*rx1 + ny*ry1, r3 = nx*rx0 + ny*ry1;
+			double rectMin = Math.min(Math.min(r0,r1),Math.min(r2,r3));
+			double rectMax = Math.max(Math.max(r0,r1),Math.max(r2,r3));
+
+			if( rectMax < polyMin || rectMin > polyMax )
+				return false;
+		}
+		return true;
+	}
+
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	public void setTileSize(int tileSize) {
+		this.tileSize = tileSize;
+	}
+}
@@ -56,43 +56,43 @@ import java.util.List;
 public class VisOdomPixelDepthPnP<T extends ImageBase<T>> {
 
 	// when the inlier set is less than this number new features are detected
-	private int thresholdAdd;
+	protected int thresholdAdd;
 
 	// discard tracks after they have not been in the inlier set for this many updates in a row
-	private int thresholdRetire;
+	protected int thresholdRetire;
 
 	// run the tracker once or twice?
-	private boolean doublePass;
+	protected boolean doublePass;
 
 	// tracks features in the image
-	private PointTrackerTwoPass<T> tracker;
+	protected PointTrackerTwoPass<T> tracker;
 	// used to estimate a feature's 3D position from image range data
-	private ImagePixelTo3D pixelTo3D;
+	protected ImagePixelTo3D pixelTo3D;
 	// converts from pixel to normalized image coordinates
-	private Point2Transform2_F64 pixelToNorm;
+	protected Point2Transform2_F64 pixelToNorm;
 	// convert from normalized image coordinates to pixel
-	private Point2Transform2_F64 normToPixel;
+	protected Point2Transform2_F64 normToPixel;
 
 	// non-linear refinement of pose estimate
-	private RefinePnP refine;
+	protected RefinePnP refine;
 
 	// estimate the camera motion up to a scale factor from two sets of point correspondences
-	private ModelMatcher<Se3_F64, Point2D3D> motionEstimator;
+	protected ModelMatcher<Se3_F64, Point2D3D> motionEstimator;
 
 	// location of tracks in the image that are included in the inlier set
-	private List<Point2D3DTrack> inlierTracks = new ArrayList<>();
+	protected List<Point2D3DTrack> inlierTracks = new ArrayList<>();
 
 	// transform from key frame to world frame
-	private Se3_F64 keyToWorld = new Se3_F64();
+	protected Se3_F64 keyToWorld = new Se3_F64();
 	// transform from the current camera view to the key frame
-	private Se3_F64 currToKey = new Se3_F64();
+	protected Se3_F64 currToKey = new Se3_F64();
 	// transform from the current camera view to the world frame
 	private Se3_F64 currToWorld = new Se3_F64();
 
 	// is this the first camera view being processed?
-	private boolean first = true;
+	protected boolean first = true;
 	// number of frames processed.
-	private long tick;
+	protected long tick;
 
 	// used when concating motion
 	private Se3_F64 temp = new Se3_F64();
@@ -184,7 +184,7 @@ public class VisOdomPixelDepthPnP<T extends ImageBase<T>> {
 	 * Updates the relative position of all points so that the current frame is the reference frame.  Mathematically
 	 * this is not needed, but should help keep numbers from getting too large.
 	 */
-	private void changePoseToReference() {
+	protected void changePoseToReference() {
 		Se3_F64 keyToCurr = currToKey.invert(null);
 
 		List<PointTrack> all = tracker.getAllTracks(null);
@@ -221,7 +221,7 @@ public class VisOdomPixelDepthPnP<T extends ImageBase<T>> {
 	/**
 	 * Detects new features and computes their 3D coordinates
 	 */
-	private void addNewTracks() {
+	protected void addNewTracks() {
 //		System.out.println("----------- Adding new tracks ---------------");
 
 		tracker.spawnTracks();
@@ -231,7 +231,7 @@ public class VisOdomPixelDepthPnP<T extends ImageBase<T>> {
 		for( PointTrack t : spawned ) {
 			Point2D3DTrack p = t.getCookie();
 			if( p == null) {
-				t.cookie = p = new Point2D3DTrack();
+				t.cookie = p = createTrackInfo();
 			}
 
 			// discard point if it can't localized
@@ -253,6 +253,13 @@ public class VisOdomPixelDepthPnP<T extends ImageBase<T>> {
 		}
 	}
 
+	/**
+	 * Creates the data structure which is attached to each track as its cookie
+	 */
+	protected Point2D3DTrack createTrackInfo() {
+		return new Point2D3DTrack();
+	}
+
 	/**
 	 * Estimates motion from the set of tracks and their 3D location
 	 *
@@ -0,0 +1,356 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.sfm.d3;
+
+import boofcv.abst.feature.tracker.PointTrack;
+import boofcv.abst.feature.tracker.PointTrackerTwoPass;
+import boofcv.abst.geo.RefinePnP;
+import boofcv.abst.sfm.ImagePixelTo3D;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.struct.distort.Point2Transform2_F64;
+import boofcv.struct.geo.Point2D3D;
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.sfm.Point2D3DTrack;
+import georegression.struct.se.Se3_F64;
+import georegression.transform.se.SePointOps_F64;
+import org.ddogleg.fitting.modelset.ModelMatcher;
+import org.ddogleg.struct.FastQueue;
+import org.ddogleg.struct.GrowQueue_I32;
+import org.ddogleg.struct.GrowQueue_I64;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ * Pipelined implementation of {@link VisOdomPixelDepthPnP}. Tracking features in frame N+1 is done in the calling
+ * thread while the motion for frame N is estimated (RANSAC PnP and refinement) in a background thread. Observations
+ * are handed off to the background thread in one of two pre-allocated buffers which are recycled through a
+ * bounded queue. Once the buffers have grown to their maximum size the only per frame allocation is the
+ * {@link Future} created when the task is submitted to the thread pool.
+ * </p>
+ *
+ * <p>
+ * Track maintenance depends on the estimated motion, so it lags by one frame. Inliers are marked, tracks are
+ * dropped, and the key frame changes when the estimate for the previous frame is applied. New tracks are spawned in
+ * the current frame and are not used to estimate motion until that frame's motion relative to the key frame is known.
+ * As a result the estimates are not identical to the serial version and the pose returned by
+ * {@link #getCurrToWorld()} is for the frame processed before the most recent one, see {@link #getEstimateTick()}.
+ * </p>
+ *
+ * <p>
+ * If {@link #deterministic} is true then each frame is processed serially and the results are identical to
+ * {@link VisOdomPixelDepthPnP}. The double pass option requires the tracker while estimating motion so it is
+ * always processed serially.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class VisOdomPixelDepthPnP_MT<T extends ImageBase<T>> extends VisOdomPixelDepthPnP<T> {
+
+	/**
+	 * If true then frames are processed serially and results are identical to the single threaded version
+	 */
+	public boolean deterministic = false;
+
+	// Buffers which are not being used by either thread
+	ArrayBlockingQueue<FrameData> freeBuffers = new ArrayBlockingQueue<>(2);
+
+	// Frame which is having its motion estimated. null if none
+	FrameData pendingFrame;
+	Future<?> pendingFuture;
+	// estimates the motion of pendingFrame. Created once to avoid allocating a new lambda each frame
+	Runnable estimateTask = ()->estimateMotion(pendingFrame);
+
+	// The tick for the most recent estimate which has been applied
+	long estimateTick;
+
+	// work space
+	List<PointTrack> active = new ArrayList<>();
+	List<PointTrack> all = new ArrayList<>();
+
+	/**
+	 * @see VisOdomPixelDepthPnP#VisOdomPixelDepthPnP
+	 */
+	public VisOdomPixelDepthPnP_MT(int thresholdAdd, int thresholdRetire, boolean doublePass,
+								   ModelMatcher<Se3_F64, Point2D3D> motionEstimator,
+								   ImagePixelTo3D pixelTo3D, RefinePnP refine,
+								   PointTrackerTwoPass<T> tracker,
+								   Point2Transform2_F64 pixelToNorm, Point2Transform2_F64 normToPixel) {
+		super(thresholdAdd, thresholdRetire, doublePass, motionEstimator, pixelTo3D, refine, tracker,
+				pixelToNorm, normToPixel);
+		freeBuffers.add(new FrameData());
+		freeBuffers.add(new FrameData());
+	}
+
+	@Override
+	public void reset() {
+		// discard the estimate which is being computed
+		if( pendingFrame != null ) {
+			waitForEstimate();
+			freeBuffers.add(pendingFrame);
+			pendingFrame = null;
+		}
+		super.reset();
+		estimateTick = 0;
+	}
+
+	/**
+	 * Tracks features in the image and starts estimating its motion in a background thread.
+	 *
+	 * @param image Camera image.
+	 * @return true if the most recently completed estimate was successful or false if it failed
+	 */
+	@Override
+	public boolean process(T image) {
+		if( deterministic || doublePass ) {
+			boolean success = super.process(image);
+			estimateTick = tick;
+			return success;
+		}
+
+		// tracking the new frame overlaps with estimating the previous frame's motion
+		tracker.process(image);
+		tick++;
+
+		if( first ) {
+			inlierTracks.clear();
+			spawnTracks(false);
+			first = false;
+			estimateTick = tick;
+			return true;
+		}
+		tracker.finishTracking();
+
+		boolean success = true;
+		if( pendingFrame != null ) {
+			success = applyEstimate();
+		}
+
+		// hand off the observations for this frame
+		FrameData frame = freeBuffers.remove();
+		createObservations(frame);
+		pendingFrame = frame;
+		pendingFuture = BoofConcurrency.submit(estimateTask);
+
+		return success;
+	}
+
+	/**
+	 * Copies observations of active tracks with a known location in the key frame into the buffer
+	 */
+	void createObservations( FrameData frame ) {
+		frame.tick = tick;
+		frame.observations.reset();
+		frame.tracks.clear();
+		frame.trackIds.reset();
+
+		tracker.getActiveTracks(active);
+		for (int i = 0; i < active.size(); i++) {
+			PointTrack t = active.get(i);
+			TrackInfo info = t.getCookie();
+			if( info.pending )
+				continue;
+			Point2D3D p = frame.observations.grow();
+			pixelToNorm.compute(t.x, t.y, p.observation);
+			p.location.set(info.location);
+			frame.tracks.add(t);
+			frame.trackIds.add(t.featureId);
+		}
+		active.clear();
+	}
+
+	/**
+	 * Estimates the motion of a frame. Called in a background thread and only accesses the motion estimator,
+	 * refinement, and the frame's buffer.
+	 */
+	void estimateMotion( FrameData frame ) {
+		frame.inliers.reset();
+		frame.success = motionEstimator.process(frame.observations.toList());
+		if( !frame.success )
+			return;
+
+		if( refine != null ) {
+			refine.fitModel(motionEstimator.getMatchSet(), motionEstimator.getModelParameters(), frame.keyToCurr);
+		} else {
+			frame.keyToCurr.set(motionEstimator.getModelParameters());
+		}
+
+		int N = motionEstimator.getMatchSet().size();
+		for (int i = 0; i < N; i++) {
+			frame.inliers.add(motionEstimator.getInputIndex(i));
+		}
+	}
+
+	/**
+	 * Waits for the pending estimate to finish then updates the pose and performs track maintenance
+	 *
+	 * @return true if the estimate was successful
+	 */
+	boolean applyEstimate() {
+		waitForEstimate();
+		FrameData frame = pendingFrame;
+		pendingFrame = null;
+		estimateTick = frame.tick;
+		inlierTracks.clear();
+
+		if( !frame.success ) {
+			// the motion needed to move tracks spawned in this frame into the key frame is unknown
+			dropPendingTracks(frame.tick);
+			freeBuffers.add(frame);
+			return false;
+		}
+
+		frame.keyToCurr.invert(currToKey);
+
+		// mark tracks as being inliers and add to inlier list
+		for (int i = 0; i < frame.inliers.size; i++) {
+			int index = frame.inliers.get(i);
+			PointTrack t = frame.tracks.get(index);
+			// make sure the track wasn't recycled
+			if( t.featureId != frame.trackIds.get(index) )
+				continue;
+			TrackInfo info = t.getCookie();
+			info.lastInlier = frame.tick;
+			inlierTracks.add(info);
+		}
+		int numInliers = frame.inliers.size;
+
+		// Tracks which were spawned in this frame can now be converted into the key frame
+		tracker.getAllTracks(all);
+		for (int i = 0; i < all.size(); i++) {
+			TrackInfo info = all.get(i).getCookie();
+			if( info.pending && info.spawnTick == frame.tick ) {
+				SePointOps_F64.transform(currToKey, info.location, info.location);
+				info.pending = false;
+			}
+		}
+
+		// drop tracks which haven't been inliers recently
+		for (int i = 0; i < all.size(); i++) {
+			PointTrack t = all.get(i);
+			TrackInfo info = t.getCookie();
+			if( frame.tick - info.lastInlier > thresholdRetire )
+				tracker.dropTrack(t);
+		}
+		all.clear();
+
+		if( thresholdAdd <= 0 || numInliers < thresholdAdd ) {
+			// the estimated frame becomes the key frame and new tracks are spawned in the current frame
+			changePoseToReference();
+			spawnTracks(true);
+		}
+
+		freeBuffers.add(frame);
+		return true;
+	}
+
+	/**
+	 * Drops tracks which were spawned in the specified frame and have not been converted into the key frame
+	 */
+	private void dropPendingTracks( long spawnTick ) {
+		tracker.getAllTracks(all);
+		for (int i = 0; i < all.size(); i++) {
+			PointTrack t = all.get(i);
+			TrackInfo info = t.getCookie();
+			if( info.pending && info.spawnTick == spawnTick )
+				tracker.dropTrack(t);
+		}
+		all.clear();
+	}
+
+	private void waitForEstimate() {
+		if( pendingFuture == null )
+			return;
+		try {
+			pendingFuture.get();
+		} catch (InterruptedException | ExecutionException e) {
+			throw new RuntimeException(e);
+		} finally {
+			pendingFuture = null;
+		}
+	}
+
+	/**
+	 * Spawns new tracks in the current frame and computes their 3D location in the current frame
+	 *
+	 * @param pending If true then the current frame is not the key frame and the tracks can't be used yet
+	 */
+	private void spawnTracks( boolean pending ) {
+		addNewTracks();
+		tracker.getNewTracks(active);
+		for (int i = 0; i < active.size(); i++) {
+			TrackInfo info = active.get(i).getCookie();
+			info.pending = pending;
+			info.spawnTick = tick;
+		}
+		active.clear();
+	}
+
+	/**
+	 * Waits for the background thread to finish since the camera model might be used to estimate motion
+	 */
+	@Override
+	public void setPixelToNorm(Point2Transform2_F64 pixelToNorm) {
+		waitForEstimate();
+		super.setPixelToNorm(pixelToNorm);
+	}
+
+	@Override
+	protected Point2D3DTrack createTrackInfo() {
+		return new TrackInfo();
+	}
+
+	/**
+	 * The tick of the frame which the pose returned by {@link #getCurrToWorld()} is for
+	 */
+	public long getEstimateTick() {
+		return estimateTick;
+	}
+
+	/**
+	 * Track information with the extra book keeping needed to spawn tracks before the key frame is known
+	 */
+	static class TrackInfo extends Point2D3DTrack {
+		// true if the location is in the frame it was spawned in and not the key frame
+		boolean pending;
+		// tick the track was spawned in
+		long spawnTick;
+	}
+
+	/**
+	 * Data which is handed off to the motion estimation thread and the results
+	 */
+	static class FrameData {
+		long tick;
+		// observations and locations in the key frame
+		FastQueue<Point2D3D> observations = new FastQueue<>(Point2D3D.class,true);
+		// track for each observation and its ID to detect if it was recycled
+		List<PointTrack> tracks = new ArrayList<>();
+		GrowQueue_I64 trackIds = new GrowQueue_I64();
+
+		// results
+		boolean success;
+		Se3_F64 keyToCurr = new Se3_F64();
+		GrowQueue_I32 inliers = new GrowQueue_I32();
+	}
+}
@@ -50,7 +50,7 @@ public class PairwiseImageMatching<T extends ImageBase<T>>
 	implements Stoppable
 {
 	// Used to pre-maturely stop the scene estimation process
-	private volatile boolean stopRequested = false;
+	protected volatile boolean stopRequested = false;
 
 	protected double MIN_ASSOCIATE_FRACTION = 0.05;
 	protected int MIN_FEATURE_ASSOCIATED = 30;
@@ -215,8 +215,32 @@ public class PairwiseImageMatching<T extends ImageBase<T>>
 	protected boolean connectViews(PairwiseImageGraph.View viewA , PairwiseImageGraph.View viewB ,
 								   FastQueue<AssociatedIndex> matches) {
 
-		// Estimate fundamental/essential with RANSAC
 		PairwiseImageGraph.Motion edge = new PairwiseImageGraph.Motion();
+		if( !estimateMotion(viewA,viewB,matches,ransacEssential,ransacFundamental,pairs,edge) )
+			return false;
+
+		addEdge(viewA, viewB, edge);
+		return true;
+	}
+
+	/**
+	 * Estimates the motion between the two views using robust model fitting and decides if they should be
+	 * connected. The graph is not modified.
+	 *
+	 * @param ransacEssential Model fitter used when both cameras are calibrated
+	 * @param ransacFundamental Model fitter used when a camera is uncalibrated
+	 * @param pairs Work space for associated pairs
+	 * @param edge (Output) Description of the motion between the two views
+	 * @return true if the two views should be connected
+	 */
+	protected boolean estimateMotion(PairwiseImageGraph.View viewA , PairwiseImageGraph.View viewB ,
+									 FastQueue<AssociatedIndex> matches ,
+									 ModelMatcherMultiview<DMatrixRMaj,AssociatedPair> ransacEssential ,
+									 ModelMatcher<DMatrixRMaj,AssociatedPair> ransacFundamental ,
+									 FastQueue<AssociatedPair> pairs ,
+									 PairwiseImageGraph.Motion edge ) {
+
+		// Estimate fundamental/essential with RANSAC
 		int inliersEpipolar;
 
 		CameraPinhole pinhole0 = viewA.camera.pinhole;
@@ -227,7 +251,8 @@ public class PairwiseImageMatching<T extends ImageBase<T>>
 			ransacEssential.setIntrinsic(0,pinhole0);
 			ransacEssential.setIntrinsic(1,pinhole1);
 
-			if( !fitEpipolar(matches, viewA.observationNorm.toList(), viewB.observationNorm.toList(),ransacEssential,edge) ) {
+			if( !fitEpipolar(matches, viewA.observationNorm.toList(), viewB.observationNorm.toList(),
+					ransacEssential,pairs,edge) ) {
 				if( verbose != null && verboseLevel >= 1 ) {
 					verbose.println(" fit essential failed");
 				}
@@ -238,7 +263,7 @@ public class PairwiseImageMatching<T extends ImageBase<T>>
 			edge.F.set(ransacEssential.getModelParameters());
 		} else if( fitEpipolar(matches,
 					viewA.observationPixels.toList(), viewB.observationPixels.toList(),
-					ransacFundamental,edge) ) {
+					ransacFundamental,pairs,edge) ) {
 			// transform is only known up to a projective transform
 			edge.metric = false;
 			inliersEpipolar = ransacFundamental.getMatchSet().size();
@@ -262,9 +287,14 @@ public class PairwiseImageMatching<T extends ImageBase<T>>
 		double fractionA = inliersEpipolar/(double)viewA.descriptions.size;
 		double fractionB = inliersEpipolar/(double)viewB.descriptions.size;
 
-		if( fractionA < MIN_ASSOCIATE_FRACTION | fractionB < MIN_ASSOCIATE_FRACTION )
-			return false;
+		return !(fractionA < MIN_ASSOCIATE_FRACTION | fractionB < MIN_ASSOCIATE_FRACTION);
+	}
 
+	/**
+	 * Adds an edge between the two views to the graph
+	 */
+	protected void addEdge(PairwiseImageGraph.View viewA , PairwiseImageGraph.View viewB ,
+						   PairwiseImageGraph.Motion edge ) {
 		// If the geometry is good for triangulation this number will be lower
 		edge.viewSrc = viewA;
 		edge.viewDst = viewB;
@@ -272,8 +302,6 @@ public class PairwiseImageMatching<T extends ImageBase<T>>
 		viewA.connections.add(edge);
 		viewB.connections.add(edge);
 		graph.edges.add(edge);
-
-		return true;
 	}
 
 	/**
@@ -290,6 +318,19 @@ public class PairwiseImageMatching<T extends ImageBase<T>>
 						List<Point2D_F64> pointsA , List<Point2D_F64> pointsB ,
 						ModelMatcher<?,AssociatedPair> ransac ,
 						PairwiseImageGraph.Motion edge )
+	{
+		return fitEpipolar(matches,pointsA,pointsB,ransac,pairs,edge);
+	}
+
+	/**
+	 * Same as {@link #fitEpipolar(FastQueue, List, List, ModelMatcher, PairwiseImageGraph.Motion)} but with the
+	 * work space for associated pairs specified.
+	 */
+	boolean fitEpipolar(FastQueue<AssociatedIndex> matches ,
+						List<Point2D_F64> pointsA , List<Point2D_F64> pointsB ,
+						ModelMatcher<?,AssociatedPair> ransac ,
+						FastQueue<AssociatedPair> pairs ,
+						PairwiseImageGraph.Motion edge )
 	{
 		pairs.resize(matches.size);
 		for (int i = 0; i < matches.size; i++) {
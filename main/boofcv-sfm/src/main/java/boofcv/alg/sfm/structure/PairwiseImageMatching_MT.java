@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.sfm.structure;
+
+import boofcv.abst.feature.associate.AssociateDescription;
+import boofcv.abst.feature.detdesc.DetectDescribePoint;
+import boofcv.abst.geo.Triangulate2ViewsMetric;
+import boofcv.abst.geo.fitting.DistanceFromModelResidual;
+import boofcv.abst.geo.fitting.GenerateEpipolarMatrix;
+import boofcv.abst.geo.fitting.ModelManagerEpipolarMatrix;
+import boofcv.alg.geo.DistanceFromModelMultiView;
+import boofcv.alg.geo.f.FundamentalResidualSampson;
+import boofcv.alg.geo.robust.*;
+import boofcv.concurrency.BoofConcurrency;
+import boofcv.factory.geo.ConfigEssential;
+import boofcv.factory.geo.ConfigTriangulation;
+import boofcv.factory.geo.FactoryMultiView;
+import boofcv.struct.feature.AssociatedIndex;
+import boofcv.struct.feature.TupleDesc;
+import boofcv.struct.geo.AssociatedPair;
+import boofcv.struct.image.ImageBase;
+import boofcv.struct.lists.RecycleStack;
+import georegression.fitting.se.ModelManagerSe3_F64;
+import georegression.struct.se.Se3_F64;
+import org.ddogleg.fitting.modelset.DistanceFromModel;
+import org.ddogleg.fitting.modelset.ModelGenerator;
+import org.ddogleg.fitting.modelset.ModelManager;
+import org.ddogleg.fitting.modelset.ransac.Ransac;
+import org.ddogleg.struct.FastQueue;
+import org.ejml.data.DMatrixRMaj;
+
+/**
+ * <p>
+ * Concurrent implementation of {@link PairwiseImageMatching}. Every pair of images is independent, so the pairs
+ * are divided up between threads. Each thread has its own associator, work space, and single threaded RANSAC.
+ * Pairs are already processed in parallel, so the concurrent RANSAC returned by FactoryMultiViewRobust isn't used.
+ * </p>
+ *
+ * <p>
+ * The output is deterministic. Edges are added to the graph in the same order as the single threaded version
+ * after all the pairs have been processed. Each thread's RANSAC is re-seeded before every pair, so the
+ * result for a pair does not depend on which thread processed it or in what order. Because the single
+ * threaded version shares one random number generator across all pairs, the two versions can produce
+ * slightly different models.
+ * </p>
+ *
+ * @author Peter Abeles
+ */
+public class PairwiseImageMatching_MT<T extends ImageBase<T>> extends PairwiseImageMatching<T> {
+
+	// creates a new associator for each thread
+	RecycleStack.Factory<AssociateDescription<TupleDesc>> factoryAssociate;
+
+	// work space for each thread
+	RecycleStack<ThreadWork> workStack;
+
+	/**
+	 * Specifies the feature detector and how to create associators
+	 *
+	 * @param detDesc Feature detector and descriptor
+	 * @param factoryAssociate Creates a new instance of the associator. One is needed for each thread.
+	 */
+	public PairwiseImageMatching_MT(DetectDescribePoint<T, TupleDesc> detDesc,
+									RecycleStack.Factory<AssociateDescription<TupleDesc>> factoryAssociate ) {
+		super(detDesc, factoryAssociate.newInstance());
+		this.factoryAssociate = factoryAssociate;
+	}
+
+	@Override
+	public boolean process() {
+		if( graph.nodes.size() < 2 )
+			return false;
+		stopRequested = false;
+
+		// Work space is created here so that the model fitting uses the latest configuration
+		workStack = new RecycleStack<>(ThreadWork::new);
+
+		final int N = graph.nodes.size();
+		final int numPairs = N*(N-1)/2;
+
+		// Storage for the found edge for each pair. null means they aren't connected
+		final PairwiseImageGraph.Motion[] found = new PairwiseImageGraph.Motion[numPairs];
+
+		BoofConcurrency.loopBlocks(0,numPairs,(idx0,idx1)->{
+			ThreadWork w = workStack.pop();
+
+			// convert the pair index into the indexes of the two views
+			int i = 0, offset = 0;
+			while( offset + (N-1-i) <= idx0 ) {
+				offset += N-1-i;
+				i++;
+			}
+			int j = i+1+(idx0-offset);
+
+			for (int pairIdx = idx0; pairIdx < idx1 && !stopRequested; pairIdx++) {
+				found[pairIdx] = matchPair(graph.nodes.get(i),graph.nodes.get(j),w);
+
+				if( ++j >= N ) {
+					i++;
+					j = i+1;
+				}
+			}
+
+			workStack.recycle(w);
+		});
+
+		if( stopRequested )
+			return false;
+
+		// Add edges in the same order as the single threaded implementation
+		int pairIdx = 0;
+		for (int i = 0; i < N; i++) {
+			for (int j = i+1; j < N; j++, pairIdx++) {
+				if( found[pairIdx] != null ) {
+					addEdge(graph.nodes.get(i),graph.nodes.get(j),found[pairIdx]);
+				}
+			}
+		}
+		if( verbose != null )
+			verbose.println("Connected pairs "+graph.edges.size()+" / "+numPairs);
+
+		return graph.edges.size() >= 1;
+	}
+
+	/**
+	 * Associates features between the two views and fits a model to them
+	 *
+	 * @return The motion between the two views or null if they are not connected
+	 */
+	private PairwiseImageGraph.Motion matchPair( PairwiseImageGraph.View viewA ,
+												 PairwiseImageGraph.View viewB ,
+												 ThreadWork w ) {
+		w.associate.setSource(viewA.descriptions);
+		w.associate.setDestination(viewB.descriptions);
+		w.associate.associate();
+		FastQueue<AssociatedIndex> matches = w.associate.getMatches();
+		if( matches.size < MIN_FEATURE_ASSOCIATED )
+			return null;
+
+		// Start from the same seed for every pair so that the results are deterministic
+		w.seededEssential.reseed();
+		w.ransacFundamental.reseed();
+
+		PairwiseImageGraph.Motion edge = new PairwiseImageGraph.Motion();
+		if( !estimateMotion(viewA,viewB,matches,w.ransacEssential,w.ransacFundamental,w.pairs,edge) )
+			return null;
+		return edge;
+	}
+
+	class ThreadWork {
+		AssociateDescription<TupleDesc> associate = factoryAssociate.newInstance();
+		FastQueue<AssociatedPair> pairs = new FastQueue<>(AssociatedPair.class,true);
+
+		ModelMatcherMultiview<DMatrixRMaj,AssociatedPair> ransacEssential;
+		// RANSAC inside of ransacEssential
+		SeededRansacMultiView<?,AssociatedPair> seededEssential;
+		SeededRansac<DMatrixRMaj,AssociatedPair> ransacFundamental;
+
+		public ThreadWork() {
+			long seed = configRansac.randSeed;
+			int maxIterations = configRansac.maxIterations;
+			double tol = configRansac.inlierThreshold*configRansac.inlierThreshold;
+
+			configEssential.checkValidity();
+			configFundamental.checkValidity();
+			configRansac.checkValidity();
+
+			if( configEssential.errorModel == ConfigEssential.ErrorModel.GEOMETRIC ) {
+				Triangulate2ViewsMetric triangulate = FactoryMultiView.triangulate2ViewMetric(
+						new ConfigTriangulation(ConfigTriangulation.Type.GEOMETRIC));
+				SeededRansacMultiView<Se3_F64,AssociatedPair> ransac = new SeededRansacMultiView<>(seed,
+						new ModelManagerSe3_F64(),
+						new Se3FromEssentialGenerator(
+								FactoryMultiView.essential_1(configEssential.which, configEssential.numResolve),
+								triangulate),
+						new DistanceSe3SymmetricSq(triangulate), maxIterations, tol*2.0);
+				seededEssential = ransac;
+				ransacEssential = new MmmvSe3ToEssential(ransac);
+			} else {
+				SeededRansacMultiView<DMatrixRMaj,AssociatedPair> ransac = new SeededRansacMultiView<>(seed,
+						new ModelManagerEpipolarMatrix(),
+						new GenerateEpipolarMatrix(
+								FactoryMultiView.essential_1(configEssential.which, configEssential.numResolve)),
+						new DistanceMultiView_EssentialSampson(), maxIterations, tol);
+				seededEssential = ransac;
+				ransacEssential = ransac;
+			}
+
+			DistanceFromModel<DMatrixRMaj,AssociatedPair> distanceF;
+			switch( configFundamental.errorModel ) {
+				case SAMPSON:
+					distanceF = new DistanceFromModelResidual<>(new FundamentalResidualSampson());
+					break;
+
+				case GEOMETRIC:
+					distanceF = new DistanceFundamentalGeometric();
+					break;
+
+				default:
+					throw new RuntimeException("Unknown");
+			}
+			ransacFundamental = new SeededRansac<>(seed, new ModelManagerEpipolarMatrix(),
+					new GenerateEpipolarMatrix(
+							FactoryMultiView.fundamental_1(configFundamental.which, configFundamental.numResolve)),
+					distanceF, maxIterations, tol);
+		}
+	}
+
+	/**
+	 * {@link Ransac} which can be reset back to its initial seed
+	 */
+	static class SeededRansac<Model,Point> extends Ransac<Model,Point> {
+		long seed;
+
+		public SeededRansac(long randSeed, ModelManager<Model> modelManager,
+							ModelGenerator<Model, Point> modelGenerator,
+							DistanceFromModel<Model, Point> modelDistance,
+							int maxIterations, double thresholdFit) {
+			super(randSeed, modelManager, modelGenerator, modelDistance, maxIterations, thresholdFit);
+			this.seed = randSeed;
+		}
+
+		public void reseed() {
+			rand.setSeed(seed);
+		}
+	}
+
+	/**
+	 * {@link RansacMultiView} which can be reset back to its initial seed
+	 */
+	static class SeededRansacMultiView<Model,Point> extends RansacMultiView<Model,Point> {
+		long seed;
+
+		public SeededRansacMultiView(long randSeed, ModelManager<Model> modelManager,
+									 ModelGenerator<Model, Point> modelGenerator,
+									 DistanceFromModelMultiView<Model, Point> modelDistance,
+									 int maxIterations, double thresholdFit) {
+			super(randSeed, modelManager, modelGenerator, modelDistance, maxIterations, thresholdFit);
+			this.seed = randSeed;
+		}
+
+		public void reseed() {
+			rand.setSeed(seed);
+		}
+	}
+}
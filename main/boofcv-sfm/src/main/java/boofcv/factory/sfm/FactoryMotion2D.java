@@ -26,6 +26,7 @@ import boofcv.alg.geo.robust.*;
 import boofcv.alg.interpolate.InterpolatePixel;
 import boofcv.alg.interpolate.InterpolationType;
 import boofcv.alg.sfm.d2.*;
+import boofcv.concurrency.BoofConcurrency;
 import boofcv.factory.distort.FactoryDistort;
 import boofcv.factory.interpolate.FactoryInterpolation;
 import boofcv.struct.border.BorderType;
@@ -143,18 +144,24 @@ public class FactoryMotion2D {
 			transform = (StitchingTransform)FactoryStitchingTransform.createHomography_F64();
 		}
 
-		InterpolatePixel<I> interp;
+		if( imageType.getFamily() != ImageType.Family.GRAY && imageType.getFamily() != ImageType.Family.PLANAR ) {
+			throw new IllegalArgumentException("Unsupported image type");
+		}
 
-		if( imageType.getFamily() == ImageType.Family.GRAY || imageType.getFamily() == ImageType.Family.PLANAR ) {
-			interp = FactoryInterpolation.createPixelS(0, 255, InterpolationType.BILINEAR, BorderType.EXTENDED,
-					imageType.getImageClass());
+		if( BoofConcurrency.USE_CONCURRENT ) {
+			return new StitchingFromMotion2D_MT<>(motion2D, ()->createStitchDistort(imageType),
+					transform, maxJumpFraction);
 		} else {
-			throw new IllegalArgumentException("Unsupported image type");
+			return new StitchingFromMotion2D<>(motion2D, createStitchDistort(imageType), transform, maxJumpFraction);
 		}
+	}
+
+	private static <I extends ImageBase<I>> ImageDistort<I,I> createStitchDistort( ImageType<I> imageType ) {
+		InterpolatePixel<I> interp = FactoryInterpolation.createPixelS(0, 255, InterpolationType.BILINEAR,
+				BorderType.EXTENDED, imageType.getImageClass());
 
 		ImageDistort<I,I> distorter = FactoryDistort.distort(false, interp, imageType);
 		distorter.setRenderAll(false);
-
-		return new StitchingFromMotion2D<>(motion2D, distorter, transform, maxJumpFraction);
+		return distorter;
 	}
 }
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.abst.sfm.d3;
+
+import boofcv.abst.feature.detect.interest.ConfigGeneralDetector;
+import boofcv.abst.feature.disparity.StereoDisparitySparse;
+import boofcv.abst.feature.tracker.PointTrackerTwoPass;
+import boofcv.abst.geo.Estimate1ofPnP;
+import boofcv.alg.geo.DistanceFromModelMultiView;
+import boofcv.alg.geo.pose.PnPDistanceReprojectionSq;
+import boofcv.alg.sfm.StereoSparse3D;
+import boofcv.alg.sfm.d3.VisOdomPixelDepthPnP;
+import boofcv.alg.sfm.d3.VisOdomPixelDepthPnP_MT;
+import boofcv.alg.tracker.klt.PkltConfig;
+import boofcv.factory.feature.disparity.FactoryStereoDisparity;
+import boofcv.factory.feature.tracker.FactoryPointTrackerTwoPass;
+import boofcv.factory.geo.EnumPNP;
+import boofcv.factory.geo.EstimatorToGenerator;
+import boofcv.factory.geo.FactoryMultiView;
+import boofcv.struct.geo.Point2D3D;
+import boofcv.struct.image.GrayF32;
+import georegression.fitting.se.ModelManagerSe3_F64;
+import georegression.struct.se.Se3_F64;
+import org.ddogleg.fitting.modelset.ModelMatcher;
+import org.ddogleg.fitting.modelset.ransac.Ransac;
+import org.ejml.dense.row.MatrixFeatures_DDRM;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestWrapVisOdomPixelDepthPnP_MT extends CheckVisualOdometryStereoSim<GrayF32> {
+
+	public TestWrapVisOdomPixelDepthPnP_MT() {
+		super(GrayF32.class);
+	}
+
+	/**
+	 * Deterministic mode so that the pose isn't delayed by one frame
+	 */
+	@Override
+	public StereoVisualOdometry<GrayF32> createAlgorithm() {
+		return createAlgorithm(true);
+	}
+
+	/**
+	 * In deterministic mode the results should be identical to the serial algorithm
+	 */
+	@Test
+	public void deterministic_identical() {
+		StereoVisualOdometry<GrayF32> serial = createAlgorithm(false,null);
+		StereoVisualOdometry<GrayF32> concurrent = createAlgorithm(true);
+
+		List<Se3_F64> expected = processSequence(serial,null);
+		List<Se3_F64> found = processSequence(concurrent,null);
+
+		for (int i = 0; i < expected.size(); i++) {
+			assertTrue(MatrixFeatures_DDRM.isIdentical(expected.get(i).R,found.get(i).R,0));
+			assertEquals(0,expected.get(i).T.distance(found.get(i).T));
+		}
+	}
+
+	/**
+	 * In pipelined mode the pose is for the previous frame
+	 */
+	@Test
+	public void pipelined() {
+		List<VisOdomPixelDepthPnP_MT<GrayF32>> storage = new ArrayList<>();
+		StereoVisualOdometry<GrayF32> alg = createAlgorithm(true,storage);
+		VisOdomPixelDepthPnP_MT<GrayF32> mt = storage.get(0);
+		mt.deterministic = false;
+
+		List<Long> ticks = new ArrayList<>();
+		List<Se3_F64> found = processSequence(alg,()->ticks.add(mt.getEstimateTick()));
+
+		for (int i = 0; i < found.size(); i++) {
+			// the first frame is estimated immediately
+			int expectedFrame = Math.max(0,i-1);
+			assertEquals(expectedFrame+1,(long)ticks.get(i));
+
+			Se3_F64 worldToLeft = new Se3_F64();
+			worldToLeft.T.z = expectedFrame*0.05;
+			Se3_F64 foundWorldToLeft = found.get(i).invert(null);
+			assertTrue(MatrixFeatures_DDRM.isIdentical(foundWorldToLeft.getR(),worldToLeft.getR(),0.1));
+			assertTrue(foundWorldToLeft.getT().distance(worldToLeft.getT()) < tolerance );
+		}
+
+		// reset while an estimate is pending should not cause problems
+		alg.reset();
+		processSequence(alg,null);
+	}
+
+	private List<Se3_F64> processSequence( StereoVisualOdometry<GrayF32> algorithm , Runnable afterProcess ) {
+		algorithm.reset();
+		algorithm.setCalibration(param);
+
+		Se3_F64 worldToLeft = new Se3_F64();
+		Se3_F64 worldToRight = new Se3_F64();
+		Se3_F64 leftToRight = param.getRightToLeft().invert(null);
+
+		List<Se3_F64> poses = new ArrayList<>();
+		for( int i = 0; i < 10; i++ ) {
+			worldToLeft.getT().z = i*0.05;
+			worldToLeft.concat(leftToRight,worldToRight);
+
+			setIntrinsic(param.getLeft());
+			left.setTo(render(worldToLeft));
+			setIntrinsic(param.getRight());
+			right.setTo(render(worldToRight));
+
+			assertTrue(algorithm.process(left,right));
+			if( afterProcess != null )
+				afterProcess.run();
+			poses.add(algorithm.getCameraToWorld().copy());
+		}
+		return poses;
+	}
+
+	private StereoVisualOdometry<GrayF32> createAlgorithm( boolean deterministic ) {
+		List<VisOdomPixelDepthPnP_MT<GrayF32>> storage = new ArrayList<>();
+		StereoVisualOdometry<GrayF32> alg = createAlgorithm(true,storage);
+		storage.get(0).deterministic = deterministic;
+		return alg;
+	}
+
+	/**
+	 * Same configuration as {@link TestWrapVisOdomPixelDepthPnP}
+	 *
+	 * @param concurrent if true the concurrent algorithm is created
+	 * @param storage If not null the concurrent algorithm is added to this list
+	 */
+	private StereoVisualOdometry<GrayF32> createAlgorithm( boolean concurrent ,
+														   List<VisOdomPixelDepthPnP_MT<GrayF32>> storage ) {
+		StereoDisparitySparse<GrayF32> disparity =
+				FactoryStereoDisparity.regionSparseWta(2, 150, 3, 3, 30, -1, true, GrayF32.class);
+
+		PkltConfig config = new PkltConfig();
+		config.pyramidScaling = new int[]{1,2,4,8};
+		config.templateRadius = 3;
+
+		ConfigGeneralDetector configDetector = new ConfigGeneralDetector(600,3,1);
+
+		PointTrackerTwoPass<GrayF32> tracker = FactoryPointTrackerTwoPass.klt(config, configDetector,
+				GrayF32.class, GrayF32.class);
+
+		StereoSparse3D<GrayF32> pixelTo3D = new StereoSparse3D<>(disparity, GrayF32.class);
+		Estimate1ofPnP estimator = FactoryMultiView.pnp_1(EnumPNP.P3P_FINSTERWALDER,-1,2);
+		DistanceFromModelMultiView<Se3_F64,Point2D3D> distance = new PnPDistanceReprojectionSq();
+		ModelMatcher<Se3_F64, Point2D3D> motion = new Ransac<>(2323, new ModelManagerSe3_F64(),
+				new EstimatorToGenerator<>(estimator), distance, 200, 1.5*1.5);
+
+		VisOdomPixelDepthPnP<GrayF32> alg;
+		if( concurrent ) {
+			VisOdomPixelDepthPnP_MT<GrayF32> mt = new VisOdomPixelDepthPnP_MT<>(40, 2, false, motion,
+					pixelTo3D, FactoryMultiView.pnpRefine(1e-12,50), tracker, null, null);
+			if( storage != null )
+				storage.add(mt);
+			alg = mt;
+		} else {
+			alg = new VisOdomPixelDepthPnP<>(40, 2, false, motion,
+					pixelTo3D, FactoryMultiView.pnpRefine(1e-12,50), tracker, null, null);
+		}
+
+		return new WrapVisOdomPixelDepthPnP<>(alg, pixelTo3D, distance, GrayF32.class);
+	}
+}
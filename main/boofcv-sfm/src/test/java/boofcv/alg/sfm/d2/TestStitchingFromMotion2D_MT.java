@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.sfm.d2;
+
+import boofcv.abst.sfm.d2.ImageMotion2D;
+import boofcv.alg.distort.ImageDistort;
+import boofcv.alg.interpolate.InterpolatePixelS;
+import boofcv.alg.misc.ImageMiscOps;
+import boofcv.factory.distort.FactoryDistort;
+import boofcv.factory.interpolate.FactoryInterpolation;
+import boofcv.factory.sfm.FactoryStitchingTransform;
+import boofcv.struct.border.BorderType;
+import boofcv.struct.image.GrayF32;
+import boofcv.testing.BoofTesting;
+import georegression.struct.affine.Affine2D_F64;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestStitchingFromMotion2D_MT {
+	Random rand = new Random(234);
+
+	GrayF32 image = new GrayF32(100,150);
+
+	// rotation, scale, and translation so that the footprint doesn't line up with tiles
+	Affine2D_F64 motion0 = new Affine2D_F64(0.9,0.3,-0.3,0.9,-40,-60);
+	Affine2D_F64 motion1 = new Affine2D_F64(0.8,0.4,-0.4,0.8,-45,-50);
+
+	/**
+	 * The concurrent and single threaded versions should produce identical stitched images
+	 */
+	@Test
+	public void compareToSingleThread() {
+		ImageMiscOps.fillUniform(image,rand,1,255);
+
+		StitchingFromMotion2D<GrayF32,Affine2D_F64> expected =
+				new StitchingFromMotion2D<>(new Motion(),createDistort(),
+						FactoryStitchingTransform.createAffine_F64(),100);
+		StitchingFromMotion2D_MT<GrayF32,Affine2D_F64> found =
+				new StitchingFromMotion2D_MT<>(new Motion(),this::createDistort,
+						FactoryStitchingTransform.createAffine_F64(),100);
+		found.setTileSize(16);
+
+		for( StitchingFromMotion2D<GrayF32,Affine2D_F64> alg : new StitchingFromMotion2D[]{expected,found}) {
+			alg.configure(200,300,null);
+			assertTrue(alg.process(image));
+		}
+		BoofTesting.assertEquals(expected.getStitchedImage(),found.getStitchedImage(),1e-4);
+
+		// the second frame is only partially inside the stitched image
+		for( StitchingFromMotion2D<GrayF32,Affine2D_F64> alg : new StitchingFromMotion2D[]{expected,found}) {
+			((Motion)alg.getMotion()).found = motion1;
+			alg.process(image);
+		}
+		BoofTesting.assertEquals(expected.getStitchedImage(),found.getStitchedImage(),1e-4);
+
+		// render the entire image when the origin is changed
+		expected.setOriginToCurrent();
+		found.setOriginToCurrent();
+		BoofTesting.assertEquals(expected.getStitchedImage(),found.getStitchedImage(),1e-4);
+
+		// resize with a transform which isn't a translation
+		Affine2D_F64 newToOld = new Affine2D_F64(1.1,0,0,1.1,-3.5,4.5);
+		expected.resizeStitchImage(230,250,newToOld);
+		found.resizeStitchImage(230,250,newToOld);
+		BoofTesting.assertEquals(expected.getStitchedImage(),found.getStitchedImage(),1e-4);
+	}
+
+	private ImageDistort<GrayF32,GrayF32> createDistort() {
+		InterpolatePixelS<GrayF32> interp = FactoryInterpolation.bilinearPixelS(GrayF32.class, BorderType.EXTENDED);
+		ImageDistort<GrayF32,GrayF32> distorter = FactoryDistort.distortSB(false, interp, GrayF32.class);
+		distorter.setRenderAll(false);
+		return distorter;
+	}
+
+	private class Motion implements ImageMotion2D<GrayF32,Affine2D_F64> {
+		Affine2D_F64 found = motion0;
+
+		@Override
+		public boolean process(GrayF32 input) {
+			return true;
+		}
+
+		@Override
+		public void reset() {}
+
+		@Override
+		public void setToFirst() {}
+
+		@Override
+		public Affine2D_F64 getFirstToCurrent() {
+			return found;
+		}
+
+		@Override
+		public Class<Affine2D_F64> getTransformType() {
+			return Affine2D_F64.class;
+		}
+	}
+}
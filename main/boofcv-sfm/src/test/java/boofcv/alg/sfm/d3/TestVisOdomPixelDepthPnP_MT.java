@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.sfm.d3;
+
+import boofcv.abst.feature.tracker.PointTrack;
+import boofcv.abst.feature.tracker.PointTrackerTwoPass;
+import boofcv.struct.image.GrayF32;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Peter Abeles
+ */
+public class TestVisOdomPixelDepthPnP_MT {
+
+	/**
+	 * If the estimate fails then tracks spawned in that frame can never be converted into the key frame and
+	 * must be dropped. Other tracks are not modified.
+	 */
+	@Test
+	public void applyEstimate_failed() {
+		DummyTracker tracker = new DummyTracker();
+		VisOdomPixelDepthPnP_MT<GrayF32> alg = new VisOdomPixelDepthPnP_MT<>(40, 2, false,
+				null, null, null, tracker, null, null);
+
+		PointTrack spawned = tracker.add(5, true);
+		PointTrack older = tracker.add(4, true);
+		PointTrack key = tracker.add(1, false);
+
+		VisOdomPixelDepthPnP_MT.FrameData frame = alg.freeBuffers.remove();
+		frame.tick = 5;
+		frame.success = false;
+		alg.pendingFrame = frame;
+
+		assertFalse(alg.applyEstimate());
+
+		assertEquals(1, tracker.dropped.size());
+		assertTrue(tracker.dropped.contains(spawned));
+		assertTrue(tracker.all.contains(older));
+		assertTrue(tracker.all.contains(key));
+		assertEquals(5, alg.getEstimateTick());
+		assertNull(alg.pendingFrame);
+		assertEquals(2, alg.freeBuffers.size());
+	}
+
+	private static class DummyTracker implements PointTrackerTwoPass<GrayF32> {
+		List<PointTrack> all = new ArrayList<>();
+		List<PointTrack> dropped = new ArrayList<>();
+
+		PointTrack add( long spawnTick , boolean pending ) {
+			VisOdomPixelDepthPnP_MT.TrackInfo info = new VisOdomPixelDepthPnP_MT.TrackInfo();
+			info.spawnTick = spawnTick;
+			info.pending = pending;
+			info.lastInlier = spawnTick;
+			PointTrack t = new PointTrack(1,2,all.size());
+			t.cookie = info;
+			all.add(t);
+			return t;
+		}
+
+		@Override public void process(GrayF32 image) {}
+		@Override public void performSecondPass() {}
+		@Override public void finishTracking() {}
+		@Override public void setHint(double pixelX, double pixelY, PointTrack track) {}
+		@Override public void reset() {}
+		@Override public void dropAllTracks() { dropped.addAll(all); all.clear(); }
+
+		@Override
+		public boolean dropTrack(PointTrack track) {
+			if( !all.remove(track) )
+				return false;
+			dropped.add(track);
+			return true;
+		}
+
+		@Override
+		public List<PointTrack> getAllTracks(List<PointTrack> list) {
+			if( list == null )
+				list = new ArrayList<>();
+			list.addAll(all);
+			return list;
+		}
+
+		@Override
+		public List<PointTrack> getActiveTracks(List<PointTrack> list) {
+			return getAllTracks(list);
+		}
+
+		@Override
+		public List<PointTrack> getInactiveTracks(List<PointTrack> list) {
+			return list == null ? new ArrayList<>() : list;
+		}
+
+		@Override
+		public List<PointTrack> getDroppedTracks(List<PointTrack> list) {
+			return list == null ? new ArrayList<>() : list;
+		}
+
+		@Override
+		public List<PointTrack> getNewTracks(List<PointTrack> list) {
+			return list == null ? new ArrayList<>() : list;
+		}
+
+		@Override public void spawnTracks() {}
+	}
+}
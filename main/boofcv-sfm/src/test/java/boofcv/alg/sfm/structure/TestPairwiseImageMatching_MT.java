@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2011-2019, Peter Abeles. All Rights Reserved.
+ *
+ * This file is part of BoofCV (http://boofcv.org).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boofcv.alg.sfm.structure;
+
+import boofcv.abst.feature.associate.ScoreAssociation;
+import boofcv.factory.feature.associate.FactoryAssociation;
+import boofcv.struct.feature.AssociatedIndex;
+import boofcv.struct.image.GrayF32;
+import georegression.struct.se.SpecialEuclideanOps_F64;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the same tests as the single threaded version and checks to see if the output is deterministic
+ *
+ * @author Peter Abeles
+ */
+public class TestPairwiseImageMatching_MT extends TestPairwiseImageMatching {
+
+	/**
+	 * Processing the same input multiple times should produce identical graphs
+	 */
+	@Test
+	public void deterministic() {
+		PairwiseImageGraph expected = null;
+
+		for (int trial = 0; trial < 3; trial++) {
+			rand.setSeed(234);
+			MockDetector detector = new MockDetector();
+			PairwiseImageMatching alg = create(detector);
+			alg.getConfigRansac().maxIterations = 100;
+
+			alg.addCamera("camera");
+			for (int i = 0; i < 6; i++) {
+				detector.cameraToWorld.set(SpecialEuclideanOps_F64.eulerXyz(-0.5*i,0,0,0,0,0,null));
+				alg.addImage(new GrayF32(intrinsic.width,intrinsic.height),"camera");
+			}
+			alg.process();
+
+			PairwiseImageGraph found = alg.getGraph();
+			if( expected == null ) {
+				expected = found;
+				continue;
+			}
+
+			assertEquals(expected.edges.size(),found.edges.size());
+			for (int i = 0; i < expected.edges.size(); i++) {
+				PairwiseImageGraph.Motion a = expected.edges.get(i);
+				PairwiseImageGraph.Motion b = found.edges.get(i);
+
+				assertEquals(a.viewSrc.index,b.viewSrc.index);
+				assertEquals(a.viewDst.index,b.viewDst.index);
+				assertEquals(a.associated.size(),b.associated.size());
+				for (int k = 0; k < a.associated.size(); k++) {
+					AssociatedIndex ia = a.associated.get(k);
+					AssociatedIndex ib = b.associated.get(k);
+					assertEquals(ia.src,ib.src);
+					assertEquals(ia.dst,ib.dst);
+				}
+			}
+		}
+	}
+
+	@Override
+	public PairwiseImageMatching create( MockDetector detector ) {
+		ScoreAssociation scorer = FactoryAssociation.defaultScore(detector.getDescriptionType());
+		return new PairwiseImageMatching_MT(detector,()->FactoryAssociation.greedy(scorer, 0.5, true));
+	}
+}
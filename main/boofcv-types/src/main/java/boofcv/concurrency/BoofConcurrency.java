@@ -20,6 +20,7 @@ package boofcv.concurrency;
 
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.function.IntConsumer;
 import java.util.stream.IntStream;
 
@@ -50,6 +51,17 @@ public class BoofConcurrency {
 		return pool.getParallelism();
 	}
 
+	/**
+	 * Submits a task to the thread pool used by concurrent algorithms. Useful when a task should run in the
+	 * background while the calling thread does something else.
+	 *
+	 * @param task The task
+	 * @return Future which can be used to wait for the task to finish
+	 */
+	public static Future<?> submit( Runnable task ) {
+		return pool.submit(task);
+	}
+
 	/**
 	 * Concurrent for loop. Each loop with spawn as a thread up to the maximum number of threads.
 	 *
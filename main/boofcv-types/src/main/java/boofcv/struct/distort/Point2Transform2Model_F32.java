@@ -42,4 +42,7 @@ public interface Point2Transform2Model_F32<Model> extends Point2Transform2_F32 {
 	 * @return new instance
 	 */
 	Model newInstanceModel();
+
+	@Override
+	Point2Transform2Model_F32<Model> copy();
 }